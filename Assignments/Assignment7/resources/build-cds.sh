@@ -0,0 +1,37 @@
+#!/bin/sh
+# Builds a class-data sharing (AppCDS) archive for text and script runs of the application.
+# The application is run once on a training script to record the classes it loads; those classes
+# are then parsed and verified ahead of time into the archive, which later runs map directly.
+#
+# Usage (from the project root): sh resources/build-cds.sh [jar] [archive]
+# Then run the application with the same jar path:
+#   java -XX:SharedArchiveFile=resources/Program.jsa -cp resources/Program.jar \
+#        main.ImageProcessingApplication -file script.txt
+# Rebuild the archive whenever the jar or the JDK changes; a stale archive is ignored.
+set -e
+
+JAR=${1:-resources/Program.jar}
+ARCHIVE=${2:-resources/Program.jsa}
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+
+cat > "$WORK/training.txt" <<SCRIPT
+load resources/sampleImages/earth.jpg earth
+downscale 64 64 earth small
+save $WORK/small.ppm small
+load $WORK/small.ppm image
+brighten 10 image bright
+sepia bright toned
+blur toned soft
+sharpen soft sharp
+luma-component sharp gray
+horizontal-flip gray flipped
+save $WORK/flipped.ppm flipped
+save $WORK/flipped.png flipped
+SCRIPT
+
+java -Xshare:off -XX:DumpLoadedClassList="$WORK/classes.lst" \
+  -cp "$JAR" main.ImageProcessingApplication -file "$WORK/training.txt"
+java -Xshare:dump -XX:SharedClassListFile="$WORK/classes.lst" \
+  -XX:SharedArchiveFile="$ARCHIVE" -cp "$JAR"
+echo "Wrote $ARCHIVE"
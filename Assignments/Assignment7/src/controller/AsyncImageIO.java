@@ -0,0 +1,311 @@
+package controller;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import model.image.ImageInterface;
+
+/**
+ * Reads and writes the image files of a running script on background threads, so that disk I/O
+ * overlaps with image processing.
+ * Outside a script, {@link #read} and {@link #write} simply call {@link ImageIOUtil}. Between
+ * {@link #begin} and {@link #end}:
+ * <ul>
+ *   <li>{@link #prefetch} starts reading and decoding a file the script is about to load on a
+ *   reader thread. At most {@link #MAX_PREFETCHED} files are held; a new prefetch drops the
+ *   oldest one that was never loaded. A prefetched image is only used if the file still has the
+ *   size and modification time it had when the read started.</li>
+ *   <li>{@link #write} hands the image to a writer thread and returns. At most
+ *   {@link #MAX_PENDING_WRITES} writes are queued; a further write waits for the oldest. A read
+ *   of a path with a pending write waits for that write first.</li>
+ *   <li>{@link #flush} waits for every pending write. It is called at the end of a script and
+ *   before {@code exit}. A write that failed is reported by the next read of its path or by the
+ *   next flush, whichever comes first.</li>
+ * </ul>
+ * Images are immutable, so a queued image stays valid even if the script replaces it in the
+ * model. Nested scripts, started with {@code run}, share the threads of the outer script.
+ */
+public class AsyncImageIO {
+
+  /**
+   * The most prefetched images that may be held before the script loads them.
+   */
+  static final int MAX_PREFETCHED = 4;
+
+  /**
+   * The most writes that may be queued before {@link #write} blocks.
+   */
+  static final int MAX_PENDING_WRITES = 4;
+
+  private final Map<String, Future<ImageInterface>> prefetched;
+  private final Map<String, String> prefetchStamps;
+  private final Map<String, Future<?>> pendingWrites;
+  private final Semaphore writeSlots;
+  private ExecutorService reader;
+  private ExecutorService writer;
+  private int depth;
+
+  /**
+   * Creates an I/O layer with no threads. Threads are started by {@link #begin}.
+   */
+  public AsyncImageIO() {
+    this.prefetched = new LinkedHashMap<>();
+    this.prefetchStamps = new HashMap<>();
+    this.pendingWrites = new HashMap<>();
+    this.writeSlots = new Semaphore(MAX_PENDING_WRITES);
+  }
+
+  /**
+   * Starts a script. Reads may be prefetched and writes are queued until the matching
+   * {@link #end}.
+   */
+  public void begin() {
+    if (depth++ == 0) {
+      reader = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "image-reader"));
+      writer = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "image-writer"));
+    }
+  }
+
+  /**
+   * Ends a script. When the outermost script ends, every pending write is finished, unused
+   * prefetches are dropped and the threads are stopped.
+   *
+   * @throws IOException if a pending write failed
+   */
+  public void end() throws IOException {
+    if (depth == 0 || --depth > 0) {
+      return;
+    }
+    try {
+      flush();
+    } finally {
+      for (Future<ImageInterface> prefetch : prefetched.values()) {
+        prefetch.cancel(true);
+      }
+      prefetched.clear();
+      prefetchStamps.clear();
+      reader.shutdownNow();
+      writer.shutdown();
+      reader = null;
+      writer = null;
+    }
+  }
+
+  /**
+   * Checks whether a script is running, so that prefetching is worthwhile.
+   *
+   * @return whether {@link #begin} was called more often than {@link #end}
+   */
+  public boolean isActive() {
+    return depth > 0;
+  }
+
+  /**
+   * Starts reading an image that the script will load soon. Paths that are already being read,
+   * that have a pending write or that are not files are ignored.
+   *
+   * @param path the path of the image file
+   */
+  public void prefetch(String path) {
+    if (depth == 0) {
+      return;
+    }
+    String key = keyOf(path);
+    File file = new File(key);
+    if (prefetched.containsKey(key) || pendingWrites.containsKey(key) || !file.isFile()) {
+      return;
+    }
+    if (prefetched.size() >= MAX_PREFETCHED) {
+      Iterator<Map.Entry<String, Future<ImageInterface>>> oldest =
+              prefetched.entrySet().iterator();
+      Map.Entry<String, Future<ImageInterface>> entry = oldest.next();
+      entry.getValue().cancel(true);
+      prefetchStamps.remove(entry.getKey());
+      oldest.remove();
+    }
+    prefetchStamps.put(key, stampOf(file));
+    prefetched.put(key, reader.submit(() -> ImageIOUtil.readImage(path)));
+  }
+
+  /**
+   * Reads an image, taking it from a finished or running prefetch when there is one.
+   *
+   * @param path   the path of the image file
+   * @param factor the subsampling factor; only full-size reads, with factor 1, are prefetched
+   * @return the image
+   * @throws IOException if the image cannot be read, or a pending write to the path failed
+   */
+  public ImageInterface read(String path, int factor) throws IOException {
+    String key = keyOf(path);
+    awaitWrite(key);
+    Future<ImageInterface> prefetch = prefetched.remove(key);
+    String stamp = prefetchStamps.remove(key);
+    if (prefetch != null && factor == 1) {
+      try {
+        ImageInterface image = prefetch.get();
+        if (stamp.equals(stampOf(new File(key)))) {
+          return image;
+        }
+      } catch (ExecutionException e) {
+        // Read again below, so that the error is reported as if there were no prefetch.
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while reading " + path, e);
+      }
+    }
+    return ImageIOUtil.readImage(path, factor);
+  }
+
+  /**
+   * Writes an image. In a script the write is queued and this returns at once, unless the queue
+   * is full; otherwise the image is written before this returns.
+   *
+   * @param image the image
+   * @param path  the path of the file to write
+   * @throws IOException if the image is written at once and writing fails, or if an earlier
+   *                     write to the same path failed
+   */
+  public void write(ImageInterface image, String path) throws IOException {
+    if (depth == 0) {
+      ImageIOUtil.writeImage(image, path);
+      return;
+    }
+    String key = keyOf(path);
+    Future<ImageInterface> stale = prefetched.remove(key);
+    prefetchStamps.remove(key);
+    if (stale != null) {
+      stale.cancel(true);
+    }
+    awaitWrite(key);
+    try {
+      writeSlots.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while saving " + path, e);
+    }
+    try {
+      pendingWrites.put(key, writer.submit(() -> {
+        try {
+          ImageIOUtil.writeImage(image, path);
+        } finally {
+          writeSlots.release();
+        }
+        return null;
+      }));
+    } catch (RuntimeException e) {
+      writeSlots.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Waits for every pending write.
+   *
+   * @throws IOException if any of them failed; the first failure is reported and the others
+   *                     are attached to it as suppressed exceptions
+   */
+  public void flush() throws IOException {
+    IOException failure = null;
+    for (String key : pendingWrites.keySet().toArray(new String[0])) {
+      try {
+        awaitWrite(key);
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Waits for the pending writes to some paths, for code that reads those files without going
+   * through {@link #read}. Names that are not paths with a pending write are ignored.
+   *
+   * @param paths the paths
+   * @throws IOException if one of the writes failed
+   */
+  public void awaitWrites(String... paths) throws IOException {
+    if (pendingWrites.isEmpty()) {
+      return;
+    }
+    for (String path : paths) {
+      awaitWrite(keyOf(path));
+    }
+  }
+
+  /**
+   * Waits for the pending write to a path, if there is one.
+   *
+   * @param key the normalized path
+   * @throws IOException if the write failed
+   */
+  private void awaitWrite(String key) throws IOException {
+    Future<?> write = pendingWrites.remove(key);
+    if (write == null) {
+      return;
+    }
+    try {
+      write.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      throw new IOException("Error saving image to " + key + ": " + cause.getMessage(), cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while saving " + key, e);
+    }
+  }
+
+  /**
+   * Normalizes a path, so that different spellings of the same file share their prefetches and
+   * pending writes.
+   *
+   * @param path the path
+   * @return the absolute, normalized path
+   */
+  private static String keyOf(String path) {
+    File file = new File(path).getAbsoluteFile();
+    try {
+      return file.toPath().normalize().toString();
+    } catch (InvalidPathException e) {
+      return file.getPath();
+    }
+  }
+
+  /**
+   * Describes the version of a file that a read sees.
+   *
+   * @param file the file
+   * @return its size and modification time
+   */
+  private static String stampOf(File file) {
+    return file.length() + "|" + file.lastModified();
+  }
+
+  /**
+   * Creates a daemon thread, so that background I/O never keeps the application running.
+   *
+   * @param runnable the work of the thread
+   * @param name     the name of the thread
+   * @return the thread
+   */
+  private static Thread daemon(Runnable runnable, String name) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    return thread;
+  }
+}
@@ -3,22 +3,29 @@ package controller;
 
 import controller.commands.Command;
 import controller.commands.BlurCommand;
+import controller.commands.BoxBlurCommand;
 import controller.commands.BrightenCommand;
 import controller.commands.ColorCorrectCommand;
 import controller.commands.ComponentCommand;
 import controller.commands.CompressCommand;
+import controller.commands.ConvolveCommand;
+import controller.commands.CropCommand;
 import controller.commands.DetailsCommand;
 import controller.commands.DitheringCommand;
 import controller.commands.DownscaleCommand;
 import controller.commands.FlipCommand;
+import controller.commands.GaussianBlurCommand;
 import controller.commands.HistogramCommand;
 import controller.commands.LevelsAdjustCommand;
 import controller.commands.LoadCommand;
 import controller.commands.RGBCombineCommand;
 import controller.commands.RGBSplitCommand;
+import controller.commands.RotateCommand;
 import controller.commands.SaveCommand;
 import controller.commands.SepiaCommand;
 import controller.commands.SharpenCommand;
+import controller.script.ScriptCache;
+import controller.script.ScriptCompiler;
 
 import model.ImageModelInterface;
 import model.operationimpls.AdvancedImageProcessorImpl;
@@ -28,10 +35,6 @@ import view.View;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Scanner;
-import java.util.function.Function;
 
 /**
  * CommandExecutor handles the execution of commands without relying on any view.
@@ -41,8 +44,10 @@ import java.util.function.Function;
 public class CommandExecutor {
   private final ImageModelInterface model;
   private final AdvancedImageProcessor imageProcessor;
-  private final Map<String, Function<String[], Command>> knownCommands;
   private View view;
+  private Runnable exitAction;
+  private ScriptCache scriptCache;
+  private final AsyncImageIO imageIO = new AsyncImageIO();
 
   /**
    * Constructs a CommandExecutor with the given model.
@@ -52,8 +57,7 @@ public class CommandExecutor {
   public CommandExecutor(ImageModelInterface model) {
     this.model = model;
     this.imageProcessor = new AdvancedImageProcessorImpl();
-    this.knownCommands = new HashMap<>();
-    initializeCommands();
+    this.exitAction = () -> System.exit(0);
   }
 
   /**
@@ -63,11 +67,68 @@ public class CommandExecutor {
    * @param view  the view to display messages
    */
   public CommandExecutor(ImageModelInterface model, View view) {
+    this(model, view, new AdvancedImageProcessorImpl());
+  }
+
+  /**
+   * Constructs a CommandExecutor with the given model, view and processor. Executors that share
+   * a processor also share its cache of operation results.
+   *
+   * @param model          the image model to apply commands
+   * @param view           the view to display messages
+   * @param imageProcessor the processor that runs the image operations
+   */
+  public CommandExecutor(ImageModelInterface model, View view,
+                         AdvancedImageProcessor imageProcessor) {
     this.model = model;
     this.view = view;
-    this.imageProcessor = new AdvancedImageProcessorImpl();
-    this.knownCommands = new HashMap<>();
-    initializeCommands();
+    this.imageProcessor = imageProcessor;
+    this.exitAction = () -> System.exit(0);
+  }
+
+  /**
+   * Sets what the {@code exit} command does. By default it ends the application.
+   *
+   * @param exitAction the action to run when {@code exit} is executed
+   */
+  public void setExitAction(Runnable exitAction) {
+    this.exitAction = exitAction;
+  }
+
+  /**
+   * Sets the persistent cache that scripts run by this executor take unchanged lines from.
+   *
+   * @param scriptCache the cache, or null to run every line
+   */
+  public void setScriptCache(ScriptCache scriptCache) {
+    this.scriptCache = scriptCache;
+  }
+
+  /**
+   * Gets the persistent cache used by scripts.
+   *
+   * @return the cache, or null if scripts run every line
+   */
+  public ScriptCache getScriptCache() {
+    return scriptCache;
+  }
+
+  /**
+   * Gets the layer that reads and writes the image files of scripts in the background.
+   *
+   * @return the I/O layer
+   */
+  public AsyncImageIO getImageIO() {
+    return imageIO;
+  }
+
+  /**
+   * Gets the model the commands work on.
+   *
+   * @return the model
+   */
+  public ImageModelInterface getModel() {
+    return model;
   }
 
   /**
@@ -83,7 +144,13 @@ public class CommandExecutor {
     String commandName = tokens[0].toLowerCase();
 
     if (commandName.equals("exit")) {
-      System.exit(0);
+      try {
+        imageIO.flush();
+      } catch (IOException e) {
+        throw new RuntimeException(e.getMessage(), e);
+      }
+      exitAction.run();
+      return;
     } else if (commandName.equals("run")) {
       if (tokens.length != 2) {
         throw new IllegalArgumentException("Usage: run script-file");
@@ -97,13 +164,96 @@ public class CommandExecutor {
       return;
     }
 
-    Function<String[], Command> commandFunction = knownCommands.get(commandName);
-    if (commandFunction == null) {
-      throw new IllegalArgumentException("Unknown command: " + commandName);
+    runCommand(createCommand(tokens));
+  }
+
+  /**
+   * Creates the command object for a tokenized command line, parsing its arguments.
+   * The command can be executed any number of times with {@link #runCommand}.
+   *
+   * @param tokens the tokens of the command line, starting with the command name
+   * @return the command
+   * @throws IllegalArgumentException if the command is unknown or its arguments are invalid
+   */
+  public Command createCommand(String[] tokens) {
+    String commandName = tokens[0].toLowerCase();
+    // A switch instead of a registry of factories: nothing is set up for commands a run never
+    // uses, and each command class is only loaded the first time that command appears.
+    switch (commandName) {
+      // Load and Save Commands
+      case "load":
+        return new LoadCommand(tokens, imageProcessor, model, imageIO);
+      case "save":
+        return new SaveCommand(tokens, model, imageIO);
+
+      // Details Command
+      case "details":
+        return new DetailsCommand(tokens, model, view);
+
+      // Image Processing Commands
+      case "blur":
+        return new BlurCommand(tokens, imageProcessor, model);
+      case "box-blur":
+        return new BoxBlurCommand(tokens, imageProcessor, model);
+      case "gaussian-blur":
+        return new GaussianBlurCommand(tokens, imageProcessor, model);
+      case "convolve":
+        return new ConvolveCommand(tokens, imageProcessor, model);
+      case "brighten":
+        return new BrightenCommand(tokens, imageProcessor, model);
+      case "sharpen":
+        return new SharpenCommand(tokens, imageProcessor, model);
+      case "sepia":
+        return new SepiaCommand(tokens, imageProcessor, model);
+      case "horizontal-flip":
+        return new FlipCommand(tokens, true, imageProcessor, model);
+      case "vertical-flip":
+        return new FlipCommand(tokens, false, imageProcessor, model);
+      case "rotate":
+        return new RotateCommand(tokens, imageProcessor, model);
+      case "crop":
+        return new CropCommand(tokens, imageProcessor, model);
+
+      // Component Commands
+      case "red-component":
+      case "green-component":
+      case "blue-component":
+      case "luma-component":
+      case "intensity-component":
+      case "value-component":
+        return new ComponentCommand(tokens, imageProcessor, model);
+      case "rgb-combine":
+        return new RGBCombineCommand(tokens, imageProcessor, model);
+      case "rgb-split":
+        return new RGBSplitCommand(tokens, imageProcessor, model);
+
+      // Additional Commands
+      case "color-correct":
+        return new ColorCorrectCommand(tokens, imageProcessor, model);
+      case "levels-adjust":
+        return new LevelsAdjustCommand(tokens, imageProcessor, model);
+      case "compress":
+        return new CompressCommand(tokens, imageProcessor, model);
+      case "histogram":
+        return new HistogramCommand(tokens, imageProcessor, model);
+      case "downscale":
+        return new DownscaleCommand(tokens, imageProcessor, model);
+      case "dither":
+        return new DitheringCommand(tokens, imageProcessor, model);
+      default:
+        throw new IllegalArgumentException("Unknown command: " + commandName);
     }
-    Command cmd = commandFunction.apply(tokens);
+  }
+
+  /**
+   * Executes a command created by {@link #createCommand}.
+   *
+   * @param command the command to execute
+   * @throws RuntimeException if the command fails
+   */
+  public void runCommand(Command command) {
     try {
-      cmd.execute();
+      command.execute();
     } catch (Exception e) {
       throw new RuntimeException("Error executing command: " + e.getMessage(), e);
     }
@@ -111,74 +261,30 @@ public class CommandExecutor {
 
   /**
    * Runs a script from a readable input.
+   * The whole script is compiled first, so loops and variables are expanded without parsing
+   * any line again; see {@link ScriptCompiler}. While it runs, upcoming loads are read ahead
+   * and saves are written behind by {@link AsyncImageIO}; every save has finished when this
+   * returns.
    *
    * @param scriptInput the readable script input
    * @throws RuntimeException if an error occurs during script execution
    */
   public void runScript(Readable scriptInput) {
-    try (Scanner scanner = new Scanner(scriptInput)) {
-      while (scanner.hasNextLine()) {
-        String line = scanner.nextLine().trim();
-        if (!line.isEmpty() && !line.startsWith("#")) {
-          try {
-            executeCommand(line);
-          } catch (Exception e) {
-            throw new RuntimeException("Error executing command in script: " + e.getMessage(), e);
-          }
-        }
+    imageIO.begin();
+    try {
+      ScriptCompiler.compile(scriptInput, this).run();
+    } catch (RuntimeException e) {
+      try {
+        imageIO.end();
+      } catch (IOException saveError) {
+        e.addSuppressed(saveError);
       }
+      throw e;
+    }
+    try {
+      imageIO.end();
+    } catch (IOException e) {
+      throw new RuntimeException("Error executing command in script: " + e.getMessage(), e);
     }
   }
-
-  /**
-   * Initializes the known commands for the executor.
-   */
-  private void initializeCommands() {
-    // Load and Save Commands
-    knownCommands.put("load", tokens -> new LoadCommand(tokens, model));
-    knownCommands.put("save", tokens -> new SaveCommand(tokens, model));
-
-    // Details Command
-    knownCommands.put("details", tokens -> new DetailsCommand(tokens, model, view));
-
-    // Image Processing Commands
-    knownCommands.put("blur", tokens -> new BlurCommand(tokens, imageProcessor, model));
-    knownCommands.put("brighten", tokens -> new BrightenCommand(tokens, imageProcessor, model));
-    knownCommands.put("sharpen", tokens -> new SharpenCommand(tokens, imageProcessor, model));
-    knownCommands.put("sepia", tokens -> new SepiaCommand(tokens, imageProcessor, model));
-
-    knownCommands.put("horizontal-flip",
-        tokens -> new FlipCommand(tokens, true, imageProcessor, model));
-    knownCommands.put("vertical-flip",
-        tokens -> new FlipCommand(tokens, false, imageProcessor, model));
-
-    // Component Commands
-    Function<String[], Command> componentCommand =
-        tokens -> new ComponentCommand(tokens, imageProcessor, model);
-    knownCommands.put("red-component", componentCommand);
-    knownCommands.put("green-component", componentCommand);
-    knownCommands.put("blue-component", componentCommand);
-    knownCommands.put("luma-component", componentCommand);
-    knownCommands.put("intensity-component", componentCommand);
-    knownCommands.put("value-component", componentCommand);
-
-    knownCommands.put("rgb-combine",
-        tokens -> new RGBCombineCommand(tokens, imageProcessor, model));
-    knownCommands.put("rgb-split",
-        tokens -> new RGBSplitCommand(tokens, imageProcessor, model));
-
-    // Additional Commands
-    knownCommands.put("color-correct",
-        tokens -> new ColorCorrectCommand(tokens, imageProcessor, model));
-    knownCommands.put("levels-adjust",
-        tokens -> new LevelsAdjustCommand(tokens, imageProcessor, model));
-    knownCommands.put("compress",
-        tokens -> new CompressCommand(tokens, imageProcessor, model));
-    knownCommands.put("histogram",
-        tokens -> new HistogramCommand(tokens, imageProcessor, model));
-    knownCommands.put("downscale",
-        tokens -> new DownscaleCommand(tokens, imageProcessor, model));
-    knownCommands.put("dither",
-        tokens -> new DitheringCommand(tokens, imageProcessor, model));
-  }
-}
\ No newline at end of file
+}
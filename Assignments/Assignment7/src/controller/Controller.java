@@ -1,8 +1,11 @@
 package controller;
 
+import controller.script.ScriptCache;
+import controller.streaming.StreamingScriptRunner;
 import model.ImageModelInterface;
 import view.View;
 
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.Reader;
@@ -12,6 +15,8 @@ import java.util.Scanner;
  * Controller class for the text-based image processing application.
  */
 public class Controller implements ControllerInterface {
+  private static final long DEFAULT_CACHE_MEGABYTES = 1024;
+
   private final View view;
   private final CommandExecutor commandExecutor;
   private final Readable input;
@@ -37,6 +42,14 @@ public class Controller implements ControllerInterface {
     if (args != null && args.length >= 2 && args[0].equals("-file")) {
       String scriptPath = args[1];
       try {
+        if (args.length >= 3 && args[2].equals("-stream")) {
+          runStreamingScriptFile(scriptPath);
+          return;
+        }
+        if (args.length >= 4 && args[2].equals("-cache")) {
+          runCachedScriptFile(scriptPath, args[3], args.length >= 5 ? args[4] : null);
+          return;
+        }
         runScriptFile(scriptPath);
       } catch (IOException e) {
         view.displayMessage("Error running script file: " + e.getMessage());
@@ -104,4 +117,44 @@ public class Controller implements ControllerInterface {
       runScript(scriptReader);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Runs a script file with a persistent cache of the images its lines produce, so that lines
+   * whose inputs did not change since an earlier run are not computed again.
+   *
+   * @param scriptPath the path to the script file
+   * @param cachePath  the directory of the cache
+   * @param megabytes  the size limit of the cache in megabytes, or null for the default
+   * @throws IOException if an error occurs while reading the file
+   */
+  private void runCachedScriptFile(String scriptPath, String cachePath, String megabytes)
+          throws IOException {
+    ScriptCache cache;
+    try {
+      long limit = megabytes == null ? DEFAULT_CACHE_MEGABYTES : Long.parseLong(megabytes);
+      cache = new ScriptCache(new File(cachePath), limit * 1024 * 1024);
+    } catch (IllegalArgumentException e) {
+      view.displayMessage("Error opening script cache: " + e.getMessage());
+      return;
+    }
+    commandExecutor.setScriptCache(cache);
+    runScriptFile(scriptPath);
+    view.displayMessage("Script cache: " + cache.getHits() + " lines reused, "
+            + cache.getMisses() + " lines run.");
+  }
+
+  /**
+   * Runs a script file in streaming mode, where each chain of load, operations and save moves
+   * a band of rows at a time instead of holding whole images.
+   *
+   * @param scriptPath the path to the script file
+   * @throws IOException if an error occurs while reading the file
+   */
+  private void runStreamingScriptFile(String scriptPath) throws IOException {
+    try (Reader scriptReader = new FileReader(scriptPath)) {
+      new StreamingScriptRunner().runScript(scriptReader);
+    } catch (RuntimeException e) {
+      view.displayMessage("Error running script: " + e.getMessage());
+    }
+  }
+}
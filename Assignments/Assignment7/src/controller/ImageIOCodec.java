@@ -0,0 +1,182 @@
+package controller;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import model.image.ByteImage;
+import model.image.ImageInterface;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Reads and writes PNG and JPEG images through Java ImageIO.
+ * This is kept apart from {@link ImageIOUtil} because ImageIO works on AWT images: scripts that
+ * only use PPM files never load this class, and so never load AWT.
+ */
+class ImageIOCodec {
+
+  /**
+   * This method reads images in PNG and JPEG formats.
+   * It converts the image to a custom Image object.
+   * The image is read as a BufferedImage and the pixel data is extracted one row at a time.
+   * PNG and JPEG images always have a maximum value of 255, so the pixel data is stored
+   * in an 8-bit {@link ByteImage}.
+   *
+   * @param path The path to the image file.
+   * @return The image object containing the pixel data.
+   * @throws IOException If an error occurs while reading the image.
+   */
+  static ImageInterface read(String path) throws IOException {
+    try {
+      return toByteImage(ImageIO.read(new File(path)));
+    } catch (Exception e) {
+      throw new IOException("Failed to read image: " + path, e);
+    }
+  }
+
+  /**
+   * Reads every {@code factor}-th pixel of every {@code factor}-th row of a PNG or JPEG image,
+   * starting with the top-left pixel. The decoder drops the other pixels as it goes, so the
+   * full-size image is never held in memory.
+   *
+   * @param path   The path to the image file.
+   * @param factor The subsampling factor, at least 1.
+   * @return The image, ceil(width / factor) by ceil(height / factor) pixels.
+   * @throws IOException If an error occurs while reading the image.
+   */
+  static ImageInterface read(String path, int factor) throws IOException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(new File(path))) {
+      ImageReader reader = readerFor(input, path);
+      try {
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(factor, factor, 0, 0);
+        return toByteImage(reader.read(0, param));
+      } finally {
+        reader.dispose();
+      }
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException("Failed to read image: " + path, e);
+    }
+  }
+
+  /**
+   * Reads the dimensions of a PNG or JPEG image from its header, without decoding its pixels.
+   *
+   * @param path The path to the image file.
+   * @return The width and the height.
+   * @throws IOException If an error occurs while reading the header.
+   */
+  static int[] readDimensions(String path) throws IOException {
+    try (ImageInputStream input = ImageIO.createImageInputStream(new File(path))) {
+      ImageReader reader = readerFor(input, path);
+      try {
+        return new int[]{reader.getWidth(0), reader.getHeight(0)};
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  /**
+   * Finds an ImageIO reader for an image file and attaches it to the file.
+   *
+   * @param input The opened file, or null if it could not be opened.
+   * @param path  The path to the image file, for error messages.
+   * @return The reader.
+   * @throws IOException If the file cannot be opened or no reader supports it.
+   */
+  private static ImageReader readerFor(ImageInputStream input, String path) throws IOException {
+    if (input == null) {
+      throw new IOException("Failed to read image: " + path);
+    }
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+    if (!readers.hasNext()) {
+      throw new IOException("Unsupported image format: " + path);
+    }
+    ImageReader reader = readers.next();
+    reader.setInput(input, true, true);
+    return reader;
+  }
+
+  /**
+   * Copies the pixels of a decoded image into an 8-bit planar image.
+   *
+   * @param bufferedImage The decoded image.
+   * @return The planar image.
+   */
+  private static ImageInterface toByteImage(BufferedImage bufferedImage) {
+    int width = bufferedImage.getWidth();
+    int height = bufferedImage.getHeight();
+    byte[][] planes = new byte[3][width * height];
+    int[] row = new int[width];
+
+    for (int y = 0; y < height; y++) {
+      bufferedImage.getRGB(0, y, width, 1, row, 0, width);
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        int argb = row[x];
+        planes[0][offset + x] = (byte) (argb >> 16);
+        planes[1][offset + x] = (byte) (argb >> 8);
+        planes[2][offset + x] = (byte) argb;
+      }
+    }
+    return new ByteImage(width, height, 255, planes);
+  }
+
+  /**
+   * Writes an image using Java ImageIO.
+   * This method writes images in PNG and JPEG formats.
+   * It converts the image to a BufferedImage and sets the pixel data.
+   * The pixel data is extracted from the custom Image object and set in the BufferedImage.
+   *
+   * @param image  The image object containing the pixel data.
+   * @param path   The path to write the image file.
+   * @param format The format of the image file (PNG or JPEG).
+   * @throws IOException If an error occurs while writing the image.
+   */
+  static void write(ImageInterface image, String path, String format)
+          throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] row = new int[width];
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int red = toEightBit(image.getChannelValue(x, y, 0), maxValue);
+        int green = toEightBit(image.getChannelValue(x, y, 1), maxValue);
+        int blue = toEightBit(image.getChannelValue(x, y, 2), maxValue);
+        row[x] = (red << 16) | (green << 8) | blue;
+      }
+      bufferedImage.setRGB(0, y, width, 1, row, 0, width);
+    }
+
+    File outputFile = new File(path);
+    if (!ImageIO.write(bufferedImage, format, outputFile)) {
+      throw new IOException("Could not write image in the specified format: " + format);
+    }
+  }
+
+  /**
+   * Converts a channel value to the 8-bit range used by PNG and JPEG.
+   * Images deeper than 8 bits are rescaled; other values are kept as they are.
+   *
+   * @param value    The channel value.
+   * @param maxValue The maximum value of the image.
+   * @return The 8-bit channel value.
+   */
+  private static int toEightBit(int value, int maxValue) {
+    if (maxValue > 255) {
+      return (int) (((long) value * 255 + maxValue / 2) / maxValue);
+    }
+    return value & 0xFF;
+  }
+}
@@ -1,23 +1,27 @@
 package controller;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
-import model.image.Image;
+import controller.streaming.ParallelPngWriter;
+import controller.streaming.ParallelPpmReader;
+import controller.streaming.PpmRowReader;
+import model.image.ImageFactory;
 import model.image.ImageInterface;
 
-import javax.imageio.ImageIO;
-
 /**
  * A utility class that provides methods to read and write images.
  * This class supports reading and writing images in PPM, PNG, and JPEG formats.
- * It uses Java ImageIO to write images in PNG and JPEG formats.
+ * PPM files are handled here and PNG files are written by {@link ParallelPngWriter}; reading PNG
+ * files and reading and writing JPEG files go through {@link ImageIOCodec}, so the AWT classes
+ * that Java ImageIO needs are only loaded once such a file is actually used.
  */
 public class ImageIOUtil {
 
@@ -38,42 +42,64 @@ public class ImageIOUtil {
       case "png":
       case "jpg":
       case "jpeg":
-        return readWithImageIO(path);
+        return ImageIOCodec.read(path);
       default:
         throw new IOException("Unsupported file format: " + extension);
     }
   }
 
   /**
-   * This method reads images in PNG and JPEG formats.
-   * It converts the image to a custom Image object.
-   * The image is read as a BufferedImage and the pixel data is extracted.
-   * The pixel data is stored in a 3D array where the first dimension represents the height,
-   * the second dimension represents the width, and the third dimension represents the RGB channels.
+   * Reads an image at a reduced resolution, keeping every {@code factor}-th pixel of every
+   * {@code factor}-th row. PNG and JPEG files are subsampled by the ImageIO decoder; PPM files
+   * are read one row at a time and the rows that are not kept are skipped without being parsed,
+   * so in both cases the full-size image is never held in memory.
    *
-   * @param path The path to the image file.
-   * @return The image object containing the pixel data.
+   * @param path   The path to the image file.
+   * @param factor The subsampling factor; 1 reads the full image.
+   * @return The image, ceil(width / factor) by ceil(height / factor) pixels.
    * @throws IOException If an error occurs while reading the image.
+   * @throws IllegalArgumentException If the factor is less than 1.
    */
-  private static ImageInterface readWithImageIO(String path) throws IOException {
-    try {
-      BufferedImage bufferedImage = ImageIO.read(new File(path));
-      int width = bufferedImage.getWidth();
-      int height = bufferedImage.getHeight();
-      int[][][] pixels = new int[height][width][3];
+  public static ImageInterface readImage(String path, int factor) throws IOException {
+    if (factor < 1) {
+      throw new IllegalArgumentException("Scale factor must be at least 1.");
+    }
+    if (factor == 1) {
+      return readImage(path);
+    }
+    String extension = getFileExtension(path);
+    switch (extension.toLowerCase()) {
+      case "ppm":
+        return readPPM(path, factor);
+      case "png":
+      case "jpg":
+      case "jpeg":
+        return ImageIOCodec.read(path, factor);
+      default:
+        throw new IOException("Unsupported file format: " + extension);
+    }
+  }
 
-      for (int y = 0; y < height; y++) {
-        for (int x = 0; x < width; x++) {
-          int argb = bufferedImage.getRGB(x, y);
-          int red = (argb >> 16) & 0xFF;
-          int green = (argb >> 8) & 0xFF;
-          int blue = argb & 0xFF;
-          pixels[y][x] = new int[]{red, green, blue};
+  /**
+   * Reads the dimensions of an image from its header, without reading its pixels.
+   *
+   * @param path The path to the image file.
+   * @return The width and the height.
+   * @throws IOException If an error occurs while reading the header.
+   */
+  public static int[] readDimensions(String path) throws IOException {
+    String extension = getFileExtension(path);
+    switch (extension.toLowerCase()) {
+      case "ppm":
+        try (PpmRowReader reader = new PpmRowReader(path)) {
+          return new int[]{reader.getWidth(), reader.getHeight()};
         }
-      }
-      return new Image(width, height, 255, pixels);
-    } catch (Exception e) {
-      throw new IOException("Failed to read image: " + path, e);
+      case "png":
+      case "jpg":
+      case "jpeg":
+        return ImageIOCodec.readDimensions(path);
+      default:
+        throw new IOException("Unsupported file format: " + extension);
     }
   }
 
@@ -81,7 +107,8 @@ public class ImageIOUtil {
    * Writes an image to the specified path.
    * The image is written in the specified format based on the file extension.
    * Supported formats include PPM, PNG, and JPEG.
-   * It uses Java ImageIO to write images in PNG and JPEG formats.
+   * PNG files are encoded on every core by {@link ParallelPngWriter}; JPEG files are written with
+   * Java ImageIO.
    *
    * @param image The image object to be written.
    * @param path  The path to write the image file.
@@ -94,9 +121,11 @@ public class ImageIOUtil {
         writePPM(image, path);
         break;
       case "png":
+        ParallelPngWriter.write(image, path);
+        break;
       case "jpg":
       case "jpeg":
-        writeWithImageIO(image, path, extension);
+        ImageIOCodec.write(image, path, extension);
         break;
       default:
         throw new IOException("Unsupported file format: " + extension);
@@ -104,78 +133,44 @@ public class ImageIOUtil {
   }
 
   /**
-   * Writes an image using Java ImageIO.
-   * This method writes images in PNG and JPEG formats.
-   * It converts the image to a BufferedImage and sets the pixel data.
-   * The pixel data is extracted from the custom Image object and set in the BufferedImage.
+   * Reads an image in PPM format.
+   * The file is memory-mapped and decoded on every core by {@link ParallelPpmReader}. Lines
+   * starting with # are comments.
+   * The pixel data is stored in 8-bit planes when the maximum value is at most 255, in 16-bit
+   * planes when it is at most 65535, and in a 3D int array otherwise.
    *
-   * @param image  The image object containing the pixel data.
-   * @param path   The path to write the image file.
-   * @param format The format of the image file (PNG or JPEG).
-   * @throws IOException If an error occurs while writing the image.
+   * @param filename The path to the PPM file.
+   * @return The image object containing the pixel data.
+   * @throws IOException If an error occurs while reading the image.
    */
-  private static void writeWithImageIO(ImageInterface image, String path, String format)
-          throws IOException {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int[] rgb = image.getPixels()[y][x];
-        int rgbInt = ((rgb[0] & 0xFF) << 16) | ((rgb[1] & 0xFF) << 8) | (rgb[2] & 0xFF);
-        bufferedImage.setRGB(x, y, rgbInt);
-      }
-    }
-
-
-    File outputFile = new File(path);
-    if (!ImageIO.write(bufferedImage, format, outputFile)) {
-      throw new IOException("Could not write image in the specified format: " + format);
-    }
+  public static ImageInterface readPPM(String filename) throws IOException {
+    return ParallelPpmReader.read(filename);
   }
 
   /**
-   * Reads an image in PPM format.
-   * The method reads the image file and extracts the pixel data.
-   * The pixel data is stored in a 3D array where the first dimension represents the height,
-   * the second dimension represents the width, and the third dimension represents the RGB channels.
+   * Reads every {@code factor}-th pixel of every {@code factor}-th row of a PPM file. Kept rows
+   * are read one at a time and the rows between them are skipped token by token.
    *
    * @param filename The path to the PPM file.
-   * @return The image object containing the pixel data.
+   * @param factor   The subsampling factor.
+   * @return The subsampled image.
    * @throws IOException If an error occurs while reading the image.
    */
-  public static ImageInterface readPPM(String filename) throws IOException {
-    StringBuilder builder = new StringBuilder();
-    try (Scanner fileScanner = new Scanner(new FileInputStream(filename))) {
-      while (fileScanner.hasNextLine()) {
-        String s = fileScanner.nextLine();
-        if (!s.startsWith("#")) {
-          builder.append(s).append(System.lineSeparator());
-        }
-      }
-    } catch (FileNotFoundException e) {
-      throw new IOException("File not found: " + filename, e);
-    }
-
-    try (Scanner sc = new Scanner(builder.toString())) {
-      String token = sc.next();
-      if (!token.equals("P3")) {
-        throw new IOException("Invalid PPM file: plain RAW file should begin with P3");
-      }
-      int width = sc.nextInt();
-      int height = sc.nextInt();
-      int maxValue = sc.nextInt();
-      int[][][] pixels = new int[height][width][3];
-      for (int i = 0; i < height; i++) {
-        for (int j = 0; j < width; j++) {
-          int r = sc.nextInt();
-          int g = sc.nextInt();
-          int b = sc.nextInt();
-          pixels[i][j] = new int[]{r, g, b};
+  private static ImageInterface readPPM(String filename, int factor) throws IOException {
+    try (PpmRowReader reader = new PpmRowReader(filename)) {
+      int width = (reader.getWidth() + factor - 1) / factor;
+      int height = (reader.getHeight() + factor - 1) / factor;
+      int[][] planes = new int[3][width * height];
+      for (int y = 0; y < height; y++) {
+        ImageInterface row = reader.readBand(1);
+        for (int x = 0; x < width; x++) {
+          for (int c = 0; c < 3; c++) {
+            planes[c][y * width + x] = row.getChannelValue(x * factor, 0, c);
+          }
         }
+        reader.skipRows(factor - 1);
       }
-      return new Image(width, height, maxValue, pixels);
+      return ImageFactory.fromPlanes(width, height, reader.getMaxValue(), planes);
     }
   }
 
@@ -193,16 +188,58 @@ public class ImageIOUtil {
       writer.println("P3");
       writer.println(image.getWidth() + " " + image.getHeight());
       writer.println(image.getMaxValue());
-      int[][][] pixels = image.getPixels();
       for (int y = 0; y < image.getHeight(); y++) {
         for (int x = 0; x < image.getWidth(); x++) {
-          int[] rgb = pixels[y][x];
-          writer.println(rgb[0]);
-          writer.println(rgb[1]);
-          writer.println(rgb[2]);
+          writer.println(image.getChannelValue(x, y, 0));
+          writer.println(image.getChannelValue(x, y, 1));
+          writer.println(image.getChannelValue(x, y, 2));
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a convolution kernel from a text file.
+   * Each non-empty line holds one row of the kernel as numbers separated by whitespace, and
+   * every row must have the same number of values. Lines starting with # are comments.
+   *
+   * @param filename The path to the kernel file.
+   * @return The kernel, indexed by row and then column.
+   * @throws IOException If the file cannot be read or does not hold a rectangular kernel.
+   */
+  public static double[][] readKernel(String filename) throws IOException {
+    List<double[]> rows = new ArrayList<>();
+    try (Scanner fileScanner = new Scanner(new FileInputStream(filename))) {
+      while (fileScanner.hasNextLine()) {
+        String line = fileScanner.nextLine().trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] tokens = line.split("\\s+");
+        double[] row = new double[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+          try {
+            row[i] = Double.parseDouble(tokens[i]);
+          } catch (NumberFormatException e) {
+            throw new IOException("Invalid kernel value: " + tokens[i]);
+          }
+          if (Double.isNaN(row[i]) || Double.isInfinite(row[i])) {
+            throw new IOException("Invalid kernel value: " + tokens[i]);
+          }
+        }
+        if (!rows.isEmpty() && row.length != rows.get(0).length) {
+          throw new IOException("Invalid kernel file: all rows must have the same length");
         }
+        rows.add(row);
       }
+    } catch (FileNotFoundException e) {
+      throw new IOException("File not found: " + filename, e);
+    }
+
+    if (rows.isEmpty()) {
+      throw new IOException("Invalid kernel file: no kernel values in " + filename);
     }
+    return rows.toArray(new double[0][]);
   }
 
   /**
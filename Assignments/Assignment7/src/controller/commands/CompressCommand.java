@@ -6,9 +6,17 @@ import model.operationinterface.AdvancedImageProcessor;
 
 /**
  * Command to perform compress operation.
+ * With {@code --tile N} the image is compressed one N by N tile at a time, with one threshold
+ * per channel for the whole image, or with a threshold of its own for each tile when
+ * {@code --per-tile} follows.
  */
 public class CompressCommand implements Command {
+  private static final String USAGE =
+          "Usage: compress [--tile N [--per-tile]] percentage image-name dest-image-name";
+
   private final double percentage;
+  private final int tileSize;
+  private final boolean perTileThreshold;
   private final String imageName;
   private final String destImageName;
   private final AdvancedImageProcessor imageProcessor;
@@ -24,23 +32,57 @@ public class CompressCommand implements Command {
    */
   public CompressCommand(String[] tokens, AdvancedImageProcessor imageProcessor,
                          ImageModelInterface model) {
-    if (tokens.length != 4) {
-      throw new IllegalArgumentException("Usage: compress percentage image-name dest-image-name");
+    int next = 1;
+    int tileSize = 0;
+    boolean perTileThreshold = false;
+    if (tokens.length >= 6 && tokens[1].equals("--tile")) {
+      tileSize = parseTileSize(tokens[2]);
+      next = 3;
+      if (tokens.length == 7 && tokens[3].equals("--per-tile")) {
+        perTileThreshold = true;
+        next = 4;
+      }
+    }
+    if (tokens.length != next + 3) {
+      throw new IllegalArgumentException(USAGE);
     }
     try {
-      this.percentage = Double.parseDouble(tokens[1]);
+      this.percentage = Double.parseDouble(tokens[next]);
     } catch (NumberFormatException e) {
-      throw new IllegalArgumentException("Invalid percentage value: " + tokens[1]);
+      throw new IllegalArgumentException("Invalid percentage value: " + tokens[next]);
     }
     if (percentage <= 0 || percentage > 100) {
       throw new IllegalArgumentException("Percentage must be between 0 and 100.");
     }
-    this.imageName = tokens[2];
-    this.destImageName = tokens[3];
+    this.tileSize = tileSize;
+    this.perTileThreshold = perTileThreshold;
+    this.imageName = tokens[next + 1];
+    this.destImageName = tokens[next + 2];
     this.imageProcessor = imageProcessor;
     this.model = model;
   }
 
+  /**
+   * Parses the side of a tile.
+   *
+   * @param token the tile size
+   * @return the tile size
+   * @throws IllegalArgumentException if it is not a power of two of at least 2
+   */
+  private static int parseTileSize(String token) {
+    int tileSize;
+    try {
+      tileSize = Integer.parseInt(token);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid tile size: " + token);
+    }
+    if (tileSize < 2 || Integer.bitCount(tileSize) != 1) {
+      throw new IllegalArgumentException("Tile size must be a power of two of at least 2: "
+              + token);
+    }
+    return tileSize;
+  }
+
   /**
    * Executes the compress command.
    *
@@ -52,7 +94,9 @@ public class CompressCommand implements Command {
     if (image == null) {
       throw new IllegalArgumentException("Image not found: " + imageName);
     }
-    ImageInterface result = imageProcessor.compress(image, percentage);
+    ImageInterface result = tileSize > 0
+            ? imageProcessor.compress(image, percentage, tileSize, perTileThreshold)
+            : imageProcessor.compress(image, percentage);
     model.addImage(destImageName, result);
   }
 }
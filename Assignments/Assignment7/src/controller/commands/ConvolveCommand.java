@@ -0,0 +1,138 @@
+package controller.commands;
+
+import java.io.IOException;
+
+import controller.ImageIOUtil;
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.operationinterface.AdvancedImageProcessor;
+
+/**
+ * Command to convolve an image with a kernel read from a text file, with optional split view or
+ * masking. The kernel file is read when the command runs.
+ */
+public class ConvolveCommand implements Command {
+  private final String kernelPath;
+  private final String imageName;
+  private String destImageName;
+  private String maskImageName;
+  private boolean isSplit;
+  private int splitPercentage;
+  private final AdvancedImageProcessor imageProcessor;
+  private final ImageModelInterface model;
+
+  /**
+   * Constructs a convolve command with the given parameters.
+   *
+   * @param tokens         the tokens that form the command
+   * @param imageProcessor the image processor to apply the command
+   * @param model          the image model to apply the command
+   */
+  public ConvolveCommand(String[] tokens, AdvancedImageProcessor imageProcessor,
+                         ImageModelInterface model) {
+
+    if (tokens.length < 4 || tokens.length > 6) {
+      throw new IllegalArgumentException(
+              "Usage: convolve kernelFile sourceImage [maskImage] destImage [split p]");
+    }
+
+    this.imageProcessor = imageProcessor;
+    this.model = model;
+
+    this.kernelPath = tokens[1];
+
+    this.imageName = tokens[2];
+    this.maskImageName = null;
+    this.destImageName = null;
+    this.isSplit = false;
+
+    parseArguments(tokens);
+  }
+
+  /**
+   * Parses the arguments to determine if a mask image or split view is specified.
+   *
+   * @param tokens the command tokens
+   */
+  private void parseArguments(String[] tokens) {
+    if (tokens.length == 4) {
+      this.destImageName = tokens[3];
+      return;
+    }
+
+    if (tokens.length == 5) {
+      if (tokens[3].equalsIgnoreCase("split")) {
+        throw new IllegalArgumentException("Invalid syntax. " +
+                "Expected 'split' keyword at position 4.");
+      } else {
+        this.maskImageName = tokens[3];
+        this.destImageName = tokens[4];
+      }
+      return;
+    }
+
+    if (tokens[4].equalsIgnoreCase("split")) {
+      this.destImageName = tokens[3];
+      this.isSplit = true;
+      parseSplit(tokens[4], tokens[5]);
+    } else {
+      throw new IllegalArgumentException("Invalid syntax or " +
+              "cannot use both mask image and split view.");
+    }
+  }
+
+  /**
+   * Parses the split view option from the given tokens.
+   *
+   * @param splitKeyword the keyword for the split view option
+   * @param percentage   the percentage for the split view
+   */
+  private void parseSplit(String splitKeyword, String percentage) {
+    if (!splitKeyword.equalsIgnoreCase("split")) {
+      throw new IllegalArgumentException("Invalid syntax. Expected 'split' keyword.");
+    }
+    try {
+      this.splitPercentage = Integer.parseInt(percentage);
+      if (splitPercentage < 0 || splitPercentage > 100) {
+        throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Split percentage must be an integer.");
+    }
+  }
+
+  /**
+   * Executes the convolve command on the given image.
+   */
+  @Override
+  public void execute() {
+    ImageInterface image = model.getImage(imageName);
+    if (image == null) {
+      throw new IllegalArgumentException("Image not found: " + imageName);
+    }
+
+    double[][] kernel;
+    try {
+      kernel = ImageIOUtil.readKernel(kernelPath);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to load kernel from "
+              + kernelPath + ": " + e.getMessage(), e);
+    }
+
+    ImageInterface result;
+
+    if (maskImageName != null) {
+      ImageInterface maskImage = model.getImage(maskImageName);
+      if (maskImage == null) {
+        throw new IllegalArgumentException("Mask image not found: " + maskImageName);
+      }
+      result = imageProcessor.applyMask(image, maskImage, "convolve", (Object) kernel);
+    } else if (isSplit) {
+      result = imageProcessor.splitView(image, "convolve", splitPercentage, (Object) kernel);
+    } else {
+      result = imageProcessor.convolve(image, kernel);
+    }
+
+    model.addImage(destImageName, result);
+  }
+}
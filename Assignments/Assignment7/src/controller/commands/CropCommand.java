@@ -0,0 +1,65 @@
+package controller.commands;
+
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.operationinterface.AdvancedImageProcessor;
+
+/**
+ * Command to keep a rectangular region of an image.
+ */
+public class CropCommand implements Command {
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+  private final String imageName;
+  private final String destImageName;
+  private final AdvancedImageProcessor imageProcessor;
+  private final ImageModelInterface model;
+
+  /**
+   * Constructs a crop command with the given parameters.
+   *
+   * @param tokens         the tokens that form the command
+   * @param imageProcessor the image processor to apply the command
+   * @param model          the image model to apply the command
+   * @throws IllegalArgumentException if the tokens are invalid
+   */
+  public CropCommand(String[] tokens, AdvancedImageProcessor imageProcessor,
+                     ImageModelInterface model) {
+    if (tokens.length != 7) {
+      throw new IllegalArgumentException("Usage: crop x y width height sourceImage destImage");
+    }
+    try {
+      this.x = Integer.parseInt(tokens[1]);
+      this.y = Integer.parseInt(tokens[2]);
+      this.width = Integer.parseInt(tokens[3]);
+      this.height = Integer.parseInt(tokens[4]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Crop position and size must be integers.");
+    }
+    if (x < 0 || y < 0 || width <= 0 || height <= 0) {
+      throw new IllegalArgumentException(
+              "Crop position cannot be negative and its size must be positive.");
+    }
+    this.imageName = tokens[5];
+    this.destImageName = tokens[6];
+    this.imageProcessor = imageProcessor;
+    this.model = model;
+  }
+
+  /**
+   * Executes the crop command.
+   *
+   * @throws IllegalArgumentException if the image is not found in the image model or the
+   *                                  region is not inside the image
+   */
+  @Override
+  public void execute() {
+    ImageInterface image = model.getImage(imageName);
+    if (image == null) {
+      throw new IllegalArgumentException("Image not found: " + imageName);
+    }
+    model.addImage(destImageName, imageProcessor.crop(image, x, y, width, height));
+  }
+}
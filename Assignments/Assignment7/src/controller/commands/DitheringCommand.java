@@ -5,11 +5,13 @@ import model.image.ImageInterface;
 import model.operationinterface.AdvancedImageProcessor;
 
 /**
- * Command to perform dithering on an image, with optional split preview.
+ * Command to perform dithering on an image, with an optional method and split preview.
+ * The method is one of "floyd-steinberg" (the default), "ordered" or "bluenoise".
  */
 public class DitheringCommand implements Command {
   private final String imageName;
   private final String destImageName;
+  private final String method;
   private boolean isSplit;
   private int splitPercentage;
   private final AdvancedImageProcessor imageProcessor;
@@ -24,18 +26,22 @@ public class DitheringCommand implements Command {
    */
   public DitheringCommand(String[] tokens, AdvancedImageProcessor imageProcessor,
                           ImageModelInterface model) {
-    if (tokens.length < 3 || tokens.length > 5) {
-      throw new IllegalArgumentException("Usage: dither image-name dest-image-name split p");
+    if (tokens.length < 3 || tokens.length > 6) {
+      throw new IllegalArgumentException(
+              "Usage: dither [method] image-name dest-image-name [split p]");
     }
 
-    this.imageName = tokens[1];
-    this.destImageName = tokens[2];
+    // An even number of tokens means the optional method name is present.
+    int offset = tokens.length % 2 == 0 ? 1 : 0;
+    this.method = offset == 1 ? tokens[1] : null;
+    this.imageName = tokens[1 + offset];
+    this.destImageName = tokens[2 + offset];
     this.imageProcessor = imageProcessor;
     this.model = model;
     this.isSplit = false;
 
-    if (tokens.length == 5) {
-      parseSplit(tokens[3], tokens[4]);
+    if (tokens.length - offset == 5) {
+      parseSplit(tokens[3 + offset], tokens[4 + offset]);
     }
   }
 
@@ -74,8 +80,12 @@ public class DitheringCommand implements Command {
 
     ImageInterface result;
 
-    if (isSplit) {
+    if (isSplit && method != null) {
+      result = imageProcessor.splitView(image, "dither", splitPercentage, method);
+    } else if (isSplit) {
       result = imageProcessor.splitView(image, "dither", splitPercentage);
+    } else if (method != null) {
+      result = imageProcessor.applyDithering(image, method);
     } else {
       result = imageProcessor.applyDithering(image);
     }
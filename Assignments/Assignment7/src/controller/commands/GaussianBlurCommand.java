@@ -0,0 +1,135 @@
+package controller.commands;
+
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.operationimpls.GaussianBlurOperation;
+import model.operationinterface.AdvancedImageProcessor;
+
+/**
+ * Command to perform a Gaussian blur of a given sigma, with optional split view or masking.
+ */
+public class GaussianBlurCommand implements Command {
+  private final double sigma;
+  private final String imageName;
+  private String destImageName;
+  private String maskImageName;
+  private boolean isSplit;
+  private int splitPercentage;
+  private final AdvancedImageProcessor imageProcessor;
+  private final ImageModelInterface model;
+
+  /**
+   * Constructs a Gaussian blur command with the given parameters.
+   *
+   * @param tokens         the tokens that form the command
+   * @param imageProcessor the image processor to apply the command
+   * @param model          the image model to apply the command
+   */
+  public GaussianBlurCommand(String[] tokens, AdvancedImageProcessor imageProcessor,
+                        ImageModelInterface model) {
+
+    if (tokens.length < 4 || tokens.length > 6) {
+      throw new IllegalArgumentException(
+              "Usage: gaussian-blur sigma sourceImage [maskImage] destImage [split p]");
+    }
+
+    this.imageProcessor = imageProcessor;
+    this.model = model;
+
+    try {
+      this.sigma = Double.parseDouble(tokens[1]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Sigma must be a number.");
+    }
+    if (!(sigma >= GaussianBlurOperation.MIN_SIGMA) || Double.isInfinite(sigma)) {
+      throw new IllegalArgumentException("Sigma must be at least "
+              + GaussianBlurOperation.MIN_SIGMA + ".");
+    }
+
+    this.imageName = tokens[2];
+    this.maskImageName = null;
+    this.destImageName = null;
+    this.isSplit = false;
+
+    parseArguments(tokens);
+  }
+
+  /**
+   * Parses the arguments to determine if a mask image or split view is specified.
+   *
+   * @param tokens the command tokens
+   */
+  private void parseArguments(String[] tokens) {
+    if (tokens.length == 4) {
+      this.destImageName = tokens[3];
+      return;
+    }
+
+    if (tokens.length == 5) {
+      if (tokens[3].equalsIgnoreCase("split")) {
+        throw new IllegalArgumentException("Invalid syntax. " +
+                "Expected 'split' keyword at position 4.");
+      } else {
+        this.maskImageName = tokens[3];
+        this.destImageName = tokens[4];
+      }
+      return;
+    }
+
+    if (tokens[4].equalsIgnoreCase("split")) {
+      this.destImageName = tokens[3];
+      this.isSplit = true;
+      parseSplit(tokens[4], tokens[5]);
+    } else {
+      throw new IllegalArgumentException("Invalid syntax or " +
+              "cannot use both mask image and split view.");
+    }
+  }
+
+  /**
+   * Parses the split view option from the given tokens.
+   *
+   * @param splitKeyword the keyword for the split view option
+   * @param percentage   the percentage for the split view
+   */
+  private void parseSplit(String splitKeyword, String percentage) {
+    if (!splitKeyword.equalsIgnoreCase("split")) {
+      throw new IllegalArgumentException("Invalid syntax. Expected 'split' keyword.");
+    }
+    try {
+      this.splitPercentage = Integer.parseInt(percentage);
+      if (splitPercentage < 0 || splitPercentage > 100) {
+        throw new IllegalArgumentException("Split percentage must be between 0 and 100.");
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Split percentage must be an integer.");
+    }
+  }
+
+  /**
+   * Executes the Gaussian blur command on the given image.
+   */
+  @Override
+  public void execute() {
+    ImageInterface image = model.getImage(imageName);
+    if (image == null) {
+      throw new IllegalArgumentException("Image not found: " + imageName);
+    }
+
+    ImageInterface result;
+
+    if (maskImageName != null) {
+      ImageInterface maskImage = model.getImage(maskImageName);
+      if (maskImage == null) {
+        throw new IllegalArgumentException("Mask image not found: " + maskImageName);
+      }
+      result = imageProcessor.applyMask(image, maskImage, "gaussian-blur", sigma);
+    } else if (isSplit) {
+      result = imageProcessor.splitView(image, "gaussian-blur", splitPercentage, sigma);
+    } else {
+      result = imageProcessor.gaussianBlur(image, sigma);
+    }
+
+    model.addImage(destImageName, result);
+  }
+}
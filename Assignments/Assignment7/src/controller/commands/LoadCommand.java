@@ -2,17 +2,32 @@ package controller.commands;
 
 import java.io.IOException;
 
+import controller.AsyncImageIO;
 import controller.ImageIOUtil;
 import model.ImageModelInterface;
 import model.image.ImageInterface;
+import model.operationinterface.AdvancedImageProcessor;
 
 /**
  * Command to load an image from a file path.
+ * The image can be loaded at a reduced resolution with {@code --scale 1/N}, which keeps every
+ * N-th pixel of every N-th row, or with {@code --max width height}, which fits the image within
+ * a box while keeping its aspect ratio. Both decode only the pixels they keep; {@code --max}
+ * subsamples by the largest whole factor that stays at or above the target size and then
+ * downscales the rest of the way, so it costs little more than a full load of the smaller image.
  */
 public class LoadCommand implements Command {
+  private static final String USAGE =
+          "Usage: load [--scale 1/N | --max width height] image-path image-name";
+
   private final String imagePath;
   private final String imageName;
+  private final int scale;
+  private final int maxWidth;
+  private final int maxHeight;
+  private final AdvancedImageProcessor processor;
   private final ImageModelInterface model;
+  private final AsyncImageIO imageIO;
 
   /**
    * Constructs a load command with the given tokens and model.
@@ -21,12 +36,86 @@ public class LoadCommand implements Command {
    * @param model  the image model to apply the command
    */
   public LoadCommand(String[] tokens, ImageModelInterface model) {
-    if (tokens.length != 3) {
-      throw new IllegalArgumentException("Usage: load image-path image-name");
+    this(tokens, null, model, null);
+  }
+
+  /**
+   * Constructs a load command with the given tokens, processor and model.
+   *
+   * @param tokens    the tokens that form the command
+   * @param processor the processor that finishes a {@code --max} load, or null to only allow
+   *                  plain and {@code --scale} loads
+   * @param model     the image model to apply the command
+   * @param imageIO   the I/O layer of the script, which may have read the file ahead, or null
+   *                  to read directly
+   */
+  public LoadCommand(String[] tokens, AdvancedImageProcessor processor,
+                     ImageModelInterface model, AsyncImageIO imageIO) {
+    int next = 1;
+    int scale = 1;
+    int maxWidth = 0;
+    int maxHeight = 0;
+    if (tokens.length == 5 && tokens[1].equals("--scale")) {
+      scale = parseScale(tokens[2]);
+      next = 3;
+    } else if (tokens.length == 6 && tokens[1].equals("--max") && processor != null) {
+      maxWidth = parsePositive(tokens[2]);
+      maxHeight = parsePositive(tokens[3]);
+      next = 4;
+    } else if (tokens.length != 3) {
+      throw new IllegalArgumentException(USAGE);
     }
-    this.imagePath = tokens[1];
-    this.imageName = tokens[2];
+    this.imagePath = tokens[next];
+    this.imageName = tokens[next + 1];
+    this.scale = scale;
+    this.maxWidth = maxWidth;
+    this.maxHeight = maxHeight;
+    this.processor = processor;
     this.model = model;
+    this.imageIO = imageIO;
+  }
+
+  /**
+   * Gets the file a plain load reads, so that a script can read it ahead of time.
+   *
+   * @param tokens the tokens of a load line
+   * @return the path, or null if the line is not a well-formed load without options
+   */
+  public static String plainLoadPath(String[] tokens) {
+    return tokens.length == 3 && !tokens[1].startsWith("--") ? tokens[1] : null;
+  }
+
+  /**
+   * Parses a scale of the form {@code 1/N}.
+   *
+   * @param token the scale
+   * @return N
+   * @throws IllegalArgumentException if the scale is not of that form
+   */
+  private static int parseScale(String token) {
+    if (!token.startsWith("1/")) {
+      throw new IllegalArgumentException("Scale must be of the form 1/N: " + token);
+    }
+    return parsePositive(token.substring(2));
+  }
+
+  /**
+   * Parses a positive integer argument.
+   *
+   * @param token the argument
+   * @return its value
+   * @throws IllegalArgumentException if the argument is not a positive integer
+   */
+  private static int parsePositive(String token) {
+    try {
+      int value = Integer.parseInt(token);
+      if (value > 0) {
+        return value;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below.
+    }
+    throw new IllegalArgumentException("Expected a positive integer but found " + token);
   }
 
   /**
@@ -35,11 +124,46 @@ public class LoadCommand implements Command {
   @Override
   public void execute() {
     try {
-      ImageInterface image = ImageIOUtil.readImage(imagePath);
+      ImageInterface image = maxWidth > 0 ? loadWithin() : read(scale);
       model.addImage(imageName, image);
     } catch (IOException e) {
       throw new IllegalStateException("Unable to load image from "
               + imagePath + ": " + e.getMessage(), e);
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Loads the image fitted within the maximum size. Images that already fit are loaded as they
+   * are.
+   *
+   * @return the image
+   * @throws IOException if the image cannot be read
+   */
+  private ImageInterface loadWithin() throws IOException {
+    if (imageIO != null) {
+      imageIO.awaitWrites(imagePath);
+    }
+    int[] size = ImageIOUtil.readDimensions(imagePath);
+    double fit = Math.min(1, Math.min((double) maxWidth / size[0], (double) maxHeight / size[1]));
+    int width = Math.max(1, (int) Math.round(size[0] * fit));
+    int height = Math.max(1, (int) Math.round(size[1] * fit));
+    int factor = Math.max(1, Math.min(size[0] / width, size[1] / height));
+    ImageInterface image = read(factor);
+    if (image.getWidth() == width && image.getHeight() == height) {
+      return image;
+    }
+    return processor.downscale(image, width, height);
+  }
+
+  /**
+   * Reads the image file, through the script's I/O layer if there is one.
+   *
+   * @param factor the subsampling factor
+   * @return the image
+   * @throws IOException if the image cannot be read
+   */
+  private ImageInterface read(int factor) throws IOException {
+    return imageIO != null ? imageIO.read(imagePath, factor)
+            : ImageIOUtil.readImage(imagePath, factor);
+  }
+}
@@ -0,0 +1,57 @@
+package controller.commands;
+
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.operationinterface.AdvancedImageProcessor;
+
+/**
+ * Command to rotate an image clockwise by a multiple of 90 degrees.
+ */
+public class RotateCommand implements Command {
+  private final int degrees;
+  private final String imageName;
+  private final String destImageName;
+  private final AdvancedImageProcessor imageProcessor;
+  private final ImageModelInterface model;
+
+  /**
+   * Constructs a rotate command with the given parameters.
+   *
+   * @param tokens         the tokens that form the command
+   * @param imageProcessor the image processor to apply the command
+   * @param model          the image model to apply the command
+   * @throws IllegalArgumentException if the tokens are invalid
+   */
+  public RotateCommand(String[] tokens, AdvancedImageProcessor imageProcessor,
+                       ImageModelInterface model) {
+    if (tokens.length != 4) {
+      throw new IllegalArgumentException("Usage: rotate degrees sourceImage destImage");
+    }
+    try {
+      this.degrees = Integer.parseInt(tokens[1]);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Degrees must be an integer.");
+    }
+    if (degrees % 90 != 0) {
+      throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees.");
+    }
+    this.imageName = tokens[2];
+    this.destImageName = tokens[3];
+    this.imageProcessor = imageProcessor;
+    this.model = model;
+  }
+
+  /**
+   * Executes the rotate command.
+   *
+   * @throws IllegalArgumentException if the image is not found in the image model
+   */
+  @Override
+  public void execute() {
+    ImageInterface image = model.getImage(imageName);
+    if (image == null) {
+      throw new IllegalArgumentException("Image not found: " + imageName);
+    }
+    model.addImage(destImageName, imageProcessor.rotate(image, degrees));
+  }
+}
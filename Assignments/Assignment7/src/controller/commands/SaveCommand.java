@@ -1,6 +1,8 @@
 package controller.commands;
 
 import java.io.IOException;
+
+import controller.AsyncImageIO;
 import controller.ImageIOUtil;
 import model.ImageModelInterface;
 import model.image.ImageInterface;
@@ -12,6 +14,7 @@ public class SaveCommand implements Command {
   private final String imagePath;
   private final String imageName;
   private final ImageModelInterface model;
+  private final AsyncImageIO imageIO;
 
   /**
    * Constructs a save command with the given tokens and model.
@@ -20,12 +23,25 @@ public class SaveCommand implements Command {
    * @param model  the image model to apply the command
    */
   public SaveCommand(String[] tokens, ImageModelInterface model) {
+    this(tokens, model, null);
+  }
+
+  /**
+   * Constructs a save command that writes through a script's I/O layer, which may finish the
+   * write in the background.
+   *
+   * @param tokens  the tokens that form the command
+   * @param model   the image model to apply the command
+   * @param imageIO the I/O layer, or null to write directly
+   */
+  public SaveCommand(String[] tokens, ImageModelInterface model, AsyncImageIO imageIO) {
     if (tokens.length != 3) {
       throw new IllegalArgumentException("Usage: save image-path image-name");
     }
     this.imagePath = tokens[1];
     this.imageName = tokens[2];
     this.model = model;
+    this.imageIO = imageIO;
   }
 
   /**
@@ -38,7 +54,11 @@ public class SaveCommand implements Command {
       throw new IllegalArgumentException("Image not found: " + imageName);
     }
     try {
-      ImageIOUtil.writeImage(image, imagePath);
+      if (imageIO != null) {
+        imageIO.write(image, imagePath);
+      } else {
+        ImageIOUtil.writeImage(image, imagePath);
+      }
     } catch (IOException e) {
       throw new IllegalStateException("Error saving image to " + imagePath + ": "
           + e.getMessage(), e);
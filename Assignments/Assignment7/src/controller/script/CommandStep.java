@@ -0,0 +1,124 @@
+package controller.script;
+
+import controller.CommandExecutor;
+import controller.commands.Command;
+import controller.commands.LoadCommand;
+
+/**
+ * A script step that runs one command line.
+ * Lines without variables are parsed into a {@link Command} once, when the script is compiled,
+ * and that command object is executed every time the step runs. Lines with variables keep their
+ * tokens and are turned into a command each time, after the variables are replaced. The special
+ * {@code run} and {@code exit} lines are passed to {@link CommandExecutor#executeCommand}.
+ * When the executor has a script cache, the line runs through the run's
+ * {@link ScriptCacheSession}, which may take its images from the cache instead; the session
+ * hashes the files a line names, so their pending saves are finished first. Special lines run
+ * outside the session, which then forgets how the images it knows were made.
+ * A line that cannot be parsed does not stop compilation: the step reports the error when it is
+ * reached, so the lines before it still run, as they did before scripts were compiled.
+ */
+public class CommandStep implements ScriptStep {
+  private final String[] tokens;
+  private final boolean hasVariables;
+  private final boolean special;
+  private final boolean load;
+  private final Command command;
+  private final RuntimeException error;
+
+  /**
+   * Compiles a command line.
+   *
+   * @param tokens   the tokens of the line
+   * @param executor the executor whose commands the line may name
+   */
+  public CommandStep(String[] tokens, CommandExecutor executor) {
+    this.tokens = tokens;
+    String name = tokens[0].toLowerCase();
+    this.special = name.equals("run") || name.equals("exit");
+    this.load = name.equals("load") && LoadCommand.plainLoadPath(tokens) != null;
+    boolean variables = false;
+    for (String token : tokens) {
+      variables |= ScriptContext.hasVariables(token);
+    }
+    this.hasVariables = variables;
+
+    Command compiled = null;
+    RuntimeException failure = null;
+    if (!special && !hasVariables) {
+      try {
+        compiled = executor.createCommand(tokens);
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+    this.command = compiled;
+    this.error = failure;
+  }
+
+  /**
+   * Gets the file this line loads, if it is a plain {@code load path name} line whose variables
+   * are all set.
+   *
+   * @param context the variables and command executor of the running script
+   * @return the path, or null
+   */
+  @Override
+  public String loadPath(ScriptContext context) {
+    if (!load) {
+      return null;
+    }
+    try {
+      return context.substitute(tokens[1]);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Runs the command.
+   *
+   * @param context the variables and command executor of the running script
+   * @throws RuntimeException if the line could not be parsed or the command fails
+   */
+  @Override
+  public void run(ScriptContext context) {
+    try {
+      if (error != null) {
+        throw error;
+      }
+      CommandExecutor executor = context.getExecutor();
+      ScriptCacheSession session = context.getCacheSession();
+      if (command != null && session == null) {
+        executor.runCommand(command);
+        return;
+      }
+      String[] resolved = tokens;
+      if (hasVariables) {
+        resolved = new String[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+          resolved[i] = context.substitute(tokens[i]);
+        }
+      }
+      if (special) {
+        String commandLine = String.join(" ", resolved);
+        if (session != null) {
+          session.runOutside(() -> executor.executeCommand(commandLine));
+        } else {
+          executor.executeCommand(commandLine);
+        }
+        return;
+      }
+      String[] line = resolved;
+      Runnable action = command != null ? () -> executor.runCommand(command)
+              : () -> executor.runCommand(executor.createCommand(line));
+      if (session != null) {
+        executor.getImageIO().awaitWrites(resolved);
+        session.run(resolved, action);
+      } else {
+        action.run();
+      }
+    } catch (Exception e) {
+      throw new RuntimeException("Error executing command in script: " + e.getMessage(), e);
+    }
+  }
+}
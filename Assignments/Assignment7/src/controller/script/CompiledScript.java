@@ -0,0 +1,51 @@
+package controller.script;
+
+import java.util.List;
+
+import controller.CommandExecutor;
+
+/**
+ * A script that has been parsed once into steps by {@link ScriptCompiler}.
+ * It can be run any number of times; each run starts with no variables set.
+ */
+public class CompiledScript {
+  private final List<ScriptStep> steps;
+  private final CommandExecutor executor;
+
+  /**
+   * Constructs a compiled script.
+   *
+   * @param steps    the top-level steps
+   * @param executor the executor that runs the script's commands
+   */
+  CompiledScript(List<ScriptStep> steps, CommandExecutor executor) {
+    this.steps = steps;
+    this.executor = executor;
+  }
+
+  /**
+   * Gets the number of top-level steps.
+   *
+   * @return the number of steps
+   */
+  public int getStepCount() {
+    return steps.size();
+  }
+
+  /**
+   * Runs every step in order. With a script cache, the images of lines taken from the cache are
+   * in the model when the run ends, even if a step fails.
+   *
+   * @throws RuntimeException if a step fails
+   */
+  public void run() {
+    ScriptContext context = new ScriptContext(executor);
+    try {
+      context.runSteps(steps);
+    } finally {
+      if (context.getCacheSession() != null) {
+        context.getCacheSession().finish();
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package controller.script;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A script step that runs a block once for every image file in a directory:
+ * {@code for each var in directory ... end}.
+ * Files with the extensions ppm, png, jpg and jpeg are visited in name order. On each pass
+ * {@code $var} holds the path of the file and {@code ${var.name}} its name without the
+ * extension, so the block can build output names from it.
+ * While the block runs for one file, the files its loads will read for the next file are read
+ * ahead in the background.
+ */
+public class ForEachStep implements ScriptStep {
+  private static final List<String> IMAGE_EXTENSIONS = Arrays.asList("ppm", "png", "jpg", "jpeg");
+
+  private final String variable;
+  private final String directory;
+  private final List<ScriptStep> body;
+
+  /**
+   * Constructs the step.
+   *
+   * @param variable  the loop variable
+   * @param directory the directory, possibly referencing variables
+   * @param body      the steps to run for every file
+   */
+  public ForEachStep(String variable, String directory, List<ScriptStep> body) {
+    this.variable = variable;
+    this.directory = directory;
+    this.body = body;
+  }
+
+  /**
+   * Runs the body for every image file in the directory.
+   *
+   * @param context the variables and command executor of the running script
+   * @throws IllegalArgumentException if the directory does not exist
+   */
+  @Override
+  public void run(ScriptContext context) {
+    String path = context.substitute(directory);
+    File[] files = new File(path).listFiles(file -> file.isFile() && isImage(file.getName()));
+    if (files == null) {
+      throw new IllegalArgumentException("Not a directory: " + path);
+    }
+    Arrays.sort(files);
+    for (int i = 0; i < files.length; i++) {
+      if (i + 1 < files.length) {
+        setFile(context, files[i + 1]);
+        context.prefetch(body, 0);
+      }
+      setFile(context, files[i]);
+      context.runSteps(body);
+    }
+  }
+
+  /**
+   * Sets the loop variables to a file.
+   *
+   * @param context the variables of the running script
+   * @param file    the file
+   */
+  private void setFile(ScriptContext context, File file) {
+    String name = file.getName();
+    context.setVariable(variable, file.getPath());
+    context.setVariable(variable + ".name", name.substring(0, name.lastIndexOf('.')));
+  }
+
+  /**
+   * Checks whether a file name has an image extension.
+   *
+   * @param name the file name
+   * @return whether the extension is ppm, png, jpg or jpeg
+   */
+  private static boolean isImage(String name) {
+    int dot = name.lastIndexOf('.');
+    return dot > 0 && IMAGE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase());
+  }
+}
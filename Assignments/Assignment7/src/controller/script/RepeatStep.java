@@ -0,0 +1,45 @@
+package controller.script;
+
+import java.util.List;
+
+/**
+ * A script step that runs a block a fixed number of times: {@code repeat count ... end}.
+ * The count may be a variable reference, which is read when the step runs.
+ */
+public class RepeatStep implements ScriptStep {
+  private final String count;
+  private final List<ScriptStep> body;
+
+  /**
+   * Constructs the step.
+   *
+   * @param count the number of repetitions, possibly a variable reference
+   * @param body  the steps to repeat
+   */
+  public RepeatStep(String count, List<ScriptStep> body) {
+    this.count = count;
+    this.body = body;
+  }
+
+  /**
+   * Runs the body the given number of times.
+   *
+   * @param context the variables and command executor of the running script
+   * @throws IllegalArgumentException if the count is not a non-negative integer
+   */
+  @Override
+  public void run(ScriptContext context) {
+    int times;
+    try {
+      times = Integer.parseInt(context.substitute(count));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Repeat count must be an integer: " + count);
+    }
+    if (times < 0) {
+      throw new IllegalArgumentException("Repeat count cannot be negative: " + times);
+    }
+    for (int i = 0; i < times; i++) {
+      context.runSteps(body);
+    }
+  }
+}
@@ -0,0 +1,348 @@
+package controller.script;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.image.GrayImage;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * A persistent store of the images produced by script lines, so that running a script again
+ * reuses the images of every line whose inputs have not changed.
+ * The store is a directory with two kinds of files, both named by a SHA-256 key:
+ * <ul>
+ *   <li>{@code key.line} lists the names of the images one script line wrote. Its key covers
+ *   the normalized line, the digests of the files it read and the keys of its input images;
+ *   see {@link ScriptCacheSession}.</li>
+ *   <li>{@code key.img} holds one of those images, with its planes stored raw so that reading it
+ *   back is a plain copy.</li>
+ * </ul>
+ * Files are written under a temporary name and renamed into place, so an interrupted run never
+ * leaves a partial entry. {@link #trim} keeps the directory within its size limit by deleting
+ * the least recently used files first.
+ */
+public class ScriptCache {
+  private static final int MAGIC = 0x494d4743;
+
+  private final File directory;
+  private final long maxBytes;
+  private final Map<String, String> fileDigests;
+  private int hits;
+  private int misses;
+
+  /**
+   * Opens a store, creating its directory if needed.
+   *
+   * @param directory the directory of the store
+   * @param maxBytes  the most bytes the directory may hold after {@link #trim}
+   * @throws IllegalArgumentException if the size limit is negative or the directory cannot be
+   *                                  created
+   */
+  public ScriptCache(File directory, long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size cannot be negative.");
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IllegalArgumentException("Cannot create cache directory: " + directory);
+    }
+    this.directory = directory;
+    this.maxBytes = maxBytes;
+    this.fileDigests = new HashMap<>();
+  }
+
+  /**
+   * Gets the SHA-256 digest of a piece of text.
+   *
+   * @param text the text
+   * @return the digest as 64 hexadecimal digits
+   */
+  static String digest(String text) {
+    MessageDigest digest = sha256();
+    return toHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Gets the SHA-256 digest of a file's contents. Digests are remembered for as long as the
+   * file keeps its size and modification time.
+   *
+   * @param file the file
+   * @return the digest as 64 hexadecimal digits
+   * @throws IOException if the file cannot be read
+   */
+  String digest(File file) throws IOException {
+    String stamp = file.getCanonicalPath() + '|' + file.length() + '|' + file.lastModified();
+    String known = fileDigests.get(stamp);
+    if (known != null) {
+      return known;
+    }
+    MessageDigest digest = sha256();
+    byte[] buffer = new byte[1 << 16];
+    try (InputStream in = new FileInputStream(file)) {
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    String result = toHex(digest.digest());
+    fileDigests.put(stamp, result);
+    return result;
+  }
+
+  /**
+   * Looks up the images a script line wrote when it last ran with the same inputs. A line whose
+   * images have been evicted counts as missing.
+   *
+   * @param key the key of the line
+   * @return the names of the images the line wrote, or null if the line is not stored
+   */
+  List<String> readLine(String key) {
+    File file = new File(directory, key + ".line");
+    List<String> names;
+    try {
+      names = file.isFile() ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8) : null;
+    } catch (IOException e) {
+      names = null;
+    }
+    if (names != null) {
+      for (String name : names) {
+        if (!new File(directory, imageKey(key, name) + ".img").isFile()) {
+          names = null;
+          break;
+        }
+      }
+    }
+    if (names == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    long now = System.currentTimeMillis();
+    file.setLastModified(now);
+    for (String name : names) {
+      new File(directory, imageKey(key, name) + ".img").setLastModified(now);
+    }
+    return names;
+  }
+
+  /**
+   * Stores the images a script line wrote.
+   *
+   * @param key    the key of the line
+   * @param images the images, by name
+   * @throws IOException if the store cannot be written
+   */
+  void writeLine(String key, Map<String, ImageInterface> images) throws IOException {
+    for (Map.Entry<String, ImageInterface> entry : images.entrySet()) {
+      File temporary = File.createTempFile("image", ".tmp", directory);
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+              new FileOutputStream(temporary), 1 << 16))) {
+        writeImage((PlanarImage) entry.getValue(), out);
+      }
+      moveIntoPlace(temporary, imageKey(key, entry.getKey()) + ".img");
+    }
+    File temporary = File.createTempFile("line", ".tmp", directory);
+    Files.write(temporary.toPath(), images.keySet(), StandardCharsets.UTF_8);
+    moveIntoPlace(temporary, key + ".line");
+  }
+
+  /**
+   * Reads one of the images a stored script line wrote.
+   *
+   * @param key  the key of the line
+   * @param name the name of the image
+   * @return the image
+   * @throws IOException if the image cannot be read
+   */
+  ImageInterface readImage(String key, String name) throws IOException {
+    File file = new File(directory, imageKey(key, name) + ".img");
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+            new FileInputStream(file), 1 << 16))) {
+      return readImage(in);
+    }
+  }
+
+  /**
+   * Gets the key under which one image written by a line is stored.
+   *
+   * @param key  the key of the line
+   * @param name the name of the image
+   * @return the key of the image
+   */
+  static String imageKey(String key, String name) {
+    return digest(key + '|' + name);
+  }
+
+  /**
+   * Deletes the least recently used files until the store is within its size limit, along with
+   * temporary files left behind by interrupted runs.
+   */
+  public void trim() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    List<File> entries = new ArrayList<>();
+    long total = 0;
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(".tmp")
+              && file.lastModified() < System.currentTimeMillis() - 60 * 60 * 1000L) {
+        file.delete();
+      } else if (name.endsWith(".img") || name.endsWith(".line")) {
+        entries.add(file);
+        total += file.length();
+      }
+    }
+    entries.sort(Comparator.comparingLong(File::lastModified));
+    for (int i = 0; i < entries.size() && total > maxBytes; i++) {
+      File file = entries.get(i);
+      long length = file.length();
+      if (file.delete()) {
+        total -= length;
+      }
+    }
+  }
+
+  /**
+   * Gets the number of script lines whose images were found in the store.
+   *
+   * @return the number of hits
+   */
+  public int getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of script lines that had to be run.
+   *
+   * @return the number of misses
+   */
+  public int getMisses() {
+    return misses;
+  }
+
+  /**
+   * Writes an image: a header with its dimensions, maximum value, sample size and channel
+   * count, then each plane in row-major order.
+   *
+   * @param image the image
+   * @param out   the output
+   * @throws IOException if writing fails
+   */
+  private static void writeImage(PlanarImage image, DataOutputStream out) throws IOException {
+    int channels = image instanceof GrayImage ? 1 : 3;
+    boolean wide = image.getBitDepth() > 8;
+    out.writeInt(MAGIC);
+    out.writeInt(image.getWidth());
+    out.writeInt(image.getHeight());
+    out.writeInt(image.getMaxValue());
+    out.writeByte(wide ? 2 : 1);
+    out.writeByte(channels);
+    byte[] row = new byte[image.getWidth() * (wide ? 2 : 1)];
+    for (int c = 0; c < channels; c++) {
+      int[] plane = image.readPlane(c);
+      for (int start = 0; start < plane.length; start += image.getWidth()) {
+        for (int x = 0, i = 0; x < image.getWidth(); x++) {
+          int value = plane[start + x];
+          if (wide) {
+            row[i++] = (byte) (value >>> 8);
+          }
+          row[i++] = (byte) value;
+        }
+        out.write(row);
+      }
+    }
+  }
+
+  /**
+   * Reads an image written by {@link #writeImage}.
+   *
+   * @param in the input
+   * @return the image
+   * @throws IOException if reading fails or the data is not a stored image
+   */
+  private static ImageInterface readImage(DataInputStream in) throws IOException {
+    if (in.readInt() != MAGIC) {
+      throw new IOException("Not a cached image.");
+    }
+    int width = in.readInt();
+    int height = in.readInt();
+    int maxValue = in.readInt();
+    boolean wide = in.readByte() == 2;
+    int channels = in.readByte();
+    byte[] samples = new byte[width * height * (wide ? 2 : 1)];
+    int[][] planes = new int[channels][width * height];
+    for (int[] plane : planes) {
+      in.readFully(samples);
+      for (int i = 0; i < plane.length; i++) {
+        plane[i] = wide ? (samples[2 * i] & 0xff) << 8 | (samples[2 * i + 1] & 0xff)
+                : samples[i] & 0xff;
+      }
+    }
+    return channels == 1 ? ImageFactory.fromGrayPlane(width, height, maxValue, planes[0])
+            : ImageFactory.fromPlanes(width, height, maxValue, planes);
+  }
+
+  /**
+   * Renames a finished temporary file to its final name, replacing any older copy.
+   *
+   * @param temporary the temporary file
+   * @param name      the final name
+   * @throws IOException if the file cannot be moved
+   */
+  private void moveIntoPlace(File temporary, String name) throws IOException {
+    try {
+      Files.move(temporary.toPath(), new File(directory, name).toPath(),
+              StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      temporary.delete();
+      throw e;
+    }
+  }
+
+  /**
+   * Creates a SHA-256 digest.
+   *
+   * @return the digest
+   */
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available.", e);
+    }
+  }
+
+  /**
+   * Formats bytes as hexadecimal digits.
+   *
+   * @param bytes the bytes
+   * @return the digits
+   */
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,207 @@
+package controller.script;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.utilities.ContentHash;
+
+/**
+ * Runs the command lines of one script run against a {@link ScriptCache}.
+ * Every image the run produces is given a lineage key: the digest of the normalized line that
+ * wrote it, with the digest of the contents of each file the line names and the lineage key of
+ * each image it names. Images that were in the model before the run are keyed by their content
+ * hash. A line whose key is in the store is not run; the images it wrote are instead recorded as
+ * pending and read back from the store only when a later line that is run, or the end of the
+ * script, needs them. So when only the last lines of a script
+ * change, the lines before them cost a few lookups and the model is filled with just the images
+ * the changed lines read.
+ * Lines that act outside the model, {@code save} and {@code details}, are always run.
+ * Lines that run outside the session, such as {@code run}, may rewrite any image, so after them
+ * every image is keyed by its content hash again.
+ */
+public class ScriptCacheSession {
+  private static final Set<String> UNCACHED = Set.of("save", "details");
+
+  private final ScriptCache cache;
+  private final ImageModelInterface model;
+  private final Map<String, String> lineage;
+  private final Map<String, String> pending;
+
+  /**
+   * Starts a session.
+   *
+   * @param cache the store of line results
+   * @param model the model the script's commands work on
+   */
+  public ScriptCacheSession(ScriptCache cache, ImageModelInterface model) {
+    this.cache = cache;
+    this.model = model;
+    this.lineage = new HashMap<>();
+    this.pending = new HashMap<>();
+  }
+
+  /**
+   * Runs a command line, or takes its images from the store if it ran before with the same
+   * inputs.
+   *
+   * @param tokens the tokens of the line, with variables already replaced
+   * @param action runs the line's command
+   */
+  public void run(String[] tokens, Runnable action) {
+    String name = tokens[0].toLowerCase();
+    if (UNCACHED.contains(name)) {
+      materialize(tokens);
+      action.run();
+      return;
+    }
+
+    String key = keyOf(name, tokens);
+    if (key != null) {
+      List<String> written = cache.readLine(key);
+      if (written != null) {
+        for (String image : written) {
+          String imageKey = ScriptCache.imageKey(key, image);
+          pending.put(image, key);
+          lineage.put(image, imageKey);
+        }
+        return;
+      }
+    }
+
+    materialize(tokens);
+    Set<String> names = new LinkedHashSet<>(List.of(tokens).subList(1, tokens.length));
+    Map<String, String> before = new HashMap<>();
+    for (String image : names) {
+      before.put(image, ContentHash.of(model.getImage(image)));
+    }
+    action.run();
+
+    Map<String, ImageInterface> written = new LinkedHashMap<>();
+    for (String image : names) {
+      ImageInterface result = model.getImage(image);
+      if (result == null) {
+        continue;
+      }
+      String hash = ContentHash.of(result);
+      if (hash == null) {
+        key = null;
+        lineage.remove(image);
+      } else if (!hash.equals(before.get(image))) {
+        written.put(image, result);
+      }
+    }
+    for (String image : written.keySet()) {
+      if (key != null) {
+        lineage.put(image, ScriptCache.imageKey(key, image));
+      } else {
+        lineage.remove(image);
+      }
+    }
+    if (key != null) {
+      try {
+        cache.writeLine(key, written);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Cannot write script cache: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Runs a line outside the session, such as {@code run} or {@code exit}. The pending images are
+   * read into the model first, and the lineage keys are dropped afterwards, since the line may
+   * have rewritten any image; later lines key those images by their content hash.
+   *
+   * @param action runs the line
+   */
+  public void runOutside(Runnable action) {
+    materializeAll();
+    try {
+      action.run();
+    } finally {
+      lineage.clear();
+    }
+  }
+
+  /**
+   * Reads every pending image into the model, so that the model holds exactly what it would if
+   * every line had been run. Called before lines that may read any image and at the end of the
+   * script.
+   */
+  public void materializeAll() {
+    materialize(pending.keySet().toArray(new String[0]));
+  }
+
+  /**
+   * Ends the session: reads the pending images into the model and trims the store.
+   */
+  public void finish() {
+    materializeAll();
+    cache.trim();
+  }
+
+  /**
+   * Builds the key of a line from its normalized tokens.
+   *
+   * @param name   the command name, in lower case
+   * @param tokens the tokens of the line
+   * @return the key, or null if the line reads an image whose content cannot be hashed
+   */
+  private String keyOf(String name, String[] tokens) {
+    StringBuilder description = new StringBuilder(name);
+    for (int i = 1; i < tokens.length; i++) {
+      String token = tokens[i];
+      description.append(' ');
+      String imageKey = lineage.get(token);
+      if (imageKey == null && !pending.containsKey(token)) {
+        ImageInterface image = model.getImage(token);
+        if (image != null) {
+          String hash = ContentHash.of(image);
+          if (hash == null) {
+            return null;
+          }
+          imageKey = "content:" + hash;
+        }
+      }
+      description.append(token);
+      if (imageKey != null) {
+        description.append("=image:").append(imageKey);
+      }
+      File file = new File(token);
+      if (file.isFile()) {
+        try {
+          description.append("=file:").append(cache.digest(file));
+        } catch (IOException e) {
+          return null;
+        }
+      }
+    }
+    return ScriptCache.digest(description.toString());
+  }
+
+  /**
+   * Reads the pending images named by some tokens into the model.
+   *
+   * @param tokens the tokens
+   */
+  private void materialize(String[] tokens) {
+    for (String token : tokens) {
+      String key = pending.remove(token);
+      if (key != null) {
+        try {
+          model.addImage(token, cache.readImage(key, token));
+        } catch (IOException e) {
+          throw new UncheckedIOException("Cannot read script cache: " + e.getMessage(), e);
+        }
+      }
+    }
+  }
+}
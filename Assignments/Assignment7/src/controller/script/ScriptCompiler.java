@@ -0,0 +1,152 @@
+package controller.script;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+
+import controller.CommandExecutor;
+
+/**
+ * Compiles script text into a {@link CompiledScript}, parsing every line exactly once.
+ * Besides command lines, scripts may use these constructs:
+ * <ul>
+ *   <li>{@code set name value}: sets a variable, referenced later as {@code $name} or
+ *   {@code ${name}}.</li>
+ *   <li>{@code for each var in directory} ... {@code end}: runs the block for every image file
+ *   in the directory; see {@link ForEachStep}.</li>
+ *   <li>{@code repeat count} ... {@code end}: runs the block count times.</li>
+ * </ul>
+ * Blocks can be nested. Blank lines and lines starting with # are ignored.
+ */
+public class ScriptCompiler {
+  private final List<String> lines;
+  private final CommandExecutor executor;
+  private int next;
+
+  /**
+   * Constructs a compiler over the lines of a script.
+   *
+   * @param lines    the lines
+   * @param executor the executor whose commands the script may name
+   */
+  private ScriptCompiler(List<String> lines, CommandExecutor executor) {
+    this.lines = lines;
+    this.executor = executor;
+    this.next = 0;
+  }
+
+  /**
+   * Compiles a script.
+   *
+   * @param scriptInput the readable script input
+   * @param executor    the executor that will run the script's commands
+   * @return the compiled script
+   * @throws IllegalArgumentException if a loop or variable construct is malformed
+   */
+  public static CompiledScript compile(Readable scriptInput, CommandExecutor executor) {
+    List<String> lines = new ArrayList<>();
+    try (Scanner scanner = new Scanner(scriptInput)) {
+      while (scanner.hasNextLine()) {
+        lines.add(scanner.nextLine().trim());
+      }
+    }
+    ScriptCompiler compiler = new ScriptCompiler(lines, executor);
+    return new CompiledScript(compiler.compileBlock(-1), executor);
+  }
+
+  /**
+   * Compiles lines until the {@code end} of the current block, or until the end of the script
+   * at the top level.
+   *
+   * @param opening the index of the line that opened the block, or -1 at the top level
+   * @return the steps of the block
+   * @throws IllegalArgumentException if a construct is malformed or a block is not closed
+   */
+  private List<ScriptStep> compileBlock(int opening) {
+    List<ScriptStep> steps = new ArrayList<>();
+    while (next < lines.size()) {
+      int index = next++;
+      String line = lines.get(index);
+      if (line.isEmpty() || line.startsWith("#")) {
+        continue;
+      }
+      String[] tokens = line.split("\\s+");
+      switch (tokens[0].toLowerCase()) {
+        case "end":
+          if (opening < 0) {
+            throw error(index, "'end' without a matching 'for each' or 'repeat'.");
+          }
+          return steps;
+        case "set":
+          if (tokens.length < 3 || !isVariableName(tokens[1])) {
+            throw error(index, "Usage: set name value");
+          }
+          steps.add(new SetStep(tokens[1], joinFrom(tokens, 2)));
+          break;
+        case "repeat":
+          if (tokens.length != 2 || !isCount(tokens[1])) {
+            throw error(index, "Usage: repeat count");
+          }
+          steps.add(new RepeatStep(tokens[1], compileBlock(index)));
+          break;
+        case "for":
+          if (tokens.length < 5 || !tokens[1].equalsIgnoreCase("each")
+                  || !isVariableName(tokens[2]) || !tokens[3].equalsIgnoreCase("in")) {
+            throw error(index, "Usage: for each name in directory");
+          }
+          steps.add(new ForEachStep(tokens[2], joinFrom(tokens, 4), compileBlock(index)));
+          break;
+        default:
+          steps.add(new CommandStep(tokens, executor));
+          break;
+      }
+    }
+    if (opening >= 0) {
+      throw error(opening, "Block is missing its 'end'.");
+    }
+    return steps;
+  }
+
+  /**
+   * Creates an error that names a script line.
+   *
+   * @param index   the index of the line
+   * @param message the message
+   * @return the exception
+   */
+  private static IllegalArgumentException error(int index, String message) {
+    return new IllegalArgumentException("Line " + (index + 1) + ": " + message);
+  }
+
+  /**
+   * Joins the tokens from a given position with single spaces.
+   *
+   * @param tokens the tokens
+   * @param from   the index of the first token to join
+   * @return the joined text
+   */
+  private static String joinFrom(String[] tokens, int from) {
+    return String.join(" ", Arrays.copyOfRange(tokens, from, tokens.length));
+  }
+
+  /**
+   * Checks whether a token is a valid variable name: letters, digits, underscores and dots.
+   *
+   * @param token the token
+   * @return whether it is a valid name
+   */
+  private static boolean isVariableName(String token) {
+    return token.matches("[A-Za-z_][A-Za-z0-9_.]*");
+  }
+
+  /**
+   * Checks whether a token can be a repeat count: a non-negative integer or a variable.
+   *
+   * @param token the token
+   * @return whether it can be a count
+   */
+  private static boolean isCount(String token) {
+    return token.matches("\\d+") || ScriptContext.hasVariables(token);
+  }
+}
@@ -0,0 +1,181 @@
+package controller.script;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import controller.AsyncImageIO;
+import controller.CommandExecutor;
+
+/**
+ * The state of a running compiled script: its variables and the executor that runs its
+ * commands.
+ * Variables are referenced in script lines as {@code $name} or {@code ${name}}; the braced form
+ * also allows dots in the name, as in {@code ${file.name}}. {@code $$} stands for a literal
+ * dollar sign.
+ */
+public class ScriptContext {
+  private static final int LOOKAHEAD_STEPS = 8;
+
+  private final CommandExecutor executor;
+  private final Map<String, String> variables;
+  private final ScriptCacheSession cacheSession;
+
+  /**
+   * Constructs a context with no variables. If the executor has a script cache, the context
+   * starts a session on it for this run.
+   *
+   * @param executor the executor that runs the script's commands
+   */
+  public ScriptContext(CommandExecutor executor) {
+    this.executor = executor;
+    this.variables = new HashMap<>();
+    this.cacheSession = executor.getScriptCache() == null ? null
+            : new ScriptCacheSession(executor.getScriptCache(), executor.getModel());
+  }
+
+  /**
+   * Gets the session of the script cache for this run.
+   *
+   * @return the session, or null if the executor has no script cache
+   */
+  public ScriptCacheSession getCacheSession() {
+    return cacheSession;
+  }
+
+  /**
+   * Gets the executor that runs the script's commands.
+   *
+   * @return the executor
+   */
+  public CommandExecutor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Runs steps in order. Before each step, the files loaded by the steps after it are read
+   * ahead; see {@link #prefetch}.
+   *
+   * @param steps the steps
+   * @throws RuntimeException if a step fails
+   */
+  public void runSteps(List<ScriptStep> steps) {
+    for (int i = 0; i < steps.size(); i++) {
+      prefetch(steps, i + 1);
+      steps.get(i).run(this);
+    }
+  }
+
+  /**
+   * Starts reading the files loaded by the next few steps, with the variables as they are now.
+   * Only the first {@value #LOOKAHEAD_STEPS} steps from the given position are looked at. A
+   * path that turns out to be wrong, because a variable changes before the load runs, only
+   * costs a wasted read.
+   *
+   * @param steps the steps
+   * @param from  the index of the first step to look at
+   */
+  public void prefetch(List<ScriptStep> steps, int from) {
+    AsyncImageIO imageIO = executor.getImageIO();
+    if (!imageIO.isActive()) {
+      return;
+    }
+    int end = Math.min(steps.size(), from + LOOKAHEAD_STEPS);
+    for (int i = from; i < end; i++) {
+      String path = steps.get(i).loadPath(this);
+      if (path != null) {
+        imageIO.prefetch(path);
+      }
+    }
+  }
+
+  /**
+   * Sets a variable.
+   *
+   * @param name  the variable name
+   * @param value the value
+   */
+  public void setVariable(String name, String value) {
+    variables.put(name, value);
+  }
+
+  /**
+   * Gets the value of a variable.
+   *
+   * @param name the variable name
+   * @return the value, or null if the variable is not set
+   */
+  public String getVariable(String name) {
+    return variables.get(name);
+  }
+
+  /**
+   * Replaces every variable reference in a piece of text with the variable's value.
+   *
+   * @param text the text
+   * @return the text with its variables replaced
+   * @throws IllegalArgumentException if a referenced variable is not set
+   */
+  public String substitute(String text) {
+    int dollar = text.indexOf('$');
+    if (dollar < 0) {
+      return text;
+    }
+    StringBuilder result = new StringBuilder(text.length() + 16);
+    int i = 0;
+    while (dollar >= 0) {
+      result.append(text, i, dollar);
+      int start = dollar + 1;
+      int end;
+      String name;
+      if (start < text.length() && text.charAt(start) == '$') {
+        result.append('$');
+        i = start + 1;
+        dollar = text.indexOf('$', i);
+        continue;
+      } else if (start < text.length() && text.charAt(start) == '{') {
+        end = text.indexOf('}', start);
+        if (end < 0) {
+          throw new IllegalArgumentException("Unclosed variable reference in: " + text);
+        }
+        name = text.substring(start + 1, end);
+        end++;
+      } else {
+        end = start;
+        while (end < text.length() && isNameChar(text.charAt(end))) {
+          end++;
+        }
+        name = text.substring(start, end);
+      }
+      String value = variables.get(name);
+      if (value == null) {
+        throw new IllegalArgumentException("Undefined variable: " + name);
+      }
+      result.append(value);
+      i = end;
+      dollar = text.indexOf('$', i);
+    }
+    result.append(text, i, text.length());
+    return result.toString();
+  }
+
+  /**
+   * Checks whether a piece of text references any variables.
+   *
+   * @param text the text
+   * @return whether the text contains a dollar sign
+   */
+  static boolean hasVariables(String text) {
+    return text.indexOf('$') >= 0;
+  }
+
+  /**
+   * Checks whether a character can appear in an unbraced variable name.
+   *
+   * @param c the character
+   * @return whether it is a letter, digit or underscore
+   */
+  private static boolean isNameChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+}
@@ -0,0 +1,26 @@
+package controller.script;
+
+/**
+ * One step of a compiled script: a command, a variable assignment or a loop.
+ */
+public interface ScriptStep {
+
+  /**
+   * Runs the step.
+   *
+   * @param context the variables and command executor of the running script
+   * @throws RuntimeException if the step fails
+   */
+  void run(ScriptContext context);
+
+  /**
+   * Gets the image file this step would load if it ran now, so that the file can be read ahead
+   * while earlier steps run.
+   *
+   * @param context the variables and command executor of the running script
+   * @return the path, or null if the step loads no file or its path is not known yet
+   */
+  default String loadPath(ScriptContext context) {
+    return null;
+  }
+}
@@ -0,0 +1,32 @@
+package controller.script;
+
+/**
+ * A script step that assigns a variable: {@code set name value}.
+ * The value may itself reference variables, which are replaced when the step runs.
+ */
+public class SetStep implements ScriptStep {
+  private final String name;
+  private final String value;
+
+  /**
+   * Constructs the step.
+   *
+   * @param name  the variable name
+   * @param value the value, possibly referencing other variables
+   */
+  public SetStep(String name, String value) {
+    this.name = name;
+    this.value = value;
+  }
+
+  /**
+   * Sets the variable.
+   *
+   * @param context the variables and command executor of the running script
+   * @throws IllegalArgumentException if the value references an undefined variable
+   */
+  @Override
+  public void run(ScriptContext context) {
+    context.setVariable(name, context.substitute(value));
+  }
+}
@@ -0,0 +1,160 @@
+package controller.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import controller.CommandExecutor;
+
+/**
+ * Serves one client connection of a {@link ScriptServer}.
+ * The protocol is line based, in UTF-8. The first line must be {@code auth} followed by the
+ * server's token, which is answered with {@code OK}; any other first line is answered with an
+ * {@code ERROR} and the connection is closed. Each request is either a single script line, or the
+ * line {@code script} followed by the lines of a whole script and a line holding only a period,
+ * which is compiled and run as one script so it can use loops and variables. Blank lines and
+ * comments are ignored. For every request the server answers with any messages the commands
+ * display, each line prefixed by {@code "| "}, followed by a status line: {@code OK} or
+ * {@code ERROR} and the message.
+ * {@code exit} or {@code quit} closes the connection and {@code shutdown} stops the server.
+ * Paths in commands are resolved against the server's working directory.
+ */
+public class ClientSession implements Runnable {
+  private final Socket socket;
+  private final ScriptServer server;
+
+  /**
+   * Constructs a session for an accepted connection.
+   *
+   * @param socket the connection
+   * @param server the server that accepted it
+   */
+  public ClientSession(Socket socket, ScriptServer server) {
+    this.socket = socket;
+    this.server = server;
+  }
+
+  /**
+   * Reads and answers requests until the client disconnects.
+   */
+  @Override
+  public void run() {
+    try (Socket connection = socket;
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 connection.getInputStream(), StandardCharsets.UTF_8));
+         PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                 connection.getOutputStream(), StandardCharsets.UTF_8))) {
+      CommandExecutor executor = new CommandExecutor(server.getModel(),
+          message -> reply(out, message), server.getProcessor());
+      executor.setExitAction(() -> {
+        throw new IllegalStateException("exit is not available in server mode.");
+      });
+
+      String line = in.readLine();
+      if (line == null) {
+        return;
+      }
+      if (!server.authorize(line.trim())) {
+        respond(out, new IllegalStateException("Not authorized."));
+        return;
+      }
+      respond(out, null);
+
+      while ((line = in.readLine()) != null) {
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String command = line.toLowerCase();
+        if (command.equals("exit") || command.equals("quit")) {
+          respond(out, null);
+          return;
+        }
+        if (command.equals("shutdown")) {
+          respond(out, null);
+          server.shutdown();
+          return;
+        }
+        String script = command.equals("script") ? readScript(in) : null;
+        String request = line;
+        RuntimeException[] failure = new RuntimeException[1];
+        server.runRequest(() -> {
+          try {
+            if (script != null) {
+              executor.runScript(new StringReader(script));
+            } else {
+              executor.executeCommand(request);
+            }
+          } catch (RuntimeException e) {
+            failure[0] = e;
+          }
+        });
+        respond(out, failure[0]);
+      }
+    } catch (IOException e) {
+      // The client went away; nothing left to answer.
+    }
+  }
+
+  /**
+   * Reads the lines of a script up to the terminating period. An {@code exit} line ends the
+   * script early, as it would when the script is run from a file.
+   *
+   * @param in the connection input
+   * @return the script text
+   * @throws IOException if the connection fails or closes before the terminating period
+   */
+  private static String readScript(BufferedReader in) throws IOException {
+    StringBuilder script = new StringBuilder();
+    boolean ended = false;
+    String line;
+    while ((line = in.readLine()) != null) {
+      String trimmed = line.trim();
+      if (trimmed.equals(".")) {
+        return script.toString();
+      }
+      if (trimmed.equalsIgnoreCase("exit")) {
+        ended = true;
+      }
+      if (!ended) {
+        script.append(line).append('\n');
+      }
+    }
+    throw new IOException("Connection closed inside a script.");
+  }
+
+  /**
+   * Sends a message displayed by a command, one protocol line per message line.
+   *
+   * @param out     the connection output
+   * @param message the message
+   */
+  private static void reply(PrintWriter out, String message) {
+    for (String part : message.split("\n")) {
+      out.print("| ");
+      out.print(part);
+      out.print('\n');
+    }
+  }
+
+  /**
+   * Sends the status line of a request and flushes the connection.
+   *
+   * @param out     the connection output
+   * @param failure the error the request failed with, or null if it succeeded
+   */
+  private static void respond(PrintWriter out, RuntimeException failure) {
+    if (failure == null) {
+      out.print("OK\n");
+    } else {
+      String message = String.valueOf(failure.getMessage()).replace('\n', ' ');
+      out.print("ERROR " + message + "\n");
+    }
+    out.flush();
+  }
+}
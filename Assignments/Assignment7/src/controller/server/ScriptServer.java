@@ -0,0 +1,245 @@
+package controller.server;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import model.ConcurrentImageModel;
+import model.ImageModelInterface;
+import model.operationimpls.AdvancedImageProcessorImpl;
+import model.operationinterface.AdvancedImageProcessor;
+
+/**
+ * A daemon that keeps one warm JVM and one resident image model, and runs script lines sent by
+ * clients over a localhost TCP socket.
+ * Each client connection is served by its own thread, so many clients can be connected at once.
+ * All clients share one model, which keeps images loaded by one request available to the next,
+ * and one processor, whose result cache answers repeated operations without recomputing them.
+ * With a {@link ConcurrentImageModel} the requests of different clients run in parallel;
+ * any other model is not safe to share between threads, so requests then run one at a time.
+ * The socket only accepts connections from the loopback interface, but any local user can reach
+ * it, so every connection must first prove it may read the server's token file. The server makes
+ * a random token when it starts and writes it to a file that only its owner can read, by default
+ * {@code .image-server-PORT.token} in the user's home directory; the file is deleted on shutdown.
+ * See {@link ClientSession} for the line protocol.
+ */
+public class ScriptServer {
+  private final ImageModelInterface model;
+  private final AdvancedImageProcessor processor;
+  private final ServerSocket serverSocket;
+  private final Path tokenFile;
+  private final byte[] token;
+  private final ExecutorService sessions;
+  private final Object modelLock;
+  private final boolean serialized;
+  private volatile boolean running;
+
+  /**
+   * Opens the server socket and writes its token to the default token file for its port.
+   *
+   * @param model the model shared by all clients
+   * @param port  the port to listen on, or 0 to pick a free port
+   * @throws IOException if the port cannot be opened or the token file cannot be written
+   */
+  public ScriptServer(ImageModelInterface model, int port) throws IOException {
+    this(model, port, null);
+  }
+
+  /**
+   * Opens the server socket and writes its token to a file that only the owner can read.
+   *
+   * @param model     the model shared by all clients
+   * @param port      the port to listen on, or 0 to pick a free port
+   * @param tokenFile the file to write the token to, or null for the default file of the port
+   * @throws IOException if the port cannot be opened or the token file cannot be written
+   */
+  public ScriptServer(ImageModelInterface model, int port, Path tokenFile) throws IOException {
+    this.model = model;
+    this.processor = new AdvancedImageProcessorImpl();
+    this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    this.tokenFile = tokenFile != null ? tokenFile : defaultTokenFile(getPort());
+    byte[] secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    StringBuilder hex = new StringBuilder();
+    for (byte b : secret) {
+      hex.append(String.format("%02x", b));
+    }
+    this.token = hex.toString().getBytes(StandardCharsets.US_ASCII);
+    try {
+      writeToken(this.tokenFile, this.token);
+    } catch (IOException e) {
+      serverSocket.close();
+      throw e;
+    }
+    this.sessions = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "image-client");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.modelLock = new Object();
+    this.serialized = !(model instanceof ConcurrentImageModel);
+    this.running = true;
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * Gets the default token file of a port: {@code .image-server-PORT.token} in the user's home
+   * directory.
+   *
+   * @param port the port the server listens on
+   * @return the path of the token file
+   */
+  public static Path defaultTokenFile(int port) {
+    return new File(System.getProperty("user.home"), ".image-server-" + port + ".token").toPath();
+  }
+
+  /**
+   * Gets the file the token of this server is written to.
+   *
+   * @return the path of the token file
+   */
+  public Path getTokenFile() {
+    return tokenFile;
+  }
+
+  /**
+   * Writes a token to a new file that only its owner can read or write. Where the file system
+   * has no POSIX permissions, the file is made readable and writable by its owner only.
+   *
+   * @param file  the file, which is replaced if it exists
+   * @param token the token
+   * @throws IOException if the file cannot be written
+   */
+  private static void writeToken(Path file, byte[] token) throws IOException {
+    Files.deleteIfExists(file);
+    try {
+      Files.createFile(file, PosixFilePermissions.asFileAttribute(
+              PosixFilePermissions.fromString("rw-------")));
+    } catch (UnsupportedOperationException e) {
+      Files.createFile(file);
+      File created = file.toFile();
+      created.setReadable(false, false);
+      created.setWritable(false, false);
+      created.setReadable(true, true);
+      created.setWritable(true, true);
+    }
+    Files.write(file, token);
+  }
+
+  /**
+   * Checks the first line of a connection, which must be {@code auth} followed by the token.
+   *
+   * @param line the first line sent by the client, trimmed
+   * @return whether the client sent the token
+   */
+  boolean authorize(String line) {
+    if (!line.startsWith("auth ")) {
+      return false;
+    }
+    byte[] offered = line.substring(5).trim().getBytes(StandardCharsets.US_ASCII);
+    return MessageDigest.isEqual(token, offered);
+  }
+
+  /**
+   * Accepts clients until {@link #shutdown} is called. Each client is served on its own thread.
+   *
+   * @throws IOException if accepting a connection fails while the server is running
+   */
+  public void serve() throws IOException {
+    try {
+      while (running) {
+        Socket socket;
+        try {
+          socket = serverSocket.accept();
+        } catch (SocketException e) {
+          if (!running) {
+            break;
+          }
+          throw e;
+        }
+        sessions.execute(new ClientSession(socket, this));
+      }
+    } finally {
+      shutdown();
+    }
+  }
+
+  /**
+   * Stops accepting clients, closes the server socket and deletes the token file. Sessions that
+   * are running a command finish it first.
+   */
+  public void shutdown() {
+    running = false;
+    try {
+      serverSocket.close();
+    } catch (IOException e) {
+      // Already closed.
+    }
+    try {
+      Files.deleteIfExists(tokenFile);
+    } catch (IOException e) {
+      // The token is useless once the socket is closed.
+    }
+    sessions.shutdown();
+    try {
+      sessions.awaitTermination(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gets the model shared by all clients.
+   *
+   * @return the model
+   */
+  ImageModelInterface getModel() {
+    return model;
+  }
+
+  /**
+   * Gets the processor shared by all clients.
+   *
+   * @return the processor
+   */
+  AdvancedImageProcessor getProcessor() {
+    return processor;
+  }
+
+  /**
+   * Runs a request against the shared model. Unless the model is safe for concurrent use, the
+   * request holds the model lock, so requests from different clients never touch the model at
+   * the same time.
+   *
+   * @param request the request
+   */
+  void runRequest(Runnable request) {
+    if (!serialized) {
+      request.run();
+      return;
+    }
+    synchronized (modelLock) {
+      request.run();
+    }
+  }
+}
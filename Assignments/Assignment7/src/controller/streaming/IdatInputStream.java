@@ -0,0 +1,107 @@
+package controller.streaming;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The concatenated payload of consecutive PNG IDAT chunks, read straight from the file.
+ * The stream ends at the first chunk that is not an IDAT chunk.
+ */
+class IdatInputStream extends InputStream {
+  private static final int IDAT = 0x49444154;
+
+  private final DataInputStream input;
+  private int remaining;
+  private boolean finished;
+
+  /**
+   * Constructs the stream at the start of the first IDAT payload.
+   *
+   * @param input       The file, positioned just after the header of the first IDAT chunk.
+   * @param firstLength The length of the first IDAT chunk.
+   */
+  IdatInputStream(DataInputStream input, int firstLength) {
+    this.input = input;
+    this.remaining = firstLength;
+    this.finished = false;
+  }
+
+  /**
+   * Skips exactly the given number of bytes.
+   *
+   * @param input The stream.
+   * @param count The number of bytes to skip.
+   * @throws IOException If the stream ends first.
+   */
+  static void skipFully(InputStream input, long count) throws IOException {
+    while (count > 0) {
+      long skipped = input.skip(count);
+      if (skipped <= 0) {
+        if (input.read() < 0) {
+          throw new EOFException();
+        }
+        skipped = 1;
+      }
+      count -= skipped;
+    }
+  }
+
+  /**
+   * Moves to the next IDAT chunk once the current one is used up.
+   *
+   * @return Whether there is more data.
+   * @throws IOException If the file cannot be read.
+   */
+  private boolean advance() throws IOException {
+    while (!finished && remaining == 0) {
+      skipFully(input, 4);
+      remaining = input.readInt();
+      if (input.readInt() != IDAT) {
+        finished = true;
+      }
+    }
+    return !finished;
+  }
+
+  /**
+   * Reads one byte of image data.
+   *
+   * @return The byte, or -1 at the end of the image data.
+   * @throws IOException If the file cannot be read.
+   */
+  @Override
+  public int read() throws IOException {
+    if (!advance()) {
+      return -1;
+    }
+    remaining--;
+    return input.read();
+  }
+
+  /**
+   * Reads image data into an array.
+   *
+   * @param buffer The array.
+   * @param offset The index of the first byte to fill.
+   * @param length The largest number of bytes to read.
+   * @return The number of bytes read, or -1 at the end of the image data.
+   * @throws IOException If the file cannot be read.
+   */
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    if (!advance()) {
+      return -1;
+    }
+    int n = input.read(buffer, offset, Math.min(length, remaining));
+    if (n < 0) {
+      throw new EOFException();
+    }
+    remaining -= n;
+    return n;
+  }
+}
@@ -0,0 +1,214 @@
+package controller.streaming;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+import model.image.ImageInterface;
+
+/**
+ * Writes whole images as 8-bit RGB PNG files, filtering and deflating on every core.
+ * The scanlines are cut into blocks of about {@link #BLOCK_SIZE} bytes, the way pigz splits its
+ * input. Each block is filtered on its own, since a row's filter only reads the row above it,
+ * and then deflated on its own with the last 32 KB of the block before it as the preset
+ * dictionary, so matches can still reach back across the block boundary. Every block but the
+ * last ends with a sync flush, which ends it on a byte boundary; the raw deflate outputs then
+ * simply concatenate into one valid zlib stream, whose Adler-32 checksum is combined from the
+ * checksums of the blocks. The stream is written as a single sequence of IDAT chunks.
+ * Filters are chosen per row with the same heuristic as {@link PngRowWriter}, and images deeper
+ * than 8 bits are rescaled to 8 bits in the same way, so the decoded pixels are the same as with
+ * the other writers.
+ */
+public class ParallelPngWriter {
+
+  /**
+   * Uncompressed bytes per deflate block.
+   */
+  static final int BLOCK_SIZE = 128 * 1024;
+
+  /**
+   * The deflate level, the same as the default of the ImageIO PNG writer.
+   */
+  private static final int LEVEL = 4;
+
+  private static final int WINDOW_SIZE = 32 * 1024;
+  private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+  private static final int ADLER_BASE = 65521;
+
+  /**
+   * Writes an image as a PNG file.
+   *
+   * @param image The image.
+   * @param path  The path to the PNG file.
+   * @throws IOException If the file cannot be written.
+   */
+  public static void write(ImageInterface image, String path) throws IOException {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int rowBytes = width * 3 + 1;
+    int rowsPerBlock = Math.max(1, BLOCK_SIZE / rowBytes);
+    int blocks = (height + rowsPerBlock - 1) / rowsPerBlock;
+
+    byte[][] filtered = new byte[blocks][];
+    IntStream.range(0, blocks).parallel().forEach(b -> filtered[b] =
+            filterRows(image, b * rowsPerBlock, Math.min(height, (b + 1) * rowsPerBlock)));
+
+    byte[][] compressed = new byte[blocks][];
+    long[] checksums = new long[blocks];
+    IntStream.range(0, blocks).parallel().forEach(b -> {
+      compressed[b] = deflate(filtered[b], b > 0 ? filtered[b - 1] : null, b == blocks - 1);
+      Adler32 adler = new Adler32();
+      adler.update(filtered[b], 0, filtered[b].length);
+      checksums[b] = adler.getValue();
+    });
+    long checksum = 1;
+    for (int b = 0; b < blocks; b++) {
+      checksum = combineAdler32(checksum, checksums[b], filtered[b].length);
+    }
+
+    try (DataOutputStream file = new DataOutputStream(new BufferedOutputStream(
+            new FileOutputStream(path), 1 << 16))) {
+      file.writeLong(SIGNATURE);
+      PngChunkOutputStream header = new PngChunkOutputStream(file, "IHDR");
+      header.writeInt(width);
+      header.writeInt(height);
+      header.write(8);
+      header.write(2);
+      header.write(0);
+      header.write(0);
+      header.write(0);
+      header.flushChunk();
+
+      PngChunkOutputStream data = new PngChunkOutputStream(file, "IDAT");
+      data.write(0x78);
+      data.write(0x5E);
+      for (byte[] block : compressed) {
+        data.write(block);
+      }
+      data.writeInt((int) checksum);
+      data.close();
+      new PngChunkOutputStream(file, "IEND").flushChunk();
+    }
+  }
+
+  /**
+   * Filters a range of rows, each prefixed with its filter type byte.
+   *
+   * @param image The image.
+   * @param start The first row, inclusive.
+   * @param end   The last row, exclusive.
+   * @return The filtered rows, one after another.
+   */
+  private static byte[] filterRows(ImageInterface image, int start, int end) {
+    int width = image.getWidth();
+    int rowBytes = width * 3 + 1;
+    byte[] out = new byte[(end - start) * rowBytes];
+    byte[][] candidates = new byte[5][rowBytes];
+    byte[] above = new byte[width * 3];
+    byte[] row = new byte[width * 3];
+    if (start > 0) {
+      readRow(image, start - 1, above);
+    }
+    for (int y = start; y < end; y++) {
+      readRow(image, y, row);
+      byte[] best = PngRowWriter.filterRow(row, above, candidates);
+      System.arraycopy(best, 0, out, (y - start) * rowBytes, rowBytes);
+      byte[] swap = above;
+      above = row;
+      row = swap;
+    }
+    return out;
+  }
+
+  /**
+   * Reads one row of an image as 8-bit RGB samples.
+   *
+   * @param image The image.
+   * @param y     The row.
+   * @param row   The buffer for the samples.
+   */
+  private static void readRow(ImageInterface image, int y, byte[] row) {
+    int maxValue = image.getMaxValue();
+    for (int x = 0; x < image.getWidth(); x++) {
+      for (int c = 0; c < 3; c++) {
+        int value = image.getChannelValue(x, y, c);
+        if (maxValue > 255) {
+          value = (int) (((long) value * 255 + maxValue / 2) / maxValue);
+        }
+        row[x * 3 + c] = (byte) value;
+      }
+    }
+  }
+
+  /**
+   * Deflates one block as raw deflate data, primed with the end of the previous block.
+   *
+   * @param block    The uncompressed block.
+   * @param previous The previous uncompressed block, or null for the first block.
+   * @param last     Whether this is the last block, which finishes the stream; other blocks end
+   *                 with a sync flush.
+   * @return The compressed bytes.
+   */
+  private static byte[] deflate(byte[] block, byte[] previous, boolean last) {
+    Deflater deflater = new Deflater(LEVEL, true);
+    try {
+      if (previous != null) {
+        int length = Math.min(WINDOW_SIZE, previous.length);
+        deflater.setDictionary(previous, previous.length - length, length);
+      }
+      deflater.setInput(block);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(block.length / 2 + 64);
+      byte[] buffer = new byte[1 << 16];
+      if (last) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          out.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        int n;
+        do {
+          n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          out.write(buffer, 0, n);
+        } while (n == buffer.length);
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Combines the Adler-32 checksums of two pieces of data into the checksum of the two pieces
+   * one after the other, as zlib's adler32_combine does.
+   *
+   * @param first        The checksum of the first piece.
+   * @param second       The checksum of the second piece.
+   * @param secondLength The length of the second piece.
+   * @return The checksum of both pieces.
+   */
+  static long combineAdler32(long first, long second, long secondLength) {
+    long remainder = secondLength % ADLER_BASE;
+    long sum1 = first & 0xFFFF;
+    long sum2 = remainder * sum1 % ADLER_BASE;
+    sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+    sum2 += ((first >> 16) & 0xFFFF) + ((second >> 16) & 0xFFFF) + ADLER_BASE - remainder;
+    if (sum1 >= ADLER_BASE) {
+      sum1 -= ADLER_BASE;
+    }
+    if (sum1 >= ADLER_BASE) {
+      sum1 -= ADLER_BASE;
+    }
+    if (sum2 >= 2L * ADLER_BASE) {
+      sum2 -= 2L * ADLER_BASE;
+    }
+    if (sum2 >= ADLER_BASE) {
+      sum2 -= ADLER_BASE;
+    }
+    return sum1 | (sum2 << 16);
+  }
+}
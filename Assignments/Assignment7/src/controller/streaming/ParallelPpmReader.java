@@ -0,0 +1,447 @@
+package controller.streaming;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+import model.image.ByteImage;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.ShortImage;
+
+/**
+ * Reads whole plain (P3) PPM files, tokenizing and parsing on every core.
+ * The file is memory-mapped and the text after the header is cut into chunks of about
+ * {@link #CHUNK_SIZE} bytes. A token or comment belongs to the chunk it starts in, even if it runs
+ * past the chunk's end. Reading a file takes three steps:
+ * <ol>
+ *   <li>Every chunk counts its tokens in parallel. Whether a chunk starts inside a comment
+ *   depends on the chunks before it, so each chunk counts for both cases; the two counts only
+ *   differ before the chunk's first line break.</li>
+ *   <li>A prefix sum over the chunks, in order, picks the right count for each chunk and gives
+ *   the index of the first sample it holds.</li>
+ *   <li>Every chunk parses its tokens in parallel straight into the planes of the image.</li>
+ * </ol>
+ * As in the line-based readers, a line is a comment when its first character is #; a # anywhere
+ * else is part of a token. Tokens after the last sample are ignored. Files of 2 GB or more, which
+ * cannot be mapped as one buffer, are read sequentially by {@link PpmRowReader}.
+ */
+public class ParallelPpmReader {
+
+  /**
+   * The size of a chunk of sample text, in bytes.
+   */
+  static final int CHUNK_SIZE = 256 * 1024;
+
+  /**
+   * Reads a P3 PPM file.
+   * The pixel data is stored in 8-bit planes when the maximum value is at most 255, in 16-bit
+   * planes when it is at most 65535, and in a 3D int array otherwise.
+   *
+   * @param path The path to the PPM file.
+   * @return The image.
+   * @throws IOException If the file cannot be read, its header is invalid, it holds too few
+   *                     samples, or a sample is not a number or is out of range.
+   */
+  public static ImageInterface read(String path) throws IOException {
+    ByteBuffer data;
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        return readSequentially(path);
+      }
+      data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    } catch (NoSuchFileException e) {
+      throw new IOException("File not found: " + path, e);
+    }
+
+    int size = data.limit();
+    int[] cursor = {0};
+    if (!"P3".equals(nextToken(data, cursor, path))) {
+      throw new IOException("Invalid PPM file: plain RAW file should begin with P3");
+    }
+    int width = nextInt(data, cursor, path);
+    int height = nextInt(data, cursor, path);
+    int maxValue = nextInt(data, cursor, path);
+    if (width < 0 || height < 0 || maxValue < 0 || (long) width * height * 3 > Integer.MAX_VALUE) {
+      throw new IOException("Invalid PPM header in " + path);
+    }
+    int dataStart = cursor[0];
+    int samples = width * height * 3;
+    int depth = ImageFactory.bitDepthFor(maxValue);
+    Object[] planes = depth == 8 ? new byte[3][width * height]
+            : depth == 16 ? new short[3][width * height] : new int[3][width * height];
+
+    int chunks = Math.max(1, (int) (((long) size - dataStart + CHUNK_SIZE - 1) / CHUNK_SIZE));
+    int[][] counts = new int[chunks][];
+    IntStream.range(0, chunks).parallel().forEach(i ->
+            counts[i] = countTokens(data, dataStart, chunkStart(dataStart, size, i),
+                    chunkStart(dataStart, size, i + 1)));
+
+    boolean[] startsInComment = new boolean[chunks];
+    int[] firstSample = new int[chunks];
+    long total = 0;
+    boolean inComment = false;
+    for (int i = 0; i < chunks; i++) {
+      int[] count = counts[i];
+      startsInComment[i] = inComment;
+      firstSample[i] = (int) Math.min(total, samples);
+      total += inComment ? count[2] : count[0];
+      inComment = inComment ? count[3] != 0 : count[1] != 0;
+    }
+    if (total < samples) {
+      throw new IOException("Invalid PPM file: " + path + " holds " + total + " of " + samples
+              + " samples");
+    }
+
+    IOException[] errors = new IOException[chunks];
+    IntStream.range(0, chunks).parallel().forEach(i -> {
+      try {
+        parseTokens(data, dataStart, chunkStart(dataStart, size, i),
+                chunkStart(dataStart, size, i + 1), startsInComment[i], firstSample[i],
+                samples, maxValue, planes);
+      } catch (IOException e) {
+        errors[i] = e;
+      }
+    });
+    for (IOException error : errors) {
+      if (error != null) {
+        throw error;
+      }
+    }
+
+    if (depth == 8) {
+      return new ByteImage(width, height, maxValue, (byte[][]) planes);
+    } else if (depth == 16) {
+      return new ShortImage(width, height, maxValue, (short[][]) planes);
+    }
+    return ImageFactory.fromPlanes(width, height, maxValue, (int[][]) planes);
+  }
+
+  /**
+   * Reads a file too large to map with {@link PpmRowReader}, as one band.
+   *
+   * @param path The path to the PPM file.
+   * @return The image.
+   * @throws IOException If the file cannot be read or is invalid.
+   */
+  private static ImageInterface readSequentially(String path) throws IOException {
+    try (PpmRowReader reader = new PpmRowReader(path)) {
+      return reader.readBand(reader.getHeight());
+    }
+  }
+
+  /**
+   * Gets the nominal start of a chunk.
+   *
+   * @param dataStart The offset of the text after the header.
+   * @param size      The size of the file.
+   * @param chunk     The index of the chunk.
+   * @return The offset where the chunk starts, or the size of the file past the last chunk.
+   */
+  private static int chunkStart(int dataStart, int size, int chunk) {
+    return (int) Math.min(size, dataStart + (long) chunk * CHUNK_SIZE);
+  }
+
+  /**
+   * Counts the tokens that start in a chunk, both for a chunk that starts outside a comment and
+   * for one that starts inside a comment.
+   *
+   * @param data      The file.
+   * @param dataStart The offset of the text after the header.
+   * @param start     The start of the chunk.
+   * @param end       The end of the chunk.
+   * @return The count and whether the chunk ends inside a comment, as 0 or 1, first when it
+   *         starts outside a comment and then when it starts inside one.
+   */
+  private static int[] countTokens(ByteBuffer data, int dataStart, int start, int end) {
+    int size = data.limit();
+    int firstBreak = start;
+    while (firstBreak < end && !isLineBreak(data.get(firstBreak))) {
+      firstBreak++;
+    }
+
+    int position = start;
+    if (position > dataStart && !isSpace(data.get(position - 1))) {
+      position = tokenEnd(data, position);
+    }
+    int count = 0;
+    int countBeforeBreak = 0;
+    int commentEnd = -1;
+    while (true) {
+      while (position < end) {
+        byte b = data.get(position);
+        if (isSpace(b)) {
+          position++;
+        } else if (b == '#' && isLineStart(data, position)) {
+          commentEnd = lineEnd(data, position);
+          position = commentEnd;
+        } else {
+          break;
+        }
+      }
+      if (position >= end) {
+        break;
+      }
+      if (position < firstBreak) {
+        countBeforeBreak++;
+      }
+      count++;
+      position = tokenEnd(data, position);
+    }
+    boolean endsInComment = commentEnd > end;
+
+    if (firstBreak < end) {
+      return new int[]{count, endsInComment ? 1 : 0, count - countBeforeBreak,
+          endsInComment ? 1 : 0};
+    }
+    boolean breakAtEnd = end < size && isLineBreak(data.get(end));
+    return new int[]{count, endsInComment ? 1 : 0, 0, breakAtEnd || end >= size ? 0 : 1};
+  }
+
+  /**
+   * Parses the tokens that start in a chunk into the planes of the image.
+   *
+   * @param data        The file.
+   * @param dataStart   The offset of the text after the header.
+   * @param start       The start of the chunk.
+   * @param end         The end of the chunk.
+   * @param inComment   Whether the chunk starts inside a comment.
+   * @param firstSample The index of the first sample in the chunk, counting the channels of
+   *                    every pixel in order.
+   * @param samples     The number of samples in the image; tokens after them are ignored.
+   * @param maxValue    The maximum value of the image.
+   * @param planes      The planes to fill: byte[3][], short[3][] or int[3][].
+   * @throws IOException If a sample is not a number or is out of range.
+   */
+  private static void parseTokens(ByteBuffer data, int dataStart, int start, int end,
+                                  boolean inComment, int firstSample, int samples, int maxValue,
+                                  Object planes) throws IOException {
+    byte[][] bytes = planes instanceof byte[][] ? (byte[][]) planes : null;
+    short[][] shorts = planes instanceof short[][] ? (short[][]) planes : null;
+    int[][] ints = planes instanceof int[][] ? (int[][]) planes : null;
+    boolean checkRange = ints == null;
+
+    int position = start;
+    if (inComment) {
+      position = lineEnd(data, position);
+    } else if (position > dataStart && !isSpace(data.get(position - 1))) {
+      position = tokenEnd(data, position);
+    }
+    int sample = firstSample;
+    int pixel = sample / 3;
+    int channel = sample % 3;
+    while (sample < samples) {
+      while (position < end) {
+        byte b = data.get(position);
+        if (isSpace(b)) {
+          position++;
+        } else if (b == '#' && isLineStart(data, position)) {
+          position = lineEnd(data, position);
+        } else {
+          break;
+        }
+      }
+      if (position >= end) {
+        return;
+      }
+      int tokenEnd = tokenEnd(data, position);
+      int value = parseInt(data, position, tokenEnd);
+      if (checkRange && (value < 0 || value > maxValue)) {
+        throw new IOException("Invalid PPM file: sample value " + value
+                + " is outside the range 0 to " + maxValue);
+      }
+      if (bytes != null) {
+        bytes[channel][pixel] = (byte) value;
+      } else if (shorts != null) {
+        shorts[channel][pixel] = (short) value;
+      } else {
+        ints[channel][pixel] = value;
+      }
+      if (++channel == 3) {
+        channel = 0;
+        pixel++;
+      }
+      sample++;
+      position = tokenEnd;
+    }
+  }
+
+  /**
+   * Reads the next header token, skipping whitespace and comment lines.
+   *
+   * @param data   The file.
+   * @param cursor The position to read from, moved past the token.
+   * @param path   The path of the file, for error messages.
+   * @return The token.
+   * @throws IOException If the file ends.
+   */
+  private static String nextToken(ByteBuffer data, int[] cursor, String path)
+          throws IOException {
+    int start = skipToToken(data, cursor, path);
+    StringBuilder token = new StringBuilder(cursor[0] - start);
+    for (int i = start; i < cursor[0]; i++) {
+      token.append((char) (data.get(i) & 0xFF));
+    }
+    return token.toString();
+  }
+
+  /**
+   * Reads the next header token as an integer.
+   *
+   * @param data   The file.
+   * @param cursor The position to read from, moved past the token.
+   * @param path   The path of the file, for error messages.
+   * @return The integer.
+   * @throws IOException If the file ends or the token is not an integer.
+   */
+  private static int nextInt(ByteBuffer data, int[] cursor, String path) throws IOException {
+    int start = skipToToken(data, cursor, path);
+    return parseInt(data, start, cursor[0]);
+  }
+
+  /**
+   * Finds the next header token, skipping whitespace and comment lines.
+   *
+   * @param data   The file.
+   * @param cursor The position to read from, moved to the end of the token.
+   * @param path   The path of the file, for error messages.
+   * @return The start of the token.
+   * @throws IOException If the file ends.
+   */
+  private static int skipToToken(ByteBuffer data, int[] cursor, String path)
+          throws IOException {
+    int position = cursor[0];
+    while (position < data.limit()) {
+      byte b = data.get(position);
+      if (isSpace(b)) {
+        position++;
+      } else if (b == '#' && isLineStart(data, position)) {
+        position = lineEnd(data, position);
+      } else {
+        break;
+      }
+    }
+    if (position >= data.limit()) {
+      throw new IOException("Invalid PPM file: " + path + " ends in its header");
+    }
+    cursor[0] = tokenEnd(data, position);
+    return position;
+  }
+
+  /**
+   * Parses a token as a decimal integer with an optional sign.
+   *
+   * @param data  The file.
+   * @param start The start of the token.
+   * @param end   The end of the token.
+   * @return The integer.
+   * @throws IOException If the token is not an integer that fits in an int.
+   */
+  private static int parseInt(ByteBuffer data, int start, int end) throws IOException {
+    int position = start;
+    boolean negative = false;
+    if (position < end && (data.get(position) == '-' || data.get(position) == '+')) {
+      negative = data.get(position) == '-';
+      position++;
+    }
+    long value = 0;
+    if (position == end || end - position > 10) {
+      throw notANumber(data, start, end);
+    }
+    for (; position < end; position++) {
+      int digit = data.get(position) - '0';
+      if (digit < 0 || digit > 9) {
+        throw notANumber(data, start, end);
+      }
+      value = value * 10 + digit;
+    }
+    value = negative ? -value : value;
+    if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+      throw notANumber(data, start, end);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Creates the error for a token that is not a number.
+   *
+   * @param data  The file.
+   * @param start The start of the token.
+   * @param end   The end of the token.
+   * @return The error.
+   */
+  private static IOException notANumber(ByteBuffer data, int start, int end) {
+    StringBuilder token = new StringBuilder();
+    for (int i = start; i < Math.min(end, start + 40); i++) {
+      token.append((char) (data.get(i) & 0xFF));
+    }
+    return new IOException("Invalid PPM file: expected a number but found " + token);
+  }
+
+  /**
+   * Finds the end of the token at a position.
+   *
+   * @param data     The file.
+   * @param position A position inside or at the start of a token.
+   * @return The position of the first whitespace after it, or the end of the file.
+   */
+  private static int tokenEnd(ByteBuffer data, int position) {
+    int size = data.limit();
+    while (position < size && !isSpace(data.get(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  /**
+   * Finds the end of the line at a position.
+   *
+   * @param data     The file.
+   * @param position A position in the line.
+   * @return The position of the line break, or the end of the file.
+   */
+  private static int lineEnd(ByteBuffer data, int position) {
+    int size = data.limit();
+    while (position < size && !isLineBreak(data.get(position))) {
+      position++;
+    }
+    return position;
+  }
+
+  /**
+   * Checks whether a position is the first character of a line.
+   *
+   * @param data     The file.
+   * @param position The position.
+   * @return Whether it is at the start of the file or right after a line break.
+   */
+  private static boolean isLineStart(ByteBuffer data, int position) {
+    return position == 0 || isLineBreak(data.get(position - 1));
+  }
+
+  /**
+   * Checks whether a byte ends a line, as a line feed or a carriage return.
+   *
+   * @param b The byte.
+   * @return Whether it is a line break.
+   */
+  private static boolean isLineBreak(byte b) {
+    return b == '\n' || b == '\r';
+  }
+
+  /**
+   * Checks whether a byte separates tokens. These are the ASCII characters that
+   * {@link Character#isWhitespace} accepts.
+   *
+   * @param b The byte.
+   * @return Whether it is whitespace.
+   */
+  private static boolean isSpace(byte b) {
+    return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+  }
+}
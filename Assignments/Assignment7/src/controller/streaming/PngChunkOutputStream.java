@@ -0,0 +1,109 @@
+package controller.streaming;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Output stream that collects bytes and writes them to a PNG file as chunks of one type, each
+ * with its length and CRC. A new chunk is started whenever {@link PngRowWriter#CHUNK_SIZE} bytes
+ * have been collected.
+ */
+class PngChunkOutputStream extends OutputStream {
+  private final DataOutputStream file;
+  private final byte[] type;
+  private final byte[] buffer;
+  private int size;
+
+  /**
+   * Constructs a chunk writer.
+   *
+   * @param file The PNG file.
+   * @param type The four-letter chunk type.
+   */
+  PngChunkOutputStream(DataOutputStream file, String type) {
+    this.file = file;
+    this.type = type.getBytes(StandardCharsets.US_ASCII);
+    this.buffer = new byte[PngRowWriter.CHUNK_SIZE];
+    this.size = 0;
+  }
+
+  /**
+   * Adds one byte to the current chunk.
+   *
+   * @param b The byte.
+   * @throws IOException If a full chunk cannot be written.
+   */
+  @Override
+  public void write(int b) throws IOException {
+    if (size == buffer.length) {
+      flushChunk();
+    }
+    buffer[size++] = (byte) b;
+  }
+
+  /**
+   * Adds bytes to the current chunk, writing out chunks as they fill up.
+   *
+   * @param bytes  The bytes.
+   * @param offset The index of the first byte.
+   * @param length The number of bytes.
+   * @throws IOException If a full chunk cannot be written.
+   */
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (size == buffer.length) {
+        flushChunk();
+      }
+      int n = Math.min(length, buffer.length - size);
+      System.arraycopy(bytes, offset, buffer, size, n);
+      size += n;
+      offset += n;
+      length -= n;
+    }
+  }
+
+  /**
+   * Adds a big-endian int to the current chunk.
+   *
+   * @param value The value.
+   * @throws IOException If a full chunk cannot be written.
+   */
+  void writeInt(int value) throws IOException {
+    write(value >>> 24);
+    write(value >>> 16);
+    write(value >>> 8);
+    write(value);
+  }
+
+  /**
+   * Writes the collected bytes as one chunk, even if there are none.
+   *
+   * @throws IOException If the chunk cannot be written.
+   */
+  void flushChunk() throws IOException {
+    CRC32 crc = new CRC32();
+    crc.update(type);
+    crc.update(buffer, 0, size);
+    file.writeInt(size);
+    file.write(type);
+    file.write(buffer, 0, size);
+    file.writeInt((int) crc.getValue());
+    size = 0;
+  }
+
+  /**
+   * Writes any collected bytes as a last chunk. The file itself is left open.
+   *
+   * @throws IOException If the chunk cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (size > 0) {
+      flushChunk();
+    }
+  }
+}
@@ -0,0 +1,273 @@
+package controller.streaming;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.streaming.RowSource;
+
+/**
+ * A row source that decodes a PNG file a band at a time.
+ * The compressed image data is inflated and unfiltered one row after another, keeping only the
+ * previous row for the filters, so the memory used does not depend on the image height.
+ * Only the common 8-bit truecolor, truecolor with alpha and palette images without interlacing
+ * are decoded here; {@link #open} returns null for other PNG files so the caller can fall back
+ * to a whole-image reader. Alpha is dropped, as in {@link controller.ImageIOUtil#readImage}.
+ */
+public class PngRowReader implements RowSource {
+  private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+  private static final int IHDR = 0x49484452;
+  private static final int PLTE = 0x504C5445;
+  private static final int IDAT = 0x49444154;
+
+  private final DataInputStream input;
+  private final InputStream pixels;
+  private final int width;
+  private final int height;
+  private final int bytesPerPixel;
+  private final byte[] palette;
+  private byte[] previousRow;
+  private byte[] currentRow;
+  private int nextRow;
+
+  /**
+   * Constructs a reader positioned at the start of the image data.
+   *
+   * @param input         The file, positioned just after the header of the first IDAT chunk.
+   * @param firstLength   The length of the first IDAT chunk.
+   * @param width         The image width.
+   * @param height        The image height.
+   * @param bytesPerPixel The number of bytes per pixel: 1 for palette, 3 or 4 for truecolor.
+   * @param palette       The palette as RGB triples, or null for truecolor images.
+   */
+  private PngRowReader(DataInputStream input, int firstLength, int width, int height,
+                       int bytesPerPixel, byte[] palette) {
+    this.input = input;
+    this.pixels = new InflaterInputStream(new IdatInputStream(input, firstLength));
+    this.width = width;
+    this.height = height;
+    this.bytesPerPixel = bytesPerPixel;
+    this.palette = palette;
+    this.previousRow = new byte[width * bytesPerPixel];
+    this.currentRow = new byte[width * bytesPerPixel];
+    this.nextRow = 0;
+  }
+
+  /**
+   * Opens a PNG file for decoding a band at a time.
+   *
+   * @param path The path to the PNG file.
+   * @return The reader, or null if the file is a valid PNG this reader does not decode.
+   * @throws IOException If the file cannot be read or is not a PNG file.
+   */
+  public static PngRowReader open(String path) throws IOException {
+    DataInputStream input = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(path)));
+    try {
+      if (input.readLong() != SIGNATURE) {
+        throw new IOException("Not a PNG file: " + path);
+      }
+      int width = 0;
+      int height = 0;
+      int bytesPerPixel = 0;
+      byte[] palette = null;
+      while (true) {
+        int length = input.readInt();
+        int type = input.readInt();
+        if (type == IHDR) {
+          width = input.readInt();
+          height = input.readInt();
+          int bitDepth = input.readUnsignedByte();
+          int colorType = input.readUnsignedByte();
+          input.readUnsignedByte();
+          input.readUnsignedByte();
+          int interlace = input.readUnsignedByte();
+          IdatInputStream.skipFully(input, length - 13 + 4);
+          bytesPerPixel = colorType == 2 ? 3 : colorType == 6 ? 4 : colorType == 3 ? 1 : 0;
+          if (bitDepth != 8 || bytesPerPixel == 0 || interlace != 0) {
+            input.close();
+            return null;
+          }
+        } else if (type == PLTE) {
+          palette = new byte[length];
+          input.readFully(palette);
+          IdatInputStream.skipFully(input, 4);
+        } else if (type == IDAT) {
+          if (width <= 0 || height <= 0 || (bytesPerPixel == 1 && palette == null)) {
+            throw new IOException("Invalid PNG file: " + path);
+          }
+          return new PngRowReader(input, length, width, height, bytesPerPixel,
+                  bytesPerPixel == 1 ? palette : null);
+        } else {
+          IdatInputStream.skipFully(input, (long) length + 4);
+        }
+      }
+    } catch (IOException e) {
+      input.close();
+      throw e instanceof EOFException ? new IOException("Truncated PNG file: " + path, e) : e;
+    }
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width in pixels.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height in pixels.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the maximum channel value, which is always 255 for the images this reader decodes.
+   *
+   * @return 255.
+   */
+  @Override
+  public int getMaxValue() {
+    return 255;
+  }
+
+  /**
+   * Decodes the next band of rows.
+   *
+   * @param rows The number of rows wanted.
+   * @return The rows, or null once every row has been read.
+   * @throws IOException If the image data is corrupt or ends early.
+   */
+  @Override
+  public ImageInterface readBand(int rows) throws IOException {
+    int count = Math.min(rows, height - nextRow);
+    if (count <= 0) {
+      return null;
+    }
+    int[][] planes = new int[3][width * count];
+    for (int y = 0; y < count; y++) {
+      readRow();
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        if (palette != null) {
+          int index = (currentRow[x] & 0xFF) * 3;
+          if (index + 2 >= palette.length) {
+            throw new IOException("Invalid PNG file: palette index out of range");
+          }
+          planes[0][offset + x] = palette[index] & 0xFF;
+          planes[1][offset + x] = palette[index + 1] & 0xFF;
+          planes[2][offset + x] = palette[index + 2] & 0xFF;
+        } else {
+          int index = x * bytesPerPixel;
+          planes[0][offset + x] = currentRow[index] & 0xFF;
+          planes[1][offset + x] = currentRow[index + 1] & 0xFF;
+          planes[2][offset + x] = currentRow[index + 2] & 0xFF;
+        }
+      }
+    }
+    nextRow += count;
+    return ImageFactory.fromPlanes(width, count, 255, planes);
+  }
+
+  /**
+   * Inflates the next row into {@code currentRow} and reverses its filter.
+   *
+   * @throws IOException If the image data is corrupt or ends early.
+   */
+  private void readRow() throws IOException {
+    byte[] swap = previousRow;
+    previousRow = currentRow;
+    currentRow = swap;
+
+    int filter = pixels.read();
+    if (filter < 0) {
+      throw new IOException("Invalid PNG file: image data ends early");
+    }
+    int read = 0;
+    while (read < currentRow.length) {
+      int n = pixels.read(currentRow, read, currentRow.length - read);
+      if (n < 0) {
+        throw new IOException("Invalid PNG file: image data ends early");
+      }
+      read += n;
+    }
+
+    byte[] row = currentRow;
+    byte[] above = previousRow;
+    int bpp = bytesPerPixel;
+    switch (filter) {
+      case 0:
+        break;
+      case 1:
+        for (int i = bpp; i < row.length; i++) {
+          row[i] += row[i - bpp];
+        }
+        break;
+      case 2:
+        for (int i = 0; i < row.length; i++) {
+          row[i] += above[i];
+        }
+        break;
+      case 3:
+        for (int i = 0; i < row.length; i++) {
+          int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+          row[i] += (byte) ((left + (above[i] & 0xFF)) >> 1);
+        }
+        break;
+      case 4:
+        for (int i = 0; i < row.length; i++) {
+          int left = i >= bpp ? row[i - bpp] & 0xFF : 0;
+          int up = above[i] & 0xFF;
+          int upLeft = i >= bpp ? above[i - bpp] & 0xFF : 0;
+          row[i] += (byte) paeth(left, up, upLeft);
+        }
+        break;
+      default:
+        throw new IOException("Invalid PNG file: unknown filter type " + filter);
+    }
+  }
+
+  /**
+   * Computes the Paeth predictor of the PNG specification.
+   * The choice is made with sign masks instead of branches: on photographs the closest neighbor
+   * changes unpredictably from byte to byte, and mispredicted branches made this the slowest
+   * step of filtering.
+   *
+   * @param left   The byte to the left.
+   * @param up     The byte above.
+   * @param upLeft The byte above and to the left.
+   * @return Whichever of the three is closest to left + up - upLeft.
+   */
+  static int paeth(int left, int up, int upLeft) {
+    int estimate = left + up - upLeft;
+    int distanceLeft = Math.abs(estimate - left);
+    int distanceUp = Math.abs(estimate - up);
+    int distanceUpLeft = Math.abs(estimate - upLeft);
+    int notLeft = ((distanceUp - distanceLeft) | (distanceUpLeft - distanceLeft)) >> 31;
+    int upOrUpLeft = up ^ ((up ^ upLeft) & ((distanceUpLeft - distanceUp) >> 31));
+    return left ^ ((left ^ upOrUpLeft) & notLeft);
+  }
+
+  /**
+   * Closes the file.
+   *
+   * @throws IOException If the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+}
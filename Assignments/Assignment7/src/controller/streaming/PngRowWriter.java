@@ -0,0 +1,198 @@
+package controller.streaming;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import model.image.ImageInterface;
+import model.streaming.RowSink;
+
+/**
+ * A row sink that encodes an 8-bit RGB PNG file as the rows arrive.
+ * Each row is filtered with whichever of the five PNG filters gives the smallest sum of absolute
+ * differences, the usual heuristic for photographs, and deflated straight into IDAT chunks of at
+ * most {@link #CHUNK_SIZE} bytes. Images deeper than 8 bits are rescaled to 8 bits in the same
+ * way as {@link controller.ImageIOUtil#writeImage}.
+ */
+public class PngRowWriter implements RowSink {
+
+  /**
+   * Largest IDAT chunk written.
+   */
+  static final int CHUNK_SIZE = 1 << 16;
+
+  private static final long SIGNATURE = 0x89504E470D0A1A0AL;
+
+  private final DataOutputStream file;
+  private final DeflaterOutputStream compressor;
+  private final Deflater deflater;
+  private final int width;
+  private final int height;
+  private final int maxValue;
+  private byte[] previousRow;
+  private byte[] currentRow;
+  private final byte[][] candidates;
+  private int rowsWritten;
+
+  /**
+   * Creates the file and writes its header.
+   *
+   * @param path     The path to the PNG file.
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum channel value of the image.
+   * @throws IOException If the file cannot be created.
+   */
+  public PngRowWriter(String path, int width, int height, int maxValue) throws IOException {
+    this.file = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+    this.width = width;
+    this.height = height;
+    this.maxValue = maxValue;
+    this.previousRow = new byte[width * 3];
+    this.currentRow = new byte[width * 3];
+    this.candidates = new byte[5][width * 3 + 1];
+    this.rowsWritten = 0;
+
+    file.writeLong(SIGNATURE);
+    PngChunkOutputStream header = new PngChunkOutputStream(file, "IHDR");
+    header.writeInt(width);
+    header.writeInt(height);
+    header.write(8);
+    header.write(2);
+    header.write(0);
+    header.write(0);
+    header.write(0);
+    header.flushChunk();
+
+    this.deflater = new Deflater();
+    this.compressor = new DeflaterOutputStream(new PngChunkOutputStream(file, "IDAT"),
+            deflater, CHUNK_SIZE);
+  }
+
+  /**
+   * Filters and compresses a band of rows.
+   *
+   * @param band The rows.
+   * @throws IOException If the band has the wrong width or there are too many rows.
+   */
+  @Override
+  public void writeBand(ImageInterface band) throws IOException {
+    if (band.getWidth() != width || rowsWritten + band.getHeight() > height) {
+      throw new IOException("Band does not fit the " + width + "x" + height + " image.");
+    }
+    for (int y = 0; y < band.getHeight(); y++) {
+      byte[] swap = previousRow;
+      previousRow = currentRow;
+      currentRow = swap;
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          currentRow[x * 3 + c] = (byte) toEightBit(band.getChannelValue(x, y, c));
+        }
+      }
+      compressor.write(filterRow(currentRow, previousRow, candidates));
+    }
+    rowsWritten += band.getHeight();
+  }
+
+  /**
+   * Picks the one of the five filters that gives the smallest sum of absolute values for a row,
+   * treating the filtered bytes as signed, and applies it. The sums are taken in a single pass,
+   * so only the chosen filter's output is ever stored.
+   *
+   * @param row        The 8-bit RGB samples of the row.
+   * @param above      The samples of the row above, all zero for the first row.
+   * @param candidates Five buffers one byte longer than the row, for the filtered rows.
+   * @return The buffer holding the filter type byte followed by the filtered row.
+   */
+  static byte[] filterRow(byte[] row, byte[] above, byte[][] candidates) {
+    long sumNone = 0;
+    long sumSub = 0;
+    long sumUp = 0;
+    long sumAverage = 0;
+    long sumPaeth = 0;
+    int left = 0;
+    int upLeft = 0;
+    for (int i = 0; i < row.length; i++) {
+      if (i >= 3) {
+        left = row[i - 3] & 0xFF;
+        upLeft = above[i - 3] & 0xFF;
+      }
+      int value = row[i] & 0xFF;
+      int up = above[i] & 0xFF;
+      sumNone += Math.abs((byte) value);
+      sumSub += Math.abs((byte) (value - left));
+      sumUp += Math.abs((byte) (value - up));
+      sumAverage += Math.abs((byte) (value - ((left + up) >> 1)));
+      sumPaeth += Math.abs((byte) (value - PngRowReader.paeth(left, up, upLeft)));
+    }
+    long[] sums = {sumNone, sumSub, sumUp, sumAverage, sumPaeth};
+    int best = 0;
+    for (int f = 1; f < 5; f++) {
+      if (sums[f] < sums[best]) {
+        best = f;
+      }
+    }
+
+    byte[] out = candidates[best];
+    out[0] = (byte) best;
+    for (int i = 0; i < row.length; i++) {
+      int value = row[i] & 0xFF;
+      int before = i >= 3 ? row[i - 3] & 0xFF : 0;
+      int up = above[i] & 0xFF;
+      switch (best) {
+        case 0:
+          out[i + 1] = (byte) value;
+          break;
+        case 1:
+          out[i + 1] = (byte) (value - before);
+          break;
+        case 2:
+          out[i + 1] = (byte) (value - up);
+          break;
+        case 3:
+          out[i + 1] = (byte) (value - ((before + up) >> 1));
+          break;
+        default:
+          int corner = i >= 3 ? above[i - 3] & 0xFF : 0;
+          out[i + 1] = (byte) (value - PngRowReader.paeth(before, up, corner));
+          break;
+      }
+    }
+    return out;
+  }
+
+  /**
+   * Converts a channel value to 8 bits.
+   *
+   * @param value The channel value.
+   * @return The 8-bit value.
+   */
+  private int toEightBit(int value) {
+    if (maxValue > 255) {
+      return (int) (((long) value * 255 + maxValue / 2) / maxValue);
+    }
+    return value & 0xFF;
+  }
+
+  /**
+   * Finishes the compressed data, writes the closing chunk and closes the file.
+   *
+   * @throws IOException If writing fails or fewer rows than the image height were written.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      compressor.close();
+      deflater.end();
+      new PngChunkOutputStream(file, "IEND").flushChunk();
+    } finally {
+      file.close();
+    }
+    if (rowsWritten != height) {
+      throw new IOException("Only " + rowsWritten + " of " + height + " rows were written.");
+    }
+  }
+}
@@ -0,0 +1,201 @@
+package controller.streaming;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.streaming.RowSource;
+
+/**
+ * A row source that decodes a plain (P3) PPM file a band at a time.
+ * The file is read line by line and only the samples of the current band are kept, so the
+ * memory used does not depend on the image size. Lines starting with # are comments, as in
+ * {@link controller.ImageIOUtil#readPPM}.
+ */
+public class PpmRowReader implements RowSource {
+  private final BufferedReader reader;
+  private final String path;
+  private final int width;
+  private final int height;
+  private final int maxValue;
+  private String line;
+  private int position;
+  private int nextRow;
+
+  /**
+   * Opens a PPM file and reads its header.
+   *
+   * @param path The path to the PPM file.
+   * @throws IOException If the file cannot be opened or its header is invalid.
+   */
+  public PpmRowReader(String path) throws IOException {
+    this.path = path;
+    try {
+      this.reader = new BufferedReader(new InputStreamReader(new FileInputStream(path),
+              StandardCharsets.US_ASCII));
+    } catch (FileNotFoundException e) {
+      throw new IOException("File not found: " + path, e);
+    }
+    try {
+      String magic = nextToken();
+      if (!"P3".equals(magic)) {
+        throw new IOException("Invalid PPM file: plain RAW file should begin with P3");
+      }
+      this.width = nextInt();
+      this.height = nextInt();
+      this.maxValue = nextInt();
+      if (width <= 0 || height <= 0 || maxValue <= 0) {
+        throw new IOException("Invalid PPM header in " + path);
+      }
+    } catch (IOException e) {
+      reader.close();
+      throw e;
+    }
+    this.nextRow = 0;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width in pixels.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height in pixels.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the maximum channel value declared in the header.
+   *
+   * @return The maximum value.
+   */
+  @Override
+  public int getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Decodes the next band of rows.
+   *
+   * @param rows The number of rows wanted.
+   * @return The rows, or null once every row has been read.
+   * @throws IOException If the file ends early or holds an invalid sample.
+   */
+  @Override
+  public ImageInterface readBand(int rows) throws IOException {
+    int count = Math.min(rows, height - nextRow);
+    if (count <= 0) {
+      return null;
+    }
+    boolean checkRange = ImageFactory.bitDepthFor(maxValue) != 32;
+    int[][] planes = new int[3][width * count];
+    for (int i = 0; i < width * count; i++) {
+      for (int c = 0; c < 3; c++) {
+        int value = nextInt();
+        if (checkRange && (value < 0 || value > maxValue)) {
+          throw new IOException("Invalid PPM file: sample value " + value
+                  + " is outside the range 0 to " + maxValue);
+        }
+        planes[c][i] = value;
+      }
+    }
+    nextRow += count;
+    return ImageFactory.fromPlanes(width, count, maxValue, planes);
+  }
+
+  /**
+   * Skips rows without decoding their samples, for readers that keep only some of the rows.
+   *
+   * @param rows The number of rows to skip; rows past the end of the image are ignored.
+   * @throws IOException If the file ends early.
+   */
+  public void skipRows(int rows) throws IOException {
+    int count = Math.min(rows, height - nextRow);
+    for (long i = (long) width * 3 * count; i > 0; i--) {
+      skipToken();
+    }
+    nextRow += Math.max(0, count);
+  }
+
+  /**
+   * Reads the next token as an integer.
+   *
+   * @return The integer.
+   * @throws IOException If the file ends or the token is not an integer.
+   */
+  private int nextInt() throws IOException {
+    String token = nextToken();
+    try {
+      return Integer.parseInt(token);
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid PPM file: expected a number but found " + token);
+    }
+  }
+
+  /**
+   * Reads the next whitespace-separated token, skipping comment lines.
+   *
+   * @return The token.
+   * @throws IOException If the file ends.
+   */
+  private String nextToken() throws IOException {
+    int start = skipToken();
+    return line.substring(start, position);
+  }
+
+  /**
+   * Moves past the next whitespace-separated token, skipping comment lines.
+   *
+   * @return The index in the current line where the token starts; it ends at the new position.
+   * @throws IOException If the file ends.
+   */
+  private int skipToken() throws IOException {
+    while (true) {
+      if (line != null) {
+        while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+          position++;
+        }
+        if (position < line.length()) {
+          int start = position;
+          while (position < line.length() && !Character.isWhitespace(line.charAt(position))) {
+            position++;
+          }
+          return start;
+        }
+      }
+      do {
+        line = reader.readLine();
+        if (line == null) {
+          throw new IOException("Invalid PPM file: " + path + " ends after " + nextRow
+                  + " of " + height + " rows");
+        }
+      } while (line.startsWith("#"));
+      position = 0;
+    }
+  }
+
+  /**
+   * Closes the file.
+   *
+   * @throws IOException If the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+}
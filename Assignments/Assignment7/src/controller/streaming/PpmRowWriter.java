@@ -0,0 +1,75 @@
+package controller.streaming;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import model.image.ImageInterface;
+import model.streaming.RowSink;
+
+/**
+ * A row sink that writes a plain (P3) PPM file as the rows arrive, in the same layout as
+ * {@link controller.ImageIOUtil#writePPM}.
+ */
+public class PpmRowWriter implements RowSink {
+  private final PrintWriter writer;
+  private final int width;
+  private final int height;
+  private int rowsWritten;
+
+  /**
+   * Creates the file and writes its header.
+   *
+   * @param path     The path to the PPM file.
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum channel value of the image.
+   * @throws IOException If the file cannot be created.
+   */
+  public PpmRowWriter(String path, int width, int height, int maxValue) throws IOException {
+    this.writer = new PrintWriter(new FileOutputStream(path));
+    this.width = width;
+    this.height = height;
+    this.rowsWritten = 0;
+    writer.println("P3");
+    writer.println(width + " " + height);
+    writer.println(maxValue);
+  }
+
+  /**
+   * Writes the samples of a band of rows.
+   *
+   * @param band The rows.
+   * @throws IOException If the band has the wrong width or there are too many rows.
+   */
+  @Override
+  public void writeBand(ImageInterface band) throws IOException {
+    if (band.getWidth() != width || rowsWritten + band.getHeight() > height) {
+      throw new IOException("Band does not fit the " + width + "x" + height + " image.");
+    }
+    for (int y = 0; y < band.getHeight(); y++) {
+      for (int x = 0; x < width; x++) {
+        writer.println(band.getChannelValue(x, y, 0));
+        writer.println(band.getChannelValue(x, y, 1));
+        writer.println(band.getChannelValue(x, y, 2));
+      }
+    }
+    rowsWritten += band.getHeight();
+    if (writer.checkError()) {
+      throw new IOException("Failed to write PPM rows.");
+    }
+  }
+
+  /**
+   * Closes the file.
+   *
+   * @throws IOException If fewer rows than the image height were written.
+   */
+  @Override
+  public void close() throws IOException {
+    writer.close();
+    if (rowsWritten != height) {
+      throw new IOException("Only " + rowsWritten + " of " + height + " rows were written.");
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package controller.streaming;
+
+import java.io.IOException;
+
+import controller.ImageIOUtil;
+import model.streaming.ImageRowSource;
+import model.streaming.RowSink;
+import model.streaming.RowSource;
+
+/**
+ * Utility class that opens row sources and row sinks for image files, picking the reader or
+ * writer from the file extension.
+ * PPM files and 8-bit PNG files are decoded and encoded a band at a time. Other PNG variants
+ * and JPEG files are read whole with {@link ImageIOUtil}, and JPEG files are written whole, so
+ * those use memory in proportion to the image size.
+ */
+public class StreamingImageIO {
+
+  /**
+   * Opens an image file for reading a band at a time.
+   *
+   * @param path The path to the image file.
+   * @return The row source.
+   * @throws IOException If the file cannot be opened or has an unsupported format.
+   */
+  public static RowSource openReader(String path) throws IOException {
+    switch (getFileExtension(path).toLowerCase()) {
+      case "ppm":
+        return new PpmRowReader(path);
+      case "png":
+        RowSource reader = PngRowReader.open(path);
+        return reader != null ? reader : new ImageRowSource(ImageIOUtil.readImage(path));
+      case "jpg":
+      case "jpeg":
+        return new ImageRowSource(ImageIOUtil.readImage(path));
+      default:
+        throw new IOException("Unsupported file format: " + getFileExtension(path));
+    }
+  }
+
+  /**
+   * Opens an image file for writing a band at a time.
+   *
+   * @param path     The path to the image file.
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum channel value of the image.
+   * @return The row sink.
+   * @throws IOException If the file cannot be created or has an unsupported format.
+   */
+  public static RowSink openWriter(String path, int width, int height, int maxValue)
+          throws IOException {
+    switch (getFileExtension(path).toLowerCase()) {
+      case "ppm":
+        return new PpmRowWriter(path, width, height, maxValue);
+      case "png":
+        return new PngRowWriter(path, width, height, maxValue);
+      case "jpg":
+      case "jpeg":
+        return new WholeImageSink(path, width, height, maxValue);
+      default:
+        throw new IOException("Unsupported file format: " + getFileExtension(path));
+    }
+  }
+
+  /**
+   * Gets the file extension from the filename.
+   *
+   * @param filename The filename to extract the extension from.
+   * @return The file extension, or an empty string if there is none.
+   */
+  private static String getFileExtension(String filename) {
+    int index = filename.lastIndexOf('.');
+    if (index > 0) {
+      return filename.substring(index + 1);
+    }
+    return "";
+  }
+}
@@ -0,0 +1,262 @@
+package controller.streaming;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.function.UnaryOperator;
+
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.streaming.BandStage;
+import model.streaming.RowSink;
+import model.streaming.RowSource;
+import model.streaming.StreamingPipeline;
+
+/**
+ * Runs scripts in streaming mode, where images flow from file to file a band of rows at a time
+ * instead of being loaded whole into the model.
+ * A streaming script is a sequence of chains. Each chain starts with {@code load}, continues with
+ * operations that each read the image produced by the line before, and ends with {@code save} of
+ * the last image, for example:
+ * <pre>
+ *   load scan.ppm scan
+ *   sharpen scan sharp
+ *   sepia sharp toned
+ *   save toned.png toned
+ * </pre>
+ * Only operations that compute each pixel from a bounded neighborhood can be streamed: brighten,
+ * sepia, the component extractions, levels-adjust, horizontal-flip, blur, sharpen, box-blur and
+ * convolve, without masks or split views. Each operation runs its usual command on a window of
+ * rows, so the streamed output is identical to running the script normally.
+ * The whole script is checked before anything runs.
+ */
+public class StreamingScriptRunner {
+  private final int bandRows;
+
+  /**
+   * Constructs a runner that moves {@link StreamingPipeline#DEFAULT_BAND_ROWS} rows at a time.
+   */
+  public StreamingScriptRunner() {
+    this(StreamingPipeline.DEFAULT_BAND_ROWS);
+  }
+
+  /**
+   * Constructs a runner that moves the given number of rows at a time.
+   *
+   * @param bandRows The number of rows per band.
+   * @throws IllegalArgumentException if bandRows is not positive
+   */
+  public StreamingScriptRunner(int bandRows) {
+    if (bandRows <= 0) {
+      throw new IllegalArgumentException("Band height must be positive.");
+    }
+    this.bandRows = bandRows;
+  }
+
+  /**
+   * Checks a script and runs every chain in it.
+   *
+   * @param scriptInput The readable script input.
+   * @throws IllegalArgumentException if the script cannot be streamed
+   * @throws RuntimeException         if an error occurs while running it
+   */
+  public void runScript(Readable scriptInput) {
+    List<List<String[]>> chains = plan(scriptInput);
+    for (List<String[]> chain : chains) {
+      try {
+        runChain(chain);
+      } catch (IOException e) {
+        throw new RuntimeException("Error streaming " + chain.get(0)[1] + ": "
+                + e.getMessage(), e);
+      }
+    }
+  }
+
+  /**
+   * Splits a script into chains of load, operation and save lines, checking that every chain
+   * can be streamed.
+   *
+   * @param scriptInput The readable script input.
+   * @return The chains, each a list of tokenized lines.
+   * @throws IllegalArgumentException if the script cannot be streamed
+   */
+  private List<List<String[]>> plan(Readable scriptInput) {
+    List<List<String[]>> chains = new ArrayList<>();
+    List<String[]> chain = null;
+    String current = null;
+
+    try (Scanner scanner = new Scanner(scriptInput)) {
+      while (scanner.hasNextLine()) {
+        String line = scanner.nextLine().trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] tokens = line.split("\\s+");
+        String command = tokens[0].toLowerCase();
+        if (command.equals("exit")) {
+          break;
+        }
+
+        if (command.equals("load")) {
+          if (chain != null) {
+            throw new IllegalArgumentException("Image " + current + " is never saved.");
+          }
+          if (tokens.length != 3) {
+            throw new IllegalArgumentException("Usage: load image-path image-name");
+          }
+          chain = new ArrayList<>();
+          chain.add(tokens);
+          current = tokens[2];
+        } else if (command.equals("save")) {
+          if (tokens.length != 3) {
+            throw new IllegalArgumentException("Usage: save image-path image-name");
+          }
+          if (chain == null || !tokens[2].equals(current)) {
+            throw new IllegalArgumentException("Cannot stream '" + line
+                    + "': only the last image of a chain can be saved.");
+          }
+          chain.add(tokens);
+          chains.add(chain);
+          chain = null;
+        } else {
+          checkStreamable(tokens, line, chain == null ? null : current);
+          chain.add(tokens);
+          current = tokens[tokens.length - 1];
+        }
+      }
+    }
+
+    if (chain != null) {
+      throw new IllegalArgumentException("Image " + current + " is never saved.");
+    }
+    return chains;
+  }
+
+  /**
+   * Checks that an operation line can be streamed as the next step of a chain.
+   *
+   * @param tokens  The tokens of the line.
+   * @param line    The line.
+   * @param current The name of the image produced by the previous line, or null outside a chain.
+   * @throws IllegalArgumentException if the line cannot be streamed
+   */
+  private static void checkStreamable(String[] tokens, String line, String current) {
+    if (haloFor(tokens) < 0) {
+      throw new IllegalArgumentException("Cannot stream '" + line + "': " + tokens[0]
+              + " needs the whole image.");
+    }
+    for (String token : tokens) {
+      if (token.equalsIgnoreCase("split")) {
+        throw new IllegalArgumentException("Cannot stream '" + line
+                + "': split views need the whole image.");
+      }
+    }
+    if (current == null || tokens.length < 3 || !tokens[tokens.length - 2].equals(current)) {
+      throw new IllegalArgumentException("Cannot stream '" + line
+              + "': each operation must read only the image produced by the line before.");
+    }
+  }
+
+  /**
+   * Gets the number of rows above and below a pixel that an operation reads.
+   *
+   * @param tokens The tokens of the operation line.
+   * @return The number of rows, or -1 if the operation cannot be streamed.
+   * @throws IllegalArgumentException if the parameters of the operation are invalid
+   */
+  private static int haloFor(String[] tokens) {
+    switch (tokens[0].toLowerCase()) {
+      case "brighten":
+      case "sepia":
+      case "red-component":
+      case "green-component":
+      case "blue-component":
+      case "luma-component":
+      case "intensity-component":
+      case "value-component":
+      case "levels-adjust":
+      case "horizontal-flip":
+        return 0;
+      case "blur":
+        // 3x3 kernel.
+        return 1;
+      case "sharpen":
+        // 5x5 kernel.
+        return 2;
+      case "box-blur":
+        try {
+          return Math.max(0, Integer.parseInt(tokens[1]));
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+          throw new IllegalArgumentException("Box blur radius must be an integer.");
+        }
+      case "convolve":
+        if (tokens.length < 2) {
+          throw new IllegalArgumentException("Usage: convolve kernelFile sourceImage destImage");
+        }
+        try {
+          return ImageIOUtil.readKernel(tokens[1]).length / 2;
+        } catch (IOException e) {
+          throw new IllegalArgumentException("Unable to load kernel from " + tokens[1] + ": "
+                  + e.getMessage(), e);
+        }
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * Streams one chain from its input file to its output file.
+   *
+   * @param chain The tokenized load, operation and save lines.
+   * @throws IOException If reading or writing fails.
+   */
+  private void runChain(List<String[]> chain) throws IOException {
+    RowSource source = StreamingImageIO.openReader(chain.get(0)[1]);
+    String current = chain.get(0)[2];
+    for (String[] tokens : chain.subList(1, chain.size() - 1)) {
+      String destination = tokens[tokens.length - 1];
+      source = new BandStage(source, bandOperation(tokens, current, destination),
+              haloFor(tokens));
+      current = destination;
+    }
+
+    RowSink sink;
+    try {
+      sink = StreamingImageIO.openWriter(chain.get(chain.size() - 1)[1], source.getWidth(),
+              source.getHeight(), source.getMaxValue());
+    } catch (IOException e) {
+      source.close();
+      throw e;
+    }
+    StreamingPipeline.run(source, sink, bandRows);
+  }
+
+  /**
+   * Creates the function that runs an operation line on a window of rows. The window is placed
+   * in a private model under the source name, the line is executed as a normal command, and the
+   * destination image is taken back out.
+   *
+   * @param tokens      The tokens of the operation line.
+   * @param source      The name of the image the line reads.
+   * @param destination The name of the image the line writes.
+   * @return The function.
+   */
+  private static UnaryOperator<ImageInterface> bandOperation(String[] tokens, String source,
+                                                            String destination) {
+    ImageModelInterface bandModel = new ImageModelImpl();
+    CommandExecutor executor = new CommandExecutor(bandModel);
+    String line = String.join(" ", tokens);
+    return window -> {
+      bandModel.addImage(source, window);
+      executor.executeCommand(line);
+      ImageInterface result = bandModel.getImage(destination);
+      bandModel.removeImage(source);
+      bandModel.removeImage(destination);
+      return result;
+    };
+  }
+}
@@ -0,0 +1,74 @@
+package controller.streaming;
+
+import java.io.IOException;
+
+import controller.ImageIOUtil;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.streaming.RowSink;
+
+/**
+ * A row sink that collects every row and writes the whole image with
+ * {@link ImageIOUtil#writeImage} when closed. Used for formats such as JPEG whose encoder
+ * needs the whole image, so the memory used grows with the image size.
+ */
+public class WholeImageSink implements RowSink {
+  private final String path;
+  private final int width;
+  private final int height;
+  private final int maxValue;
+  private final int[][] planes;
+  private int rowsWritten;
+
+  /**
+   * Constructs a sink for an image of the given size.
+   *
+   * @param path     The path to write the image to.
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum channel value of the image.
+   */
+  public WholeImageSink(String path, int width, int height, int maxValue) {
+    this.path = path;
+    this.width = width;
+    this.height = height;
+    this.maxValue = maxValue;
+    this.planes = new int[3][width * height];
+    this.rowsWritten = 0;
+  }
+
+  /**
+   * Copies a band of rows into the collected image.
+   *
+   * @param band The rows.
+   * @throws IOException If the band has the wrong width or there are too many rows.
+   */
+  @Override
+  public void writeBand(ImageInterface band) throws IOException {
+    if (band.getWidth() != width || rowsWritten + band.getHeight() > height) {
+      throw new IOException("Band does not fit the " + width + "x" + height + " image.");
+    }
+    int offset = rowsWritten * width;
+    for (int y = 0; y < band.getHeight(); y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          planes[c][offset + y * width + x] = band.getChannelValue(x, y, c);
+        }
+      }
+    }
+    rowsWritten += band.getHeight();
+  }
+
+  /**
+   * Writes the collected image.
+   *
+   * @throws IOException If writing fails or fewer rows than the image height were written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (rowsWritten != height) {
+      throw new IOException("Only " + rowsWritten + " of " + height + " rows were written.");
+    }
+    ImageIOUtil.writeImage(ImageFactory.fromPlanes(width, height, maxValue, planes), path);
+  }
+}
@@ -3,12 +3,15 @@ package main;
 import controller.Controller;
 import controller.ControllerInterface;
 import controller.GUIController;
+import controller.server.ScriptServer;
+import model.ConcurrentImageModel;
 import model.ImageModelImpl;
 import model.ImageModelInterface;
 import view.ImageProcessingGUIView;
 import view.TextBasedView;
 import view.View;
 
+import java.io.IOException;
 import java.io.InputStreamReader;
 
 /**
@@ -19,12 +22,18 @@ import java.io.InputStreamReader;
  * Interactive GUI mode: The user can interact with the application through the graphical interface.
  * Script mode: The application reads a script file and executes the commands in the file.
  * Text mode: The user interacts with the application through the console.
- * Usage: java -jar Program.jar [-file script-path] [-text]
+ * Server mode: The application keeps running and executes commands sent by
+ * {@link ImageProcessingClient} or any tool that can write lines to a localhost socket.
+ * Usage: java -jar Program.jar [-file script-path [-stream]] [-text] [-server port]
  * -file script-path: Optional argument to specify a script file to execute.
+ * -stream: Runs the script a band of rows at a time, for images too large to hold in memory.
  * -text: Runs the application in text mode.
+ * -server port: Runs the application as a daemon listening on the given localhost port.
  * If no arguments are provided, the application runs in GUI mode.
  * Example: java -jar Program.jar -file script.txt
+ * Example: java -jar Program.jar -file script.txt -stream
  * Example: java -jar Program.jar -text
+ * Example: java -jar Program.jar -server 5050
  * Example: java -jar Program.jar
  */
 public class ImageProcessingApplication {
@@ -41,6 +50,9 @@ public class ImageProcessingApplication {
     if (args != null && args.length >= 2 && args[0].equals("-file")) {
       // Script mode
       runTextBasedMode(model, new InputStreamReader(System.in), args);
+    } else if (args != null && args.length >= 2 && args[0].equals("-server")) {
+      // Server mode
+      runServerMode(new ConcurrentImageModel(), args[1]);
     } else if (args != null && args.length >= 1 && args[0].equals("-text")) {
       // Text mode
       runTextBasedMode(model, new InputStreamReader(System.in), args);
@@ -58,11 +70,43 @@ public class ImageProcessingApplication {
    * @param args  the command line arguments
    */
   private static void runTextBasedMode(ImageModelInterface model, Readable input, String[] args) {
+    useHeadless();
     View view = new TextBasedView();
     ControllerInterface controller = new Controller(model, input, args, view);
     controller.start();
   }
 
+  /**
+   * Runs the application as a daemon that executes commands sent over a localhost socket,
+   * keeping the model and the warmed-up JVM between requests.
+   *
+   * @param model the image processing model shared by all clients, safe for concurrent use
+   * @param port  the port to listen on
+   */
+  private static void runServerMode(ImageModelInterface model, String port) {
+    useHeadless();
+    View view = new TextBasedView();
+    try {
+      ScriptServer server = new ScriptServer(model, Integer.parseInt(port));
+      view.displayMessage("Listening on localhost port " + server.getPort()
+              + ", token in " + server.getTokenFile());
+      server.serve();
+    } catch (NumberFormatException e) {
+      view.displayMessage("Error: port must be a number: " + port);
+    } catch (IOException e) {
+      view.displayMessage("Error running server: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Marks the JVM as headless for the modes that never open a window. These modes load AWT at
+   * most for the PNG and JPEG codecs, and headless mode keeps that from starting a window
+   * toolkit.
+   */
+  private static void useHeadless() {
+    System.setProperty("java.awt.headless", "true");
+  }
+
   /**
    * Runs the application in GUI mode.
    *
@@ -0,0 +1,134 @@
+package main;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * A small client for the image processing daemon started with {@code -server port}.
+ * It only uses sockets and streams, so it starts much faster than the application itself, and
+ * the daemon's warm JVM does the image work.
+ * Usage: java -cp Program.jar main.ImageProcessingClient port [-file script-path | command...]
+ * With -file, the script is sent whole so it can use loops and variables. With a command, that
+ * one command is sent. With neither, commands are read from standard input, one per line.
+ * The client first sends the daemon's token, read from {@code .image-server-PORT.token} in the
+ * user's home directory, so only the user who started the daemon can use it.
+ * Messages from the daemon are printed, and the exit status is 1 if any request failed.
+ * Example: java -cp Program.jar main.ImageProcessingClient 5050 -file script.txt
+ * Example: java -cp Program.jar main.ImageProcessingClient 5050 blur photo photo-blurred
+ */
+public class ImageProcessingClient {
+
+  /**
+   * Sends the requests given on the command line to the daemon and prints its answers.
+   *
+   * @param args the port, followed by -file and a script path, a command, or nothing
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.err.println("Usage: ImageProcessingClient port [-file script-path | command...]");
+      System.exit(2);
+    }
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(),
+            Integer.parseInt(args[0]));
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 socket.getInputStream(), StandardCharsets.UTF_8));
+         PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                 socket.getOutputStream(), StandardCharsets.UTF_8))) {
+      out.print("auth " + readToken(socket.getPort()) + "\n");
+      if (!send(out, in)) {
+        System.exit(2);
+      }
+      boolean ok;
+      if (args.length >= 3 && args[1].equals("-file")) {
+        out.print("script\n");
+        try (InputStream script = new FileInputStream(args[2])) {
+          BufferedReader lines = new BufferedReader(new InputStreamReader(script,
+                  StandardCharsets.UTF_8));
+          String line;
+          while ((line = lines.readLine()) != null) {
+            if (!line.trim().equals(".")) {
+              out.print(line + "\n");
+            }
+          }
+        }
+        out.print(".\n");
+        ok = send(out, in);
+      } else if (args.length >= 2) {
+        out.print(String.join(" ", Arrays.copyOfRange(args, 1, args.length)) + "\n");
+        ok = send(out, in);
+      } else {
+        ok = true;
+        BufferedReader console = new BufferedReader(new InputStreamReader(System.in,
+                StandardCharsets.UTF_8));
+        String line;
+        while ((line = console.readLine()) != null) {
+          String trimmed = line.trim();
+          if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+            continue;
+          }
+          out.print(trimmed + "\n");
+          ok &= send(out, in);
+          if (trimmed.equalsIgnoreCase("exit") || trimmed.equalsIgnoreCase("quit")) {
+            break;
+          }
+        }
+      }
+      System.exit(ok ? 0 : 1);
+    } catch (NumberFormatException e) {
+      System.err.println("Port must be a number: " + args[0]);
+      System.exit(2);
+    } catch (IOException e) {
+      System.err.println("Cannot reach the image processing server: " + e.getMessage());
+      System.exit(2);
+    }
+  }
+
+  /**
+   * Reads the token the daemon on a port wrote when it started. The path matches
+   * {@code ScriptServer.defaultTokenFile}, which is not used here so that the client loads no
+   * server classes.
+   *
+   * @param port the port of the daemon
+   * @return the token
+   * @throws IOException if the token file cannot be read
+   */
+  private static String readToken(int port) throws IOException {
+    File file = new File(System.getProperty("user.home"), ".image-server-" + port + ".token");
+    return new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII).trim();
+  }
+
+  /**
+   * Sends the pending request and prints the daemon's answer.
+   *
+   * @param out the connection output, holding the request
+   * @param in  the connection input
+   * @return whether the request succeeded
+   * @throws IOException if the connection fails
+   */
+  private static boolean send(PrintWriter out, BufferedReader in) throws IOException {
+    out.flush();
+    String line;
+    while ((line = in.readLine()) != null) {
+      if (line.startsWith("| ")) {
+        System.out.println(line.substring(2));
+      } else if (line.equals("OK")) {
+        return true;
+      } else {
+        System.err.println(line.startsWith("ERROR ") ? "Error: " + line.substring(6) : line);
+        return false;
+      }
+    }
+    throw new IOException("The server closed the connection.");
+  }
+}
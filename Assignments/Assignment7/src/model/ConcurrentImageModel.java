@@ -0,0 +1,185 @@
+package model;
+
+import model.image.BufferPool;
+import model.image.DirectImage;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A model for images that can be shared by several threads.
+ * Images are kept in a {@link ConcurrentHashMap} as immutable {@link ImageSnapshot}s, so readers
+ * never block and never see a half-written entry. The expensive part of storing an image, making
+ * its compact copy, happens before the map is touched; the entry itself is then swapped in with
+ * a compare-and-set, which keeps the versions of each name increasing no matter how writers
+ * interleave.
+ * Besides the plain model methods, {@link #getSnapshot} and {@link #compareAndSet} let a caller
+ * read an image and replace it only if no one else has replaced it in the meantime.
+ * Large images are stored off the heap as {@link DirectImage}s, in buffers borrowed from the
+ * shared {@link BufferPool}. The snapshot that holds such an image owns its buffer, and the buffer
+ * goes back to the pool as soon as the snapshot is replaced or removed. Another thread may still
+ * be copying the image out at that moment; the image counts such copies, and the buffer is given
+ * back once the last one finishes. A reader that finds the image already released reads the
+ * name again, which by then holds the newer snapshot or nothing.
+ */
+public class ConcurrentImageModel implements ImageModelInterface {
+
+  private final ConcurrentMap<String, ImageSnapshot> snapshots;
+  private final AtomicLong versions;
+
+  /**
+   * Constructs an empty model.
+   */
+  public ConcurrentImageModel() {
+    this.snapshots = new ConcurrentHashMap<>();
+    this.versions = new AtomicLong();
+  }
+
+  /**
+   * Adds an image to the model with the specified name, replacing any image with that name.
+   * The image is copied in its most compact representation before it is stored.
+   *
+   * @param name  the name of the image
+   * @param image the image to add
+   * @throws IllegalArgumentException if the name or the image is null
+   */
+  @Override
+  public void addImage(String name, ImageInterface image) {
+    ImageInterface stored = prepare(name, image);
+    while (true) {
+      ImageSnapshot current = snapshots.get(name);
+      if (swap(name, current, stored)) {
+        release(current);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Gets a copy of the image with the specified name. If the image is replaced and released
+   * while it is looked up, the name is read again and the newer image is copied instead.
+   *
+   * @param name the name of the image
+   * @return the image with the specified name, or null if no image is found
+   */
+  @Override
+  public ImageInterface getImage(String name) {
+    while (true) {
+      ImageSnapshot snapshot = getSnapshot(name);
+      if (snapshot == null) {
+        return null;
+      }
+      ImageInterface image = snapshot.getImage();
+      if (image != null) {
+        return image;
+      }
+    }
+  }
+
+  /**
+   * Removes the image with the specified name.
+   *
+   * @param name the name of the image to remove
+   */
+  @Override
+  public void removeImage(String name) {
+    if (name != null) {
+      release(snapshots.remove(name));
+    }
+  }
+
+  /**
+   * Gets the image stored under a name together with its version.
+   *
+   * @param name the name of the image
+   * @return the snapshot, or null if no image is found
+   */
+  public ImageSnapshot getSnapshot(String name) {
+    return name != null ? snapshots.get(name) : null;
+  }
+
+  /**
+   * Gets the version of the image stored under a name.
+   *
+   * @param name the name of the image
+   * @return the version, or 0 if no image is found
+   */
+  public long getVersion(String name) {
+    ImageSnapshot snapshot = getSnapshot(name);
+    return snapshot != null ? snapshot.getVersion() : 0;
+  }
+
+  /**
+   * Stores an image under a name only if the version stored there is still the expected one.
+   * An expected version of 0 means that no image may be stored under the name yet.
+   *
+   * @param name            the name of the image
+   * @param expectedVersion the version the caller last read
+   * @param image           the image to store
+   * @return true if the image was stored, false if the name has changed since it was read
+   * @throws IllegalArgumentException if the name or the image is null
+   */
+  public boolean compareAndSet(String name, long expectedVersion, ImageInterface image) {
+    ImageInterface stored = prepare(name, image);
+    ImageSnapshot current = snapshots.get(name);
+    long currentVersion = current != null ? current.getVersion() : 0;
+    if (currentVersion == expectedVersion && swap(name, current, stored)) {
+      release(current);
+      return true;
+    }
+    if (stored instanceof DirectImage) {
+      ((DirectImage) stored).release();
+    }
+    return false;
+  }
+
+  /**
+   * Checks the arguments of a write and makes the compact copy that will be stored.
+   *
+   * @param name  the name of the image
+   * @param image the image
+   * @return the copy to store
+   * @throws IllegalArgumentException if the name or the image is null
+   */
+  private static ImageInterface prepare(String name, ImageInterface image) {
+    if (name == null) {
+      throw new IllegalArgumentException("Image name cannot be null.");
+    }
+    if (image == null) {
+      throw new IllegalArgumentException("Image cannot be null.");
+    }
+    return DirectImage.of(ImageFactory.compact(image), DirectImage.DEFAULT_THRESHOLD,
+            BufferPool.shared());
+  }
+
+  /**
+   * Gives the buffer of a snapshot that is no longer stored back to the pool.
+   *
+   * @param snapshot the snapshot, or null
+   */
+  private static void release(ImageSnapshot snapshot) {
+    if (snapshot != null) {
+      snapshot.release();
+    }
+  }
+
+  /**
+   * Replaces the snapshot under a name with a new one holding the given image, if the snapshot
+   * is still the expected one. The new version is taken after the current snapshot was read, so
+   * it is larger than the version it replaces.
+   *
+   * @param name    the name of the image
+   * @param current the snapshot expected under the name, or null if none is expected
+   * @param stored  the image to store
+   * @return whether the snapshot was replaced
+   */
+  private boolean swap(String name, ImageSnapshot current, ImageInterface stored) {
+    ImageSnapshot next = new ImageSnapshot(stored, versions.incrementAndGet());
+    return current == null
+            ? snapshots.putIfAbsent(name, next) == null
+            : snapshots.replace(name, current, next);
+  }
+}
@@ -1,5 +1,8 @@
 package model;
 
+import model.image.BufferPool;
+import model.image.DirectImage;
+import model.image.ImageFactory;
 import model.image.ImageInterface;
 
 import java.util.HashMap;
@@ -8,17 +11,34 @@ import java.util.Map;
 /**
  * A class that represents a model for images.
  * This class contains a map of images and provides methods to add, get, and remove images.
+ * Images of at least {@link DirectImage#DEFAULT_THRESHOLD} bytes are stored off the heap as
+ * {@link DirectImage}s, whose buffers go back to the shared {@link BufferPool} as soon as the
+ * image is removed or replaced, so the heap does not grow with the number of resident
+ * megapixels and images of the same size reuse each other's buffers.
  */
 public class ImageModelImpl implements ImageModelInterface {
 
   private Map<String, ImageInterface> imageMap;
+  private final long offHeapThreshold;
 
   /**
    * Constructs an image model with an empty image map.
    * The image map is used to store images by name.
    */
   public ImageModelImpl() {
+    this(DirectImage.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Constructs an image model with an empty image map that stores images of at least the given
+   * size off the heap.
+   *
+   * @param offHeapThreshold the smallest number of sample bytes to store off the heap, or
+   *                         {@link Long#MAX_VALUE} to keep every image on the heap
+   */
+  public ImageModelImpl(long offHeapThreshold) {
     this.imageMap = new HashMap<>();
+    this.offHeapThreshold = offHeapThreshold;
   }
 
   /**
@@ -26,18 +46,24 @@ public class ImageModelImpl implements ImageModelInterface {
    * If an image with the same name already exists, it is replaced.
    * The image is cloned before adding it to the map.
    * This is to prevent the image in the map from being modified.
+   * The copy is stored in the most compact representation for the image's maximum value,
+   * so typical 8-bit images take one byte per sample. Large copies are kept off the heap, and
+   * the buffer of the off-heap image it replaces goes back to the pool.
    *
    * @param name  the name of the image
    * @param image the image to add
    */
   @Override
   public void addImage(String name, ImageInterface image) {
-    imageMap.put(name, image.clone());
+    ImageInterface stored = DirectImage.of(ImageFactory.compact(image), offHeapThreshold,
+            BufferPool.shared());
+    release(imageMap.put(name, stored));
   }
 
   /**
    * Gets an image from the image map with the specified name.
-   * The image is cloned before returning it.
+   * The image is cloned before returning it; an image stored off the heap is copied back onto
+   * the heap.
    * This is to prevent the image in the map from being modified.
    *
    * @param name the name of the image
@@ -56,6 +82,18 @@ public class ImageModelImpl implements ImageModelInterface {
    */
   @Override
   public void removeImage(String name) {
-    imageMap.remove(name);
+    release(imageMap.remove(name));
+  }
+
+  /**
+   * Gives the buffer of an image that left the model back to the pool, if it was stored off the
+   * heap.
+   *
+   * @param image the image, or null
+   */
+  private static void release(ImageInterface image) {
+    if (image instanceof DirectImage) {
+      ((DirectImage) image).release();
+    }
   }
 }
@@ -0,0 +1,61 @@
+package model;
+
+import model.image.DirectImage;
+import model.image.ImageInterface;
+
+/**
+ * An immutable entry of a {@link ConcurrentImageModel}: a stored image together with the
+ * version it was stored under.
+ * Versions come from one counter shared by all names of a model, so each new image stored under
+ * a name has a larger version than the one it replaced, even if the name was removed in between.
+ * A snapshot owns the off-heap buffer of a {@link DirectImage} it holds; the model releases it
+ * once the snapshot has been replaced or removed, after which copies of it can no longer be made.
+ */
+public class ImageSnapshot {
+  private final ImageInterface image;
+  private final long version;
+
+  /**
+   * Constructs a snapshot.
+   *
+   * @param image   the stored image, which must not be modified afterwards
+   * @param version the version of the image
+   */
+  ImageSnapshot(ImageInterface image, long version) {
+    this.image = image;
+    this.version = version;
+  }
+
+  /**
+   * Gets a copy of the stored image, so changes to it cannot reach the model. A copy that is
+   * being made when the snapshot is replaced still completes.
+   *
+   * @return the image, or null if the image was stored off the heap and the snapshot has since
+   *         been replaced or removed, in which case the caller should read a new snapshot
+   */
+  public ImageInterface getImage() {
+    if (image instanceof DirectImage) {
+      return ((DirectImage) image).cloneIfLive();
+    }
+    return image.clone();
+  }
+
+  /**
+   * Frees the off-heap buffer of the stored image, if it has one. Called by the model once the
+   * snapshot is no longer stored.
+   */
+  void release() {
+    if (image instanceof DirectImage) {
+      ((DirectImage) image).release();
+    }
+  }
+
+  /**
+   * Gets the version of the stored image.
+   *
+   * @return the version, which is always positive
+   */
+  public long getVersion() {
+    return version;
+  }
+}
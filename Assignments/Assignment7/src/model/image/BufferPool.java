@@ -0,0 +1,358 @@
+package model.image;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A pool of recycled sample buffers, so that scripts that repeat operations on images of the
+ * same size stop allocating, and the garbage collector stops collecting, a new multi-megabyte
+ * buffer for every step.
+ * Two kinds of buffers are pooled:
+ * <ul>
+ *   <li>int and double work arrays, borrowed by the plane-at-a-time kernels for the planes they
+ *   read and the planes they compute, and given back once the result image has been packed.
+ *   Callers rely on the length of these arrays, so they are kept in classes by exact length.
+ *   A borrowed array holds whatever its last user left in it.</li>
+ *   <li>the direct buffers of {@link DirectImage}s owned by a model. They go back to the pool
+ *   when the model removes or replaces the image. They are kept in size classes a quarter of a
+ *   power of two apart, and a buffer is handed out with its limit set to the requested size.</li>
+ * </ul>
+ * The pool holds at most a fixed number of bytes; when a returned buffer does not fit, the least
+ * recently used size classes are dropped. Giving back a buffer that is not wanted is always
+ * safe: the garbage collector then reclaims it as usual.
+ * In debug mode, enabled with {@code -Dimage.pool.debug=true}, the pool also reports leaks: a
+ * pooled direct buffer whose image is garbage collected without having been released is
+ * counted, reported on standard error with the stack trace of its allocation, and reclaimed.
+ * Giving back an array that is already in the pool throws an {@link IllegalStateException}.
+ */
+public class BufferPool {
+  private static final BufferPool SHARED = new BufferPool(defaultBudget(),
+          Boolean.getBoolean("image.pool.debug"));
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final boolean debug;
+  private final Map<String, ArrayDeque<Object>> classes;
+  private final Set<Object> pooled;
+  private long maxBytes;
+  private long bytes;
+  private long borrows;
+  private long reuses;
+  private long leaks;
+
+  /**
+   * Creates a pool.
+   *
+   * @param maxBytes the most bytes the pool may hold, or 0 to pool nothing
+   * @param debug    whether to report leaked and doubly returned buffers
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public BufferPool(long maxBytes, boolean debug) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Pool size cannot be negative.");
+    }
+    this.maxBytes = maxBytes;
+    this.debug = debug;
+    this.classes = new LinkedHashMap<>(16, 0.75f, true);
+    this.pooled = Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  /**
+   * Gets the pool shared by the operations and models of this process. It holds at most an
+   * eighth of the maximum heap size, or the number of megabytes given by
+   * {@code -Dimage.pool.mb}.
+   *
+   * @return the shared pool
+   */
+  public static BufferPool shared() {
+    return SHARED;
+  }
+
+  /**
+   * Borrows an int array of exactly the given length. Its contents are undefined.
+   *
+   * @param length the length
+   * @return the array
+   */
+  public int[] borrowInts(int length) {
+    Object array = take("int:" + length);
+    return array != null ? (int[]) array : new int[length];
+  }
+
+  /**
+   * Borrows a double array of exactly the given length. Its contents are undefined.
+   *
+   * @param length the length
+   * @return the array
+   */
+  public double[] borrowDoubles(int length) {
+    Object array = take("double:" + length);
+    return array != null ? (double[]) array : new double[length];
+  }
+
+  /**
+   * Gives back int arrays the caller no longer uses. Nulls are ignored.
+   *
+   * @param arrays the arrays, which must not be used afterwards
+   * @throws IllegalStateException in debug mode, if an array is already in the pool
+   */
+  public void giveBack(int[]... arrays) {
+    for (int[] array : arrays) {
+      if (array != null) {
+        put("int:" + array.length, array, 4L * array.length);
+      }
+    }
+  }
+
+  /**
+   * Gives back double arrays the caller no longer uses. Nulls are ignored.
+   *
+   * @param arrays the arrays, which must not be used afterwards
+   * @throws IllegalStateException in debug mode, if an array is already in the pool
+   */
+  public void giveBack(double[]... arrays) {
+    for (double[] array : arrays) {
+      if (array != null) {
+        put("double:" + array.length, array, 8L * array.length);
+      }
+    }
+  }
+
+  /**
+   * Borrows a direct buffer in native byte order with room for the given number of bytes. Its
+   * position is 0, its limit is the requested size and its contents are undefined.
+   *
+   * @param size the number of bytes
+   * @return the buffer
+   * @throws OutOfMemoryError if a new buffer cannot be allocated
+   */
+  ByteBuffer borrowDirect(int size) {
+    int capacity = sizeClass(size);
+    ByteBuffer buffer = (ByteBuffer) take("direct:" + capacity);
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  /**
+   * Gives back a direct buffer borrowed with {@link #borrowDirect}.
+   *
+   * @param buffer the buffer, which must not be used afterwards
+   * @return whether the pool kept it; if not, the caller may free it
+   */
+  boolean giveBack(ByteBuffer buffer) {
+    return put("direct:" + buffer.capacity(), buffer, buffer.capacity());
+  }
+
+  /**
+   * In debug mode, watches an image that borrowed a direct buffer, and reports it as a leak if
+   * it becomes unreachable before it is released.
+   *
+   * @param image  the image
+   * @param live   the flag the image clears when it is released
+   * @param buffer the buffer the image borrowed
+   */
+  void track(Object image, AtomicBoolean live, ByteBuffer buffer) {
+    if (!debug) {
+      return;
+    }
+    Throwable allocation = new Throwable("Allocated here");
+    CLEANER.register(image, () -> {
+      if (live.get()) {
+        synchronized (this) {
+          leaks++;
+        }
+        System.err.println("Leaked off-heap image buffer of " + buffer.limit()
+                + " bytes, never released by its model.");
+        allocation.printStackTrace();
+        giveBack(buffer);
+      }
+    });
+  }
+
+  /**
+   * Changes the most bytes the pool may hold, dropping buffers until it fits. A budget of 0
+   * turns pooling off.
+   *
+   * @param maxBytes the new budget
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public synchronized void setMaxBytes(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Pool size cannot be negative.");
+    }
+    this.maxBytes = maxBytes;
+    evict(0);
+  }
+
+  /**
+   * Drops every pooled buffer.
+   */
+  public synchronized void clear() {
+    classes.clear();
+    pooled.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Gets the number of buffers borrowed so far.
+   *
+   * @return the number of borrows
+   */
+  public synchronized long getBorrows() {
+    return borrows;
+  }
+
+  /**
+   * Gets the number of borrows that were served with a recycled buffer.
+   *
+   * @return the number of reuses
+   */
+  public synchronized long getReuses() {
+    return reuses;
+  }
+
+  /**
+   * Gets the number of leaked direct buffers found in debug mode.
+   *
+   * @return the number of leaks
+   */
+  public synchronized long getLeaks() {
+    return leaks;
+  }
+
+  /**
+   * Gets the number of bytes the pooled buffers hold.
+   *
+   * @return the number of bytes
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Describes the pool's usage.
+   *
+   * @return the pooled bytes, the budget, the reuse rate and the leaks
+   */
+  @Override
+  public synchronized String toString() {
+    return String.format("BufferPool[%d/%d bytes, %d of %d borrows reused, %d leaks]",
+            bytes, maxBytes, reuses, borrows, leaks);
+  }
+
+  /**
+   * Takes a buffer from a size class.
+   *
+   * @param key the size class
+   * @return the buffer, or null if the class is empty
+   */
+  private synchronized Object take(String key) {
+    borrows++;
+    ArrayDeque<Object> buffers = classes.get(key);
+    Object buffer = buffers != null ? buffers.pollLast() : null;
+    if (buffer == null) {
+      return null;
+    }
+    reuses++;
+    bytes -= sizeOf(buffer);
+    if (buffers.isEmpty()) {
+      classes.remove(key);
+    }
+    pooled.remove(buffer);
+    return buffer;
+  }
+
+  /**
+   * Adds a buffer to a size class, making room for it first.
+   *
+   * @param key    the size class
+   * @param buffer the buffer
+   * @param size   its size in bytes
+   * @return whether the buffer was kept
+   * @throws IllegalStateException in debug mode, if the buffer is already in the pool
+   */
+  private synchronized boolean put(String key, Object buffer, long size) {
+    if (debug && pooled.contains(buffer)) {
+      throw new IllegalStateException("Buffer was given back twice.");
+    }
+    if (size > maxBytes) {
+      return false;
+    }
+    evict(size);
+    classes.computeIfAbsent(key, k -> new ArrayDeque<>()).addLast(buffer);
+    bytes += size;
+    if (debug) {
+      pooled.add(buffer);
+    }
+    return true;
+  }
+
+  /**
+   * Drops the least recently used size classes until a buffer of the given size fits.
+   *
+   * @param size the size to make room for
+   */
+  private void evict(long size) {
+    Iterator<ArrayDeque<Object>> eldest = classes.values().iterator();
+    while (bytes + size > maxBytes && eldest.hasNext()) {
+      for (Object buffer : eldest.next()) {
+        bytes -= sizeOf(buffer);
+        pooled.remove(buffer);
+      }
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Gets the number of bytes a pooled buffer holds.
+   *
+   * @param buffer the buffer
+   * @return its size
+   */
+  private static long sizeOf(Object buffer) {
+    if (buffer instanceof int[]) {
+      return 4L * ((int[]) buffer).length;
+    } else if (buffer instanceof double[]) {
+      return 8L * ((double[]) buffer).length;
+    }
+    return ((ByteBuffer) buffer).capacity();
+  }
+
+  /**
+   * Rounds a size up to its size class: the next multiple of a quarter of the largest power of
+   * two not above it, so at most a fifth of a pooled buffer is unused.
+   *
+   * @param size the size
+   * @return the capacity of the class
+   */
+  static int sizeClass(int size) {
+    if (size <= 4096) {
+      return 4096;
+    }
+    int step = Integer.highestOneBit(size) / 4;
+    long rounded = ((long) size + step - 1) / step * step;
+    return (int) Math.min(Integer.MAX_VALUE, rounded);
+  }
+
+  /**
+   * Gets the default budget of the shared pool.
+   *
+   * @return the budget in bytes
+   */
+  private static long defaultBudget() {
+    long megabytes = Long.getLong("image.pool.mb", -1);
+    return megabytes >= 0 ? megabytes << 20 : Runtime.getRuntime().maxMemory() / 8;
+  }
+}
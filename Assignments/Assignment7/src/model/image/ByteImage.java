@@ -0,0 +1,132 @@
+package model.image;
+
+/**
+ * An 8-bit image that stores each channel as a plane of bytes.
+ * This is the representation used for images whose maximum value is at most 255, which covers
+ * every PNG and JPEG file and most PPM files. Compared to {@link Image} it needs one byte per
+ * sample instead of a 4-byte int plus a small array object per pixel.
+ */
+public class ByteImage extends PlanarImage {
+  private final byte[][] planes;
+
+  /**
+   * Creates a new 8-bit image from the given planes.
+   * The image takes ownership of the planes; they must not be modified afterwards.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image, at most 255.
+   * @param planes   The red, green, and blue planes, each holding width * height samples.
+   * @throws IllegalArgumentException if the planes do not match the dimensions
+   */
+  public ByteImage(int width, int height, int maxValue, byte[][] planes) {
+    super(width, height, maxValue);
+    if (planes == null || planes.length != 3) {
+      throw new IllegalArgumentException("An 8-bit image requires exactly three planes.");
+    }
+    for (byte[] plane : planes) {
+      if (plane == null || plane.length != width * height) {
+        throw new IllegalArgumentException("Plane size does not match the image dimensions.");
+      }
+    }
+    this.planes = planes;
+  }
+
+  /**
+   * Creates a new 8-bit image that shares its planes and cache with another image.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param planes   The planes to share.
+   * @param cache    The cache to share.
+   */
+  ByteImage(int width, int height, int maxValue, byte[][] planes, ImageCache cache) {
+    super(width, height, maxValue, cache);
+    this.planes = planes;
+  }
+
+  /**
+   * Gets the number of bits used to store a single channel sample.
+   *
+   * @return 8.
+   */
+  @Override
+  public int getBitDepth() {
+    return 8;
+  }
+
+  /**
+   * Gets a single channel value of the pixel at the specified coordinates.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The value of the channel.
+   */
+  @Override
+  public int getChannelValue(int x, int y, int channel) {
+    return planes[channel][y * width + x] & 0xFF;
+  }
+
+  /**
+   * Copies one channel into an int array borrowed from the shared {@link BufferPool}, in
+   * row-major order. The caller owns the array and may give it back once done with it.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The samples of the channel, width * height values.
+   */
+  @Override
+  public int[] readPlane(int channel) {
+    byte[] source = planes[channel];
+    int[] plane = BufferPool.shared().borrowInts(source.length);
+    for (int i = 0; i < source.length; i++) {
+      plane[i] = source[i] & 0xFF;
+    }
+    return plane;
+  }
+
+  /**
+   * Creates a new 8-bit image by passing every sample through a lookup table.
+   *
+   * @param tables One table per channel, indexed by sample value.
+   * @return A new 8-bit image with the lookup tables applied.
+   */
+  @Override
+  public ByteImage applyLookupTables(int[][] tables) {
+    byte[][] newPlanes = new byte[3][];
+    for (int c = 0; c < 3; c++) {
+      int[] table = tables[c];
+      byte[] source = planes[c];
+      byte[] target = new byte[source.length];
+      for (int i = 0; i < source.length; i++) {
+        target[i] = (byte) table[source[i] & 0xFF];
+      }
+      newPlanes[c] = target;
+    }
+    ByteImage result = new ByteImage(width, height, maxValue, newPlanes);
+    Histograms.propagate(this, result, tables);
+    return result;
+  }
+
+  /**
+   * Gets a gray view of one channel, sharing the channel's plane with this image.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The channel as a gray image.
+   */
+  @Override
+  public GrayImage channel(int channel) {
+    return GrayImage.viewOf(width, height, maxValue, planes[channel]);
+  }
+
+  /**
+   * Clones the image. The clone shares its planes and cache with this image.
+   *
+   * @return A new image with the same width, height, maximum value, and pixels as this image.
+   */
+  @Override
+  public ByteImage clone() {
+    return new ByteImage(width, height, maxValue, planes, cache);
+  }
+}
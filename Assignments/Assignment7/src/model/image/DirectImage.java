@@ -0,0 +1,434 @@
+package model.image;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An 8-bit or 16-bit planar image whose samples live outside the Java heap, in one direct
+ * {@link ByteBuffer}. Models store large images this way, so the heap and the garbage collector
+ * only see a small object per resident image, however many megapixels are loaded.
+ * The planes are laid out one after another in row-major order, like the planes of
+ * {@link ByteImage}, {@link ShortImage} and {@link GrayImage}, and are only ever copied in bulk:
+ * {@link #of} copies a heap image in and {@link #clone} copies it back out into a heap image of
+ * the same kind. Operations therefore never see a direct image; they work on the heap copy the
+ * model hands out. The heap copies share only the pixel-free entries of this image's
+ * {@link ImageCache}, such as its content hash and histograms. Entries that hold pixels, such as
+ * a mipmap pyramid built from a copy, stay with that copy, so they never keep a heap copy alive
+ * for as long as this image is resident.
+ * The buffer has an explicit lifetime. It is freed by {@link #release}, as soon as no bulk copy
+ * is still reading it; after that every access throws {@link IllegalStateException}. A buffer
+ * borrowed from a {@link BufferPool} goes back to the pool instead of being freed. A direct
+ * image that is never released is freed by the garbage collector like any direct buffer.
+ */
+public class DirectImage extends PlanarImage {
+
+  /**
+   * Images with fewer sample bytes than this stay on the heap, where small objects are cheaper.
+   */
+  public static final long DEFAULT_THRESHOLD = 1 << 20;
+
+  private static final Method INVOKE_CLEANER;
+  private static final Object UNSAFE;
+
+  static {
+    Method method = null;
+    Object unsafe = null;
+    try {
+      Class<?> type = Class.forName("sun.misc.Unsafe");
+      Field field = type.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+      method = type.getMethod("invokeCleaner", ByteBuffer.class);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // Without it, released buffers are freed by the garbage collector instead.
+      method = null;
+    }
+    INVOKE_CLEANER = method;
+    UNSAFE = unsafe;
+  }
+
+  private final int channels;
+  private final int bitDepth;
+  private final AtomicBoolean live;
+  private final AtomicInteger references;
+  private final BufferPool pool;
+  private volatile ByteBuffer buffer;
+
+  /**
+   * Creates a direct image over a filled buffer.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param channels The number of planes, 1 for a gray image or 3.
+   * @param bitDepth The bit depth of a sample, 8 or 16.
+   * @param buffer   The planes, one after another.
+   * @param pool     The pool the buffer was borrowed from, or null.
+   * @param cache    The cache of derived data, whose pixel-free entries the heap copies share.
+   */
+  private DirectImage(int width, int height, int maxValue, int channels, int bitDepth,
+                      ByteBuffer buffer, BufferPool pool, ImageCache cache) {
+    super(width, height, maxValue, cache, bitDepth);
+    this.channels = channels;
+    this.bitDepth = bitDepth;
+    this.live = new AtomicBoolean(true);
+    this.references = new AtomicInteger(1);
+    this.pool = pool;
+    this.buffer = buffer;
+  }
+
+  /**
+   * Moves an image off the heap if it is large enough to be worth it.
+   * 8-bit and 16-bit planar images are copied into a direct buffer; views such as
+   * {@link TransformedImage} are copied out through {@link #readPlane}. Other images, images
+   * smaller than the threshold, and images whose buffer cannot be allocated are returned as they
+   * are.
+   *
+   * @param image     The image, which must not be modified afterwards.
+   * @param threshold The smallest number of sample bytes to move off the heap.
+   * @return A direct image with the same pixels, or the image itself.
+   */
+  public static ImageInterface of(ImageInterface image, long threshold) {
+    return of(image, threshold, null);
+  }
+
+  /**
+   * Moves an image off the heap into a buffer borrowed from a pool, if it is large enough to be
+   * worth it. The caller owns the result and must {@link #release} it, which gives the buffer
+   * back to the pool; in debug mode the pool reports images that are never released.
+   *
+   * @param image     The image, which must not be modified afterwards.
+   * @param threshold The smallest number of sample bytes to move off the heap.
+   * @param pool      The pool to borrow the buffer from, or null to allocate it.
+   * @return A direct image with the same pixels, or the image itself.
+   */
+  public static ImageInterface of(ImageInterface image, long threshold, BufferPool pool) {
+    if (!(image instanceof PlanarImage) || image instanceof DirectImage) {
+      return image;
+    }
+    PlanarImage planar = (PlanarImage) image;
+    int depth = planar.getBitDepth();
+    int channels = planar instanceof GrayImage ? 1 : 3;
+    long size = (long) planar.getWidth() * planar.getHeight();
+    long bytes = size * channels * (depth / 8);
+    if (depth > 16 || bytes < threshold || bytes > Integer.MAX_VALUE) {
+      return image;
+    }
+
+    ByteBuffer buffer;
+    try {
+      buffer = pool != null ? pool.borrowDirect((int) bytes)
+              : ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    } catch (OutOfMemoryError e) {
+      return image;
+    }
+    boolean raw = planar instanceof ByteImage || planar instanceof ShortImage
+            || planar instanceof GrayImage;
+    for (int c = 0; c < channels; c++) {
+      int offset = (int) (c * size * (depth / 8));
+      if (raw) {
+        GrayImage plane = (GrayImage) (planar instanceof GrayImage ? planar : planar.channel(c));
+        if (depth == 8) {
+          slice(buffer, offset).put(plane.bytePlane());
+        } else {
+          slice(buffer, offset).asShortBuffer().put(plane.shortPlane());
+        }
+      } else {
+        int[] samples = planar.readPlane(c);
+        writeSamples(slice(buffer, offset), samples, depth);
+        BufferPool.shared().giveBack(samples);
+      }
+    }
+    ImageCache cache = planar.getCache().withoutPixels();
+    DirectImage direct = new DirectImage(planar.getWidth(), planar.getHeight(),
+            planar.getMaxValue(), channels, depth, buffer, pool, cache);
+    if (pool != null) {
+      pool.track(direct, direct.live, buffer);
+    }
+    return direct;
+  }
+
+  /**
+   * Gets the number of bits used to store a single channel sample.
+   *
+   * @return 8 or 16.
+   */
+  @Override
+  public int getBitDepth() {
+    return bitDepth;
+  }
+
+  /**
+   * Gets the number of bytes the samples take outside the heap.
+   *
+   * @return The size of the buffer, or 0 once it has been freed.
+   */
+  public long getDirectBytes() {
+    ByteBuffer current = buffer;
+    return current != null ? current.limit() : 0;
+  }
+
+  /**
+   * Gets a single channel value of the pixel at the specified coordinates. This reads the
+   * buffer directly and is meant for the owner of the image; copies made for other threads
+   * should go through {@link #clone}.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The value of the channel.
+   * @throws IllegalStateException if the image has been released
+   */
+  @Override
+  public int getChannelValue(int x, int y, int channel) {
+    ByteBuffer current = checkLive();
+    int index = (channels == 1 ? 0 : channel) * width * height + y * width + x;
+    return bitDepth == 8 ? current.get(index) & 0xFF : current.getShort(index * 2) & 0xFFFF;
+  }
+
+  /**
+   * Copies one channel into an int array borrowed from the shared {@link BufferPool}, in
+   * row-major order. The caller owns the array and may give it back once done with it.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The samples of the channel, width * height values.
+   * @throws IllegalStateException if the image has been released
+   */
+  @Override
+  public int[] readPlane(int channel) {
+    if (!retain()) {
+      throw new IllegalStateException("Image has been released.");
+    }
+    try {
+      int size = width * height;
+      int[] plane = BufferPool.shared().borrowInts(size);
+      int index = channels == 1 ? 0 : channel;
+      if (bitDepth == 8) {
+        byte[] samples = new byte[size];
+        slice(buffer, index * size).get(samples);
+        for (int i = 0; i < size; i++) {
+          plane[i] = samples[i] & 0xFF;
+        }
+      } else {
+        short[] samples = new short[size];
+        slice(buffer, index * size * 2).asShortBuffer().get(samples);
+        for (int i = 0; i < size; i++) {
+          plane[i] = samples[i] & 0xFFFF;
+        }
+      }
+      return plane;
+    } finally {
+      unreference();
+    }
+  }
+
+  /**
+   * Creates a new heap image by passing every sample through a lookup table.
+   *
+   * @param tables One table per channel, indexed by sample value.
+   * @return A new heap image with the lookup tables applied.
+   * @throws IllegalStateException if the image has been released
+   */
+  @Override
+  public PlanarImage applyLookupTables(int[][] tables) {
+    return toHeap().applyLookupTables(tables);
+  }
+
+  /**
+   * Gets one channel as a gray heap image.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The channel as a gray image.
+   * @throws IllegalStateException if the image has been released
+   */
+  @Override
+  public PlanarImage channel(int channel) {
+    return toHeap().channel(channel);
+  }
+
+  /**
+   * Copies the image back onto the heap, as a {@link ByteImage}, {@link ShortImage} or
+   * {@link GrayImage} that shares the pixel-free entries of this image's cache. The copy stays
+   * valid after this image is released.
+   *
+   * @return The heap copy.
+   * @throws IllegalStateException if the image has been released
+   */
+  @Override
+  public PlanarImage clone() {
+    return toHeap();
+  }
+
+  /**
+   * Copies the image back onto the heap like {@link #clone}, unless it has been released. A
+   * reader that may race with the owner releasing the image uses this to find out that it has
+   * to look the image up again.
+   *
+   * @return The heap copy, or null if the image has been released.
+   */
+  public PlanarImage cloneIfLive() {
+    if (!retain()) {
+      return null;
+    }
+    try {
+      return copyPlanes();
+    } finally {
+      unreference();
+    }
+  }
+
+  /**
+   * Frees the buffer. A bulk copy that is still running finishes first; the buffer is freed when
+   * it is done. Releasing an image more than once has no further effect.
+   */
+  public void release() {
+    if (live.compareAndSet(true, false)) {
+      unreference();
+    }
+  }
+
+  /**
+   * Copies the planes into a heap image while holding a reference to the buffer.
+   *
+   * @return The heap copy.
+   * @throws IllegalStateException if the image has been released
+   */
+  private PlanarImage toHeap() {
+    if (!retain()) {
+      throw new IllegalStateException("Image has been released.");
+    }
+    try {
+      return copyPlanes();
+    } finally {
+      unreference();
+    }
+  }
+
+  /**
+   * Copies the planes into a heap image. The caller holds a reference to the buffer. The copy
+   * gets a cache of its own that shares only the pixel-free entries of this image's cache.
+   *
+   * @return The heap copy.
+   */
+  private PlanarImage copyPlanes() {
+    ByteBuffer current = buffer;
+    ImageCache cache = this.cache.withoutPixels();
+    int size = width * height;
+    if (bitDepth == 8) {
+      byte[][] planes = new byte[channels][size];
+      for (int c = 0; c < channels; c++) {
+        slice(current, c * size).get(planes[c]);
+      }
+      return channels == 1 ? new GrayImage(width, height, maxValue, planes[0], null, cache)
+              : new ByteImage(width, height, maxValue, planes, cache);
+    }
+    short[][] planes = new short[channels][size];
+    for (int c = 0; c < channels; c++) {
+      slice(current, c * size * 2).asShortBuffer().get(planes[c]);
+    }
+    return channels == 1 ? new GrayImage(width, height, maxValue, null, planes[0], cache)
+            : new ShortImage(width, height, maxValue, planes, cache);
+  }
+
+  /**
+   * Takes a reference to the buffer, unless the image has been released.
+   *
+   * @return Whether the reference was taken.
+   */
+  private boolean retain() {
+    while (live.get()) {
+      int count = references.get();
+      if (count == 0) {
+        return false;
+      }
+      if (references.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drops a reference to the buffer, freeing it when it was the last one.
+   */
+  private void unreference() {
+    if (references.decrementAndGet() == 0) {
+      free();
+    }
+  }
+
+  /**
+   * Gets the buffer for a single-sample access.
+   *
+   * @return The buffer.
+   * @throws IllegalStateException if the image has been released
+   */
+  private ByteBuffer checkLive() {
+    ByteBuffer current = buffer;
+    if (current == null || !live.get()) {
+      throw new IllegalStateException("Image has been released.");
+    }
+    return current;
+  }
+
+  /**
+   * Drops the buffer, giving it back to its pool or else freeing its memory at once where the
+   * JDK allows it.
+   */
+  private void free() {
+    ByteBuffer freed = buffer;
+    buffer = null;
+    if (freed != null && pool != null && pool.giveBack(freed)) {
+      return;
+    }
+    if (freed != null && INVOKE_CLEANER != null) {
+      try {
+        INVOKE_CLEANER.invoke(UNSAFE, freed);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        // The garbage collector frees the buffer once it is unreachable.
+      }
+    }
+  }
+
+  /**
+   * Gets a view of a buffer starting at a byte offset, in native byte order.
+   *
+   * @param buffer The buffer.
+   * @param offset The offset of the view.
+   * @return The view.
+   */
+  private static ByteBuffer slice(ByteBuffer buffer, int offset) {
+    ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    return view.slice().order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Writes int samples into a buffer as 8-bit or 16-bit values.
+   *
+   * @param target  The buffer, positioned at the start of the plane.
+   * @param samples The samples.
+   * @param depth   The bit depth of a sample.
+   */
+  private static void writeSamples(ByteBuffer target, int[] samples, int depth) {
+    if (depth == 8) {
+      byte[] bytes = new byte[samples.length];
+      for (int i = 0; i < samples.length; i++) {
+        bytes[i] = (byte) samples[i];
+      }
+      target.put(bytes);
+    } else {
+      short[] shorts = new short[samples.length];
+      for (int i = 0; i < samples.length; i++) {
+        shorts[i] = (short) samples[i];
+      }
+      ShortBuffer view = target.asShortBuffer();
+      view.put(shorts);
+    }
+  }
+}
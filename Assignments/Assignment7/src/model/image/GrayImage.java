@@ -0,0 +1,272 @@
+package model.image;
+
+import java.util.Arrays;
+
+/**
+ * A grayscale image that stores a single plane of samples and reports it for all three channels.
+ * Component extraction and channel splitting produce images of this type, so a gray result
+ * takes a third of the memory of an RGB image with three equal planes. The plane is 8-bit when
+ * the maximum value is at most 255 and 16-bit otherwise, like {@link ByteImage} and
+ * {@link ShortImage}.
+ * A gray image can also be a view of one channel of an RGB planar image: it then shares that
+ * channel's plane instead of copying it, which is safe because planar images are immutable.
+ */
+public class GrayImage extends PlanarImage {
+  private final byte[] bytes;
+  private final short[] shorts;
+
+  /**
+   * Creates a new 8-bit grayscale image from the given plane.
+   * The image takes ownership of the plane; it must not be modified afterwards.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image, at most 255.
+   * @param plane    The samples, width * height values in row-major order.
+   * @throws IllegalArgumentException if the plane does not match the dimensions or the maximum
+   *                                  value does not fit in 8 bits
+   */
+  public GrayImage(int width, int height, int maxValue, byte[] plane) {
+    this(width, height, maxValue, checkSize(plane, plane == null ? -1 : plane.length,
+            width, height), null, new ImageCache());
+  }
+
+  /**
+   * Creates a new 16-bit grayscale image from the given plane.
+   * The image takes ownership of the plane; it must not be modified afterwards.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image, at most 65535.
+   * @param plane    The samples, width * height values in row-major order.
+   * @throws IllegalArgumentException if the plane does not match the dimensions
+   */
+  public GrayImage(int width, int height, int maxValue, short[] plane) {
+    this(width, height, maxValue, null, checkSize(plane, plane == null ? -1 : plane.length,
+            width, height), new ImageCache());
+  }
+
+  /**
+   * Creates a grayscale image over existing storage. Exactly one of the planes is non-null.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param bytes    The 8-bit plane, or null.
+   * @param shorts   The 16-bit plane, or null.
+   * @param cache    The cache to use.
+   * @throws IllegalArgumentException if the maximum value does not fit in the plane
+   */
+  GrayImage(int width, int height, int maxValue, byte[] bytes, short[] shorts,
+            ImageCache cache) {
+    super(width, height, maxValue, cache, bytes != null ? 8 : 16);
+    this.bytes = bytes;
+    this.shorts = shorts;
+  }
+
+  /**
+   * Checks that a plane holds one sample per pixel.
+   *
+   * @param plane  The plane.
+   * @param length The length of the plane, or -1 if it is null.
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param <T>    The type of the plane.
+   * @return The plane.
+   * @throws IllegalArgumentException if the plane does not match the dimensions
+   */
+  private static <T> T checkSize(T plane, int length, int width, int height) {
+    if (plane == null || length != width * height) {
+      throw new IllegalArgumentException("Plane size does not match the image dimensions.");
+    }
+    return plane;
+  }
+
+  /**
+   * Gets the number of bits used to store a single sample.
+   *
+   * @return 8 or 16.
+   */
+  @Override
+  public int getBitDepth() {
+    return bytes != null ? 8 : 16;
+  }
+
+  /**
+   * Gets the value of the pixel at the specified coordinates, which is the same in every
+   * channel.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index, which does not affect the value.
+   * @return The gray value.
+   */
+  @Override
+  public int getChannelValue(int x, int y, int channel) {
+    int index = y * width + x;
+    return bytes != null ? bytes[index] & 0xFF : shorts[index] & 0xFFFF;
+  }
+
+  /**
+   * Copies the gray plane into an int array borrowed from the shared {@link BufferPool}, in
+   * row-major order. Every channel reads the same plane. The caller owns the array and may give
+   * it back once done with it.
+   *
+   * @param channel The channel index, which does not affect the result.
+   * @return The samples, width * height values.
+   */
+  @Override
+  public int[] readPlane(int channel) {
+    int[] plane = BufferPool.shared().borrowInts(width * height);
+    if (bytes != null) {
+      for (int i = 0; i < plane.length; i++) {
+        plane[i] = bytes[i] & 0xFF;
+      }
+    } else {
+      for (int i = 0; i < plane.length; i++) {
+        plane[i] = shorts[i] & 0xFFFF;
+      }
+    }
+    return plane;
+  }
+
+  /**
+   * Creates a new image by passing every sample through a lookup table. When the three tables
+   * agree on every value the image can hold, the result is gray again and the plane is mapped
+   * once; otherwise the result is an RGB image of the same bit depth.
+   *
+   * @param tables One table per channel, indexed by sample value.
+   * @return A new image with the lookup tables applied.
+   */
+  @Override
+  public PlanarImage applyLookupTables(int[][] tables) {
+    int entries = maxValue + 1;
+    boolean gray = Arrays.equals(tables[0], 0, entries, tables[1], 0, entries)
+            && Arrays.equals(tables[0], 0, entries, tables[2], 0, entries);
+    int channels = gray ? 1 : 3;
+    if (bytes != null) {
+      byte[][] planes = new byte[channels][bytes.length];
+      for (int c = 0; c < channels; c++) {
+        int[] table = tables[c];
+        byte[] target = planes[c];
+        for (int i = 0; i < bytes.length; i++) {
+          target[i] = (byte) table[bytes[i] & 0xFF];
+        }
+      }
+      return withHistograms(gray ? new GrayImage(width, height, maxValue, planes[0])
+              : new ByteImage(width, height, maxValue, planes), tables);
+    }
+    short[][] planes = new short[channels][shorts.length];
+    for (int c = 0; c < channels; c++) {
+      int[] table = tables[c];
+      short[] target = planes[c];
+      for (int i = 0; i < shorts.length; i++) {
+        target[i] = (short) table[shorts[i] & 0xFFFF];
+      }
+    }
+    return withHistograms(gray ? new GrayImage(width, height, maxValue, planes[0])
+            : new ShortImage(width, height, maxValue, planes), tables);
+  }
+
+  /**
+   * Derives the histograms of the result of a lookup from those of this image.
+   *
+   * @param result The result of the lookup.
+   * @param tables The lookup tables.
+   * @return The result.
+   */
+  private PlanarImage withHistograms(PlanarImage result, int[][] tables) {
+    Histograms.propagate(this, result, tables);
+    return result;
+  }
+
+  /**
+   * Gets a view of one channel. Every channel of a gray image is the image itself.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return A clone of this image.
+   */
+  @Override
+  public GrayImage channel(int channel) {
+    return clone();
+  }
+
+  /**
+   * Builds an RGB image whose channels are the planes of three gray images, without copying
+   * them. The images must have the same dimensions, maximum value and bit depth.
+   *
+   * @param red   The gray image for the red channel.
+   * @param green The gray image for the green channel.
+   * @param blue  The gray image for the blue channel.
+   * @return The combined image, sharing the planes of the three images.
+   * @throws IllegalArgumentException if the images do not match
+   */
+  public static PlanarImage combine(GrayImage red, GrayImage green, GrayImage blue) {
+    for (GrayImage image : new GrayImage[]{green, blue}) {
+      if (image.width != red.width || image.height != red.height
+              || image.maxValue != red.maxValue || image.getBitDepth() != red.getBitDepth()) {
+        throw new IllegalArgumentException("Gray images to combine must match.");
+      }
+    }
+    if (red.bytes != null) {
+      return new ByteImage(red.width, red.height, red.maxValue,
+              new byte[][]{red.bytes, green.bytes, blue.bytes});
+    }
+    return new ShortImage(red.width, red.height, red.maxValue,
+            new short[][]{red.shorts, green.shorts, blue.shorts});
+  }
+
+  /**
+   * Gets the 8-bit plane itself, not a copy, for bulk copies within this package.
+   *
+   * @return The plane, or null if the image is 16-bit.
+   */
+  byte[] bytePlane() {
+    return bytes;
+  }
+
+  /**
+   * Gets the 16-bit plane itself, not a copy, for bulk copies within this package.
+   *
+   * @return The plane, or null if the image is 8-bit.
+   */
+  short[] shortPlane() {
+    return shorts;
+  }
+
+  /**
+   * Creates a gray view of one plane of an 8-bit image.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param plane    The plane to share.
+   * @return The view.
+   */
+  static GrayImage viewOf(int width, int height, int maxValue, byte[] plane) {
+    return new GrayImage(width, height, maxValue, plane, null, new ImageCache());
+  }
+
+  /**
+   * Creates a gray view of one plane of a 16-bit image.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param plane    The plane to share.
+   * @return The view.
+   */
+  static GrayImage viewOf(int width, int height, int maxValue, short[] plane) {
+    return new GrayImage(width, height, maxValue, null, plane, new ImageCache());
+  }
+
+  /**
+   * Clones the image. The clone shares its plane and cache with this image.
+   *
+   * @return A new image with the same width, height, maximum value, and pixels as this image.
+   */
+  @Override
+  public GrayImage clone() {
+    return new GrayImage(width, height, maxValue, bytes, shorts, cache);
+  }
+}
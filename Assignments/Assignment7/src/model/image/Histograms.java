@@ -0,0 +1,112 @@
+package model.image;
+
+/**
+ * Keeps the per-value histograms of planar images as metadata in their {@link ImageCache}.
+ * The histograms of an image count, for each channel, how many pixels have each value from 0 to
+ * the maximum value. They are computed at most once per image, by one pass over its planes, and
+ * are shared with its clones and with the copies a model hands out.
+ * A point operation, which passes every sample through a per-channel lookup table, moves all the
+ * pixels of one input value to the same output value. The histograms of its result therefore
+ * follow from the histograms of its input by moving whole bins, in O(maxValue) steps without
+ * reading a pixel; {@link PlanarImage#applyLookupTables} does this whenever the input's
+ * histograms are already known. Views that flip or rotate an image, which only reorder its
+ * pixels, share its histograms. Known histograms also prove that every sample is in range.
+ */
+public class Histograms {
+  /**
+   * The key under which the histograms are kept in an image's cache.
+   */
+  private static final String CACHE_KEY = "histograms";
+
+  /**
+   * Gets the histograms of an image, computing and caching them on first use.
+   *
+   * @param image The image.
+   * @return One array per channel with {@code maxValue + 1} counts, which must not be modified.
+   * @throws IllegalArgumentException if a sample is above the maximum value of the image
+   */
+  public static int[][] of(PlanarImage image) {
+    return image.getCache().computePixelFreeIfAbsent(CACHE_KEY, () -> compute(image));
+  }
+
+  /**
+   * Checks whether the histograms of an image are known without scanning it.
+   *
+   * @param image The image.
+   * @return Whether they have been computed or derived already.
+   */
+  public static boolean isKnown(PlanarImage image) {
+    return image.getCache().get(CACHE_KEY) != null;
+  }
+
+  /**
+   * Derives the histograms of the result of a point operation from those of its source, if the
+   * source's histograms are known.
+   *
+   * @param source The source image.
+   * @param result The image whose samples are the source samples passed through the tables.
+   * @param tables One table per channel, indexed by source value, with {@code maxValue + 1}
+   *               entries in the range [0, maxValue] of the result.
+   */
+  static void propagate(PlanarImage source, PlanarImage result, int[][] tables) {
+    int[][] counts = source.getCache().get(CACHE_KEY);
+    if (counts == null) {
+      return;
+    }
+    int[][] mapped = new int[3][result.getMaxValue() + 1];
+    for (int c = 0; c < 3; c++) {
+      int[] table = tables[c];
+      int[] from = counts[c];
+      int[] to = mapped[c];
+      for (int value = 0; value < from.length; value++) {
+        to[table[value]] += from[value];
+      }
+    }
+    result.getCache().putIfAbsent(CACHE_KEY, mapped);
+  }
+
+  /**
+   * Gives an image with the same multiset of pixels as another, such as a flipped or rotated
+   * view or an off-heap copy, the other image's histograms if they are known.
+   *
+   * @param source The image whose histograms are known.
+   * @param result The image with the same pixels in any order.
+   */
+  static void share(PlanarImage source, PlanarImage result) {
+    int[][] counts = source.getCache().get(CACHE_KEY);
+    if (counts != null) {
+      result.getCache().putIfAbsent(CACHE_KEY, counts);
+    }
+  }
+
+  /**
+   * Counts the values of every channel of an image. A gray image is scanned once, and its three
+   * channels share the counts.
+   *
+   * @param image The image.
+   * @return The histograms.
+   * @throws IllegalArgumentException if a sample is above the maximum value of the image
+   */
+  private static int[][] compute(PlanarImage image) {
+    int maxValue = image.getMaxValue();
+    int[][] counts = new int[3][];
+    int channels = image instanceof GrayImage ? 1 : 3;
+    for (int c = 0; c < channels; c++) {
+      int[] plane = image.readPlane(c);
+      int[] count = new int[maxValue + 1];
+      for (int value : plane) {
+        if (value > maxValue) {
+          throw new IllegalArgumentException("Pixel values must be between 0 and " + maxValue
+                  + ". Found value: " + value);
+        }
+        count[value]++;
+      }
+      BufferPool.shared().giveBack(plane);
+      counts[c] = count;
+    }
+    for (int c = channels; c < 3; c++) {
+      counts[c] = counts[0];
+    }
+    return counts;
+  }
+}
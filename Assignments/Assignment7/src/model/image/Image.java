@@ -39,6 +39,19 @@ public class Image implements ImageInterface {
     return pixels[y][x];
   }
 
+  /**
+   * Gets a single channel value of the pixel at the specified coordinates.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The value of the channel.
+   */
+  @Override
+  public int getChannelValue(int x, int y, int channel) {
+    return pixels[y][x][channel];
+  }
+
   /**
    * Gets the width of the image.
    *
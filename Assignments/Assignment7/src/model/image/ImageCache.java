@@ -0,0 +1,100 @@
+package model.image;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Holds data derived from the pixels of an immutable image, such as its mipmap pyramid.
+ * A planar image and all of its clones share one cache, since they share the same pixels; the
+ * derived data is therefore computed at most once for the stored image, however many times it is
+ * fetched from the model. The cache is safe to use from several threads.
+ * Small entries that hold no pixels, such as the content hash and the histograms, are kept apart
+ * from the rest. Images that store the same pixels in other memory, such as an off-heap image and
+ * the heap copies made from it, share only those entries through {@link #withoutPixels}, so that
+ * an entry like a pyramid whose first level is a heap copy never keeps that copy alive for as
+ * long as the off-heap image.
+ */
+public class ImageCache {
+  private final Map<String, Object> entries;
+  private final Map<String, Object> pixelFree;
+
+  /**
+   * Creates an empty cache.
+   */
+  public ImageCache() {
+    this(new ConcurrentHashMap<>());
+  }
+
+  /**
+   * Creates a cache with no entries of its own over shared pixel-free entries.
+   *
+   * @param pixelFree The pixel-free entries.
+   */
+  private ImageCache(Map<String, Object> pixelFree) {
+    this.entries = new ConcurrentHashMap<>();
+    this.pixelFree = pixelFree;
+  }
+
+  /**
+   * Creates a cache for an image with the same pixels in other memory. It shares the pixel-free
+   * entries of this cache, including those added later by either cache, and starts without any
+   * other entry.
+   *
+   * @return The new cache.
+   */
+  public ImageCache withoutPixels() {
+    return new ImageCache(pixelFree);
+  }
+
+  /**
+   * Gets the entry with the given key, computing and storing it first if it is not present.
+   *
+   * @param key      The key of the entry.
+   * @param supplier Computes the entry when it is not cached yet.
+   * @param <T>      The type of the entry.
+   * @return The cached entry.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T computeIfAbsent(String key, Supplier<T> supplier) {
+    return (T) entries.computeIfAbsent(key, k -> supplier.get());
+  }
+
+  /**
+   * Gets the pixel-free entry with the given key, computing and storing it first if it is not
+   * present. The entry must not refer to any image or sample array.
+   *
+   * @param key      The key of the entry.
+   * @param supplier Computes the entry when it is not cached yet.
+   * @param <T>      The type of the entry.
+   * @return The cached entry.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T computePixelFreeIfAbsent(String key, Supplier<T> supplier) {
+    return (T) pixelFree.computeIfAbsent(key, k -> supplier.get());
+  }
+
+  /**
+   * Gets the entry with the given key if it has been computed.
+   *
+   * @param key The key of the entry.
+   * @param <T> The type of the entry.
+   * @return The cached entry, or null if it is not present.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String key) {
+    Object entry = entries.get(key);
+    return (T) (entry != null ? entry : pixelFree.get(key));
+  }
+
+  /**
+   * Stores an entry that was derived without the pixels, unless the entry is already present.
+   * The entry is pixel-free and must not refer to any image or sample array.
+   *
+   * @param key   The key of the entry.
+   * @param value The entry.
+   */
+  public void putIfAbsent(String key, Object value) {
+    pixelFree.putIfAbsent(key, value);
+  }
+}
@@ -0,0 +1,208 @@
+package model.image;
+
+/**
+ * Factory that picks the most compact image representation for a given maximum value.
+ * Images with a maximum value of at most 255 are stored as {@link ByteImage}, images with a
+ * maximum value of at most 65535 as {@link ShortImage}, and anything larger falls back to the
+ * int-based {@link Image}.
+ */
+public class ImageFactory {
+
+  /**
+   * Gets the bit depth that is used to store images with the given maximum value.
+   *
+   * @param maxValue The maximum value of the image.
+   * @return 8, 16, or 32.
+   */
+  public static int bitDepthFor(int maxValue) {
+    if (maxValue <= 0xFF) {
+      return 8;
+    } else if (maxValue <= 0xFFFF) {
+      return 16;
+    }
+    return 32;
+  }
+
+  /**
+   * Creates an image from a 3D pixel array using the representation chosen from the maximum
+   * value. If any pixel value does not fit in the chosen representation the pixels are kept as
+   * they are in an {@link Image}, so that validation can still report them later.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param pixels   The pixels of the image.
+   * @return The new image.
+   */
+  public static ImageInterface create(int width, int height, int maxValue, int[][][] pixels) {
+    ImageInterface packed = pack(new Image(width, height, maxValue, pixels));
+    return packed != null ? packed : new Image(width, height, maxValue, pixels);
+  }
+
+  /**
+   * Creates an image from one int plane per channel, using the representation chosen from the
+   * maximum value. This is the output path for operations that compute whole planes at once.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param planes   The red, green, and blue planes, each holding width * height samples in
+   *                 row-major order with values in the range [0, maxValue].
+   * @return The new image.
+   */
+  public static ImageInterface fromPlanes(int width, int height, int maxValue, int[][] planes) {
+    int depth = bitDepthFor(maxValue);
+    int size = width * height;
+    if (depth == 8) {
+      byte[][] bytePlanes = new byte[3][size];
+      for (int c = 0; c < 3; c++) {
+        for (int i = 0; i < size; i++) {
+          bytePlanes[c][i] = (byte) planes[c][i];
+        }
+      }
+      return new ByteImage(width, height, maxValue, bytePlanes);
+    } else if (depth == 16) {
+      short[][] shortPlanes = new short[3][size];
+      for (int c = 0; c < 3; c++) {
+        for (int i = 0; i < size; i++) {
+          shortPlanes[c][i] = (short) planes[c][i];
+        }
+      }
+      return new ShortImage(width, height, maxValue, shortPlanes);
+    }
+    int[][][] pixels = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          pixels[y][x][c] = planes[c][y * width + x];
+        }
+      }
+    }
+    return new Image(width, height, maxValue, pixels);
+  }
+
+  /**
+   * Creates a grayscale image from a single int plane. Images with a maximum value of at most
+   * 65535 are stored as a {@link GrayImage} with one 8-bit or 16-bit plane; larger ones fall
+   * back to an {@link Image} with the value repeated in every channel.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param plane    The gray values, width * height samples in row-major order with values in
+   *                 the range [0, maxValue].
+   * @return The new image.
+   */
+  public static ImageInterface fromGrayPlane(int width, int height, int maxValue, int[] plane) {
+    int depth = bitDepthFor(maxValue);
+    if (depth == 8) {
+      byte[] bytes = new byte[plane.length];
+      for (int i = 0; i < plane.length; i++) {
+        bytes[i] = (byte) plane[i];
+      }
+      return new GrayImage(width, height, maxValue, bytes);
+    } else if (depth == 16) {
+      short[] shorts = new short[plane.length];
+      for (int i = 0; i < plane.length; i++) {
+        shorts[i] = (short) plane[i];
+      }
+      return new GrayImage(width, height, maxValue, shorts);
+    }
+    return fromPlanes(width, height, maxValue, new int[][]{plane, plane, plane});
+  }
+
+  /**
+   * Creates a black-and-white image from one flag per pixel.
+   * A non-zero flag becomes a white pixel (all channels maxValue), a zero flag a black pixel.
+   * For 8-bit images the flag array itself is reused as the storage of all three channels, so
+   * the flags must not be used by the caller afterwards.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param flags    One flag per pixel in row-major order.
+   * @return The new image.
+   */
+  public static ImageInterface createBinary(int width, int height, int maxValue, byte[] flags) {
+    int depth = bitDepthFor(maxValue);
+    if (depth == 8) {
+      for (int i = 0; i < flags.length; i++) {
+        flags[i] = flags[i] != 0 ? (byte) maxValue : 0;
+      }
+      return new ByteImage(width, height, maxValue, new byte[][]{flags, flags, flags});
+    } else if (depth == 16) {
+      short[] plane = new short[flags.length];
+      for (int i = 0; i < flags.length; i++) {
+        plane[i] = flags[i] != 0 ? (short) maxValue : 0;
+      }
+      return new ShortImage(width, height, maxValue, new short[][]{plane, plane, plane});
+    }
+    int[][][] pixels = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int value = flags[y * width + x] != 0 ? maxValue : 0;
+        pixels[y][x][0] = value;
+        pixels[y][x][1] = value;
+        pixels[y][x][2] = value;
+      }
+    }
+    return new Image(width, height, maxValue, pixels);
+  }
+
+  /**
+   * Returns an independent copy of the image in the most compact representation for its maximum
+   * value. Planar images are immutable, so they are cloned without copying their planes.
+   *
+   * @param image The image to compact.
+   * @return A compact copy of the image.
+   */
+  public static ImageInterface compact(ImageInterface image) {
+    if (image instanceof PlanarImage) {
+      return image.clone();
+    }
+    ImageInterface packed = pack(image);
+    return packed != null ? packed : image.clone();
+  }
+
+  /**
+   * Packs the pixels of an image into 8-bit or 16-bit planes.
+   *
+   * @param image The image to pack.
+   * @return The packed image, or null if the image cannot be packed because its maximum value is
+   *         too large or one of its values is outside the range [0, maxValue].
+   */
+  private static PlanarImage pack(ImageInterface image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    int depth = bitDepthFor(maxValue);
+    if (depth == 32 || maxValue < 0) {
+      return null;
+    }
+
+    int size = width * height;
+    byte[][] bytePlanes = depth == 8 ? new byte[3][size] : null;
+    short[][] shortPlanes = depth == 16 ? new short[3][size] : null;
+
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int index = y * width + x;
+        for (int c = 0; c < 3; c++) {
+          int value = image.getChannelValue(x, y, c);
+          if (value < 0 || value > maxValue) {
+            return null;
+          }
+          if (depth == 8) {
+            bytePlanes[c][index] = (byte) value;
+          } else {
+            shortPlanes[c][index] = (short) value;
+          }
+        }
+      }
+    }
+
+    return depth == 8
+            ? new ByteImage(width, height, maxValue, bytePlanes)
+            : new ShortImage(width, height, maxValue, shortPlanes);
+  }
+}
@@ -16,6 +16,18 @@ public interface ImageInterface {
    */
   int[] getPixel(int x, int y);
 
+  /**
+   * Gets a single channel value of the pixel at the specified coordinates.
+   * Unlike {@link #getPixel(int, int)} this does not allocate, so it is the preferred accessor
+   * for loops that visit every pixel.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The value of the channel.
+   */
+  int getChannelValue(int x, int y, int channel);
+
   /**
    * Gets the width of the image.
    *
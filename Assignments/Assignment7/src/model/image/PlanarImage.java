@@ -0,0 +1,206 @@
+package model.image;
+
+/**
+ * Base class for images that store each channel as its own packed plane of samples.
+ * A plane holds {@code width * height} samples in row-major order, so the sample of pixel
+ * (x, y) lives at index {@code y * width + x}.
+ * Planar images are immutable: their planes are never written after construction, which lets
+ * clones share the same planes instead of copying every pixel. For the same reason clones also
+ * share an {@link ImageCache} for data derived from the pixels.
+ */
+public abstract class PlanarImage implements ImageInterface {
+  protected final int width;
+  protected final int height;
+  protected final int maxValue;
+  protected final ImageCache cache;
+
+  /**
+   * Initializes the dimensions and maximum value shared by all planar images.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @throws IllegalArgumentException if the dimensions are negative or the maximum value does not
+   *                                  fit in the bit depth of the image
+   */
+  protected PlanarImage(int width, int height, int maxValue) {
+    this(width, height, maxValue, new ImageCache());
+  }
+
+  /**
+   * Initializes a planar image that shares the cache of an image with the same pixels.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param cache    The cache of derived data to share.
+   * @throws IllegalArgumentException if the dimensions are negative or the maximum value does not
+   *                                  fit in the bit depth of the image
+   */
+  protected PlanarImage(int width, int height, int maxValue, ImageCache cache) {
+    this(width, height, maxValue, cache, -1);
+  }
+
+  /**
+   * Initializes a planar image whose bit depth is given by the caller. Subclasses whose bit
+   * depth depends on their own fields use this, since those fields are not assigned yet while
+   * this constructor runs.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param cache    The cache of derived data to use.
+   * @param bitDepth The bit depth of a sample, or -1 to ask {@link #getBitDepth}.
+   * @throws IllegalArgumentException if the dimensions are negative or the maximum value does not
+   *                                  fit in the bit depth of the image
+   */
+  protected PlanarImage(int width, int height, int maxValue, ImageCache cache, int bitDepth) {
+    int depth = bitDepth < 0 ? getBitDepth() : bitDepth;
+    if (width < 0 || height < 0) {
+      throw new IllegalArgumentException("Image dimensions cannot be negative.");
+    }
+    if (maxValue < 0 || maxValue > (1 << depth) - 1) {
+      throw new IllegalArgumentException("Max value " + maxValue
+              + " does not fit in a " + depth + "-bit image.");
+    }
+    this.width = width;
+    this.height = height;
+    this.maxValue = maxValue;
+    this.cache = cache;
+  }
+
+  /**
+   * Gets the cache of data derived from the pixels of this image.
+   * The cache is shared with every clone of this image; the heap copies of a
+   * {@link DirectImage} share only its pixel-free entries.
+   *
+   * @return The cache of this image.
+   */
+  public ImageCache getCache() {
+    return cache;
+  }
+
+  /**
+   * Gets the number of bits used to store a single channel sample.
+   *
+   * @return The bit depth of a channel.
+   */
+  public abstract int getBitDepth();
+
+  /**
+   * Creates a new image of the same bit depth by passing every sample through a lookup table.
+   * This is the specialized path for point operations such as brighten or levels adjustment,
+   * which only depend on the value of the sample itself. If the {@link Histograms} of this image
+   * are known, those of the result are derived from them without reading its pixels.
+   *
+   * @param tables One table per channel, each indexed by sample value and containing at least
+   *               {@code maxValue + 1} entries with results in the range [0, maxValue].
+   * @return A new image with the lookup tables applied.
+   */
+  public abstract PlanarImage applyLookupTables(int[][] tables);
+
+  /**
+   * Copies one channel into an int array in row-major order.
+   * Operations that work on whole planes use this to get the samples in a flat primitive array,
+   * which loops can walk sequentially without per-pixel method calls. The array is borrowed from
+   * the shared {@link BufferPool}; the caller owns it, and should give it back once it is done
+   * with it unless it keeps it.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The samples of the channel, width * height values.
+   */
+  public abstract int[] readPlane(int channel);
+
+  /**
+   * Gets one channel as a grayscale image. The result shares the channel's samples with this
+   * image instead of copying them where the storage allows it.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The channel as a gray image.
+   */
+  public abstract PlanarImage channel(int channel);
+
+  /**
+   * Checks whether every value representable by the storage is also a valid pixel value.
+   * When this is true the image can never contain out-of-range values, so validation can skip
+   * scanning the pixels.
+   *
+   * @return true if the maximum value equals the largest value the bit depth can hold.
+   */
+  public boolean isFullRange() {
+    return maxValue == (1 << getBitDepth()) - 1;
+  }
+
+  /**
+   * Gets the pixel at the specified coordinates.
+   * The returned array is a copy; modifying it does not modify the image.
+   *
+   * @param x The x-coordinate of the pixel.
+   * @param y The y-coordinate of the pixel.
+   * @return The RGB values of the pixel.
+   */
+  @Override
+  public int[] getPixel(int x, int y) {
+    return new int[]{
+        getChannelValue(x, y, 0), getChannelValue(x, y, 1), getChannelValue(x, y, 2)};
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width of the image.
+   */
+  @Override
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height of the image.
+   */
+  @Override
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the maximum value of the image.
+   *
+   * @return The maximum value of the image.
+   */
+  @Override
+  public int getMaxValue() {
+    return maxValue;
+  }
+
+  /**
+   * Gets the pixels of the image as a 3D array.
+   * The array is built from the planes on every call, so it is a copy and modifying it does not
+   * modify the image.
+   *
+   * @return The pixels of the image.
+   */
+  @Override
+  public int[][][] getPixels() {
+    int[][][] pixels = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          pixels[y][x][c] = getChannelValue(x, y, c);
+        }
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Clones the image.
+   * Since planar images are immutable, the clone shares its planes with this image.
+   *
+   * @return A new image with the same width, height, maximum value, and pixels as this image.
+   */
+  @Override
+  public abstract PlanarImage clone();
+}
@@ -0,0 +1,132 @@
+package model.image;
+
+/**
+ * A 16-bit image that stores each channel as a plane of shorts.
+ * This is the representation used for images whose maximum value lies between 256 and 65535,
+ * such as 16-bit PPM files. Samples are stored unsigned, so the full 0 to 65535 range is
+ * available.
+ */
+public class ShortImage extends PlanarImage {
+  private final short[][] planes;
+
+  /**
+   * Creates a new 16-bit image from the given planes.
+   * The image takes ownership of the planes; they must not be modified afterwards.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image, at most 65535.
+   * @param planes   The red, green, and blue planes, each holding width * height samples.
+   * @throws IllegalArgumentException if the planes do not match the dimensions
+   */
+  public ShortImage(int width, int height, int maxValue, short[][] planes) {
+    super(width, height, maxValue);
+    if (planes == null || planes.length != 3) {
+      throw new IllegalArgumentException("A 16-bit image requires exactly three planes.");
+    }
+    for (short[] plane : planes) {
+      if (plane == null || plane.length != width * height) {
+        throw new IllegalArgumentException("Plane size does not match the image dimensions.");
+      }
+    }
+    this.planes = planes;
+  }
+
+  /**
+   * Creates a new 16-bit image that shares its planes and cache with another image.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   * @param planes   The planes to share.
+   * @param cache    The cache to share.
+   */
+  ShortImage(int width, int height, int maxValue, short[][] planes, ImageCache cache) {
+    super(width, height, maxValue, cache);
+    this.planes = planes;
+  }
+
+  /**
+   * Gets the number of bits used to store a single channel sample.
+   *
+   * @return 16.
+   */
+  @Override
+  public int getBitDepth() {
+    return 16;
+  }
+
+  /**
+   * Gets a single channel value of the pixel at the specified coordinates.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The value of the channel.
+   */
+  @Override
+  public int getChannelValue(int x, int y, int channel) {
+    return planes[channel][y * width + x] & 0xFFFF;
+  }
+
+  /**
+   * Copies one channel into an int array borrowed from the shared {@link BufferPool}, in
+   * row-major order. The caller owns the array and may give it back once done with it.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The samples of the channel, width * height values.
+   */
+  @Override
+  public int[] readPlane(int channel) {
+    short[] source = planes[channel];
+    int[] plane = BufferPool.shared().borrowInts(source.length);
+    for (int i = 0; i < source.length; i++) {
+      plane[i] = source[i] & 0xFFFF;
+    }
+    return plane;
+  }
+
+  /**
+   * Creates a new 16-bit image by passing every sample through a lookup table.
+   *
+   * @param tables One table per channel, indexed by sample value.
+   * @return A new 16-bit image with the lookup tables applied.
+   */
+  @Override
+  public ShortImage applyLookupTables(int[][] tables) {
+    short[][] newPlanes = new short[3][];
+    for (int c = 0; c < 3; c++) {
+      int[] table = tables[c];
+      short[] source = planes[c];
+      short[] target = new short[source.length];
+      for (int i = 0; i < source.length; i++) {
+        target[i] = (short) table[source[i] & 0xFFFF];
+      }
+      newPlanes[c] = target;
+    }
+    ShortImage result = new ShortImage(width, height, maxValue, newPlanes);
+    Histograms.propagate(this, result, tables);
+    return result;
+  }
+
+  /**
+   * Gets a gray view of one channel, sharing the channel's plane with this image.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The channel as a gray image.
+   */
+  @Override
+  public GrayImage channel(int channel) {
+    return GrayImage.viewOf(width, height, maxValue, planes[channel]);
+  }
+
+  /**
+   * Clones the image. The clone shares its planes and cache with this image.
+   *
+   * @return A new image with the same width, height, maximum value, and pixels as this image.
+   */
+  @Override
+  public ShortImage clone() {
+    return new ShortImage(width, height, maxValue, planes, cache);
+  }
+}
@@ -0,0 +1,293 @@
+package model.image;
+
+/**
+ * A view that shows a planar image flipped, rotated by quarter turns, cropped, or any
+ * combination of those, without copying its pixels.
+ * Every pixel (x, y) of the view maps to one pixel of the source through an integer affine
+ * mapping whose steps are -1, 0 or 1, so creating a view costs the same for every image size.
+ * Transforming a view again composes the two mappings over the original source, so chains of
+ * edits never nest views.
+ * The pixels are only copied when an operation asks for whole planes through
+ * {@link #readPlane} or a lookup table: the view is then materialized once into a contiguous
+ * image, which is kept in the view's cache for later calls.
+ */
+public class TransformedImage extends PlanarImage {
+  private final PlanarImage source;
+  private final int originX;
+  private final int originY;
+  private final int stepXx;
+  private final int stepYx;
+  private final int stepXy;
+  private final int stepYy;
+
+  /**
+   * Creates a view over a source image that is not itself a view.
+   * Output pixel (x, y) shows source pixel
+   * {@code (originX + stepXx * x + stepXy * y, originY + stepYx * x + stepYy * y)}.
+   *
+   * @param source  The source image.
+   * @param width   The width of the view.
+   * @param height  The height of the view.
+   * @param originX The source x-coordinate of the view's top-left pixel.
+   * @param originY The source y-coordinate of the view's top-left pixel.
+   * @param stepXx  The source x step per view column.
+   * @param stepYx  The source y step per view column.
+   * @param stepXy  The source x step per view row.
+   * @param stepYy  The source y step per view row.
+   * @param cache   The cache to use.
+   */
+  private TransformedImage(PlanarImage source, int width, int height, int originX, int originY,
+                           int stepXx, int stepYx, int stepXy, int stepYy, ImageCache cache) {
+    super(width, height, source.getMaxValue(), cache, source.getBitDepth());
+    this.source = source;
+    this.originX = originX;
+    this.originY = originY;
+    this.stepXx = stepXx;
+    this.stepYx = stepYx;
+    this.stepXy = stepXy;
+    this.stepYy = stepYy;
+  }
+
+  /**
+   * Creates a view of an image. Pixel (x, y) of the view shows pixel
+   * {@code (tx + a * x + b * y, ty + c * x + d * y)} of the image. If the image is a view
+   * itself, the mapping is composed with the image's own mapping. A view of every pixel, such as
+   * a flip or rotation, only reorders them, so it shares the image's known histograms.
+   *
+   * @param image  The image to view.
+   * @param width  The width of the view.
+   * @param height The height of the view.
+   * @param tx     The x-coordinate in the image of the view's top-left pixel.
+   * @param a      The image x step per view column.
+   * @param b      The image x step per view row.
+   * @param ty     The y-coordinate in the image of the view's top-left pixel.
+   * @param c      The image y step per view column.
+   * @param d      The image y step per view row.
+   * @return The view.
+   */
+  private static TransformedImage view(PlanarImage image, int width, int height,
+                                       int tx, int a, int b, int ty, int c, int d) {
+    TransformedImage view;
+    if (!(image instanceof TransformedImage)) {
+      view = new TransformedImage(image, width, height, tx, ty, a, c, b, d, new ImageCache());
+    } else {
+      TransformedImage inner = (TransformedImage) image;
+      view = new TransformedImage(inner.source, width, height,
+              inner.originX + inner.stepXx * tx + inner.stepXy * ty,
+              inner.originY + inner.stepYx * tx + inner.stepYy * ty,
+              inner.stepXx * a + inner.stepXy * c,
+              inner.stepYx * a + inner.stepYy * c,
+              inner.stepXx * b + inner.stepXy * d,
+              inner.stepYx * b + inner.stepYy * d,
+              new ImageCache());
+    }
+    if ((long) width * height == (long) image.getWidth() * image.getHeight()) {
+      Histograms.share(image, view);
+    }
+    return view;
+  }
+
+  /**
+   * Creates a view of an image mirrored left to right.
+   *
+   * @param image The image.
+   * @return The flipped view.
+   */
+  public static TransformedImage flipHorizontal(PlanarImage image) {
+    int width = image.getWidth();
+    return view(image, width, image.getHeight(), width - 1, -1, 0, 0, 0, 1);
+  }
+
+  /**
+   * Creates a view of an image mirrored top to bottom.
+   *
+   * @param image The image.
+   * @return The flipped view.
+   */
+  public static TransformedImage flipVertical(PlanarImage image) {
+    int height = image.getHeight();
+    return view(image, image.getWidth(), height, 0, 1, 0, height - 1, 0, -1);
+  }
+
+  /**
+   * Creates a view of an image rotated clockwise by a multiple of 90 degrees.
+   *
+   * @param image   The image.
+   * @param degrees The angle, a multiple of 90; negative angles rotate counterclockwise.
+   * @return The rotated view.
+   * @throws IllegalArgumentException if the angle is not a multiple of 90
+   */
+  public static TransformedImage rotate(PlanarImage image, int degrees) {
+    if (degrees % 90 != 0) {
+      throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees.");
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    switch (Math.floorMod(degrees, 360)) {
+      case 90:
+        return view(image, height, width, 0, 0, 1, height - 1, -1, 0);
+      case 180:
+        return view(image, width, height, width - 1, -1, 0, height - 1, 0, -1);
+      case 270:
+        return view(image, height, width, width - 1, 0, -1, 0, 1, 0);
+      default:
+        return view(image, width, height, 0, 1, 0, 0, 0, 1);
+    }
+  }
+
+  /**
+   * Creates a view of a rectangular region of an image.
+   *
+   * @param image  The image.
+   * @param x      The x-coordinate of the region's left edge.
+   * @param y      The y-coordinate of the region's top edge.
+   * @param width  The width of the region.
+   * @param height The height of the region.
+   * @return The cropped view.
+   * @throws IllegalArgumentException if the region is empty or not inside the image
+   */
+  public static TransformedImage crop(PlanarImage image, int x, int y, int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Crop width and height must be positive.");
+    }
+    if (x < 0 || y < 0 || (long) x + width > image.getWidth()
+            || (long) y + height > image.getHeight()) {
+      throw new IllegalArgumentException("Crop region " + width + "x" + height + " at (" + x
+              + ", " + y + ") is outside the " + image.getWidth() + "x" + image.getHeight()
+              + " image.");
+    }
+    return view(image, width, height, x, 1, 0, y, 0, 1);
+  }
+
+  /**
+   * Gets the number of bits used to store a single channel sample, which is that of the source.
+   *
+   * @return The bit depth of the source.
+   */
+  @Override
+  public int getBitDepth() {
+    return source.getBitDepth();
+  }
+
+  /**
+   * Gets a single channel value of the pixel at the specified coordinates, read from the mapped
+   * pixel of the source.
+   *
+   * @param x       The x-coordinate of the pixel.
+   * @param y       The y-coordinate of the pixel.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The value of the channel.
+   */
+  @Override
+  public int getChannelValue(int x, int y, int channel) {
+    return source.getChannelValue(originX + stepXx * x + stepXy * y,
+            originY + stepYx * x + stepYy * y, channel);
+  }
+
+  /**
+   * Copies one channel into a borrowed int array in row-major order, from the materialized
+   * image.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The samples of the channel, width * height values.
+   */
+  @Override
+  public int[] readPlane(int channel) {
+    return materialize().readPlane(channel);
+  }
+
+  /**
+   * Creates a new image by passing every sample of the materialized image through a lookup
+   * table. The histograms of the view, which may be known when those of the materialized image
+   * are not, are carried over as well.
+   *
+   * @param tables One table per channel, indexed by sample value.
+   * @return A new image with the lookup tables applied.
+   */
+  @Override
+  public PlanarImage applyLookupTables(int[][] tables) {
+    PlanarImage result = materialize().applyLookupTables(tables);
+    Histograms.propagate(this, result, tables);
+    return result;
+  }
+
+  /**
+   * Gets one channel as a gray view: the same mapping over the source's gray channel view, so
+   * it still copies nothing.
+   *
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The channel as a gray image.
+   */
+  @Override
+  public TransformedImage channel(int channel) {
+    return new TransformedImage(source.channel(channel), width, height, originX, originY,
+            stepXx, stepYx, stepXy, stepYy, new ImageCache());
+  }
+
+  /**
+   * Copies the pixels of the view into a contiguous image with rows in order. The copy is made
+   * at most once and is shared by this view and its clones.
+   *
+   * @return The materialized image.
+   */
+  public PlanarImage materialize() {
+    return cache.computeIfAbsent("materialized", () -> {
+      if (source instanceof GrayImage) {
+        return materializeGray();
+      }
+      int[][] planes = new int[3][];
+      for (int c = 0; c < 3; c++) {
+        planes[c] = remap(c);
+      }
+      PlanarImage image = (PlanarImage) ImageFactory.fromPlanes(width, height, maxValue, planes);
+      BufferPool.shared().giveBack(planes);
+      return image;
+    });
+  }
+
+  /**
+   * Materializes a view whose source is gray into a gray image.
+   *
+   * @return The gray image.
+   */
+  private GrayImage materializeGray() {
+    int[] plane = remap(0);
+    GrayImage image = (GrayImage) ImageFactory.fromGrayPlane(width, height, maxValue, plane);
+    BufferPool.shared().giveBack(plane);
+    return image;
+  }
+
+  /**
+   * Reads a channel of the source and reorders it into the row-major order of the view.
+   *
+   * @param channel The channel index.
+   * @return The plane of the view, borrowed from the shared pool.
+   */
+  private int[] remap(int channel) {
+    int[] sourcePlane = source.readPlane(channel);
+    int sourceWidth = source.getWidth();
+    int[] plane = BufferPool.shared().borrowInts(width * height);
+    int step = stepXx + stepYx * sourceWidth;
+    for (int y = 0; y < height; y++) {
+      int index = (originY + stepYy * y) * sourceWidth + originX + stepXy * y;
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        plane[offset + x] = sourcePlane[index];
+        index += step;
+      }
+    }
+    BufferPool.shared().giveBack(sourcePlane);
+    return plane;
+  }
+
+  /**
+   * Clones the image. The clone shares its source and cache with this image.
+   *
+   * @return A new view with the same mapping over the same source.
+   */
+  @Override
+  public TransformedImage clone() {
+    return new TransformedImage(source, width, height, originX, originY, stepXx, stepYx,
+            stepXy, stepYy, cache);
+  }
+}
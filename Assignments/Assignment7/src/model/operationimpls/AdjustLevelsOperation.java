@@ -2,6 +2,7 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.ImageOperation;
 
 /**
@@ -57,6 +58,14 @@ public class AdjustLevelsOperation implements ImageOperation {
     double[] coefficients = computeQuadraticCoefficients(blackPoint, midPoint,
         whitePoint, maxValue);
 
+    if (image instanceof PlanarImage) {
+      int[] table = new int[maxValue + 1];
+      for (int value = 0; value <= maxValue; value++) {
+        table[value] = adjust(value, coefficients, maxValue);
+      }
+      return ((PlanarImage) image).applyLookupTables(new int[][]{table, table, table});
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int[][][] newPixels = new int[height][width][3];
@@ -66,11 +75,7 @@ public class AdjustLevelsOperation implements ImageOperation {
         int[] rgb = image.getPixel(x, y);
         int[] newRgb = new int[3];
         for (int c = 0; c < 3; c++) {
-          int value = rgb[c];
-          double adjustedValue =
-                  coefficients[0] * value * value + coefficients[1] * value + coefficients[2];
-
-          newRgb[c] = clamp((int) Math.round(adjustedValue), 0, maxValue);
+          newRgb[c] = adjust(rgb[c], coefficients, maxValue);
         }
         newPixels[y][x] = newRgb;
       }
@@ -79,6 +84,20 @@ public class AdjustLevelsOperation implements ImageOperation {
     return new Image(width, height, maxValue, newPixels);
   }
 
+  /**
+   * Maps a single channel value through the quadratic levels curve.
+   *
+   * @param value        The channel value to adjust.
+   * @param coefficients The coefficients of the quadratic function.
+   * @param maxValue     The maximum value of the image.
+   * @return The adjusted value, clamped to [0, maxValue].
+   */
+  private static int adjust(int value, double[] coefficients, int maxValue) {
+    double adjustedValue =
+            coefficients[0] * value * value + coefficients[1] * value + coefficients[2];
+    return clamp((int) Math.round(adjustedValue), 0, maxValue);
+  }
+
   /**
    * Computes the coefficients of the quadratic function that maps the black, mid, and white points
    * to 0, maxValue/2, and maxValue respectively.
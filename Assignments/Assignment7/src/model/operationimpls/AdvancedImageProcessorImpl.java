@@ -3,16 +3,37 @@ package model.operationimpls;
 import model.image.ImageInterface;
 import model.operationinterface.AdvancedImageProcessor;
 import model.utilities.ImageValidator;
+import model.utilities.ResultCache;
 
 /**
  * An advanced image processor that provides additional image processing operations.
  * This class extends the basic image processor and adds operations like compressing an image,
  * generating a histogram, color correcting an image, adjusting levels, and split view.
+ * Like the basic operations, the results of these operations are memoized in the processor's
+ * result cache; geometric operations, which only create views, are not.
  */
 public class AdvancedImageProcessorImpl
         extends ImageProcessorImpl
         implements AdvancedImageProcessor {
 
+  /**
+   * Creates a processor with its own result cache, sized to an eighth of the heap.
+   */
+  public AdvancedImageProcessorImpl() {
+    super();
+  }
+
+  /**
+   * Creates a processor that keeps its results in the given cache, which may be shared with
+   * other processors.
+   *
+   * @param resultCache The cache of operation results.
+   * @throws IllegalArgumentException if the cache is null
+   */
+  public AdvancedImageProcessorImpl(ResultCache resultCache) {
+    super(resultCache);
+  }
+
   /**
    * Compresses the image by reducing its quality to a certain percentage.
    *
@@ -25,7 +46,35 @@ public class AdvancedImageProcessorImpl
   public ImageInterface compress(ImageInterface image, double percentage) {
     ImageValidator.validate(image);
 
-    return new CompressOperation(percentage).execute(image);
+    return cached(image, "compress",
+            () -> new CompressOperation(percentage).execute(image), percentage);
+  }
+
+  /**
+   * Compresses the image one square tile at a time, so that the memory it needs depends on the
+   * tile size rather than on the size of the image.
+   *
+   * @param image            The source image to compress
+   * @param percentage       The percentage to which the image should be compressed (0-100)
+   * @param tileSize         The side of a tile, a power of two of at least 2
+   * @param perTileThreshold Whether each tile finds its own threshold, rather than using one
+   *                         threshold per channel for the whole image
+   * @return A new compressed version of the input image
+   * @throws IllegalArgumentException if the input image is null or invalid, or the tile size is
+   *                                  not a power of two of at least 2
+   */
+  @Override
+  public ImageInterface compress(ImageInterface image, double percentage, int tileSize,
+                                 boolean perTileThreshold) {
+    ImageValidator.validate(image);
+    if (tileSize < 2 || Integer.bitCount(tileSize) != 1) {
+      throw new IllegalArgumentException("Tile size must be a power of two of at least 2: "
+              + tileSize);
+    }
+
+    return cached(image, "compress-tiled",
+            () -> new CompressOperation(percentage, tileSize, perTileThreshold).execute(image),
+            percentage, tileSize, perTileThreshold);
   }
 
   /**
@@ -39,7 +88,7 @@ public class AdvancedImageProcessorImpl
   public ImageInterface generateHistogram(ImageInterface image) {
     ImageValidator.validate(image);
 
-    return new HistogramOperation().execute(image);
+    return cached(image, "histogram", () -> new HistogramOperation().execute(image));
   }
 
   /**
@@ -53,7 +102,7 @@ public class AdvancedImageProcessorImpl
   public ImageInterface colorCorrect(ImageInterface image) {
     ImageValidator.validate(image);
 
-    return new ColorCorrectOperation().execute(image);
+    return cached(image, "color-correct", () -> new ColorCorrectOperation().execute(image));
   }
 
   /**
@@ -72,7 +121,9 @@ public class AdvancedImageProcessorImpl
 
     ImageValidator.validate(image);
 
-    return new AdjustLevelsOperation(blackPoint, midPoint, whitePoint).execute(image);
+    return cached(image, "levels-adjust",
+            () -> new AdjustLevelsOperation(blackPoint, midPoint, whitePoint).execute(image),
+            blackPoint, midPoint, whitePoint);
   }
 
   /**
@@ -91,7 +142,9 @@ public class AdvancedImageProcessorImpl
 
     ImageValidator.validate(image);
 
-    return new SplitViewOperation(operation, splitPosition, this, params).execute(image);
+    return cached(image, "split-view",
+            () -> new SplitViewOperation(operation, splitPosition, this, params).execute(image),
+            operation, splitPosition, params);
   }
 
   /**
@@ -106,7 +159,9 @@ public class AdvancedImageProcessorImpl
   @Override
   public ImageInterface downscale(ImageInterface image, int targetWidth, int targetHeight) {
     ImageValidator.validate(image);
-    return new DownscaleOperation(targetWidth, targetHeight).execute(image);
+    return cached(image, "downscale",
+            () -> new DownscaleOperation(targetWidth, targetHeight).execute(image),
+            targetWidth, targetHeight);
   }
 
   /**
@@ -115,14 +170,17 @@ public class AdvancedImageProcessorImpl
    * @param image     the source image
    * @param maskImage the mask image
    * @param operation the operation to apply
+   * @param params    the parameters of the operation, if it takes any
    * @return the resulting image after applying the mask operation
    */
   @Override
   public ImageInterface applyMask(ImageInterface image,
-                                  ImageInterface maskImage, String operation) {
+                                  ImageInterface maskImage, String operation, Object... params) {
     ImageValidator.validate(image);
     ImageValidator.validate(maskImage);
-    return new ApplyMaskOperation(operation, maskImage).execute(image);
+    return cached(image, "mask",
+            () -> new ApplyMaskOperation(operation, maskImage, params).execute(image),
+            maskImage, operation, params);
   }
 
   /**
@@ -136,6 +194,104 @@ public class AdvancedImageProcessorImpl
   @Override
   public ImageInterface applyDithering(ImageInterface image) {
     ImageValidator.validate(image);
-    return new DitheringOperation().execute(image);
+    return cached(image, "dither", () -> new DitheringOperation().execute(image));
+  }
+
+  /**
+   * Applies the dithering effect to the given image with the named method.
+   *
+   * @param image  The source image to apply the dithering effect to.
+   * @param method The dithering method, "floyd-steinberg", "ordered" or "bluenoise".
+   * @return A new image with the dithering effect applied.
+   * @throws IllegalArgumentException if the input image is invalid or the method is unknown.
+   */
+  @Override
+  public ImageInterface applyDithering(ImageInterface image, String method) {
+    ImageValidator.validate(image);
+    if (method == null) {
+      throw new IllegalArgumentException("Dithering method cannot be null.");
+    }
+    if (method.equalsIgnoreCase("floyd-steinberg")) {
+      return applyDithering(image);
+    }
+    return cached(image, "dither",
+            () -> new OrderedDitheringOperation(method).execute(image), method.toLowerCase());
+  }
+
+  /**
+   * Blurs the image with a square box filter of the given radius.
+   *
+   * @param image  The source image to blur.
+   * @param radius The radius of the box, in pixels.
+   * @return A new blurred image.
+   * @throws IllegalArgumentException if the input image is invalid or the radius is negative.
+   */
+  @Override
+  public ImageInterface boxBlur(ImageInterface image, int radius) {
+    ImageValidator.validate(image);
+    return cached(image, "box-blur", () -> new BoxBlurOperation(radius).execute(image), radius);
+  }
+
+  /**
+   * Blurs the image with a Gaussian of the given standard deviation.
+   *
+   * @param image The source image to blur.
+   * @param sigma The standard deviation of the Gaussian, in pixels.
+   * @return A new blurred image.
+   * @throws IllegalArgumentException if the input image is invalid or sigma is too small.
+   */
+  @Override
+  public ImageInterface gaussianBlur(ImageInterface image, double sigma) {
+    ImageValidator.validate(image);
+    return cached(image, "gaussian-blur",
+            () -> new GaussianBlurOperation(sigma).execute(image), sigma);
+  }
+
+  /**
+   * Convolves the image with a kernel of any size.
+   *
+   * @param image  The source image to filter.
+   * @param kernel The kernel, indexed by row and then column, centered on each pixel.
+   * @return A new filtered image.
+   * @throws IllegalArgumentException if the input image or the kernel is invalid.
+   */
+  @Override
+  public ImageInterface convolve(ImageInterface image, double[][] kernel) {
+    ImageValidator.validate(image);
+    return cached(image, "convolve", () -> new ConvolveOperation(kernel).execute(image),
+            (Object) kernel);
+  }
+
+  /**
+   * Rotates the image clockwise by a multiple of 90 degrees.
+   *
+   * @param image   The source image to rotate.
+   * @param degrees The angle, a multiple of 90; negative angles rotate counterclockwise.
+   * @return The rotated image.
+   * @throws IllegalArgumentException if the input image is invalid or the angle is not a
+   *                                  multiple of 90.
+   */
+  @Override
+  public ImageInterface rotate(ImageInterface image, int degrees) {
+    ImageValidator.validate(image);
+    return new RotateOperation(degrees).execute(image);
+  }
+
+  /**
+   * Keeps a rectangular region of the image.
+   *
+   * @param image  The source image to crop.
+   * @param x      The x-coordinate of the region's left edge.
+   * @param y      The y-coordinate of the region's top edge.
+   * @param width  The width of the region.
+   * @param height The height of the region.
+   * @return The cropped image.
+   * @throws IllegalArgumentException if the input image is invalid or the region is not inside
+   *                                  the image.
+   */
+  @Override
+  public ImageInterface crop(ImageInterface image, int x, int y, int width, int height) {
+    ImageValidator.validate(image);
+    return new CropOperation(x, y, width, height).execute(image);
   }
-}
\ No newline at end of file
+}
@@ -11,19 +11,22 @@ import model.operationinterface.ImageOperation;
 public class ApplyMaskOperation implements ImageOperation {
   private final String operationName;
   private final ImageInterface maskImage;
+  private final Object[] params;
 
   /**
    * Constructs an ApplyMaskOperation with the specified operation name and mask image.
    *
    * @param operationName The name of the operation to apply.
    * @param maskImage     The mask image.
+   * @param params        The parameters of the operation, if it takes any.
    */
-  public ApplyMaskOperation(String operationName, ImageInterface maskImage) {
+  public ApplyMaskOperation(String operationName, ImageInterface maskImage, Object... params) {
     if (operationName == null || maskImage == null) {
       throw new IllegalArgumentException("Operation name and mask image cannot be null.");
     }
     this.operationName = operationName.toLowerCase();
     this.maskImage = maskImage;
+    this.params = params;
   }
 
   /**
@@ -102,6 +105,21 @@ public class ApplyMaskOperation implements ImageOperation {
       case "intensity-component":
       case "value-component":
         return new ComponentOperation(operationName.split("-")[0]);
+      case "box-blur":
+        if (params == null || params.length != 1) {
+          throw new IllegalArgumentException("Box blur requires a radius parameter.");
+        }
+        return new BoxBlurOperation(Integer.parseInt(params[0].toString()));
+      case "gaussian-blur":
+        if (params == null || params.length != 1) {
+          throw new IllegalArgumentException("Gaussian blur requires a sigma parameter.");
+        }
+        return new GaussianBlurOperation(Double.parseDouble(params[0].toString()));
+      case "convolve":
+        if (params == null || params.length != 1 || !(params[0] instanceof double[][])) {
+          throw new IllegalArgumentException("Convolve requires a kernel parameter.");
+        }
+        return new ConvolveOperation((double[][]) params[0]);
       default:
         throw new IllegalArgumentException("Unsupported operation for masking: " + operationName);
     }
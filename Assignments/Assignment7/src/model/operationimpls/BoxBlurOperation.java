@@ -0,0 +1,69 @@
+package model.operationimpls;
+
+import java.util.stream.IntStream;
+
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.operationinterface.ImageOperation;
+import model.utilities.ImageValidator;
+import model.utilities.SummedAreaTable;
+
+/**
+ * Operation that blurs an image with a square box filter of arbitrary radius.
+ * Each output pixel is the rounded mean of the (2 * radius + 1) square window around it, clipped
+ * to the image at the edges. The window sums are read from a {@link SummedAreaTable}, so the cost
+ * per pixel is the same for every radius.
+ */
+public class BoxBlurOperation implements ImageOperation {
+  private final int radius;
+
+  /**
+   * Constructs a BoxBlurOperation with the given radius.
+   *
+   * @param radius The radius of the box, in pixels. A radius of 0 leaves the image unchanged.
+   * @throws IllegalArgumentException if the radius is negative
+   */
+  public BoxBlurOperation(int radius) {
+    if (radius < 0) {
+      throw new IllegalArgumentException("Box blur radius cannot be negative.");
+    }
+    this.radius = radius;
+  }
+
+  /**
+   * Applies the box blur to the provided image.
+   *
+   * @param images An array containing a single image to be processed
+   * @return A new blurred image
+   * @throws IllegalArgumentException if images is null or contains more/less than one image
+   */
+  @Override
+  public ImageInterface execute(ImageInterface... images) {
+    if (images == null || images.length != 1) {
+      throw new IllegalArgumentException("BoxBlurOperation requires exactly one image.");
+    }
+    ImageInterface image = images[0];
+    ImageValidator.validate(image);
+
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[][] planes = new int[3][width * height];
+
+    for (int c = 0; c < 3; c++) {
+      SummedAreaTable table = SummedAreaTable.of(image, c);
+      int[] out = planes[c];
+      IntStream.range(0, height).parallel().forEach(y -> {
+        int y0 = y - radius;
+        int y1 = y + radius + 1;
+        for (int x = 0; x < width; x++) {
+          int x0 = x - radius;
+          int x1 = x + radius + 1;
+          long count = table.count(x0, y0, x1, y1);
+          out[y * width + x] = (int) ((table.sum(x0, y0, x1, y1) + count / 2) / count);
+        }
+      });
+    }
+
+    return ImageFactory.fromPlanes(width, height, image.getMaxValue(), planes);
+  }
+}
@@ -2,6 +2,7 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.ImageOperation;
 import model.utilities.ImageValidator;
 
@@ -28,6 +29,7 @@ public class BrightenOperation implements ImageOperation {
   /**
    * Executes the brightness adjustment operation on the provided image.
    * Creates a new image with all RGB values adjusted by the increment value.
+   * 8-bit and 16-bit images are brightened through a lookup table on their packed planes.
    *
    * @param images Array containing a single image to be brightened/darkened
    * @return A new ImageInterface instance with adjusted brightness
@@ -41,6 +43,14 @@ public class BrightenOperation implements ImageOperation {
     ImageInterface image = images[0];
     ImageValidator.validate(image);
 
+    if (image instanceof PlanarImage) {
+      int[] table = new int[image.getMaxValue() + 1];
+      for (int value = 0; value < table.length; value++) {
+        table[value] = clamp(value + increment, 0, image.getMaxValue());
+      }
+      return ((PlanarImage) image).applyLookupTables(new int[][]{table, table, table});
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
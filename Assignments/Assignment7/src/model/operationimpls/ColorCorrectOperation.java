@@ -2,6 +2,7 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.ImageOperation;
 
 /**
@@ -32,14 +33,24 @@ public class ColorCorrectOperation implements ImageOperation {
     int[] peakPositions = findMeaningfulPeaks(histograms);
     int averagePeak = (peakPositions[0] + peakPositions[1] + peakPositions[2]) / 3;
 
+    int maxValue = image.getMaxValue();
     int[] shifts = new int[3];
     for (int c = 0; c < 3; c++) {
-      shifts[c] = averagePeak - peakPositions[c];
+      shifts[c] = HistogramOperation.binToValue(averagePeak - peakPositions[c], maxValue);
+    }
+
+    if (image instanceof PlanarImage) {
+      int[][] tables = new int[3][maxValue + 1];
+      for (int c = 0; c < 3; c++) {
+        for (int value = 0; value <= maxValue; value++) {
+          tables[c][value] = clamp(value + shifts[c], 0, maxValue);
+        }
+      }
+      return ((PlanarImage) image).applyLookupTables(tables);
     }
 
     int width = image.getWidth();
     int height = image.getHeight();
-    int maxValue = image.getMaxValue();
     int[][][] newPixels = new int[height][width][3];
 
     for (int y = 0; y < height; y++) {
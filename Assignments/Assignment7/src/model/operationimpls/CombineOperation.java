@@ -1,5 +1,6 @@
 package model.operationimpls;
 
+import model.image.GrayImage;
 import model.image.Image;
 import model.image.ImageInterface;
 import model.operationinterface.ImageOperation;
@@ -9,6 +10,8 @@ import model.utilities.ImageValidator;
  * Operation class that combines three grayscale images into a single RGB color image.
  * Takes separate red, green, and blue channel images and merges them into one composite image.
  * All input images must have identical dimensions and maximum pixel values.
+ * When all three inputs are {@link GrayImage}s, as produced by splitting or component
+ * extraction, the result reuses their planes as its channels instead of copying the pixels.
  */
 public class CombineOperation implements ImageOperation {
 
@@ -50,6 +53,15 @@ public class CombineOperation implements ImageOperation {
       throw new IllegalArgumentException("All images must have the same dimensions");
     }
 
+    if (redImage instanceof GrayImage && greenImage instanceof GrayImage
+            && blueImage instanceof GrayImage) {
+      GrayImage red = (GrayImage) redImage;
+      if (red.getBitDepth() == ((GrayImage) greenImage).getBitDepth()
+              && red.getBitDepth() == ((GrayImage) blueImage).getBitDepth()) {
+        return GrayImage.combine(red, (GrayImage) greenImage, (GrayImage) blueImage);
+      }
+    }
+
     int[][][] redPixels = redImage.getPixels();
     int[][][] greenPixels = greenImage.getPixels();
     int[][][] bluePixels = blueImage.getPixels();
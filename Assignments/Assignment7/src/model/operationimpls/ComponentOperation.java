@@ -2,8 +2,10 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.ImageOperation;
 import model.utilities.ImageValidator;
+import model.utilities.PlanarKernels;
 
 /**
  * Operation class that extracts a specific component or characteristic from an RGB image.
@@ -46,6 +48,10 @@ public class ComponentOperation implements ImageOperation {
     ImageInterface image = images[0];
     ImageValidator.validate(image);
 
+    if (image instanceof PlanarImage) {
+      return PlanarKernels.component((PlanarImage) image, componentName);
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
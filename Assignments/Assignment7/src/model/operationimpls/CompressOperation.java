@@ -1,20 +1,45 @@
 package model.operationimpls;
 
 import model.image.Image;
+import model.image.ImageFactory;
 import model.image.ImageInterface;
 import model.operationinterface.ImageOperation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 /**
  * An operation that compresses an image by removing the least significant values.
  * This operation uses the discrete wavelet transform to compress the image.
+ * By default each channel is transformed as a whole, padded to a square whose side is a power of
+ * two, so it needs 24 bytes per pixel of that square. In tiled mode the image is cut into square
+ * tiles, like the code blocks of JPEG 2000, and each tile is transformed, thresholded and
+ * inverted on its own, in parallel; memory then grows with the tile size and the number of
+ * threads instead of with the image. The threshold of a tile is either its own, found from its
+ * own coefficients, or one global threshold per channel. The global threshold is found by a
+ * first pass that transforms every tile and counts its distinct coefficient magnitudes in a
+ * histogram with a bin per 1/256 of an octave, and the second pass transforms every tile again
+ * rather than keeping the coefficients of the whole image.
  */
 public class CompressOperation implements ImageOperation {
+  /**
+   * The number of low bits of a float magnitude dropped to get its histogram bin, which keeps
+   * its exponent and the top eight bits of its mantissa.
+   */
+  private static final int BIN_SHIFT = 15;
+
+  /**
+   * The number of histogram bins for the magnitudes of a channel.
+   */
+  private static final int BINS = 1 << (31 - BIN_SHIFT);
+
   private final double percentage;
+  private final int tileSize;
+  private final boolean perTileThreshold;
 
   /**
    * Constructs a CompressOperation with the specified compression percentage.
@@ -23,10 +48,30 @@ public class CompressOperation implements ImageOperation {
    * @throws IllegalArgumentException if the compression percentage is invalid.
    */
   public CompressOperation(double percentage) {
+    this(percentage, 0, false);
+  }
+
+  /**
+   * Constructs a CompressOperation that works on square tiles of the image.
+   *
+   * @param percentage       The percentage to which the image should be compressed (0-100).
+   * @param tileSize         The side of a tile, a power of two of at least 2, or 0 to transform
+   *                         each channel as a whole.
+   * @param perTileThreshold Whether each tile finds its own threshold from its own coefficients,
+   *                         rather than sharing one threshold per channel with the other tiles.
+   * @throws IllegalArgumentException if the compression percentage or the tile size is invalid.
+   */
+  public CompressOperation(double percentage, int tileSize, boolean perTileThreshold) {
     if (percentage < 0 || percentage > 100) {
       throw new IllegalArgumentException("Compression percentage must be between 0 and 100.");
     }
+    if (tileSize != 0 && (tileSize < 2 || Integer.bitCount(tileSize) != 1)) {
+      throw new IllegalArgumentException("Tile size must be a power of two of at least 2: "
+              + tileSize);
+    }
     this.percentage = percentage;
+    this.tileSize = tileSize;
+    this.perTileThreshold = perTileThreshold;
   }
 
   /**
@@ -44,6 +89,9 @@ public class CompressOperation implements ImageOperation {
     }
 
     ImageInterface image = images[0];
+    if (tileSize > 0) {
+      return executeTiled(image);
+    }
     int width = image.getWidth();
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
@@ -67,6 +115,166 @@ public class CompressOperation implements ImageOperation {
     return new Image(width, height, maxValue, newPixels);
   }
 
+  /**
+   * Compresses the image one tile at a time. Tiles that reach past the right or bottom edge are
+   * padded by repeating the last column and row, as the whole image is in the default mode.
+   *
+   * @param image The source image.
+   * @return The compressed image.
+   */
+  private ImageInterface executeTiled(ImageInterface image) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    int columns = (width + tileSize - 1) / tileSize;
+    int tiles = columns * ((height + tileSize - 1) / tileSize);
+    int[] thresholdBins = perTileThreshold ? null : globalThresholdBins(image, columns, tiles);
+
+    int[][] planes = new int[3][width * height];
+    IntStream.range(0, tiles).parallel().forEach(tile -> {
+      int x0 = tile % columns * tileSize;
+      int y0 = tile / columns * tileSize;
+      double[][] block = new double[tileSize][tileSize];
+      for (int c = 0; c < 3; c++) {
+        loadTile(image, x0, y0, c, block);
+        forwardDWT(block, tileSize);
+        if (thresholdBins == null) {
+          thresholdCoefficients(block, getSortedUniqueCoefficients(block));
+        } else {
+          thresholdBins(block, thresholdBins[c]);
+        }
+        inverseDWT(block, tileSize);
+        storeTile(block, x0, y0, width, height, maxValue, planes[c]);
+      }
+    });
+    return ImageFactory.fromPlanes(width, height, maxValue, planes);
+  }
+
+  /**
+   * Finds the global threshold of every channel for tiled mode. Every tile is transformed, and
+   * each of its distinct nonzero coefficient magnitudes is counted in the histogram bin of its
+   * channel. The threshold is the bin in which the counts reach the compression percentage.
+   *
+   * @param image   The source image.
+   * @param columns The number of tiles across the image.
+   * @param tiles   The number of tiles.
+   * @return The threshold bin of each channel, or -1 for a channel that keeps every coefficient.
+   */
+  private int[] globalThresholdBins(ImageInterface image, int columns, int tiles) {
+    long[][] counts = new long[3][BINS];
+    IntStream.range(0, tiles).parallel().forEach(tile -> {
+      double[][] block = new double[tileSize][tileSize];
+      int[] local = new int[BINS];
+      for (int c = 0; c < 3; c++) {
+        loadTile(image, tile % columns * tileSize, tile / columns * tileSize, c, block);
+        forwardDWT(block, tileSize);
+        for (double magnitude : getSortedUniqueCoefficients(block)) {
+          local[bin(magnitude)]++;
+        }
+        synchronized (counts) {
+          for (int b = 0; b < BINS; b++) {
+            counts[c][b] += local[b];
+          }
+        }
+        Arrays.fill(local, 0);
+      }
+    });
+
+    int[] thresholdBins = new int[3];
+    for (int c = 0; c < 3; c++) {
+      long total = 0;
+      for (long count : counts[c]) {
+        total += count;
+      }
+      long thresholdIndex = (long) (total * percentage * 0.01) - 1;
+      thresholdBins[c] = -1;
+      long seen = 0;
+      for (int b = 0; thresholdIndex >= 0 && b < BINS; b++) {
+        seen += counts[c][b];
+        if (seen > thresholdIndex) {
+          thresholdBins[c] = b;
+          break;
+        }
+      }
+    }
+    return thresholdBins;
+  }
+
+  /**
+   * Gets the histogram bin of a coefficient magnitude. The bits of a non-negative float grow
+   * with its value, so the bins are in order of magnitude.
+   *
+   * @param magnitude The magnitude, which is not negative.
+   * @return The bin.
+   */
+  private static int bin(double magnitude) {
+    return Float.floatToIntBits((float) magnitude) >>> BIN_SHIFT;
+  }
+
+  /**
+   * Zeroes the coefficients of a tile whose magnitudes fall in or below a histogram bin.
+   *
+   * @param block        The transformed tile.
+   * @param thresholdBin The highest bin to zero, or -1 to keep every coefficient.
+   */
+  private static void thresholdBins(double[][] block, int thresholdBin) {
+    if (thresholdBin < 0) {
+      return;
+    }
+    for (double[] row : block) {
+      for (int j = 0; j < row.length; j++) {
+        if (bin(Math.abs(row[j])) <= thresholdBin) {
+          row[j] = 0.0;
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies one channel of a tile of the image into a block, repeating the last column and row
+   * of the image where the tile reaches past it.
+   *
+   * @param image   The source image.
+   * @param x0      The left column of the tile.
+   * @param y0      The top row of the tile.
+   * @param channel The channel.
+   * @param block   The block to fill.
+   */
+  private static void loadTile(ImageInterface image, int x0, int y0, int channel,
+                               double[][] block) {
+    int lastX = image.getWidth() - 1;
+    int lastY = image.getHeight() - 1;
+    for (int y = 0; y < block.length; y++) {
+      int py = Math.min(y0 + y, lastY);
+      for (int x = 0; x < block.length; x++) {
+        block[y][x] = image.getChannelValue(Math.min(x0 + x, lastX), py, channel);
+      }
+    }
+  }
+
+  /**
+   * Rounds the part of a reconstructed tile that lies inside the image into a plane.
+   *
+   * @param block    The reconstructed tile.
+   * @param x0       The left column of the tile.
+   * @param y0       The top row of the tile.
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum pixel value.
+   * @param plane    The row-major plane of the channel.
+   */
+  private static void storeTile(double[][] block, int x0, int y0, int width, int height,
+                                int maxValue, int[] plane) {
+    int rows = Math.min(block.length, height - y0);
+    int columns = Math.min(block.length, width - x0);
+    for (int y = 0; y < rows; y++) {
+      int offset = (y0 + y) * width + x0;
+      for (int x = 0; x < columns; x++) {
+        plane[offset + x] = clamp((int) Math.round(block[y][x]), 0, maxValue);
+      }
+    }
+  }
+
   /**
    * Calculates the next highest power of two for the given number.
    *
@@ -97,7 +305,7 @@ public class CompressOperation implements ImageOperation {
         for (int x = 0; x < workingDim; x++) {
           int px = x < width ? x : width - 1;
           int py = y < height ? y : height - 1;
-          channels[c][y][x] = image.getPixel(px, py)[c];
+          channels[c][y][x] = image.getChannelValue(px, py, c);
         }
       }
     }
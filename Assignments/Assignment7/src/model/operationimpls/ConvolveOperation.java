@@ -0,0 +1,48 @@
+package model.operationimpls;
+
+import model.image.ImageInterface;
+import model.operationinterface.ImageOperation;
+import model.utilities.ConvolutionEngine;
+import model.utilities.ImageValidator;
+
+/**
+ * Operation that convolves an image with a user-supplied kernel of any size.
+ * The kernel is centered on each pixel, taps that fall outside the image are skipped, and the
+ * results are rounded and clamped, exactly as for the built-in blur and sharpen kernels.
+ * {@link ConvolutionEngine} picks a direct, separable or FFT-based evaluation for the kernel.
+ */
+public class ConvolveOperation implements ImageOperation {
+  private final double[][] kernel;
+
+  /**
+   * Constructs a ConvolveOperation with the given kernel.
+   *
+   * @param kernel The kernel, indexed by row and then column.
+   * @throws IllegalArgumentException if the kernel is empty, not rectangular or not finite
+   */
+  public ConvolveOperation(double[][] kernel) {
+    ConvolutionEngine.validateKernel(kernel);
+    this.kernel = new double[kernel.length][];
+    for (int i = 0; i < kernel.length; i++) {
+      this.kernel[i] = kernel[i].clone();
+    }
+  }
+
+  /**
+   * Applies the convolution to the provided image.
+   *
+   * @param images An array containing a single image to be processed
+   * @return A new filtered image
+   * @throws IllegalArgumentException if images is null or contains more/less than one image
+   */
+  @Override
+  public ImageInterface execute(ImageInterface... images) {
+    if (images == null || images.length != 1) {
+      throw new IllegalArgumentException("ConvolveOperation requires exactly one image.");
+    }
+    ImageInterface image = images[0];
+    ImageValidator.validate(image);
+
+    return ConvolutionEngine.convolve(image, kernel);
+  }
+}
@@ -0,0 +1,76 @@
+package model.operationimpls;
+
+import model.image.Image;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.TransformedImage;
+import model.operationinterface.ImageOperation;
+import model.utilities.ImageValidator;
+
+/**
+ * Operation that keeps a rectangular region of an image.
+ * Planar images are cropped as a {@link TransformedImage} view, without copying any pixels.
+ */
+public class CropOperation implements ImageOperation {
+  private final int x;
+  private final int y;
+  private final int width;
+  private final int height;
+
+  /**
+   * Constructs a CropOperation for the given region.
+   *
+   * @param x      The x-coordinate of the region's left edge.
+   * @param y      The y-coordinate of the region's top edge.
+   * @param width  The width of the region.
+   * @param height The height of the region.
+   * @throws IllegalArgumentException if the region is empty or has a negative corner
+   */
+  public CropOperation(int x, int y, int width, int height) {
+    if (x < 0 || y < 0) {
+      throw new IllegalArgumentException("Crop position cannot be negative.");
+    }
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Crop width and height must be positive.");
+    }
+    this.x = x;
+    this.y = y;
+    this.width = width;
+    this.height = height;
+  }
+
+  /**
+   * Crops the provided image.
+   *
+   * @param images An array containing a single image to be cropped
+   * @return The cropped image
+   * @throws IllegalArgumentException if images is null or contains more/less than one image, or
+   *                                  if the region is not inside the image
+   */
+  @Override
+  public ImageInterface execute(ImageInterface... images) {
+    if (images == null || images.length != 1) {
+      throw new IllegalArgumentException("CropOperation requires exactly one image.");
+    }
+    ImageInterface image = images[0];
+    ImageValidator.validate(image);
+
+    if (image instanceof PlanarImage) {
+      return TransformedImage.crop((PlanarImage) image, x, y, width, height);
+    }
+
+    if ((long) x + width > image.getWidth() || (long) y + height > image.getHeight()) {
+      throw new IllegalArgumentException("Crop region " + width + "x" + height + " at (" + x
+              + ", " + y + ") is outside the " + image.getWidth() + "x" + image.getHeight()
+              + " image.");
+    }
+    int[][][] originalPixels = image.getPixels();
+    int[][][] newPixels = new int[height][width][];
+    for (int row = 0; row < height; row++) {
+      for (int column = 0; column < width; column++) {
+        newPixels[row][column] = originalPixels[y + row][x + column].clone();
+      }
+    }
+    return new Image(width, height, image.getMaxValue(), newPixels);
+  }
+}
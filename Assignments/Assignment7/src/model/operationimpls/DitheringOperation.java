@@ -1,15 +1,33 @@
 package model.operationimpls;
 
-import model.image.Image;
+import java.util.Arrays;
+
+import model.image.ImageFactory;
 import model.image.ImageInterface;
 import model.operationinterface.ImageOperation;
 
 /**
  * An operation that applies Floyd-Steinberg dithering to an image.
  * This converts the image to black and white using error diffusion.
+ * The image is processed one row at a time: the diffused error is kept in two rolling rows of
+ * fixed-point values (the current row and the row below it), so the working memory is
+ * proportional to the image width rather than its area.
  */
 public class DitheringOperation implements ImageOperation {
 
+  /**
+   * Number of fractional bits used for the fixed-point grayscale and error values.
+   */
+  private static final int FRACTION_BITS = 16;
+
+  /**
+   * Luma weights in fixed point (0.2126, 0.7152 and 0.0722 scaled by 2^16).
+   * They sum to exactly 2^16, so a pure white pixel maps to exactly maxValue.
+   */
+  private static final long RED_WEIGHT = 13933;
+  private static final long GREEN_WEIGHT = 46871;
+  private static final long BLUE_WEIGHT = 4732;
+
   /**
    * Applies Floyd-Steinberg dithering to an image.
    * The resulting image is converted to black and white.
@@ -29,100 +47,53 @@ public class DitheringOperation implements ImageOperation {
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
 
-    double[][] grayscale = toGrayscale(image, width, height);
-
-    applyDithering(grayscale, width, height, maxValue);
+    byte[] flags = new byte[width * height];
 
-    int[][][] newPixels = reconstructBinaryImage(grayscale, width, height, maxValue);
+    // Each error row has one padding entry on either side, so errors diffused past the
+    // left or right edge land in the padding and are dropped, as they were before.
+    long[] currentErrors = new long[width + 2];
+    long[] nextErrors = new long[width + 2];
+    long threshold = (long) (maxValue / 2) << FRACTION_BITS;
+    long white = (long) maxValue << FRACTION_BITS;
 
-    return new Image(width, height, maxValue, newPixels);
-  }
-
-  /**
-   * Converts the input image to grayscale.
-   *
-   * @param image  The source image.
-   * @param width  The width of the image.
-   * @param height The height of the image.
-   * @return A 2D array containing grayscale values.
-   */
-  private double[][] toGrayscale(ImageInterface image, int width, int height) {
-    double[][] grayscale = new double[height][width];
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
-        int[] pixel = image.getPixel(x, y);
-        //luma-component grayscale
-        grayscale[y][x] = (pixel[0] * 0.2126 + pixel[1] * 0.7152 + pixel[2] * 0.0722);
-      }
-    }
-    return grayscale;
-  }
+        long oldColor = toGrayscale(image, x, y) + currentErrors[x + 1];
+        long newColor = oldColor > threshold ? white : 0;
+        long error = oldColor - newColor;
+        flags[y * width + x] = (byte) (newColor != 0 ? 1 : 0);
 
-  /**
-   * Applies Floyd-Steinberg dithering to the grayscale image.
-   *
-   * @param grayscale The grayscale image as a 2D array.
-   * @param width     The width of the image.
-   * @param height    The height of the image.
-   * @param maxValue  The maximum pixel value.
-   */
-  private void applyDithering(double[][] grayscale, int width, int height, int maxValue) {
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        double oldColor = grayscale[y][x];
-        double newColor = (oldColor > maxValue / 2) ? maxValue : 0;
-        double error = oldColor - newColor;
-        grayscale[y][x] = newColor;
+        long rightError = error * 7 / 16;
+        long belowLeftError = error * 3 / 16;
+        long belowError = error * 5 / 16;
+        long belowRightError = error - rightError - belowLeftError - belowError;
 
-        if (x + 1 < width) {
-          grayscale[y][x + 1] += error * 7 / 16.0;
-        }
-        if (y + 1 < height) {
-          if (x - 1 >= 0) {
-            grayscale[y + 1][x - 1] += error * 3 / 16.0;
-          }
-          grayscale[y + 1][x] += error * 5 / 16.0;
-          if (x + 1 < width) {
-            grayscale[y + 1][x + 1] += error * 1 / 16.0;
-          }
-        }
+        currentErrors[x + 2] += rightError;
+        nextErrors[x] += belowLeftError;
+        nextErrors[x + 1] += belowError;
+        nextErrors[x + 2] += belowRightError;
       }
-    }
-  }
 
-  /**
-   * Reconstructs a binary black and white image from the processed grayscale values.
-   *
-   * @param grayscale The processed grayscale values.
-   * @param width     The width of the image.
-   * @param height    The height of the image.
-   * @param maxValue  The maximum pixel value.
-   * @return A 3D array representing the dithered image.
-   */
-  private int[][][] reconstructBinaryImage(double[][] grayscale, int width,
-                                           int height, int maxValue) {
-    int[][][] newPixels = new int[height][width][3];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int value = (int) Math.round(grayscale[y][x]);
-        value = clamp(value, 0, maxValue);
-        newPixels[y][x][0] = value;
-        newPixels[y][x][1] = value;
-        newPixels[y][x][2] = value;
-      }
+      long[] finishedRow = currentErrors;
+      currentErrors = nextErrors;
+      nextErrors = finishedRow;
+      Arrays.fill(nextErrors, 0);
     }
-    return newPixels;
+
+    return ImageFactory.createBinary(width, height, maxValue, flags);
   }
 
   /**
-   * Ensures a value falls within a specified range.
+   * Computes the luma of a pixel in fixed point with {@link #FRACTION_BITS} fractional bits.
    *
-   * @param value The number to be clamped.
-   * @param min   The minimum allowed value.
-   * @param max   The maximum allowed value.
-   * @return The clamped value, guaranteed to be between min and max inclusive.
+   * @param image The source image.
+   * @param x     The x-coordinate of the pixel.
+   * @param y     The y-coordinate of the pixel.
+   * @return The fixed-point luma value.
    */
-  private static int clamp(int value, int min, int max) {
-    return Math.max(min, Math.min(max, value));
+  private static long toGrayscale(ImageInterface image, int x, int y) {
+    return RED_WEIGHT * image.getChannelValue(x, y, 0)
+            + GREEN_WEIGHT * image.getChannelValue(x, y, 1)
+            + BLUE_WEIGHT * image.getChannelValue(x, y, 2);
   }
-}
\ No newline at end of file
+}
@@ -1,11 +1,19 @@
 package model.operationimpls;
 
-import model.image.Image;
+import java.util.stream.IntStream;
+
+import model.image.ImageFactory;
 import model.image.ImageInterface;
 import model.operationinterface.ImageOperation;
+import model.utilities.MipmapPyramid;
 
 /**
- * Operation to downscale an image to specified width and height using bilinear interpolation.
+ * Operation to downscale an image to specified width and height.
+ * The image is first reduced by area averaging through its {@link MipmapPyramid} to the smallest
+ * level that is still at least as large as the target, and that level is then resampled to the
+ * target size using bilinear interpolation. Large reductions therefore average every source pixel
+ * instead of sampling only four of them, and the pyramid is reused across calls on the same
+ * image.
  */
 public class DownscaleOperation implements ImageOperation {
   private final int targetWidth;
@@ -26,7 +34,7 @@ public class DownscaleOperation implements ImageOperation {
   }
 
   /**
-   * Downscale the input image to the target width and height using bilinear interpolation.
+   * Downscale the input image to the target width and height.
    *
    * @param images The input image to downscale.
    * @return The downscaled image.
@@ -42,46 +50,46 @@ public class DownscaleOperation implements ImageOperation {
     int originalWidth = image.getWidth();
     int originalHeight = image.getHeight();
 
-    if (targetWidth >= originalWidth || targetHeight >= originalHeight) {
-      throw new IllegalArgumentException("Target width and height must be less than the original.");
+    if (targetWidth > originalWidth || targetHeight > originalHeight
+            || targetWidth == originalWidth && targetHeight == originalHeight) {
+      throw new IllegalArgumentException(
+              "Target width and height cannot exceed the original and must not both equal it.");
     }
 
-    int maxValue = image.getMaxValue();
-    int[][][] originalPixels = image.getPixels();
+    ImageInterface source = MipmapPyramid.of(image).levelFor(targetWidth, targetHeight);
+    int sourceWidth = source.getWidth();
+    int sourceHeight = source.getHeight();
+    int maxValue = source.getMaxValue();
 
-    int[][][] newPixels = new int[targetHeight][targetWidth][3];
+    // A single output row or column samples the first source row or column.
+    double scaleY = targetHeight > 1 ? (double) (sourceHeight - 1) / (targetHeight - 1) : 0;
+    double scaleX = targetWidth > 1 ? (double) (sourceWidth - 1) / (targetWidth - 1) : 0;
 
-    for (int y = 0; y < targetHeight; y++) {
-      for (int x = 0; x < targetWidth; x++) {
-        double origY = y * ((double) (originalHeight - 1) / (targetHeight - 1));
-        double origX = x * ((double) (originalWidth - 1) / (targetWidth - 1));
+    int[][] planes = new int[3][targetWidth * targetHeight];
 
-        int floorY = (int) Math.floor(origY);
-        int floorX = (int) Math.floor(origX);
-        int ceilY = Math.min(floorY + 1, originalHeight - 1);
-        int ceilX = Math.min(floorX + 1, originalWidth - 1);
+    IntStream.range(0, targetHeight).parallel().forEach(y -> {
+      double origY = y * scaleY;
+      int floorY = (int) Math.floor(origY);
+      int ceilY = Math.min(floorY + 1, sourceHeight - 1);
+      double verticalRatio = origY - floorY;
 
-        double verticalRatio = origY - floorY;
+      for (int x = 0; x < targetWidth; x++) {
+        double origX = x * scaleX;
+        int floorX = (int) Math.floor(origX);
+        int ceilX = Math.min(floorX + 1, sourceWidth - 1);
         double horizontalRatio = origX - floorX;
 
-        int[] topLeftPixel = originalPixels[floorY][floorX];
-        int[] bottomLeftPixel = originalPixels[ceilY][floorX];
-        int[] topRightPixel = originalPixels[floorY][ceilX];
-        int[] bottomRightPixel = originalPixels[ceilY][ceilX];
-
-        int[] newPixel = new int[3];
-
         for (int i = 0; i < 3; i++) {
-          double top = topLeftPixel[i] * (1 - horizontalRatio) + topRightPixel[i] * horizontalRatio;
-          double bottom = bottomLeftPixel[i] * (1 - horizontalRatio)
-                  + bottomRightPixel[i] * horizontalRatio;
-          newPixel[i] = (int) Math.round(top * (1 - verticalRatio) + bottom * verticalRatio);
+          double top = source.getChannelValue(floorX, floorY, i) * (1 - horizontalRatio)
+                  + source.getChannelValue(ceilX, floorY, i) * horizontalRatio;
+          double bottom = source.getChannelValue(floorX, ceilY, i) * (1 - horizontalRatio)
+                  + source.getChannelValue(ceilX, ceilY, i) * horizontalRatio;
+          planes[i][y * targetWidth + x] =
+                  (int) Math.round(top * (1 - verticalRatio) + bottom * verticalRatio);
         }
-
-        newPixels[y][x] = newPixel;
       }
-    }
+    });
 
-    return new Image(targetWidth, targetHeight, maxValue, newPixels);
+    return ImageFactory.fromPlanes(targetWidth, targetHeight, maxValue, planes);
   }
 }
\ No newline at end of file
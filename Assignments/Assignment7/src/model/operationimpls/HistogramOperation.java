@@ -1,17 +1,26 @@
 package model.operationimpls;
 
-import java.awt.Graphics2D;
-import java.awt.Color;
-import java.awt.image.BufferedImage;
+import java.util.Arrays;
 
-import model.image.Image;
+import model.image.Histograms;
+import model.image.ImageFactory;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.ImageOperation;
 
 /**
  * Operation class for generating a histogram of an image.
+ * The chart is drawn directly into an array of packed RGB values rather than with Java2D, so
+ * that generating a histogram in script mode does not load AWT. Lines are drawn with the same
+ * Bresenham stepping as Java2D, which keeps the output identical to the earlier charts.
  */
 public class HistogramOperation implements ImageOperation {
+  private static final int SIZE = 256;
+  private static final int WHITE = 0xFFFFFF;
+  private static final int LIGHT_GRAY = 0xC0C0C0;
+  private static final int RED = 0xFF0000;
+  private static final int GREEN = 0x00FF00;
+  private static final int BLUE = 0x0000FF;
 
   /**
    * Generates a histogram of the input image.
@@ -28,8 +37,8 @@ public class HistogramOperation implements ImageOperation {
     ImageInterface image = images[0];
 
     int[][] histograms = calculateHistograms(image);
-    int maxWidth = 256;
-    int maxHeight = 256;
+    int maxWidth = SIZE;
+    int maxHeight = SIZE;
 
     double redMax = maxFrequency(histograms[0]);
     double greenMax = maxFrequency(histograms[1]);
@@ -37,66 +46,96 @@ public class HistogramOperation implements ImageOperation {
     double maxFrequency = Math.max(redMax, Math.max(greenMax, blueMax));
     double scalingFactor = maxHeight / maxFrequency;
 
-    BufferedImage histogramImage =
-            new BufferedImage(maxWidth, maxHeight, BufferedImage.TYPE_INT_RGB);
-    Graphics2D graphics = histogramImage.createGraphics();
+    int[] canvas = new int[maxWidth * maxHeight];
 
-    drawHistogram(graphics, maxWidth, maxHeight);
+    drawHistogram(canvas, maxWidth, maxHeight);
 
-    drawLineChart(graphics, histograms[0], scalingFactor, Color.RED);
-    drawLineChart(graphics, histograms[1], scalingFactor, Color.GREEN);
-    drawLineChart(graphics, histograms[2], scalingFactor, Color.BLUE);
+    drawLineChart(canvas, histograms[0], scalingFactor, RED);
+    drawLineChart(canvas, histograms[1], scalingFactor, GREEN);
+    drawLineChart(canvas, histograms[2], scalingFactor, BLUE);
 
-    graphics.dispose();
-
-    int[][][] pixels = new int[256][256][3];
-    for (int y = 0; y < 256; y++) {
-      for (int x = 0; x < 256; x++) {
-        int rgb = histogramImage.getRGB(x, y);
-        Color color = new Color(rgb);
-        pixels[y][x][0] = color.getRed();
-        pixels[y][x][1] = color.getGreen();
-        pixels[y][x][2] = color.getBlue();
-      }
+    int[][] planes = new int[3][canvas.length];
+    for (int i = 0; i < canvas.length; i++) {
+      planes[0][i] = (canvas[i] >> 16) & 0xFF;
+      planes[1][i] = (canvas[i] >> 8) & 0xFF;
+      planes[2][i] = canvas[i] & 0xFF;
     }
 
-    return new Image(256, 256, 255, pixels);
+    return ImageFactory.fromPlanes(SIZE, SIZE, 255, planes);
   }
 
   /**
    * Draws the background grid for the histogram.
    *
-   * @param graphics  The graphics object to draw on.
+   * @param canvas    The packed RGB pixels to draw on.
    * @param maxWidth  The width of the histogram.
    * @param maxHeight The height of the histogram.
    */
-  private void drawHistogram(Graphics2D graphics, int maxWidth, int maxHeight) {
-    graphics.setColor(Color.WHITE);
-    graphics.fillRect(0, 0, maxWidth, maxHeight);
+  private void drawHistogram(int[] canvas, int maxWidth, int maxHeight) {
+    Arrays.fill(canvas, WHITE);
 
-    graphics.setColor(Color.LIGHT_GRAY);
     for (int i = 0; i < maxWidth; i += 8) {
-      graphics.drawLine(i, 0, i, maxHeight);
+      drawLine(canvas, i, 0, i, maxHeight, LIGHT_GRAY);
     }
     for (int i = 0; i < maxHeight; i += 8) {
-      graphics.drawLine(0, i, maxWidth, i);
+      drawLine(canvas, 0, i, maxWidth, i, LIGHT_GRAY);
     }
   }
 
   /**
    * Draws a line chart of the histogram data.
    *
-   * @param graphics The graphics object to draw on.
-   * @param data     The histogram data to draw.
-   * @param scale    The scaling factor for the data.
-   * @param color    The color of the line.
+   * @param canvas The packed RGB pixels to draw on.
+   * @param data   The histogram data to draw.
+   * @param scale  The scaling factor for the data.
+   * @param color  The packed RGB color of the line.
    */
-  private void drawLineChart(Graphics2D graphics, int[] data, double scale, Color color) {
-    graphics.setColor(color);
+  private void drawLineChart(int[] canvas, int[] data, double scale, int color) {
     for (int i = 1; i < data.length; i++) {
       double value = data[i] * scale;
       double prevValue = data[i - 1] * scale;
-      graphics.drawLine(i, (int) (256 - prevValue), i + 1, (int) (256 - value));
+      drawLine(canvas, i, (int) (SIZE - prevValue), i + 1, (int) (SIZE - value), color);
+    }
+  }
+
+  /**
+   * Draws a one-pixel line between two points, both included, clipped to the canvas.
+   * The minor coordinate steps as soon as the error term reaches zero, which matches the
+   * pixels Java2D sets for the same line.
+   *
+   * @param canvas The packed RGB pixels of a SIZE x SIZE canvas.
+   * @param x0     The x coordinate of the start.
+   * @param y0     The y coordinate of the start.
+   * @param x1     The x coordinate of the end.
+   * @param y1     The y coordinate of the end.
+   * @param color  The packed RGB color of the line.
+   */
+  private static void drawLine(int[] canvas, int x0, int y0, int x1, int y1, int color) {
+    int dx = Math.abs(x1 - x0);
+    int dy = Math.abs(y1 - y0);
+    int stepX = x0 < x1 ? 1 : -1;
+    int stepY = y0 < y1 ? 1 : -1;
+    int major = Math.max(dx, dy);
+    int minor = Math.min(dx, dy);
+    int error = -major;
+    int x = x0;
+    int y = y0;
+    for (int i = 0; i <= major; i++) {
+      if (x >= 0 && x < SIZE && y >= 0 && y < SIZE) {
+        canvas[y * SIZE + x] = color;
+      }
+      error += 2 * minor;
+      boolean stepMinor = error >= 0;
+      if (stepMinor) {
+        error -= 2 * major;
+      }
+      if (dx >= dy) {
+        x += stepX;
+        y += stepMinor ? stepY : 0;
+      } else {
+        y += stepY;
+        x += stepMinor ? stepX : 0;
+      }
     }
   }
 
@@ -118,6 +157,9 @@ public class HistogramOperation implements ImageOperation {
 
   /**
    * Calculates the histograms of an image.
+   * Each histogram has 256 bins; images deeper than 8 bits are scaled down into those bins.
+   * The bins of a planar image are folded from its cached per-value {@link Histograms}, so after
+   * a point operation they are found without reading the pixels at all.
    *
    * @param image The image to calculate histograms from.
    * @return The histograms of the image.
@@ -126,16 +168,55 @@ public class HistogramOperation implements ImageOperation {
     int[][] histograms = new int[3][256];
     int width = image.getWidth();
     int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+
+    if (image instanceof PlanarImage) {
+      int[][] counts = Histograms.of((PlanarImage) image);
+      for (int c = 0; c < 3; c++) {
+        for (int value = 0; value <= maxValue; value++) {
+          histograms[c][valueToBin(value, maxValue)] += counts[c][value];
+        }
+      }
+      return histograms;
+    }
 
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
-        int[] rgb = image.getPixel(x, y);
-        histograms[0][rgb[0]]++;
-        histograms[1][rgb[1]]++;
-        histograms[2][rgb[2]]++;
+        for (int c = 0; c < 3; c++) {
+          histograms[c][valueToBin(image.getChannelValue(x, y, c), maxValue)]++;
+        }
       }
     }
 
     return histograms;
   }
+
+  /**
+   * Maps a channel value to its histogram bin.
+   * Values of images with a maximum value of at most 255 are their own bin.
+   *
+   * @param value    The channel value.
+   * @param maxValue The maximum value of the image.
+   * @return The bin index in the range [0, 255].
+   */
+  protected static int valueToBin(int value, int maxValue) {
+    if (maxValue <= 255) {
+      return value;
+    }
+    return (int) ((long) value * 255 / maxValue);
+  }
+
+  /**
+   * Maps a distance measured in histogram bins back to a distance in channel values.
+   *
+   * @param bins     The distance in bins.
+   * @param maxValue The maximum value of the image.
+   * @return The equivalent distance in channel values.
+   */
+  protected static int binToValue(int bins, int maxValue) {
+    if (maxValue <= 255) {
+      return bins;
+    }
+    return (int) Math.round(bins * (maxValue / 255.0));
+  }
 }
@@ -2,6 +2,8 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.TransformedImage;
 import model.operationinterface.ImageOperation;
 import model.utilities.ImageValidator;
 
@@ -9,6 +11,7 @@ import model.utilities.ImageValidator;
  * Operation class that flips an image horizontally (left to right).
  * Creates a mirror image by reversing the order of pixels in each row while maintaining
  * the original height and vertical ordering of pixels.
+ * Planar images are flipped as a {@link TransformedImage} view, without copying any pixels.
  */
 public class HorizontalFlipOperation implements ImageOperation {
 
@@ -29,6 +32,10 @@ public class HorizontalFlipOperation implements ImageOperation {
     ImageInterface image = images[0];
     ImageValidator.validate(image);
 
+    if (image instanceof PlanarImage) {
+      return TransformedImage.flipHorizontal((PlanarImage) image);
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int[][][] originalPixels = image.getPixels();
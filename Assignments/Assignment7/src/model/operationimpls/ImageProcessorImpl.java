@@ -1,15 +1,20 @@
 package model.operationimpls;
 
 
+import java.util.function.Supplier;
+
 import model.image.ImageInterface;
 import model.operationinterface.ImageProcessor;
 
 import model.utilities.ImageValidator;
+import model.utilities.ResultCache;
 
 /**
  * Implementation of ImageProcessor interface that provides various image manipulation operations.
  * Supports operations like blurring, sharpening, brightening, sepia, and color transformations.
  * All operations validate input images before processing and return new ImageInterface instances.
+ * Results of the filtering operations are kept in a {@link ResultCache}, so repeating an
+ * operation on an image with the same content returns the earlier result without recomputing it.
  */
 public class ImageProcessorImpl implements ImageProcessor {
 
@@ -48,6 +53,52 @@ public class ImageProcessorImpl implements ImageProcessor {
           {0.272, 0.534, 0.131}
   };
 
+  private final ResultCache resultCache;
+
+  /**
+   * Creates a processor with its own result cache, sized to an eighth of the heap.
+   */
+  public ImageProcessorImpl() {
+    this(new ResultCache());
+  }
+
+  /**
+   * Creates a processor that keeps its results in the given cache, which may be shared with
+   * other processors.
+   *
+   * @param resultCache The cache of operation results.
+   * @throws IllegalArgumentException if the cache is null
+   */
+  public ImageProcessorImpl(ResultCache resultCache) {
+    if (resultCache == null) {
+      throw new IllegalArgumentException("Result cache cannot be null.");
+    }
+    this.resultCache = resultCache;
+  }
+
+  /**
+   * Gets the cache that holds the results of this processor, along with its statistics.
+   *
+   * @return The result cache.
+   */
+  public ResultCache getResultCache() {
+    return resultCache;
+  }
+
+  /**
+   * Gets the result of an operation from the result cache, computing it if it is not there.
+   *
+   * @param image     The input image, already validated.
+   * @param operation The name of the operation.
+   * @param compute   Computes the result.
+   * @param params    The parameters that affect the result.
+   * @return The result of the operation.
+   */
+  protected ImageInterface cached(ImageInterface image, String operation,
+                                  Supplier<ImageInterface> compute, Object... params) {
+    return resultCache.get(image, operation, compute, params);
+  }
+
   /**
    * Applies a Gaussian blur effect to the image.
    *
@@ -58,7 +109,7 @@ public class ImageProcessorImpl implements ImageProcessor {
   @Override
   public ImageInterface blur(ImageInterface image) {
     ImageValidator.validate(image);
-    return new BlurOperation().execute(image);
+    return cached(image, "blur", () -> new BlurOperation().execute(image));
   }
 
   /**
@@ -72,7 +123,8 @@ public class ImageProcessorImpl implements ImageProcessor {
   @Override
   public ImageInterface brighten(ImageInterface image, int increment) {
     ImageValidator.validate(image);
-    return new BrightenOperation(increment).execute(image);
+    return cached(image, "brighten",
+            () -> new BrightenOperation(increment).execute(image), increment);
   }
 
   /**
@@ -85,7 +137,7 @@ public class ImageProcessorImpl implements ImageProcessor {
   @Override
   public ImageInterface sepia(ImageInterface image) {
     ImageValidator.validate(image);
-    return new SepiaOperation().execute(image);
+    return cached(image, "sepia", () -> new SepiaOperation().execute(image));
   }
 
   /**
@@ -98,7 +150,7 @@ public class ImageProcessorImpl implements ImageProcessor {
   @Override
   public ImageInterface sharpen(ImageInterface image) {
     ImageValidator.validate(image);
-    return new SharpenOperation().execute(image);
+    return cached(image, "sharpen", () -> new SharpenOperation().execute(image));
   }
 
   /**
@@ -138,7 +190,8 @@ public class ImageProcessorImpl implements ImageProcessor {
   @Override
   public ImageInterface extractComponent(ImageInterface image, String componentName) {
     ImageValidator.validate(image);
-    return new ComponentOperation(componentName).execute(image);
+    return cached(image, "component",
+            () -> new ComponentOperation(componentName).execute(image), componentName);
   }
 
   /**
@@ -0,0 +1,71 @@
+package model.operationimpls;
+
+import java.util.stream.IntStream;
+
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.operationinterface.ImageOperation;
+import model.utilities.ThresholdMatrix;
+
+/**
+ * An operation that converts an image to black and white by comparing each pixel against a
+ * tiled threshold matrix instead of diffusing errors to its neighbours.
+ * Supported matrices are "ordered" (an 8x8 Bayer matrix) and "bluenoise" (a 64x64 blue-noise
+ * matrix). Every pixel is independent of the others, so rows are processed in parallel; this
+ * trades some of the quality of Floyd-Steinberg dithering for throughput in batch use.
+ */
+public class OrderedDitheringOperation implements ImageOperation {
+  private final int[][] matrix;
+
+  /**
+   * Constructs an OrderedDitheringOperation using the named threshold matrix.
+   *
+   * @param matrixName The name of the threshold matrix, "ordered" or "bluenoise".
+   * @throws IllegalArgumentException if the matrix name is not recognized
+   */
+  public OrderedDitheringOperation(String matrixName) {
+    if (matrixName == null) {
+      throw new IllegalArgumentException("Threshold matrix name cannot be null.");
+    }
+    this.matrix = ThresholdMatrix.forName(matrixName);
+  }
+
+  /**
+   * Applies ordered dithering to an image.
+   * A pixel becomes white when its luma, as a fraction of maxValue, exceeds the threshold of its
+   * position in the tiled matrix, and black otherwise.
+   *
+   * @param images The source image to dither.
+   * @return A new dithered version of the input image.
+   * @throws IllegalArgumentException if the input image is null or invalid.
+   */
+  @Override
+  public ImageInterface execute(ImageInterface... images) {
+    if (images == null || images.length != 1 || images[0] == null) {
+      throw new IllegalArgumentException("OrderedDitheringOperation requires exactly one image.");
+    }
+
+    ImageInterface image = images[0];
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    int size = matrix.length;
+    long levels = (long) size * size;
+
+    byte[] flags = new byte[width * height];
+
+    IntStream.range(0, height).parallel().forEach(y -> {
+      int[] thresholdRow = matrix[y % size];
+      for (int x = 0; x < width; x++) {
+        // luma * levels > (rank + 0.5) * maxValue, with luma in 16.16 fixed point
+        long luma = 13933L * image.getChannelValue(x, y, 0)
+                + 46871L * image.getChannelValue(x, y, 1)
+                + 4732L * image.getChannelValue(x, y, 2);
+        long threshold = (2L * thresholdRow[x % size] + 1) * maxValue << 15;
+        flags[y * width + x] = (byte) (luma * levels > threshold ? 1 : 0);
+      }
+    });
+
+    return ImageFactory.createBinary(width, height, maxValue, flags);
+  }
+}
@@ -0,0 +1,79 @@
+package model.operationimpls;
+
+import model.image.Image;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.TransformedImage;
+import model.operationinterface.ImageOperation;
+import model.utilities.ImageValidator;
+
+/**
+ * Operation that rotates an image clockwise by a multiple of 90 degrees.
+ * Rotations by 90 and 270 degrees swap the width and the height of the image. Planar images are
+ * rotated as a {@link TransformedImage} view, without copying any pixels.
+ */
+public class RotateOperation implements ImageOperation {
+  private final int degrees;
+
+  /**
+   * Constructs a RotateOperation with the given angle.
+   *
+   * @param degrees The angle, a multiple of 90; negative angles rotate counterclockwise.
+   * @throws IllegalArgumentException if the angle is not a multiple of 90
+   */
+  public RotateOperation(int degrees) {
+    if (degrees % 90 != 0) {
+      throw new IllegalArgumentException("Rotation must be a multiple of 90 degrees.");
+    }
+    this.degrees = Math.floorMod(degrees, 360);
+  }
+
+  /**
+   * Rotates the provided image.
+   *
+   * @param images An array containing a single image to be rotated
+   * @return The rotated image
+   * @throws IllegalArgumentException if images is null or contains more/less than one image
+   */
+  @Override
+  public ImageInterface execute(ImageInterface... images) {
+    if (images == null || images.length != 1) {
+      throw new IllegalArgumentException("RotateOperation requires exactly one image.");
+    }
+    ImageInterface image = images[0];
+    ImageValidator.validate(image);
+
+    if (image instanceof PlanarImage) {
+      return TransformedImage.rotate((PlanarImage) image, degrees);
+    }
+
+    int width = image.getWidth();
+    int height = image.getHeight();
+    boolean swapped = degrees == 90 || degrees == 270;
+    int newWidth = swapped ? height : width;
+    int newHeight = swapped ? width : height;
+    int[][][] originalPixels = image.getPixels();
+    int[][][] newPixels = new int[newHeight][newWidth][];
+
+    for (int y = 0; y < newHeight; y++) {
+      for (int x = 0; x < newWidth; x++) {
+        switch (degrees) {
+          case 90:
+            newPixels[y][x] = originalPixels[height - 1 - x][y].clone();
+            break;
+          case 180:
+            newPixels[y][x] = originalPixels[height - 1 - y][width - 1 - x].clone();
+            break;
+          case 270:
+            newPixels[y][x] = originalPixels[x][width - 1 - y].clone();
+            break;
+          default:
+            newPixels[y][x] = originalPixels[y][x].clone();
+            break;
+        }
+      }
+    }
+
+    return new Image(newWidth, newHeight, image.getMaxValue(), newPixels);
+  }
+}
@@ -2,8 +2,10 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.ImageOperation;
 import model.utilities.ImageValidator;
+import model.utilities.PlanarKernels;
 
 /**
  * Implements a sepia tone filter operation for image processing.
@@ -32,6 +34,10 @@ public class SepiaOperation implements ImageOperation {
     ImageInterface image = images[0];
     ImageValidator.validate(image);
 
+    if (image instanceof PlanarImage) {
+      return PlanarKernels.colorMatrix((PlanarImage) image, SEPIA_MATRIX);
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
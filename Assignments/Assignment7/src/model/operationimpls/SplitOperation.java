@@ -1,24 +1,25 @@
 package model.operationimpls;
 
-import model.image.Image;
+import model.image.ImageFactory;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 import model.operationinterface.SplitImageOperation;
 import model.utilities.ImageValidator;
 
 /**
  * Operation class that splits an RGB image into its individual color components.
- * Creates three images representing the red, green, and blue channels of the original image.
- * Each resulting image preserves only one color channel while zeroing out the other channels.
+ * Creates three grayscale images representing the red, green, and blue channels of the original
+ * image. For planar images the results are views that share the channel planes of the source, so
+ * splitting copies no pixels at all; other images are split in one pass into single gray planes.
  */
 public class SplitOperation implements SplitImageOperation {
 
   /**
    * Splits an RGB image into three separate images containing individual color channels.
-   * For each image, one color channel maintains its original values while others are set to 0.
-   * The resulting images will appear as:
-   * - Red image: Only red channel values preserved
-   * - Green image: Only green channel values preserved
-   * - Blue image: Only blue channel values preserved
+   * Each resulting image shows one channel of the source as gray:
+   * - Red image: the red channel values in every channel
+   * - Green image: the green channel values in every channel
+   * - Blue image: the blue channel values in every channel
    *
    * @param image The source RGB image to split into components
    * @return An array of three ImageInterface objects in order: [red, green, blue] channel images
@@ -28,37 +29,27 @@ public class SplitOperation implements SplitImageOperation {
   public ImageInterface[] execute(ImageInterface image) {
     ImageValidator.validate(image);
 
+    if (image instanceof PlanarImage) {
+      PlanarImage planar = (PlanarImage) image;
+      return new ImageInterface[]{planar.channel(0), planar.channel(1), planar.channel(2)};
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
-    int[][][] originalPixels = image.getPixels();
-
-    int[][][] redPixels = new int[height][width][3];
-    int[][][] greenPixels = new int[height][width][3];
-    int[][][] bluePixels = new int[height][width][3];
+    int[][] planes = new int[3][width * height];
 
     for (int y = 0; y < height; y++) {
       for (int x = 0; x < width; x++) {
-        int[] rgb = originalPixels[y][x];
-
-        redPixels[y][x][0] = rgb[0];
-        redPixels[y][x][1] = rgb[0];
-        redPixels[y][x][2] = rgb[0];
-
-        greenPixels[y][x][0] = rgb[1];
-        greenPixels[y][x][1] = rgb[1];
-        greenPixels[y][x][2] = rgb[1];
-
-        bluePixels[y][x][0] = rgb[2];
-        bluePixels[y][x][1] = rgb[2];
-        bluePixels[y][x][2] = rgb[2];
+        for (int c = 0; c < 3; c++) {
+          planes[c][y * width + x] = image.getChannelValue(x, y, c);
+        }
       }
     }
 
-    ImageInterface redImage = new Image(width, height, maxValue, redPixels);
-    ImageInterface greenImage = new Image(width, height, maxValue, greenPixels);
-    ImageInterface blueImage = new Image(width, height, maxValue, bluePixels);
-
-    return new ImageInterface[]{redImage, greenImage, blueImage};
+    return new ImageInterface[]{
+        ImageFactory.fromGrayPlane(width, height, maxValue, planes[0]),
+        ImageFactory.fromGrayPlane(width, height, maxValue, planes[1]),
+        ImageFactory.fromGrayPlane(width, height, maxValue, planes[2])};
   }
-}
\ No newline at end of file
+}
@@ -111,6 +111,21 @@ public class SplitViewOperation implements ImageOperation {
     switch (operation.toLowerCase()) {
       case "blur":
         return processor.blur(image);
+      case "box-blur":
+        if (params == null || params.length != 1) {
+          throw new IllegalArgumentException("Box blur requires a radius parameter.");
+        }
+        return advancedProcessor.boxBlur(image, Integer.parseInt(params[0].toString()));
+      case "gaussian-blur":
+        if (params == null || params.length != 1) {
+          throw new IllegalArgumentException("Gaussian blur requires a sigma parameter.");
+        }
+        return advancedProcessor.gaussianBlur(image, Double.parseDouble(params[0].toString()));
+      case "convolve":
+        if (params == null || params.length != 1 || !(params[0] instanceof double[][])) {
+          throw new IllegalArgumentException("Convolve requires a kernel parameter.");
+        }
+        return advancedProcessor.convolve(image, (double[][]) params[0]);
       case "sharpen":
         return processor.sharpen(image);
       case "sepia":
@@ -128,6 +143,9 @@ public class SplitViewOperation implements ImageOperation {
         return processor.extractComponent(image, componentName);
 
       case "dither":
+        if (params != null && params.length > 0) {
+          return advancedProcessor.applyDithering(image, params[0].toString());
+        }
         return advancedProcessor.applyDithering(image);
 
       case "color-correct":
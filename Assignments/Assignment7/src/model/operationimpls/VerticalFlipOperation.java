@@ -2,6 +2,8 @@ package model.operationimpls;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.TransformedImage;
 import model.operationinterface.ImageOperation;
 import model.utilities.ImageValidator;
 
@@ -9,6 +11,7 @@ import model.utilities.ImageValidator;
  * Operation class that flips an image vertically (top to bottom).
  * Creates a upside-down version of the image by reversing the order of rows while maintaining
  * the original width and horizontal ordering of pixels within each row.
+ * Planar images are flipped as a {@link TransformedImage} view, without copying any pixels.
  */
 public class VerticalFlipOperation implements ImageOperation {
 
@@ -29,6 +32,10 @@ public class VerticalFlipOperation implements ImageOperation {
     ImageInterface image = images[0];
     ImageValidator.validate(image);
 
+    if (image instanceof PlanarImage) {
+      return TransformedImage.flipVertical((PlanarImage) image);
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int[][][] originalPixels = image.getPixels();
@@ -20,6 +20,22 @@ public interface AdvancedImageProcessor extends ImageProcessor {
    */
   ImageInterface compress(ImageInterface image, double percentage);
 
+  /**
+   * Compresses the image one square tile at a time, so that the memory it needs depends on the
+   * tile size rather than on the size of the image.
+   *
+   * @param image            The source image to compress
+   * @param percentage       The percentage to which the image should be compressed (0-100)
+   * @param tileSize         The side of a tile, a power of two of at least 2
+   * @param perTileThreshold Whether each tile finds its own threshold, rather than using one
+   *                         threshold per channel for the whole image
+   * @return A new compressed version of the input image
+   * @throws IllegalArgumentException if the input image is null or invalid, or the tile size is
+   *                                  not a power of two of at least 2
+   */
+  ImageInterface compress(ImageInterface image, double percentage, int tileSize,
+                          boolean perTileThreshold);
+
   /**
    * Generates a histogram representation of the image.
    *
@@ -80,9 +96,11 @@ public interface AdvancedImageProcessor extends ImageProcessor {
    * @param image     the source image
    * @param maskImage the mask image
    * @param operation the operation to apply
+   * @param params    the parameters of the operation, if it takes any
    * @return the resulting image after applying the mask operation
    */
-  ImageInterface applyMask(ImageInterface image, ImageInterface maskImage, String operation);
+  ImageInterface applyMask(ImageInterface image, ImageInterface maskImage, String operation,
+                           Object... params);
 
   /**
    * Applies the dithering effect to the given image.
@@ -92,4 +110,67 @@ public interface AdvancedImageProcessor extends ImageProcessor {
    * @return A new image with the dithering effect applied.
    */
   ImageInterface applyDithering(ImageInterface image);
+
+  /**
+   * Applies the dithering effect to the given image with the named method.
+   * Supported methods are "floyd-steinberg" (error diffusion), "ordered" (Bayer matrix) and
+   * "bluenoise" (blue-noise threshold matrix).
+   *
+   * @param image  The source image to apply the dithering effect to.
+   * @param method The dithering method to use.
+   * @return A new image with the dithering effect applied.
+   */
+  ImageInterface applyDithering(ImageInterface image, String method);
+
+  /**
+   * Blurs the image with a square box filter of the given radius.
+   * The cost per pixel does not depend on the radius.
+   *
+   * @param image  The source image to blur.
+   * @param radius The radius of the box, in pixels.
+   * @return A new blurred image.
+   */
+  ImageInterface boxBlur(ImageInterface image, int radius);
+
+  /**
+   * Blurs the image with a Gaussian of the given standard deviation.
+   * The cost per pixel does not depend on sigma.
+   *
+   * @param image The source image to blur.
+   * @param sigma The standard deviation of the Gaussian, in pixels.
+   * @return A new blurred image.
+   */
+  ImageInterface gaussianBlur(ImageInterface image, double sigma);
+
+  /**
+   * Convolves the image with a kernel of any size.
+   * Large kernels are evaluated with FFTs and separable kernels as two one-dimensional passes,
+   * giving the same result as the direct sum up to rounding.
+   *
+   * @param image  The source image to filter.
+   * @param kernel The kernel, indexed by row and then column, centered on each pixel.
+   * @return A new filtered image.
+   */
+  ImageInterface convolve(ImageInterface image, double[][] kernel);
+
+  /**
+   * Rotates the image clockwise by a multiple of 90 degrees.
+   *
+   * @param image   The source image to rotate.
+   * @param degrees The angle, a multiple of 90; negative angles rotate counterclockwise.
+   * @return The rotated image.
+   */
+  ImageInterface rotate(ImageInterface image, int degrees);
+
+  /**
+   * Keeps a rectangular region of the image.
+   *
+   * @param image  The source image to crop.
+   * @param x      The x-coordinate of the region's left edge.
+   * @param y      The y-coordinate of the region's top edge.
+   * @param width  The width of the region.
+   * @param height The height of the region.
+   * @return The cropped image.
+   */
+  ImageInterface crop(ImageInterface image, int x, int y, int width, int height);
 }
@@ -0,0 +1,133 @@
+package model.streaming;
+
+import java.io.IOException;
+import java.util.function.UnaryOperator;
+
+import model.image.ImageInterface;
+
+/**
+ * A row source that applies an image operation to the rows of another source, a band at a time.
+ * Operations that read neighboring pixels, such as blur and sharpen, need rows above and below
+ * each output row. The stage therefore runs the operation on a window holding the band plus
+ * {@code halo} extra rows on either side, and keeps only the band's rows of the result. The
+ * window slides down the image: the rows it shares with the previous window are kept rather
+ * than read again, so every upstream row is read exactly once.
+ * As long as the halo covers the reach of the operation, each output row is exactly what the
+ * operation would produce on the whole image, because the window edges only fall on the real
+ * image edges where the whole-image operation sees the same missing rows.
+ */
+public class BandStage implements RowSource {
+  private final RowSource upstream;
+  private final UnaryOperator<ImageInterface> operation;
+  private final int halo;
+  private ImageInterface window;
+  private int windowTop;
+  private int nextRow;
+
+  /**
+   * Constructs a stage.
+   *
+   * @param upstream  The source of the input rows.
+   * @param operation The operation to apply to each window. It must return an image of the same
+   *                  size as its input.
+   * @param halo      The number of rows above and below an output row that the operation reads.
+   * @throws IllegalArgumentException if the halo is negative
+   */
+  public BandStage(RowSource upstream, UnaryOperator<ImageInterface> operation, int halo) {
+    if (halo < 0) {
+      throw new IllegalArgumentException("Halo cannot be negative.");
+    }
+    this.upstream = upstream;
+    this.operation = operation;
+    this.halo = halo;
+    this.window = null;
+    this.windowTop = 0;
+    this.nextRow = 0;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width in pixels.
+   */
+  @Override
+  public int getWidth() {
+    return upstream.getWidth();
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height in pixels.
+   */
+  @Override
+  public int getHeight() {
+    return upstream.getHeight();
+  }
+
+  /**
+   * Gets the maximum channel value of the input image.
+   *
+   * @return The maximum value.
+   */
+  @Override
+  public int getMaxValue() {
+    return upstream.getMaxValue();
+  }
+
+  /**
+   * Slides the window down to cover the next band and its halo, applies the operation to it and
+   * returns the band's rows of the result.
+   *
+   * @param rows The number of rows wanted.
+   * @return The processed rows, or null once every row has been read.
+   * @throws IOException If the upstream rows cannot be read.
+   * @throws IllegalStateException if the operation changes the size of the window
+   */
+  @Override
+  public ImageInterface readBand(int rows) throws IOException {
+    int height = getHeight();
+    int count = Math.min(rows, height - nextRow);
+    if (count <= 0) {
+      return null;
+    }
+    int top = Math.max(0, nextRow - halo);
+    int bottom = Math.min(height, nextRow + count + halo);
+
+    int consumed = windowTop;
+    ImageInterface kept = null;
+    if (window != null) {
+      consumed = windowTop + window.getHeight();
+      kept = Bands.slice(window, top - windowTop, consumed - top);
+    }
+    while (consumed < bottom) {
+      ImageInterface band = upstream.readBand(bottom - consumed);
+      if (band == null) {
+        throw new IOException("Input ended after " + consumed + " of " + height + " rows.");
+      }
+      kept = Bands.stack(kept, band);
+      consumed += band.getHeight();
+    }
+    window = kept;
+    windowTop = top;
+
+    ImageInterface result = operation.apply(window);
+    if (result.getHeight() != window.getHeight() || result.getWidth() != window.getWidth()) {
+      throw new IllegalStateException("Streamed operations must keep the image size.");
+    }
+    ImageInterface band = Bands.slice(result, nextRow - top, count);
+    nextRow += count;
+    return band;
+  }
+
+  /**
+   * Closes the upstream source.
+   *
+   * @throws IOException If the upstream source cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    window = null;
+    upstream.close();
+  }
+}
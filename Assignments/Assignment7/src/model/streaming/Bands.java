@@ -0,0 +1,93 @@
+package model.streaming;
+
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * Utility class for cutting row bands out of images and joining bands together.
+ */
+public class Bands {
+
+  /**
+   * Copies a range of rows of an image into a new image.
+   *
+   * @param image The image.
+   * @param top   The first row to copy.
+   * @param rows  The number of rows to copy.
+   * @return The rows as an image, or null if {@code rows} is zero.
+   * @throws IllegalArgumentException if the range is not inside the image
+   */
+  public static ImageInterface slice(ImageInterface image, int top, int rows) {
+    if (top < 0 || rows < 0 || top + rows > image.getHeight()) {
+      throw new IllegalArgumentException("Rows " + top + " to " + (top + rows)
+              + " are outside the image.");
+    }
+    if (rows == 0) {
+      return null;
+    }
+    if (top == 0 && rows == image.getHeight()) {
+      return image;
+    }
+    int width = image.getWidth();
+    int[][] planes = new int[3][width * rows];
+    for (int c = 0; c < 3; c++) {
+      readRows(image, c, top, rows, planes[c], 0);
+    }
+    return ImageFactory.fromPlanes(width, rows, image.getMaxValue(), planes);
+  }
+
+  /**
+   * Joins two bands of the same width, one above the other.
+   *
+   * @param upper The upper band, or null.
+   * @param lower The lower band, or null.
+   * @return The joined band, or the other band if one of them is null.
+   * @throws IllegalArgumentException if the bands have different widths
+   */
+  public static ImageInterface stack(ImageInterface upper, ImageInterface lower) {
+    if (upper == null) {
+      return lower;
+    }
+    if (lower == null) {
+      return upper;
+    }
+    if (upper.getWidth() != lower.getWidth()) {
+      throw new IllegalArgumentException("Bands must have the same width.");
+    }
+    int width = upper.getWidth();
+    int rows = upper.getHeight() + lower.getHeight();
+    int[][] planes = new int[3][width * rows];
+    for (int c = 0; c < 3; c++) {
+      readRows(upper, c, 0, upper.getHeight(), planes[c], 0);
+      readRows(lower, c, 0, lower.getHeight(), planes[c], width * upper.getHeight());
+    }
+    return ImageFactory.fromPlanes(width, rows,
+            Math.max(upper.getMaxValue(), lower.getMaxValue()), planes);
+  }
+
+  /**
+   * Reads rows of one channel of an image into an array.
+   *
+   * @param image   The image.
+   * @param channel The channel index.
+   * @param top     The first row to read.
+   * @param rows    The number of rows to read.
+   * @param out     The array to write the samples to, in row-major order.
+   * @param offset  The index in {@code out} of the first sample.
+   */
+  static void readRows(ImageInterface image, int channel, int top, int rows, int[] out,
+                       int offset) {
+    int width = image.getWidth();
+    if (image instanceof PlanarImage) {
+      int[] plane = ((PlanarImage) image).readPlane(channel);
+      System.arraycopy(plane, top * width, out, offset, rows * width);
+      return;
+    }
+    for (int y = 0; y < rows; y++) {
+      for (int x = 0; x < width; x++) {
+        out[offset + y * width + x] = image.getChannelValue(x, top + y, channel);
+      }
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package model.streaming;
+
+import model.image.ImageInterface;
+
+/**
+ * A row source that hands out the rows of an image already held in memory.
+ * Used for inputs that cannot be decoded a band at a time, and in tests.
+ */
+public class ImageRowSource implements RowSource {
+  private final ImageInterface image;
+  private int nextRow;
+
+  /**
+   * Constructs a source over the rows of an image.
+   *
+   * @param image The image.
+   */
+  public ImageRowSource(ImageInterface image) {
+    this.image = image;
+    this.nextRow = 0;
+  }
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width in pixels.
+   */
+  @Override
+  public int getWidth() {
+    return image.getWidth();
+  }
+
+  /**
+   * Gets the height of the image.
+   *
+   * @return The height in pixels.
+   */
+  @Override
+  public int getHeight() {
+    return image.getHeight();
+  }
+
+  /**
+   * Gets the maximum channel value of the image.
+   *
+   * @return The maximum value.
+   */
+  @Override
+  public int getMaxValue() {
+    return image.getMaxValue();
+  }
+
+  /**
+   * Copies the next band of rows out of the image.
+   *
+   * @param rows The number of rows wanted.
+   * @return The rows, or null once every row has been read.
+   */
+  @Override
+  public ImageInterface readBand(int rows) {
+    int count = Math.min(rows, image.getHeight() - nextRow);
+    if (count <= 0) {
+      return null;
+    }
+    ImageInterface band = Bands.slice(image, nextRow, count);
+    nextRow += count;
+    return band;
+  }
+
+  /**
+   * Does nothing, as the image is held in memory.
+   */
+  @Override
+  public void close() {
+    // Nothing to release.
+  }
+}
@@ -0,0 +1,22 @@
+package model.streaming;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import model.image.ImageInterface;
+
+/**
+ * A destination for image rows that are written top to bottom, a band of rows at a time.
+ * Closing the sink finishes the output; it fails if fewer rows were written than the image
+ * height the sink was opened with.
+ */
+public interface RowSink extends Closeable {
+
+  /**
+   * Writes the next band of rows.
+   *
+   * @param band An image holding the rows, as wide as the output image.
+   * @throws IOException If the rows cannot be written.
+   */
+  void writeBand(ImageInterface band) throws IOException;
+}
@@ -0,0 +1,45 @@
+package model.streaming;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import model.image.ImageInterface;
+
+/**
+ * A source of image rows that are produced top to bottom, a band of rows at a time.
+ * Only the rows of the current band need to be held in memory, so images much larger than the
+ * available memory can flow through a chain of sources.
+ */
+public interface RowSource extends Closeable {
+
+  /**
+   * Gets the width of the image.
+   *
+   * @return The width in pixels.
+   */
+  int getWidth();
+
+  /**
+   * Gets the total height of the image.
+   *
+   * @return The number of rows the source produces.
+   */
+  int getHeight();
+
+  /**
+   * Gets the maximum channel value of the image.
+   *
+   * @return The maximum value.
+   */
+  int getMaxValue();
+
+  /**
+   * Reads the next band of rows.
+   *
+   * @param rows The number of rows wanted, at least 1.
+   * @return An image holding the next rows, at most {@code rows} of them, or null once every
+   *         row has been read.
+   * @throws IOException If the rows cannot be read.
+   */
+  ImageInterface readBand(int rows) throws IOException;
+}
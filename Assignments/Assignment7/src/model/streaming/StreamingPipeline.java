@@ -0,0 +1,38 @@
+package model.streaming;
+
+import java.io.IOException;
+
+import model.image.ImageInterface;
+
+/**
+ * Utility class that drains a row source into a row sink, one band at a time.
+ */
+public class StreamingPipeline {
+
+  /**
+   * Default number of rows per band.
+   */
+  public static final int DEFAULT_BAND_ROWS = 64;
+
+  /**
+   * Copies every row of a source into a sink, then closes both.
+   *
+   * @param source   The source, usually the last stage of a chain.
+   * @param sink     The sink.
+   * @param bandRows The number of rows to move at a time.
+   * @throws IOException If reading or writing fails.
+   * @throws IllegalArgumentException if bandRows is not positive
+   */
+  public static void run(RowSource source, RowSink sink, int bandRows) throws IOException {
+    if (bandRows <= 0) {
+      throw new IllegalArgumentException("Band height must be positive.");
+    }
+    try (RowSource input = source; RowSink output = sink) {
+      ImageInterface band = input.readBand(bandRows);
+      while (band != null) {
+        output.writeBand(band);
+        band = input.readBand(bandRows);
+      }
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package model.utilities;
+
+import model.image.BufferPool;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * Computes 128-bit hashes that identify the content of immutable images.
+ * The hash of a planar image covers its dimensions, its maximum value and every sample, so two
+ * images with the same pixels get the same hash whatever their storage. It is computed at most
+ * once per image and kept in the image's {@link model.image.ImageCache}, which the image shares
+ * with its clones.
+ * The result of a deterministic operation is instead given a hash derived from the hash of its
+ * input and the description of the operation, which identifies its content just as well without
+ * reading a single pixel.
+ * The hashes guard against accidental collisions only; they are not cryptographic.
+ */
+public class ContentHash {
+  /**
+   * The key under which the hash is kept in an image's cache.
+   */
+  private static final String CACHE_KEY = "content-hash";
+
+  private static final long PRIME_1 = 0x9E3779B97F4A7C15L;
+  private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+  /**
+   * Gets the content hash of a planar image, computing and caching it on first use.
+   *
+   * @param image The image.
+   * @return The hash as 32 hexadecimal digits, or null if the image is not a planar image, since
+   *         other images can change after they are hashed.
+   */
+  public static String of(ImageInterface image) {
+    if (!(image instanceof PlanarImage)) {
+      return null;
+    }
+    PlanarImage planar = (PlanarImage) image;
+    return planar.getCache().computePixelFreeIfAbsent(CACHE_KEY, () -> compute(planar));
+  }
+
+  /**
+   * Records the hash of an image that was derived from another image by a deterministic
+   * operation, unless the image already has a hash.
+   *
+   * @param image       The derived image.
+   * @param description A description of the input and the operation, such as a result cache
+   *                    key, that is equal for two derivations exactly when they give the same
+   *                    pixels.
+   */
+  public static void derive(ImageInterface image, String description) {
+    if (image instanceof PlanarImage) {
+      ((PlanarImage) image).getCache()
+              .computePixelFreeIfAbsent(CACHE_KEY, () -> hashOf(description));
+    }
+  }
+
+  /**
+   * Hashes the dimensions, maximum value and samples of an image.
+   *
+   * @param image The image.
+   * @return The hash as 32 hexadecimal digits.
+   */
+  private static String compute(PlanarImage image) {
+    long first = PRIME_1 ^ image.getWidth();
+    long second = PRIME_2 ^ ((long) image.getHeight() << 32 | image.getMaxValue());
+    for (int c = 0; c < 3; c++) {
+      int[] plane = image.readPlane(c);
+      for (int value : plane) {
+        first = Long.rotateLeft(first ^ value * PRIME_2, 31) * PRIME_1;
+        second = Long.rotateLeft(second + value * PRIME_1, 27) * PRIME_2 + c;
+      }
+      BufferPool.shared().giveBack(plane);
+    }
+    return toHex(mix(first ^ second), mix(second + first));
+  }
+
+  /**
+   * Hashes a string.
+   *
+   * @param text The string.
+   * @return The hash as 32 hexadecimal digits.
+   */
+  private static String hashOf(String text) {
+    long first = PRIME_2 ^ text.length();
+    long second = PRIME_1;
+    for (int i = 0; i < text.length(); i++) {
+      char ch = text.charAt(i);
+      first = Long.rotateLeft(first ^ ch * PRIME_1, 31) * PRIME_2;
+      second = Long.rotateLeft(second + ch * PRIME_2, 27) * PRIME_1;
+    }
+    return toHex(mix(first ^ second), mix(second + first));
+  }
+
+  /**
+   * Scrambles the bits of a 64-bit value so that every input bit affects every output bit.
+   *
+   * @param value The value.
+   * @return The scrambled value.
+   */
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB9FE1A85EC53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  /**
+   * Formats two 64-bit values as 32 hexadecimal digits.
+   *
+   * @param high The first value.
+   * @param low  The second value.
+   * @return The digits.
+   */
+  private static String toHex(long high, long low) {
+    return String.format("%016x%016x", high, low);
+  }
+}
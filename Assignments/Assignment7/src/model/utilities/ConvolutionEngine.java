@@ -0,0 +1,457 @@
+package model.utilities;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import model.image.BufferPool;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * Utility class that convolves images with kernels of any size, picking the cheapest of three
+ * strategies for the kernel at hand.
+ * <ul>
+ *   <li>{@link #DIRECT}: the tap-by-tap sum of {@link KernelApplier}, costing one multiply-add
+ *   per tap and sample. Best for small kernels.</li>
+ *   <li>{@link #SEPARABLE}: for kernels that are the outer product of a column and a row, a
+ *   horizontal pass followed by a vertical pass, costing kernelWidth + kernelHeight
+ *   multiply-adds per sample.</li>
+ *   <li>{@link #FFT}: the image is cut into tiles, and each tile is convolved by multiplying its
+ *   Fourier transform with the kernel's. The tile results overlap by the kernel size and are
+ *   added together (overlap-add). The cost per sample grows only with the logarithm of the tile
+ *   size, so large kernels become cheap.</li>
+ * </ul>
+ * All three strategies compute the same sums as {@link KernelApplier}: taps that fall outside
+ * the image count as zero, and results are rounded and clamped to [0, maxValue]. They differ
+ * only in floating-point rounding, so a sample can change by at most one level when its sum lies
+ * almost exactly halfway between two levels.
+ */
+public class ConvolutionEngine {
+
+  /**
+   * Name of the direct strategy.
+   */
+  public static final String DIRECT = "direct";
+
+  /**
+   * Name of the separable strategy.
+   */
+  public static final String SEPARABLE = "separable";
+
+  /**
+   * Name of the FFT overlap-add strategy.
+   */
+  public static final String FFT = "fft";
+
+  /**
+   * Smallest number of taps of a non-separable kernel for which the FFT strategy is used. Below
+   * this the direct sum is faster; on a 1024x768 image the two are even at 11x11 taps.
+   */
+  public static final int FFT_MIN_TAPS = 121;
+
+  /**
+   * Relative tolerance of the rank-one test that detects separable kernels.
+   */
+  private static final double SEPARABLE_TOLERANCE = 1e-9;
+
+  /**
+   * Smallest and largest FFT tile sizes to consider.
+   */
+  private static final int MIN_FFT_SIZE = 32;
+  private static final int MAX_FFT_SIZE = 1024;
+
+  /**
+   * Checks that a kernel is a non-empty rectangular matrix of finite numbers.
+   *
+   * @param kernel The kernel.
+   * @throws IllegalArgumentException if the kernel is not valid
+   */
+  public static void validateKernel(double[][] kernel) {
+    if (kernel == null || kernel.length == 0 || kernel[0] == null || kernel[0].length == 0) {
+      throw new IllegalArgumentException("Kernel cannot be empty.");
+    }
+    for (double[] row : kernel) {
+      if (row == null || row.length != kernel[0].length) {
+        throw new IllegalArgumentException("Kernel rows must all have the same length.");
+      }
+      for (double value : row) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+          throw new IllegalArgumentException("Kernel values must be finite numbers.");
+        }
+      }
+    }
+  }
+
+  /**
+   * Picks the strategy used for a kernel: separable when the kernel is a product of a column and
+   * a row and is larger than one tap in both directions, FFT when it has at least
+   * {@link #FFT_MIN_TAPS} taps, and direct otherwise.
+   *
+   * @param kernel The kernel.
+   * @return One of {@link #DIRECT}, {@link #SEPARABLE} or {@link #FFT}.
+   * @throws IllegalArgumentException if the kernel is not valid
+   */
+  public static String choose(double[][] kernel) {
+    validateKernel(kernel);
+    int kernelHeight = kernel.length;
+    int kernelWidth = kernel[0].length;
+    if (kernelHeight > 1 && kernelWidth > 1 && factor(kernel) != null) {
+      return SEPARABLE;
+    }
+    if ((long) kernelHeight * kernelWidth >= FFT_MIN_TAPS) {
+      return FFT;
+    }
+    return DIRECT;
+  }
+
+  /**
+   * Convolves an image with a kernel using the strategy picked by {@link #choose}.
+   *
+   * @param image  The source image.
+   * @param kernel The kernel. Its center is at (width / 2, height / 2).
+   * @return The filtered image.
+   * @throws IllegalArgumentException if the kernel is not valid
+   */
+  public static ImageInterface convolve(ImageInterface image, double[][] kernel) {
+    return convolve(image, kernel, choose(kernel));
+  }
+
+  /**
+   * Convolves an image with a kernel using the given strategy.
+   *
+   * @param image    The source image.
+   * @param kernel   The kernel. Its center is at (width / 2, height / 2).
+   * @param strategy One of {@link #DIRECT}, {@link #SEPARABLE} or {@link #FFT}.
+   * @return The filtered image.
+   * @throws IllegalArgumentException if the kernel is not valid, the strategy is unknown, or the
+   *                                  separable strategy is asked for a non-separable kernel
+   */
+  public static ImageInterface convolve(ImageInterface image, double[][] kernel,
+                                        String strategy) {
+    validateKernel(kernel);
+    switch (strategy) {
+      case DIRECT:
+        return KernelApplier.applyKernel(image, kernel);
+      case SEPARABLE:
+        double[][] factors = factor(kernel);
+        if (factors == null) {
+          throw new IllegalArgumentException("Kernel is not separable.");
+        }
+        return convolveSeparable(image, factors[0], factors[1]);
+      case FFT:
+        return convolveFft(image, kernel);
+      default:
+        throw new IllegalArgumentException("Unknown convolution strategy: " + strategy);
+    }
+  }
+
+  /**
+   * Splits a kernel into a column and a row whose outer product is the kernel.
+   * The row through the largest tap, scaled so that tap is one, is taken as the row, and the
+   * column through that tap as the column. Every tap is then checked against the product.
+   *
+   * @param kernel The kernel.
+   * @return The column and the row, or null if the kernel is not separable.
+   */
+  private static double[][] factor(double[][] kernel) {
+    int kernelHeight = kernel.length;
+    int kernelWidth = kernel[0].length;
+    int pivotRow = 0;
+    int pivotColumn = 0;
+    double largest = 0;
+    for (int u = 0; u < kernelHeight; u++) {
+      for (int v = 0; v < kernelWidth; v++) {
+        if (Math.abs(kernel[u][v]) > largest) {
+          largest = Math.abs(kernel[u][v]);
+          pivotRow = u;
+          pivotColumn = v;
+        }
+      }
+    }
+    if (largest == 0) {
+      return null;
+    }
+
+    double[] column = new double[kernelHeight];
+    double[] row = new double[kernelWidth];
+    for (int u = 0; u < kernelHeight; u++) {
+      column[u] = kernel[u][pivotColumn];
+    }
+    for (int v = 0; v < kernelWidth; v++) {
+      row[v] = kernel[pivotRow][v] / kernel[pivotRow][pivotColumn];
+    }
+    double tolerance = SEPARABLE_TOLERANCE * largest;
+    for (int u = 0; u < kernelHeight; u++) {
+      for (int v = 0; v < kernelWidth; v++) {
+        if (Math.abs(kernel[u][v] - column[u] * row[v]) > tolerance) {
+          return null;
+        }
+      }
+    }
+    return new double[][]{column, row};
+  }
+
+  /**
+   * Convolves every channel with a separable kernel: first every row with the row factor, then
+   * every column of the intermediate result with the column factor.
+   *
+   * @param image  The source image.
+   * @param column The column factor of the kernel.
+   * @param row    The row factor of the kernel.
+   * @return The filtered image.
+   */
+  private static ImageInterface convolveSeparable(ImageInterface image, double[] column,
+                                                  double[] row) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    int centerY = column.length / 2;
+    int centerX = row.length / 2;
+    int[][] result = new int[3][];
+
+    for (int c = 0; c < 3; c++) {
+      int[] plane = readChannel(image, c);
+      double[] horizontal = BufferPool.shared().borrowDoubles(width * height);
+      Arrays.fill(horizontal, 0.0);
+      IntStream.range(0, height).parallel().forEach(y -> {
+        int rowStart = y * width;
+        for (int v = 0; v < row.length; v++) {
+          double weight = row[v];
+          int shift = v - centerX;
+          int from = Math.max(0, -shift);
+          int to = Math.min(width, width - shift);
+          for (int x = from; x < to; x++) {
+            horizontal[rowStart + x] += plane[rowStart + x + shift] * weight;
+          }
+        }
+      });
+
+      BufferPool.shared().giveBack(plane);
+
+      int[] out = BufferPool.shared().borrowInts(width * height);
+      IntStream.range(0, height).parallel().forEach(y -> {
+        double[] sums = new double[width];
+        for (int u = 0; u < column.length; u++) {
+          int sourceY = y + u - centerY;
+          if (sourceY < 0 || sourceY >= height) {
+            continue;
+          }
+          double weight = column[u];
+          int sourceStart = sourceY * width;
+          for (int x = 0; x < width; x++) {
+            sums[x] += horizontal[sourceStart + x] * weight;
+          }
+        }
+        round(sums, out, y * width, maxValue);
+      });
+      BufferPool.shared().giveBack(horizontal);
+      result[c] = out;
+    }
+
+    ImageInterface filtered = ImageFactory.fromPlanes(width, height, maxValue, result);
+    BufferPool.shared().giveBack(result);
+    return filtered;
+  }
+
+  /**
+   * Convolves every channel with a kernel by FFT overlap-add.
+   * The image is cut into tiles of (size - kernelWidth + 1) x (size - kernelHeight + 1) pixels,
+   * so that the full linear convolution of a tile with the kernel fits in a size x size transform
+   * without wrapping around. The red and green channels of a tile are transformed together as the
+   * real and imaginary parts of one complex input, and the blue channel on its own; since the
+   * kernel is real, the two products can be separated again after the inverse transform. Tiles
+   * are processed in parallel in four passes, one per combination of odd and even tile row and
+   * column, so that no two tiles of a pass add into the same pixels.
+   *
+   * @param image  The source image.
+   * @param kernel The kernel.
+   * @return The filtered image.
+   */
+  private static ImageInterface convolveFft(ImageInterface image, double[][] kernel) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    int kernelHeight = kernel.length;
+    int kernelWidth = kernel[0].length;
+    // Offset from a position in a tile's full convolution to the output pixel it belongs to.
+    int offsetY = kernelHeight - 1 - kernelHeight / 2;
+    int offsetX = kernelWidth - 1 - kernelWidth / 2;
+
+    int size = chooseFftSize(width, height, kernelWidth, kernelHeight);
+    int tileWidth = size - kernelWidth + 1;
+    int tileHeight = size - kernelHeight + 1;
+    Fft fft = new Fft(size);
+
+    // The products computed below are correlations with the flipped kernel, so flip it first.
+    double[] kernelReal = new double[size * size];
+    double[] kernelImaginary = new double[size * size];
+    for (int u = 0; u < kernelHeight; u++) {
+      for (int v = 0; v < kernelWidth; v++) {
+        kernelReal[u * size + v] = kernel[kernelHeight - 1 - u][kernelWidth - 1 - v];
+      }
+    }
+    fft.transform2d(kernelReal, kernelImaginary, false);
+
+    int[][] planes = new int[3][];
+    for (int c = 0; c < 3; c++) {
+      planes[c] = readChannel(image, c);
+    }
+    double[][] sums = new double[3][];
+    for (int c = 0; c < 3; c++) {
+      sums[c] = BufferPool.shared().borrowDoubles(width * height);
+      Arrays.fill(sums[c], 0.0);
+    }
+    int tileRows = (height + tileHeight - 1) / tileHeight;
+    int tileColumns = (width + tileWidth - 1) / tileWidth;
+    double scale = 1.0 / ((double) size * size);
+
+    for (int phase = 0; phase < 4; phase++) {
+      List<int[]> tiles = new ArrayList<>();
+      for (int i = phase / 2; i < tileRows; i += 2) {
+        for (int j = phase % 2; j < tileColumns; j += 2) {
+          tiles.add(new int[]{i * tileHeight, j * tileWidth});
+        }
+      }
+      tiles.parallelStream().forEach(tile -> {
+        int top = tile[0];
+        int left = tile[1];
+        int rows = Math.min(tileHeight, height - top);
+        int columns = Math.min(tileWidth, width - left);
+        double[] real = new double[size * size];
+        double[] imaginary = new double[size * size];
+
+        for (int pass = 0; pass < 2; pass++) {
+          if (pass == 1) {
+            Arrays.fill(real, 0);
+            Arrays.fill(imaginary, 0);
+          }
+          int[] first = planes[pass == 0 ? 0 : 2];
+          int[] second = pass == 0 ? planes[1] : null;
+          for (int q = 0; q < rows; q++) {
+            int source = (top + q) * width + left;
+            for (int p = 0; p < columns; p++) {
+              real[q * size + p] = first[source + p];
+            }
+            if (second != null) {
+              for (int p = 0; p < columns; p++) {
+                imaginary[q * size + p] = second[source + p];
+              }
+            }
+          }
+
+          fft.transform2d(real, imaginary, false);
+          for (int k = 0; k < real.length; k++) {
+            double a = real[k];
+            double b = imaginary[k];
+            real[k] = a * kernelReal[k] - b * kernelImaginary[k];
+            imaginary[k] = a * kernelImaginary[k] + b * kernelReal[k];
+          }
+          fft.transform2d(real, imaginary, true);
+
+          double[] firstSums = sums[pass == 0 ? 0 : 2];
+          double[] secondSums = pass == 0 ? sums[1] : null;
+          int fromQ = Math.max(0, offsetY - top);
+          int toQ = Math.min(rows + kernelHeight - 1, height + offsetY - top);
+          int fromP = Math.max(0, offsetX - left);
+          int toP = Math.min(columns + kernelWidth - 1, width + offsetX - left);
+          for (int q = fromQ; q < toQ; q++) {
+            int target = (top + q - offsetY) * width + left - offsetX;
+            for (int p = fromP; p < toP; p++) {
+              firstSums[target + p] += real[q * size + p] * scale;
+            }
+            if (secondSums != null) {
+              for (int p = fromP; p < toP; p++) {
+                secondSums[target + p] += imaginary[q * size + p] * scale;
+              }
+            }
+          }
+        }
+      });
+    }
+
+    BufferPool.shared().giveBack(planes);
+
+    int[][] result = new int[3][];
+    for (int c = 0; c < 3; c++) {
+      result[c] = BufferPool.shared().borrowInts(width * height);
+      round(sums[c], result[c], 0, maxValue);
+    }
+    BufferPool.shared().giveBack(sums);
+    ImageInterface filtered = ImageFactory.fromPlanes(width, height, maxValue, result);
+    BufferPool.shared().giveBack(result);
+    return filtered;
+  }
+
+  /**
+   * Picks the transform size that minimizes the estimated work of the FFT strategy: the number
+   * of tiles times the cost of transforming one tile. Sizes larger than needed to hold the whole
+   * image in one tile are not considered. The size is at least twice the kernel size, so a tile
+   * is larger than the overlap it shares with its neighbors.
+   *
+   * @param width        The image width.
+   * @param height       The image height.
+   * @param kernelWidth  The kernel width.
+   * @param kernelHeight The kernel height.
+   * @return The transform size, a power of two.
+   */
+  private static int chooseFftSize(int width, int height, int kernelWidth, int kernelHeight) {
+    int smallest = Math.max(MIN_FFT_SIZE,
+            Fft.nextPowerOfTwo(2 * Math.max(kernelWidth, kernelHeight)));
+    int wholeImage = Fft.nextPowerOfTwo(Math.max(width + kernelWidth - 1,
+            height + kernelHeight - 1));
+    int largest = Math.max(smallest, Math.min(MAX_FFT_SIZE, wholeImage));
+
+    int best = smallest;
+    double bestCost = Double.MAX_VALUE;
+    for (int size = smallest; size <= largest; size *= 2) {
+      long tiles = (long) ((height + size - kernelHeight) / (size - kernelHeight + 1))
+              * ((width + size - kernelWidth) / (size - kernelWidth + 1));
+      double cost = tiles * (double) size * size * Integer.numberOfTrailingZeros(size);
+      if (cost < bestCost) {
+        bestCost = cost;
+        best = size;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Rounds sums to the nearest integers and clamps them to [0, maxValue].
+   *
+   * @param sums     The sums.
+   * @param out      The array to write the results to.
+   * @param outStart The index of the first result.
+   * @param maxValue The maximum value of the image.
+   */
+  private static void round(double[] sums, int[] out, int outStart, int maxValue) {
+    for (int i = 0; i < sums.length; i++) {
+      int value = (int) Math.round(sums[i]);
+      out[outStart + i] = Math.max(0, Math.min(maxValue, value));
+    }
+  }
+
+  /**
+   * Reads one channel of an image into a flat array.
+   *
+   * @param image   The image.
+   * @param channel The channel index.
+   * @return The samples of the channel in row-major order, in an array borrowed from the pool.
+   */
+  private static int[] readChannel(ImageInterface image, int channel) {
+    if (image instanceof PlanarImage) {
+      return ((PlanarImage) image).readPlane(channel);
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] plane = BufferPool.shared().borrowInts(width * height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        plane[y * width + x] = image.getChannelValue(x, y, channel);
+      }
+    }
+    return plane;
+  }
+}
@@ -0,0 +1,129 @@
+package model.utilities;
+
+/**
+ * An in-place radix-2 fast Fourier transform of a fixed power-of-two size.
+ * Complex values are stored as separate arrays of real and imaginary parts. The twiddle factors
+ * and the bit-reversal permutation are computed once per instance, so one instance can be
+ * shared by every transform of that size, including from several threads.
+ */
+public class Fft {
+  private final int size;
+  private final int[] reversed;
+  private final double[] cosines;
+  private final double[] sines;
+
+  /**
+   * Creates a transform of the given size.
+   *
+   * @param size The number of points, a power of two.
+   * @throws IllegalArgumentException if the size is not a positive power of two
+   */
+  public Fft(int size) {
+    if (size <= 0 || Integer.bitCount(size) != 1) {
+      throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+    }
+    this.size = size;
+    this.reversed = new int[size];
+    int bits = Integer.numberOfTrailingZeros(size);
+    for (int i = 0; i < size; i++) {
+      reversed[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+    }
+    this.cosines = new double[size / 2];
+    this.sines = new double[size / 2];
+    for (int k = 0; k < size / 2; k++) {
+      double angle = 2 * Math.PI * k / size;
+      cosines[k] = Math.cos(angle);
+      sines[k] = Math.sin(angle);
+    }
+  }
+
+  /**
+   * Gets the smallest power of two that is at least the given value.
+   *
+   * @param value The value, at least 1.
+   * @return The power of two.
+   */
+  public static int nextPowerOfTwo(int value) {
+    return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+  }
+
+  /**
+   * Gets the number of points of this transform.
+   *
+   * @return The size.
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * Transforms {@code size} consecutive complex values in place.
+   * The inverse transform is not scaled; dividing by the size is left to the caller.
+   *
+   * @param real      The real parts.
+   * @param imaginary The imaginary parts.
+   * @param offset    The index of the first value.
+   * @param inverse   Whether to compute the inverse transform.
+   */
+  public void transform(double[] real, double[] imaginary, int offset, boolean inverse) {
+    for (int i = 0; i < size; i++) {
+      int j = reversed[i];
+      if (i < j) {
+        double swap = real[offset + i];
+        real[offset + i] = real[offset + j];
+        real[offset + j] = swap;
+        swap = imaginary[offset + i];
+        imaginary[offset + i] = imaginary[offset + j];
+        imaginary[offset + j] = swap;
+      }
+    }
+
+    double sign = inverse ? 1 : -1;
+    for (int length = 2; length <= size; length *= 2) {
+      int half = length / 2;
+      int step = size / length;
+      for (int start = offset; start < offset + size; start += length) {
+        for (int k = 0; k < half; k++) {
+          double wr = cosines[k * step];
+          double wi = sign * sines[k * step];
+          int a = start + k;
+          int b = a + half;
+          double tr = real[b] * wr - imaginary[b] * wi;
+          double ti = real[b] * wi + imaginary[b] * wr;
+          real[b] = real[a] - tr;
+          imaginary[b] = imaginary[a] - ti;
+          real[a] += tr;
+          imaginary[a] += ti;
+        }
+      }
+    }
+  }
+
+  /**
+   * Transforms a square {@code size x size} array of complex values stored in row-major order,
+   * first along every row and then along every column.
+   * The inverse transform is not scaled; dividing by size * size is left to the caller.
+   *
+   * @param real      The real parts.
+   * @param imaginary The imaginary parts.
+   * @param inverse   Whether to compute the inverse transform.
+   */
+  public void transform2d(double[] real, double[] imaginary, boolean inverse) {
+    for (int row = 0; row < size; row++) {
+      transform(real, imaginary, row * size, inverse);
+    }
+    double[] columnReal = new double[size];
+    double[] columnImaginary = new double[size];
+    for (int column = 0; column < size; column++) {
+      for (int row = 0; row < size; row++) {
+        columnReal[row] = real[row * size + column];
+        columnImaginary[row] = imaginary[row * size + column];
+      }
+      transform(columnReal, columnImaginary, 0, inverse);
+      for (int row = 0; row < size; row++) {
+        real[row * size + column] = columnReal[row];
+        imaginary[row * size + column] = columnImaginary[row];
+      }
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package model.utilities;
 
+import model.image.Histograms;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 
 /**
  * Utility class that provides methods for validating image objects and their pixel values.
@@ -29,18 +31,23 @@ public class ImageValidator {
   /**
    * Validates that all pixel values in an image fall within the valid range.
    * Checks each color channel (R,G,B) of each pixel against the image's maxValue.
+   * Planar images whose storage cannot hold a value above maxValue, or whose histograms are
+   * already known, are skipped.
    *
    * @param image The image whose pixel values need to be validated
    * @throws IllegalArgumentException if any pixel value is less than 0 or greater than maxValue
    */
   private static void validatePixelValues(ImageInterface image) {
+    if (image instanceof PlanarImage && (((PlanarImage) image).isFullRange()
+            || Histograms.isKnown((PlanarImage) image))) {
+      return;
+    }
     int maxValue = image.getMaxValue();
-    int[][][] pixels = image.getPixels();
 
     for (int y = 0; y < image.getHeight(); y++) {
       for (int x = 0; x < image.getWidth(); x++) {
         for (int i = 0; i < 3; i++) {
-          int value = pixels[y][x][i];
+          int value = image.getChannelValue(x, y, i);
           if (value < 0 || value > maxValue) {
             throw new IllegalArgumentException(
                     "Pixel values must be between 0 and " + maxValue +
@@ -2,6 +2,7 @@ package model.utilities;
 
 import model.image.Image;
 import model.image.ImageInterface;
+import model.image.PlanarImage;
 
 /**
  * Utility class that provides functionality for applying convolution kernels to images.
@@ -14,6 +15,7 @@ public class KernelApplier {
    * Applies a convolution kernel to an image to create various filtering effects.
    * For each pixel, computes a weighted sum of the pixel and its neighbors using the kernel matrix.
    * Handles image boundaries by only including valid neighboring pixels.
+   * Planar images are convolved a whole row at a time by {@link PlanarKernels#convolve}.
    *
    * @param image        The input image to apply the kernel to
    * @param kernelMatrix The convolution kernel matrix defining the weights for the operation
@@ -21,6 +23,10 @@ public class KernelApplier {
    * @throws IllegalArgumentException if the image is null or invalid
    */
   public static ImageInterface applyKernel(ImageInterface image, double[][] kernelMatrix) {
+    if (image instanceof PlanarImage) {
+      return PlanarKernels.convolve((PlanarImage) image, kernelMatrix);
+    }
+
     int width = image.getWidth();
     int height = image.getHeight();
     int maxValue = image.getMaxValue();
@@ -0,0 +1,110 @@
+package model.utilities;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * A pyramid of successively halved versions of an image, used to serve downscaling requests.
+ * Level 0 is the image itself and every further level is built from the previous one by
+ * averaging the area of source pixels that falls into each output pixel, which is a box filter
+ * that does not alias the way point sampling does. Levels are built lazily, only as deep as the
+ * smallest requested size needs, and the rows of each level are computed in parallel.
+ * The pyramid of a planar image is kept in the cache of the image, so repeated downscaling of
+ * the same stored image reuses the levels that were already built.
+ */
+public class MipmapPyramid {
+  private static final String CACHE_KEY = "mipmap-pyramid";
+
+  private final List<ImageInterface> levels = new ArrayList<>();
+
+  /**
+   * Constructs a pyramid whose only level so far is the given image.
+   *
+   * @param image The full-resolution image.
+   */
+  private MipmapPyramid(ImageInterface image) {
+    levels.add(image);
+  }
+
+  /**
+   * Gets the pyramid of an image, reusing the cached pyramid of a planar image if it has one.
+   *
+   * @param image The full-resolution image.
+   * @return The pyramid of the image.
+   */
+  public static MipmapPyramid of(ImageInterface image) {
+    if (image instanceof PlanarImage) {
+      return ((PlanarImage) image).getCache()
+              .computeIfAbsent(CACHE_KEY, () -> new MipmapPyramid(image));
+    }
+    return new MipmapPyramid(image);
+  }
+
+  /**
+   * Gets the smallest level that is still at least as large as the target in both dimensions.
+   * Resampling this level to the target never reduces by more than a factor of two, so a
+   * bilinear resample of it does not skip source pixels.
+   *
+   * @param targetWidth  The target width.
+   * @param targetHeight The target height.
+   * @return The level to resample from.
+   */
+  public synchronized ImageInterface levelFor(int targetWidth, int targetHeight) {
+    int index = 0;
+    while (true) {
+      ImageInterface level = levels.get(index);
+      int nextWidth = Math.max(1, level.getWidth() / 2);
+      int nextHeight = Math.max(1, level.getHeight() / 2);
+      boolean shrinks = nextWidth < level.getWidth() || nextHeight < level.getHeight();
+      if (!shrinks || nextWidth < targetWidth || nextHeight < targetHeight) {
+        return level;
+      }
+      if (index + 1 == levels.size()) {
+        levels.add(halve(level, nextWidth, nextHeight));
+      }
+      index++;
+    }
+  }
+
+  /**
+   * Builds the next level by averaging the block of source pixels covered by each output pixel.
+   * When a dimension is odd the last block in that direction covers three source pixels instead
+   * of two, so every source pixel contributes to the result.
+   *
+   * @param level     The level to reduce.
+   * @param newWidth  The width of the reduced level.
+   * @param newHeight The height of the reduced level.
+   * @return The reduced level.
+   */
+  private static ImageInterface halve(ImageInterface level, int newWidth, int newHeight) {
+    int width = level.getWidth();
+    int height = level.getHeight();
+    int[][] planes = new int[3][newWidth * newHeight];
+
+    IntStream.range(0, newHeight).parallel().forEach(y -> {
+      int y0 = (int) ((long) y * height / newHeight);
+      int y1 = (int) ((long) (y + 1) * height / newHeight);
+      for (int x = 0; x < newWidth; x++) {
+        int x0 = (int) ((long) x * width / newWidth);
+        int x1 = (int) ((long) (x + 1) * width / newWidth);
+        int count = (x1 - x0) * (y1 - y0);
+        for (int c = 0; c < 3; c++) {
+          long sum = 0;
+          for (int sy = y0; sy < y1; sy++) {
+            for (int sx = x0; sx < x1; sx++) {
+              sum += level.getChannelValue(sx, sy, c);
+            }
+          }
+          planes[c][y * newWidth + x] = (int) ((sum + count / 2) / count);
+        }
+      }
+    });
+
+    return ImageFactory.fromPlanes(newWidth, newHeight, level.getMaxValue(), planes);
+  }
+}
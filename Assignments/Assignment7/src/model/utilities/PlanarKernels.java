@@ -0,0 +1,222 @@
+package model.utilities;
+
+import java.util.Arrays;
+
+import model.image.BufferPool;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * Utility class with the plane-at-a-time implementations of the color-matrix, component and
+ * convolution operations.
+ * The operations pick these implementations at runtime whenever the image is a
+ * {@link PlanarImage}, and fall back to their per-pixel code for other images. Every loop here
+ * walks flat int or double arrays with unit stride and no branches or allocations in its body,
+ * which is the shape the JIT compiler turns into SIMD instructions.
+ * Each kernel evaluates its arithmetic in exactly the same order as the per-pixel code, so both
+ * paths round identically and produce the same pixels.
+ */
+public class PlanarKernels {
+
+  /**
+   * Multiplies every pixel by a 3x3 color matrix, truncating and clamping the results.
+   * This matches the per-pixel sepia code: channel i becomes
+   * {@code (int) (m[i][0] * r + m[i][1] * g + m[i][2] * b)}, clamped to [0, maxValue].
+   *
+   * @param image  The source image.
+   * @param matrix The color matrix, indexed by output channel and then input channel.
+   * @return The transformed image.
+   */
+  public static ImageInterface colorMatrix(PlanarImage image, double[][] matrix) {
+    int maxValue = image.getMaxValue();
+    int[] red = image.readPlane(0);
+    int[] green = image.readPlane(1);
+    int[] blue = image.readPlane(2);
+    int[][] result = new int[3][];
+
+    for (int c = 0; c < 3; c++) {
+      double wr = matrix[c][0];
+      double wg = matrix[c][1];
+      double wb = matrix[c][2];
+      int[] out = BufferPool.shared().borrowInts(red.length);
+      for (int i = 0; i < out.length; i++) {
+        int value = (int) (wr * red[i] + wg * green[i] + wb * blue[i]);
+        out[i] = Math.max(0, Math.min(maxValue, value));
+      }
+      result[c] = out;
+    }
+
+    ImageInterface transformed = ImageFactory.fromPlanes(image.getWidth(), image.getHeight(),
+            maxValue, result);
+    BufferPool.shared().giveBack(red, green, blue);
+    BufferPool.shared().giveBack(result);
+    return transformed;
+  }
+
+  /**
+   * Extracts a component into a new grayscale image.
+   * Supported components are red, green, blue, luma, intensity and value, with the same
+   * formulas as the per-pixel component code. The red, green and blue components are views that
+   * share the channel's plane with the source image; the others are computed in one pass into a
+   * single plane.
+   *
+   * @param image     The source image.
+   * @param component The lower-case name of the component.
+   * @return The grayscale image holding the component.
+   * @throws IllegalArgumentException if the component is not recognized
+   */
+  public static ImageInterface component(PlanarImage image, String component) {
+    int maxValue = image.getMaxValue();
+    int[][] planes;
+    int[] out;
+    switch (component) {
+      case "red":
+        return image.channel(0);
+      case "green":
+        return image.channel(1);
+      case "blue":
+        return image.channel(2);
+      case "luma":
+        planes = readPlanes(image);
+        out = luma(planes[0], planes[1], planes[2], maxValue);
+        break;
+      case "intensity":
+        planes = readPlanes(image);
+        out = intensity(planes[0], planes[1], planes[2]);
+        break;
+      case "value":
+        planes = readPlanes(image);
+        out = value(planes[0], planes[1], planes[2]);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown component: " + component);
+    }
+    ImageInterface gray = ImageFactory.fromGrayPlane(image.getWidth(), image.getHeight(),
+            maxValue, out);
+    BufferPool.shared().giveBack(planes);
+    BufferPool.shared().giveBack(out);
+    return gray;
+  }
+
+  /**
+   * Reads the three channels of an image into borrowed arrays.
+   *
+   * @param image The image.
+   * @return The red, green and blue planes.
+   */
+  private static int[][] readPlanes(PlanarImage image) {
+    return new int[][]{image.readPlane(0), image.readPlane(1), image.readPlane(2)};
+  }
+
+  /**
+   * Computes the luma of every pixel, truncated and clamped to [0, maxValue].
+   *
+   * @param red      The red plane.
+   * @param green    The green plane.
+   * @param blue     The blue plane.
+   * @param maxValue The maximum value of the image.
+   * @return The luma plane.
+   */
+  private static int[] luma(int[] red, int[] green, int[] blue, int maxValue) {
+    int[] out = BufferPool.shared().borrowInts(red.length);
+    for (int i = 0; i < out.length; i++) {
+      int value = (int) (0.2126 * red[i] + 0.7152 * green[i] + 0.0722 * blue[i]);
+      out[i] = Math.max(0, Math.min(maxValue, value));
+    }
+    return out;
+  }
+
+  /**
+   * Computes the intensity, the truncated average of the three channels, of every pixel.
+   *
+   * @param red   The red plane.
+   * @param green The green plane.
+   * @param blue  The blue plane.
+   * @return The intensity plane.
+   */
+  private static int[] intensity(int[] red, int[] green, int[] blue) {
+    int[] out = BufferPool.shared().borrowInts(red.length);
+    for (int i = 0; i < out.length; i++) {
+      out[i] = (red[i] + green[i] + blue[i]) / 3;
+    }
+    return out;
+  }
+
+  /**
+   * Computes the value, the largest of the three channels, of every pixel.
+   *
+   * @param red   The red plane.
+   * @param green The green plane.
+   * @param blue  The blue plane.
+   * @return The value plane.
+   */
+  private static int[] value(int[] red, int[] green, int[] blue) {
+    int[] out = BufferPool.shared().borrowInts(red.length);
+    for (int i = 0; i < out.length; i++) {
+      out[i] = Math.max(red[i], Math.max(green[i], blue[i]));
+    }
+    return out;
+  }
+
+  /**
+   * Convolves every channel with a kernel, rounding and clamping the results.
+   * Taps that fall outside the image are skipped, as in the per-pixel code. Instead of visiting
+   * the taps for one pixel at a time, each tap is applied to a whole output row at once; the
+   * taps are still added to every pixel in the same row-major tap order, starting from zero, so
+   * the sums are bit-for-bit the same.
+   *
+   * @param image        The source image.
+   * @param kernelMatrix The convolution kernel.
+   * @return The filtered image.
+   */
+  public static ImageInterface convolve(PlanarImage image, double[][] kernelMatrix) {
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int maxValue = image.getMaxValue();
+    int kernelHeight = kernelMatrix.length;
+    int kernelWidth = kernelMatrix[0].length;
+    int kernelCenterY = kernelHeight / 2;
+    int kernelCenterX = kernelWidth / 2;
+
+    int[][] result = new int[3][];
+    double[] sums = new double[width];
+
+    for (int c = 0; c < 3; c++) {
+      int[] plane = image.readPlane(c);
+      int[] out = BufferPool.shared().borrowInts(width * height);
+      result[c] = out;
+      for (int y = 0; y < height; y++) {
+        Arrays.fill(sums, 0.0);
+        for (int ky = 0; ky < kernelHeight; ky++) {
+          int sourceY = y + ky - kernelCenterY;
+          if (sourceY < 0 || sourceY >= height) {
+            continue;
+          }
+          int rowStart = sourceY * width;
+          for (int kx = 0; kx < kernelWidth; kx++) {
+            double weight = kernelMatrix[ky][kx];
+            int shift = kx - kernelCenterX;
+            // Only the output columns whose tap lands inside the row.
+            int from = Math.max(0, -shift);
+            int to = Math.min(width, width - shift);
+            int offset = rowStart + shift;
+            for (int x = from; x < to; x++) {
+              sums[x] += plane[offset + x] * weight;
+            }
+          }
+        }
+        int outStart = y * width;
+        for (int x = 0; x < width; x++) {
+          int value = (int) Math.round(sums[x]);
+          out[outStart + x] = Math.max(0, Math.min(maxValue, value));
+        }
+      }
+      BufferPool.shared().giveBack(plane);
+    }
+
+    ImageInterface filtered = ImageFactory.fromPlanes(width, height, maxValue, result);
+    BufferPool.shared().giveBack(result);
+    return filtered;
+  }
+}
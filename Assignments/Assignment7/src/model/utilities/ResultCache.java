@@ -0,0 +1,236 @@
+package model.utilities;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import model.image.GrayImage;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.TransformedImage;
+
+/**
+ * A bounded cache of operation results, keyed by the content of the input and a description of
+ * the operation and its parameters.
+ * Entries are evicted least recently used first once the estimated size of the cached images
+ * exceeds the budget. Only immutable planar images are cached, so a cached result can be handed
+ * out again without copying. The cache counts its hits, misses and evictions, and is safe to use
+ * from several threads.
+ */
+public class ResultCache {
+  /**
+   * The size charged for a view, which holds no pixels of its own.
+   */
+  private static final long VIEW_BYTES = 64;
+
+  private final long maxBytes;
+  private final Map<String, ImageInterface> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param maxBytes The most bytes of images to keep; 0 disables caching.
+   * @throws IllegalArgumentException if the budget is negative
+   */
+  public ResultCache(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException("Cache size cannot be negative.");
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Creates an empty cache whose budget is an eighth of the maximum heap size.
+   */
+  public ResultCache() {
+    this(Runtime.getRuntime().maxMemory() / 8);
+  }
+
+  /**
+   * Gets the result of an operation on an image, computing it only if the same operation with
+   * the same parameters has not been applied to an image with the same content before.
+   * Images that are not planar are not cached, and neither are results that are not planar.
+   *
+   * @param image     The input of the operation.
+   * @param operation The name of the operation.
+   * @param compute   Computes the result when it is not cached.
+   * @param params    The parameters of the operation; arrays are compared by content.
+   * @return The result of the operation.
+   */
+  public ImageInterface get(ImageInterface image, String operation,
+                            Supplier<ImageInterface> compute, Object... params) {
+    String hash = ContentHash.of(image);
+    if (hash == null || maxBytes == 0) {
+      return compute.get();
+    }
+    String key = keyOf(hash, operation, params);
+    if (key == null) {
+      return compute.get();
+    }
+    synchronized (this) {
+      ImageInterface cached = entries.get(key);
+      if (cached != null) {
+        hits++;
+        return cached;
+      }
+      misses++;
+    }
+    ImageInterface result = compute.get();
+    if (result instanceof PlanarImage) {
+      ContentHash.derive(result, key);
+      put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Builds the key of an operation applied to an image.
+   *
+   * @param hash      The content hash of the input.
+   * @param operation The name of the operation.
+   * @param params    The parameters of the operation.
+   * @return The key, or null if one of the parameters is an image without a content hash.
+   */
+  private static String keyOf(String hash, String operation, Object... params) {
+    StringBuilder key = new StringBuilder(hash).append('|').append(operation);
+    for (Object param : params) {
+      key.append('|');
+      if (param instanceof double[][]) {
+        key.append(Arrays.deepToString((double[][]) param));
+      } else if (param instanceof double[]) {
+        key.append(Arrays.toString((double[]) param));
+      } else if (param instanceof Object[]) {
+        key.append(Arrays.deepToString((Object[]) param));
+      } else if (param instanceof ImageInterface) {
+        String paramHash = ContentHash.of((ImageInterface) param);
+        if (paramHash == null) {
+          return null;
+        }
+        key.append(paramHash);
+      } else {
+        key.append(param);
+      }
+    }
+    return key.toString();
+  }
+
+  /**
+   * Stores a result and evicts the least recently used entries until the cache fits its budget.
+   *
+   * @param key    The key of the result.
+   * @param result The result.
+   */
+  private synchronized void put(String key, ImageInterface result) {
+    long size = sizeOf(result);
+    if (size > maxBytes) {
+      return;
+    }
+    ImageInterface previous = entries.put(key, result);
+    if (previous != null) {
+      bytes -= sizeOf(previous);
+    }
+    bytes += size;
+    Iterator<ImageInterface> eldest = entries.values().iterator();
+    while (bytes > maxBytes) {
+      bytes -= sizeOf(eldest.next());
+      eldest.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * Estimates the memory held by an image.
+   *
+   * @param image The image.
+   * @return The estimated size in bytes.
+   */
+  static long sizeOf(ImageInterface image) {
+    if (image instanceof TransformedImage) {
+      return VIEW_BYTES;
+    }
+    long samples = (long) image.getWidth() * image.getHeight();
+    if (!(image instanceof GrayImage)) {
+      samples *= 3;
+    }
+    return samples * (((PlanarImage) image).getBitDepth() / 8);
+  }
+
+  /**
+   * Removes every entry. The statistics are kept.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  /**
+   * Gets the number of requests that were answered from the cache.
+   *
+   * @return The number of hits.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of requests that had to be computed.
+   *
+   * @return The number of misses.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Gets the number of entries evicted to stay within the budget.
+   *
+   * @return The number of evictions.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Gets the number of cached results.
+   *
+   * @return The number of entries.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Gets the estimated memory held by the cached results.
+   *
+   * @return The size in bytes.
+   */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Gets the budget of the cache.
+   *
+   * @return The most bytes of images the cache keeps.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Summarizes the contents and statistics of the cache.
+   *
+   * @return The summary.
+   */
+  @Override
+  public synchronized String toString() {
+    return String.format("%d results, %d of %d KB, %d hits, %d misses, %d evictions",
+            entries.size(), bytes / 1024, maxBytes / 1024, hits, misses, evictions);
+  }
+}
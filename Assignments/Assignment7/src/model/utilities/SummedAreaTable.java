@@ -0,0 +1,187 @@
+package model.utilities;
+
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+
+/**
+ * A summed-area table (integral image) of one channel of an image.
+ * Entry (x, y) of the table holds the sum of all samples above and to the left of pixel (x, y),
+ * so the sum over any axis-aligned rectangle can be read with four lookups, no matter how large
+ * the rectangle is. This makes region statistics such as box filters, local means and local
+ * variances cost the same per pixel for every window size.
+ * The table has one extra leading row and column of zeros, which removes the special cases at
+ * the top and left edges.
+ */
+public class SummedAreaTable {
+  private final int width;
+  private final int height;
+  private final long[] sums;
+
+  /**
+   * Builds the table from a plane of samples.
+   *
+   * @param plane   The samples in row-major order.
+   * @param width   The width of the plane.
+   * @param height  The height of the plane.
+   * @param squared Whether to sum the squares of the samples instead of the samples, which is
+   *                used to compute local variances.
+   */
+  private SummedAreaTable(int[] plane, int width, int height, boolean squared) {
+    this.width = width;
+    this.height = height;
+    this.sums = new long[(width + 1) * (height + 1)];
+    int stride = width + 1;
+
+    for (int y = 0; y < height; y++) {
+      long rowSum = 0;
+      int above = y * stride;
+      int current = above + stride;
+      for (int x = 0; x < width; x++) {
+        long value = plane[y * width + x];
+        rowSum += squared ? value * value : value;
+        sums[current + x + 1] = sums[above + x + 1] + rowSum;
+      }
+    }
+  }
+
+  /**
+   * Builds the table of the samples of one channel of an image.
+   *
+   * @param image   The image.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The summed-area table.
+   */
+  public static SummedAreaTable of(ImageInterface image, int channel) {
+    return new SummedAreaTable(readChannel(image, channel), image.getWidth(),
+            image.getHeight(), false);
+  }
+
+  /**
+   * Builds the table of the squared samples of one channel of an image. Together with the table
+   * from {@link #of} this gives local variances through {@link #variance}.
+   *
+   * @param image   The image.
+   * @param channel The channel index (0 = red, 1 = green, 2 = blue).
+   * @return The summed-area table of squares.
+   */
+  public static SummedAreaTable ofSquares(ImageInterface image, int channel) {
+    return new SummedAreaTable(readChannel(image, channel), image.getWidth(),
+            image.getHeight(), true);
+  }
+
+  /**
+   * Reads one channel of an image into a flat array.
+   *
+   * @param image   The image.
+   * @param channel The channel index.
+   * @return The samples of the channel in row-major order.
+   */
+  private static int[] readChannel(ImageInterface image, int channel) {
+    if (image instanceof PlanarImage) {
+      return ((PlanarImage) image).readPlane(channel);
+    }
+    int width = image.getWidth();
+    int height = image.getHeight();
+    int[] plane = new int[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        plane[y * width + x] = image.getChannelValue(x, y, channel);
+      }
+    }
+    return plane;
+  }
+
+  /**
+   * Gets the width of the table's image.
+   *
+   * @return The width.
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the height of the table's image.
+   *
+   * @return The height.
+   */
+  public int getHeight() {
+    return height;
+  }
+
+  /**
+   * Gets the sum over a rectangle. Coordinates are clipped to the image, so windows that hang
+   * over an edge sum only the pixels inside the image.
+   *
+   * @param x0 The left edge, inclusive.
+   * @param y0 The top edge, inclusive.
+   * @param x1 The right edge, exclusive.
+   * @param y1 The bottom edge, exclusive.
+   * @return The sum of the samples in the rectangle, or 0 if it is empty.
+   */
+  public long sum(int x0, int y0, int x1, int y1) {
+    x0 = Math.max(0, x0);
+    y0 = Math.max(0, y0);
+    x1 = Math.min(width, x1);
+    y1 = Math.min(height, y1);
+    if (x0 >= x1 || y0 >= y1) {
+      return 0;
+    }
+    int stride = width + 1;
+    return sums[y1 * stride + x1] - sums[y0 * stride + x1]
+            - sums[y1 * stride + x0] + sums[y0 * stride + x0];
+  }
+
+  /**
+   * Gets the number of image pixels in a rectangle after clipping it to the image.
+   *
+   * @param x0 The left edge, inclusive.
+   * @param y0 The top edge, inclusive.
+   * @param x1 The right edge, exclusive.
+   * @param y1 The bottom edge, exclusive.
+   * @return The number of pixels in the clipped rectangle.
+   */
+  public long count(int x0, int y0, int x1, int y1) {
+    long clippedWidth = Math.min(width, x1) - Math.max(0, x0);
+    long clippedHeight = Math.min(height, y1) - Math.max(0, y0);
+    return clippedWidth > 0 && clippedHeight > 0 ? clippedWidth * clippedHeight : 0;
+  }
+
+  /**
+   * Gets the mean over a rectangle, clipped to the image.
+   *
+   * @param x0 The left edge, inclusive.
+   * @param y0 The top edge, inclusive.
+   * @param x1 The right edge, exclusive.
+   * @param y1 The bottom edge, exclusive.
+   * @return The mean of the samples in the rectangle.
+   * @throws IllegalArgumentException if the rectangle does not overlap the image
+   */
+  public double mean(int x0, int y0, int x1, int y1) {
+    long count = count(x0, y0, x1, y1);
+    if (count == 0) {
+      throw new IllegalArgumentException("Rectangle does not overlap the image.");
+    }
+    return (double) sum(x0, y0, x1, y1) / count;
+  }
+
+  /**
+   * Gets the variance over a rectangle, clipped to the image, from a table of samples and a
+   * table of squared samples of the same channel.
+   *
+   * @param sums    The table built by {@link #of}.
+   * @param squares The table built by {@link #ofSquares}.
+   * @param x0      The left edge, inclusive.
+   * @param y0      The top edge, inclusive.
+   * @param x1      The right edge, exclusive.
+   * @param y1      The bottom edge, exclusive.
+   * @return The population variance of the samples in the rectangle.
+   * @throws IllegalArgumentException if the rectangle does not overlap the image
+   */
+  public static double variance(SummedAreaTable sums, SummedAreaTable squares,
+                                int x0, int y0, int x1, int y1) {
+    double mean = sums.mean(x0, y0, x1, y1);
+    double meanOfSquares = squares.mean(x0, y0, x1, y1);
+    return Math.max(0, meanOfSquares - mean * mean);
+  }
+}
@@ -0,0 +1,213 @@
+package model.utilities;
+
+import java.util.Random;
+
+/**
+ * Utility class that provides the threshold matrices used by ordered dithering.
+ * A threshold matrix holds every rank from 0 to size * size - 1 exactly once; it is tiled over
+ * the image and a pixel is turned white when its normalized value exceeds the normalized rank at
+ * its position. Because each pixel only depends on its own value and position, dithering with a
+ * threshold matrix can process pixels in any order and in parallel.
+ */
+public class ThresholdMatrix {
+
+  /**
+   * Side length of the blue-noise matrix.
+   */
+  private static final int BLUE_NOISE_SIZE = 64;
+
+  /**
+   * Standard deviation of the Gaussian filter used to measure clusters and voids.
+   */
+  private static final double BLUE_NOISE_SIGMA = 1.5;
+
+  /**
+   * Fixed seed so that the blue-noise matrix, and therefore the dithered output, is the same on
+   * every run.
+   */
+  private static final long BLUE_NOISE_SEED = 5010L;
+
+  private static int[][] blueNoise;
+
+  /**
+   * Gets the threshold matrix with the given name.
+   *
+   * @param name The name of the matrix, either "ordered" (8x8 Bayer) or "bluenoise".
+   * @return The threshold matrix.
+   * @throws IllegalArgumentException if the name is not recognized
+   */
+  public static int[][] forName(String name) {
+    switch (name.toLowerCase()) {
+      case "ordered":
+        return bayer(8);
+      case "bluenoise":
+        return blueNoise();
+      default:
+        throw new IllegalArgumentException("Unknown threshold matrix: " + name);
+    }
+  }
+
+  /**
+   * Builds a Bayer matrix of the given size by recursive doubling.
+   *
+   * @param size The side length of the matrix, a power of two.
+   * @return The Bayer matrix.
+   */
+  public static int[][] bayer(int size) {
+    int[][] matrix = {{0}};
+    for (int n = 1; n < size; n *= 2) {
+      int[][] next = new int[n * 2][n * 2];
+      for (int y = 0; y < n; y++) {
+        for (int x = 0; x < n; x++) {
+          int value = 4 * matrix[y][x];
+          next[y][x] = value;
+          next[y][x + n] = value + 2;
+          next[y + n][x] = value + 3;
+          next[y + n][x + n] = value + 1;
+        }
+      }
+      matrix = next;
+    }
+    return matrix;
+  }
+
+  /**
+   * Gets the 64x64 blue-noise matrix, generating it on first use.
+   *
+   * @return The blue-noise matrix.
+   */
+  public static synchronized int[][] blueNoise() {
+    if (blueNoise == null) {
+      blueNoise = generateBlueNoise(BLUE_NOISE_SIZE, BLUE_NOISE_SIGMA, BLUE_NOISE_SEED);
+    }
+    return blueNoise;
+  }
+
+  /**
+   * Generates a blue-noise threshold matrix with the void-and-cluster method.
+   * Starting from a random pattern whose minority pixels have been spread out evenly, the
+   * pixels are ranked by repeatedly removing the tightest cluster (for the ranks below the
+   * initial pattern) and filling the largest void (for the ranks above it). Clusters and voids
+   * are measured with a Gaussian filter that wraps around the edges, so the matrix tiles
+   * seamlessly.
+   *
+   * @param size  The side length of the matrix.
+   * @param sigma The standard deviation of the Gaussian filter.
+   * @param seed  The seed of the random initial pattern.
+   * @return The blue-noise matrix.
+   */
+  static int[][] generateBlueNoise(int size, double sigma, long seed) {
+    int area = size * size;
+    double[] kernel = new double[area];
+    for (int dy = 0; dy < size; dy++) {
+      for (int dx = 0; dx < size; dx++) {
+        int wrappedX = Math.min(dx, size - dx);
+        int wrappedY = Math.min(dy, size - dy);
+        kernel[dy * size + dx] =
+                Math.exp(-(wrappedX * wrappedX + wrappedY * wrappedY) / (2 * sigma * sigma));
+      }
+    }
+
+    boolean[] pattern = new boolean[area];
+    double[] energy = new double[area];
+    Random random = new Random(seed);
+    int ones = 0;
+    while (ones < area / 10) {
+      int index = random.nextInt(area);
+      if (!pattern[index]) {
+        toggle(pattern, energy, kernel, size, index);
+        ones++;
+      }
+    }
+
+    // Spread the initial pattern: move the tightest cluster into the largest void until the
+    // pixel that was just moved is itself the largest void.
+    while (true) {
+      int cluster = tightestCluster(pattern, energy);
+      toggle(pattern, energy, kernel, size, cluster);
+      int voidIndex = largestVoid(pattern, energy);
+      toggle(pattern, energy, kernel, size, voidIndex);
+      if (voidIndex == cluster) {
+        break;
+      }
+    }
+
+    int[] ranks = new int[area];
+    boolean[] working = pattern.clone();
+    double[] workingEnergy = energy.clone();
+    for (int rank = ones - 1; rank >= 0; rank--) {
+      int cluster = tightestCluster(working, workingEnergy);
+      toggle(working, workingEnergy, kernel, size, cluster);
+      ranks[cluster] = rank;
+    }
+    for (int rank = ones; rank < area; rank++) {
+      int voidIndex = largestVoid(pattern, energy);
+      toggle(pattern, energy, kernel, size, voidIndex);
+      ranks[voidIndex] = rank;
+    }
+
+    int[][] matrix = new int[size][size];
+    for (int i = 0; i < area; i++) {
+      matrix[i / size][i % size] = ranks[i];
+    }
+    return matrix;
+  }
+
+  /**
+   * Flips one pixel of the pattern and updates the filtered energy of every pixel.
+   *
+   * @param pattern The binary pattern.
+   * @param energy  The Gaussian-filtered pattern.
+   * @param kernel  The wrapped Gaussian kernel indexed by offset.
+   * @param size    The side length of the pattern.
+   * @param index   The pixel to flip.
+   */
+  private static void toggle(boolean[] pattern, double[] energy, double[] kernel,
+                             int size, int index) {
+    pattern[index] = !pattern[index];
+    double sign = pattern[index] ? 1 : -1;
+    int px = index % size;
+    int py = index / size;
+    for (int y = 0; y < size; y++) {
+      int dy = (y - py + size) % size;
+      for (int x = 0; x < size; x++) {
+        int dx = (x - px + size) % size;
+        energy[y * size + x] += sign * kernel[dy * size + dx];
+      }
+    }
+  }
+
+  /**
+   * Finds the set pixel with the highest filtered energy.
+   *
+   * @param pattern The binary pattern.
+   * @param energy  The Gaussian-filtered pattern.
+   * @return The index of the tightest cluster.
+   */
+  private static int tightestCluster(boolean[] pattern, double[] energy) {
+    int best = -1;
+    for (int i = 0; i < pattern.length; i++) {
+      if (pattern[i] && (best < 0 || energy[i] > energy[best])) {
+        best = i;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Finds the unset pixel with the lowest filtered energy.
+   *
+   * @param pattern The binary pattern.
+   * @param energy  The Gaussian-filtered pattern.
+   * @return The index of the largest void.
+   */
+  private static int largestVoid(boolean[] pattern, double[] energy) {
+    int best = -1;
+    for (int i = 0; i < pattern.length; i++) {
+      if (!pattern[i] && (best < 0 || energy[i] < energy[best])) {
+        best = i;
+      }
+    }
+    return best;
+  }
+}
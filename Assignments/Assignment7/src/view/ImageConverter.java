@@ -10,27 +10,56 @@ import java.awt.image.BufferedImage;
 public class ImageConverter {
   /**
    * Converts an ImageInterface to a BufferedImage.
+   * Images deeper than 8 bits are scaled down to the 8-bit range used for display.
    *
    * @param image the image to convert
    * @return the BufferedImage
    */
   public static BufferedImage toBufferedImage(ImageInterface image) {
-    int width = image.getWidth();
-    int height = image.getHeight();
-    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    return toBufferedImage(image, 0, 0, image.getWidth(), image.getHeight());
+  }
 
-    int[][][] pixels = image.getPixels();
+  /**
+   * Converts a rectangular region of an ImageInterface to a BufferedImage.
+   * Only the pixels inside the region are read, so this is used to build display tiles without
+   * converting the whole image.
+   *
+   * @param image  the image to convert
+   * @param x      the x-coordinate of the top-left corner of the region
+   * @param y      the y-coordinate of the top-left corner of the region
+   * @param width  the width of the region
+   * @param height the height of the region
+   * @return the BufferedImage holding the region
+   */
+  public static BufferedImage toBufferedImage(ImageInterface image, int x, int y,
+                                              int width, int height) {
+    int maxValue = image.getMaxValue();
+    BufferedImage bufferedImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    int[] row = new int[width];
 
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        int[] rgb = pixels[y][x];
-        int r = rgb[0];
-        int g = rgb[1];
-        int b = rgb[2];
-        int color = (r << 16) | (g << 8) | b;
-        bufferedImage.setRGB(x, y, color);
+    for (int j = 0; j < height; j++) {
+      for (int i = 0; i < width; i++) {
+        int r = toEightBit(image.getChannelValue(x + i, y + j, 0), maxValue);
+        int g = toEightBit(image.getChannelValue(x + i, y + j, 1), maxValue);
+        int b = toEightBit(image.getChannelValue(x + i, y + j, 2), maxValue);
+        row[i] = (r << 16) | (g << 8) | b;
       }
+      bufferedImage.setRGB(0, j, width, 1, row, 0, width);
     }
     return bufferedImage;
   }
+
+  /**
+   * Scales a channel value of an image deeper than 8 bits to the range 0 to 255.
+   *
+   * @param value    the channel value
+   * @param maxValue the maximum value of the image
+   * @return the 8-bit channel value
+   */
+  private static int toEightBit(int value, int maxValue) {
+    if (maxValue > 255) {
+      return (int) (((long) value * 255 + maxValue / 2) / maxValue);
+    }
+    return value;
+  }
 }
@@ -4,7 +4,6 @@ import controller.Features;
 import model.image.ImageInterface;
 
 import javax.swing.JButton;
-import javax.swing.SwingConstants;
 import javax.swing.JDialog;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
@@ -15,7 +14,6 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
 import javax.swing.JTextField;
-import javax.swing.ImageIcon;
 import javax.swing.BorderFactory;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
@@ -35,7 +33,7 @@ import java.util.function.BiConsumer;
  */
 public class ImageProcessingGUIView extends JFrame implements GUIView {
   private Features features;
-  private JLabel imageLabel;
+  private ImageViewport imageViewport;
   private HistogramPanel histogramPanel;
 
   private String currentImageName;
@@ -130,19 +128,12 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
   }
 
   /**
-   * Sets the image in the image label.
+   * Sets the image in the image viewport.
    *
    * @param image the image to display
    */
   private void setImage(ImageInterface image) {
-    if (image != null) {
-      BufferedImage bufferedImage = ImageConverter.toBufferedImage(image);
-      imageLabel.setIcon(new ImageIcon(bufferedImage));
-      imageLabel.setText(null);
-    } else {
-      imageLabel.setIcon(null);
-      imageLabel.setText("Load an image to get started!");
-    }
+    imageViewport.setImage(image);
   }
 
   /**
@@ -150,16 +141,17 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
    * The content panels include the image display and histogram panel.
    */
   private void createContentPanels() {
-    imageLabel = new JLabel("Load an image to get started!", SwingConstants.CENTER);
-    imageLabel.setFont(new Font("Arial", Font.ITALIC, 16));
-    imageLabel.setBorder(new EmptyBorder(10, 10, 10, 10));
-    JScrollPane imageScrollPane = new JScrollPane(imageLabel);
+    imageViewport = new ImageViewport("Load an image to get started!");
+    JScrollPane imageScrollPane = new JScrollPane(imageViewport);
     imageScrollPane.setPreferredSize(new Dimension(600, 600));
+    JPanel imagePanel = new JPanel(new BorderLayout());
+    imagePanel.add(createZoomPanel(imageViewport), BorderLayout.NORTH);
+    imagePanel.add(imageScrollPane, BorderLayout.CENTER);
 
     histogramPanel = new HistogramPanel();
     histogramPanel.setBorder(BorderFactory.createTitledBorder("Image Histogram"));
 
-    JSplitPane imageAndHistogramPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, imageScrollPane,
+    JSplitPane imageAndHistogramPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, imagePanel,
         histogramPanel);
     imageAndHistogramPane.setDividerLocation(500);
 
@@ -175,6 +167,29 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
     add(mainSplitPane, BorderLayout.CENTER);
   }
 
+  /**
+   * Creates the zoom controls for an image viewport.
+   *
+   * @param viewport the viewport controlled by the buttons
+   * @return the panel holding the zoom controls
+   */
+  private JPanel createZoomPanel(ImageViewport viewport) {
+    JPanel zoomPanel = new JPanel();
+    JButton zoomOutButton = new JButton("-");
+    JButton zoomInButton = new JButton("+");
+    JButton actualSizeButton = new JButton("100%");
+    JButton fitButton = new JButton("Fit");
+    zoomOutButton.addActionListener(e -> viewport.zoomOut());
+    zoomInButton.addActionListener(e -> viewport.zoomIn());
+    actualSizeButton.addActionListener(e -> viewport.setZoom(1));
+    fitButton.addActionListener(e -> viewport.zoomToFit());
+    zoomPanel.add(new JLabel("Zoom (Ctrl + wheel):"));
+    zoomPanel.add(zoomOutButton);
+    zoomPanel.add(zoomInButton);
+    zoomPanel.add(actualSizeButton);
+    zoomPanel.add(fitButton);
+    return zoomPanel;
+  }
 
   // Buttons for Load and Save
   private JButton loadButton;
@@ -582,8 +597,8 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
                                      BiConsumer<String, String> operationFunc,
                                      Object... additionalParams) {
     // Create components for the popup
-    JLabel imageLabel = new JLabel();
-    JScrollPane scrollPane = new JScrollPane(imageLabel);
+    ImageViewport previewViewport = new ImageViewport("No image to preview");
+    JScrollPane scrollPane = new JScrollPane(previewViewport);
     scrollPane.setPreferredSize(new Dimension(800, 600));
     JTextField splitPercentageField = new JTextField("50", 5);
 
@@ -601,6 +616,7 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
 
     // Main panel
     JPanel mainPanel = new JPanel(new BorderLayout());
+    mainPanel.add(createZoomPanel(previewViewport), BorderLayout.NORTH);
     mainPanel.add(scrollPane, BorderLayout.CENTER);
     mainPanel.add(controlPanel, BorderLayout.SOUTH);
 
@@ -615,8 +631,7 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
 
     // Set the default image (original) in the popup
     if (originalImage != null) {
-      BufferedImage bufferedImage = ImageConverter.toBufferedImage(originalImage);
-      imageLabel.setIcon(new ImageIcon(bufferedImage));
+      previewViewport.setImage(originalImage);
     }
 
     // Action listeners
@@ -641,8 +656,7 @@ public class ImageProcessingGUIView extends JFrame implements GUIView {
         );
 
         // Displays the split view image
-        BufferedImage bufferedSplitView = ImageConverter.toBufferedImage(splitViewImage);
-        imageLabel.setIcon(new ImageIcon(bufferedSplitView));
+        previewViewport.setImage(splitViewImage);
 
         // Removes temporary image
         features.removeImage(tempImageName);
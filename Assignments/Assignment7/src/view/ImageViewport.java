@@ -0,0 +1,373 @@
+package view;
+
+import model.image.ImageInterface;
+import model.utilities.MipmapPyramid;
+
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JViewport;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A component that displays an image at a chosen zoom level inside a scroll pane.
+ * Instead of converting the whole image to a BufferedImage, the component only converts the
+ * tiles that intersect the visible area. When zoomed out, tiles are taken from the image's
+ * {@link MipmapPyramid}, so at most about a screenful of pixels is read no matter how large the
+ * image is. Converted tiles are kept in a small least-recently-used cache, which keeps panning
+ * smooth while bounding the memory used for display.
+ * Dragging with the mouse pans the image and Ctrl + mouse wheel zooms around the cursor.
+ */
+public class ImageViewport extends JComponent implements Scrollable {
+  private static final int TILE_SIZE = 256;
+  private static final int MAX_CACHED_TILES = 64;
+  private static final double MIN_ZOOM = 1.0 / 64;
+  private static final double MAX_ZOOM = 16;
+  private static final double ZOOM_STEP = 1.25;
+
+  private final String emptyMessage;
+  private final Map<String, BufferedImage> tileCache =
+      new LinkedHashMap<String, BufferedImage>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+          return size() > MAX_CACHED_TILES;
+        }
+      };
+
+  private ImageInterface image;
+  private MipmapPyramid pyramid;
+  private double zoom = 1;
+
+  /**
+   * Constructs an empty viewport.
+   *
+   * @param emptyMessage the message shown while no image is displayed
+   */
+  public ImageViewport(String emptyMessage) {
+    this.emptyMessage = emptyMessage;
+    setFont(new Font("Arial", Font.ITALIC, 16));
+
+    MouseAdapter mouseHandler = new MouseAdapter() {
+      private Point dragStart;
+
+      @Override
+      public void mousePressed(MouseEvent e) {
+        dragStart = e.getPoint();
+      }
+
+      @Override
+      public void mouseDragged(MouseEvent e) {
+        JViewport viewport = getViewport();
+        if (viewport == null || dragStart == null) {
+          return;
+        }
+        Rectangle visible = viewport.getViewRect();
+        visible.translate(dragStart.x - e.getX(), dragStart.y - e.getY());
+        scrollRectToVisible(visible);
+      }
+
+      @Override
+      public void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown()) {
+          double factor = e.getWheelRotation() < 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+          zoomAround(zoom * factor, e.getPoint());
+        } else {
+          // Listening for wheel events stops them reaching the scroll pane, so pass them on.
+          JScrollPane scrollPane =
+              (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class,
+                  ImageViewport.this);
+          if (scrollPane != null) {
+            scrollPane.dispatchEvent(
+                SwingUtilities.convertMouseEvent(ImageViewport.this, e, scrollPane));
+          }
+        }
+      }
+    };
+    addMouseListener(mouseHandler);
+    addMouseMotionListener(mouseHandler);
+    addMouseWheelListener(mouseHandler);
+  }
+
+  /**
+   * Sets the image to display, or clears the display if the image is null.
+   * The zoom level is kept, so switching between versions of an image keeps the same view.
+   *
+   * @param image the image to display
+   */
+  public void setImage(ImageInterface image) {
+    this.image = image;
+    this.pyramid = image != null ? MipmapPyramid.of(image) : null;
+    tileCache.clear();
+    revalidate();
+    repaint();
+  }
+
+  /**
+   * Gets the current zoom level, where 1 shows one image pixel per screen pixel.
+   *
+   * @return the zoom level
+   */
+  public double getZoom() {
+    return zoom;
+  }
+
+  /**
+   * Sets the zoom level, keeping the center of the visible area in place.
+   *
+   * @param zoom the new zoom level, clamped to the supported range
+   */
+  public void setZoom(double zoom) {
+    JViewport viewport = getViewport();
+    Point center;
+    if (viewport != null) {
+      Rectangle visible = viewport.getViewRect();
+      center = new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+    } else {
+      center = new Point(0, 0);
+    }
+    zoomAround(zoom, center);
+  }
+
+  /**
+   * Zooms in by one step.
+   */
+  public void zoomIn() {
+    setZoom(zoom * ZOOM_STEP);
+  }
+
+  /**
+   * Zooms out by one step.
+   */
+  public void zoomOut() {
+    setZoom(zoom / ZOOM_STEP);
+  }
+
+  /**
+   * Sets the zoom level so that the whole image fits in the visible area.
+   */
+  public void zoomToFit() {
+    JViewport viewport = getViewport();
+    if (image == null || viewport == null) {
+      return;
+    }
+    Dimension size = viewport.getExtentSize();
+    setZoom(Math.min(Math.min((double) size.width / image.getWidth(),
+        (double) size.height / image.getHeight()), 1));
+  }
+
+  /**
+   * Changes the zoom level while keeping the image point under the given component point fixed.
+   *
+   * @param newZoom the new zoom level
+   * @param anchor  the point, in component coordinates, that should stay in place
+   */
+  private void zoomAround(double newZoom, Point anchor) {
+    newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, newZoom));
+    if (newZoom == zoom) {
+      return;
+    }
+    double ratio = newZoom / zoom;
+    zoom = newZoom;
+    revalidate();
+
+    JViewport viewport = getViewport();
+    if (viewport != null) {
+      Point position = viewport.getViewPosition();
+      int x = (int) Math.round(anchor.x * ratio - (anchor.x - position.x));
+      int y = (int) Math.round(anchor.y * ratio - (anchor.y - position.y));
+      // Apply the new position after the scroll pane has laid out the new size.
+      SwingUtilities.invokeLater(() -> {
+        Dimension extent = viewport.getExtentSize();
+        Dimension view = viewport.getViewSize();
+        viewport.setViewPosition(new Point(
+            Math.max(0, Math.min(x, view.width - extent.width)),
+            Math.max(0, Math.min(y, view.height - extent.height))));
+      });
+    }
+    repaint();
+  }
+
+  /**
+   * Gets the viewport of the enclosing scroll pane, if there is one.
+   *
+   * @return the viewport, or null if this component is not inside a viewport
+   */
+  private JViewport getViewport() {
+    return getParent() instanceof JViewport ? (JViewport) getParent() : null;
+  }
+
+  /**
+   * Gets the size of the image at the current zoom level.
+   *
+   * @return the preferred size of the component
+   */
+  @Override
+  public Dimension getPreferredSize() {
+    if (image == null) {
+      FontMetrics metrics = getFontMetrics(getFont());
+      return new Dimension(metrics.stringWidth(emptyMessage) + 20, metrics.getHeight() + 20);
+    }
+    return new Dimension((int) Math.ceil(image.getWidth() * zoom),
+        (int) Math.ceil(image.getHeight() * zoom));
+  }
+
+  /**
+   * Paints the tiles that intersect the area being repainted.
+   *
+   * @param g the graphics context
+   */
+  @Override
+  protected void paintComponent(Graphics g) {
+    super.paintComponent(g);
+    if (image == null) {
+      FontMetrics metrics = g.getFontMetrics(getFont());
+      g.setFont(getFont());
+      g.drawString(emptyMessage, (getWidth() - metrics.stringWidth(emptyMessage)) / 2,
+          (getHeight() + metrics.getAscent()) / 2);
+      return;
+    }
+
+    Dimension size = getPreferredSize();
+    int offsetX = Math.max(0, (getWidth() - size.width) / 2);
+    int offsetY = Math.max(0, (getHeight() - size.height) / 2);
+
+    ImageInterface level = zoom < 1 ? pyramid.levelFor(Math.max(1, size.width),
+        Math.max(1, size.height)) : image;
+    int levelWidth = level.getWidth();
+    int levelHeight = level.getHeight();
+    double scaleX = (double) size.width / levelWidth;
+    double scaleY = (double) size.height / levelHeight;
+
+    Graphics2D g2 = (Graphics2D) g;
+    if (scaleX != 1 || scaleY != 1) {
+      g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, zoom > 1
+          ? RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR
+          : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    }
+
+    Rectangle clip = g.getClipBounds();
+    if (clip == null) {
+      clip = new Rectangle(0, 0, getWidth(), getHeight());
+    }
+    int firstTileX = Math.max(0, (int) ((clip.x - offsetX) / scaleX) / TILE_SIZE);
+    int firstTileY = Math.max(0, (int) ((clip.y - offsetY) / scaleY) / TILE_SIZE);
+    int lastTileX = Math.min((levelWidth - 1) / TILE_SIZE,
+        (int) ((clip.x + clip.width - offsetX) / scaleX) / TILE_SIZE);
+    int lastTileY = Math.min((levelHeight - 1) / TILE_SIZE,
+        (int) ((clip.y + clip.height - offsetY) / scaleY) / TILE_SIZE);
+
+    for (int tileY = firstTileY; tileY <= lastTileY; tileY++) {
+      for (int tileX = firstTileX; tileX <= lastTileX; tileX++) {
+        int x = tileX * TILE_SIZE;
+        int y = tileY * TILE_SIZE;
+        int tileWidth = Math.min(TILE_SIZE, levelWidth - x);
+        int tileHeight = Math.min(TILE_SIZE, levelHeight - y);
+        BufferedImage tile = getTile(level, x, y, tileWidth, tileHeight);
+
+        // Round both edges from level coordinates so that neighbouring tiles meet exactly.
+        int left = offsetX + (int) Math.round(x * scaleX);
+        int top = offsetY + (int) Math.round(y * scaleY);
+        int right = offsetX + (int) Math.round((x + tileWidth) * scaleX);
+        int bottom = offsetY + (int) Math.round((y + tileHeight) * scaleY);
+        g.drawImage(tile, left, top, right - left, bottom - top, null);
+      }
+    }
+  }
+
+  /**
+   * Gets a display tile of a pyramid level, converting it on a cache miss.
+   *
+   * @param level  the pyramid level
+   * @param x      the x-coordinate of the tile in the level
+   * @param y      the y-coordinate of the tile in the level
+   * @param width  the width of the tile
+   * @param height the height of the tile
+   * @return the tile
+   */
+  private BufferedImage getTile(ImageInterface level, int x, int y, int width, int height) {
+    // Levels have distinct sizes, so the level size identifies the level within one image.
+    String key = level.getWidth() + "x" + level.getHeight() + "@" + x + "," + y;
+    BufferedImage tile = tileCache.get(key);
+    if (tile == null) {
+      tile = ImageConverter.toBufferedImage(level, x, y, width, height);
+      tileCache.put(key, tile);
+    }
+    return tile;
+  }
+
+  /**
+   * Gets the preferred size of the scroll pane viewport.
+   *
+   * @return the preferred size of the component
+   */
+  @Override
+  public Dimension getPreferredScrollableViewportSize() {
+    return getPreferredSize();
+  }
+
+  /**
+   * Gets the distance to scroll for one click of a scroll bar arrow.
+   *
+   * @param visibleRect the visible area
+   * @param orientation the scroll direction
+   * @param direction   negative for up or left, positive for down or right
+   * @return the distance in pixels
+   */
+  @Override
+  public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+    return 16;
+  }
+
+  /**
+   * Gets the distance to scroll for one page.
+   *
+   * @param visibleRect the visible area
+   * @param orientation the scroll direction
+   * @param direction   negative for up or left, positive for down or right
+   * @return the distance in pixels
+   */
+  @Override
+  public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+    return orientation == SwingConstants.HORIZONTAL ? visibleRect.width : visibleRect.height;
+  }
+
+  /**
+   * Stretches the component to the viewport width when the image is narrower, so the image can
+   * be centered.
+   *
+   * @return true if the image is narrower than the viewport
+   */
+  @Override
+  public boolean getScrollableTracksViewportWidth() {
+    JViewport viewport = getViewport();
+    return viewport != null && viewport.getWidth() > getPreferredSize().width;
+  }
+
+  /**
+   * Stretches the component to the viewport height when the image is shorter, so the image can
+   * be centered.
+   *
+   * @return true if the image is shorter than the viewport
+   */
+  @Override
+  public boolean getScrollableTracksViewportHeight() {
+    JViewport viewport = getViewport();
+    return viewport != null && viewport.getHeight() > getPreferredSize().height;
+  }
+}
@@ -0,0 +1,126 @@
+import controller.AsyncImageIO;
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests reading ahead and writing behind the image files of scripts.
+ */
+public class AsyncImageIOTest {
+
+  private File directory;
+
+  /**
+   * Creates an empty working directory.
+   *
+   * @throws IOException if the directory cannot be created
+   */
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("async-io").toFile();
+  }
+
+  /**
+   * Creates a random 8-bit image.
+   *
+   * @param seed The random seed.
+   * @return The image.
+   */
+  private static ImageInterface randomImage(long seed) {
+    return TestImages.randomByteImage(24, 18, seed);
+  }
+
+  /**
+   * Gets the path of a file in the working directory.
+   *
+   * @param name The file name.
+   * @return The path.
+   */
+  private String path(String name) {
+    return new File(directory, name).getPath();
+  }
+
+  @Test
+  public void testLoadAfterSaveSeesNewContents() throws IOException {
+    ImageIOUtil.writeImage(randomImage(1), path("a.png"));
+    ImageModelInterface model = new ImageModelImpl();
+    new CommandExecutor(model).runScript(new StringReader(
+            "load " + path("a.png") + " a\n"
+                    + "brighten 40 a b\n"
+                    + "save " + path("a.png") + " b\n"
+                    + "load " + path("a.png") + " c\n"));
+    assertArrayEquals(model.getImage("b").getPixels(), model.getImage("c").getPixels());
+  }
+
+  @Test
+  public void testEverySaveIsFinishedWhenScriptEnds() throws IOException {
+    StringBuilder script = new StringBuilder();
+    for (int i = 0; i < 12; i++) {
+      ImageIOUtil.writeImage(randomImage(i), path("in" + i + ".ppm"));
+    }
+    script.append("for each file in ").append(directory.getPath()).append('\n')
+            .append("load $file img\n")
+            .append("sepia img out\n")
+            .append("save ").append(path("${file.name}.png")).append(" out\n")
+            .append("end\n");
+    new CommandExecutor(new ImageModelImpl()).runScript(new StringReader(script.toString()));
+
+    for (int i = 0; i < 12; i++) {
+      ImageModelInterface model = new ImageModelImpl();
+      new CommandExecutor(model).runScript(new StringReader(
+              "load " + path("in" + i + ".ppm") + " img\nsepia img out\n"));
+      assertArrayEquals(model.getImage("out").getPixels(),
+              ImageIOUtil.readImage(path("in" + i + ".png")).getPixels());
+    }
+  }
+
+  @Test
+  public void testPrefetchedImageIsUsedUntilFileChanges() throws IOException {
+    ImageIOUtil.writeImage(randomImage(1), path("a.ppm"));
+    AsyncImageIO imageIO = new AsyncImageIO();
+    imageIO.begin();
+    try {
+      imageIO.prefetch(path("a.ppm"));
+      assertArrayEquals(randomImage(1).getPixels(), imageIO.read(path("a.ppm"), 1).getPixels());
+
+      imageIO.prefetch(path("a.ppm"));
+      File file = new File(path("a.ppm"));
+      ImageIOUtil.writeImage(randomImage(2), file.getPath());
+      file.setLastModified(file.lastModified() + 5000);
+      assertArrayEquals(randomImage(2).getPixels(), imageIO.read(path("a.ppm"), 1).getPixels());
+    } finally {
+      imageIO.end();
+    }
+    assertFalse(imageIO.isActive());
+  }
+
+  @Test
+  public void testFailedSaveIsReportedAtEnd() {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("img", randomImage(3));
+    try {
+      new CommandExecutor(model).runScript(new StringReader(
+              "save " + path("missing/out.png") + " img\n"
+                      + "brighten 10 img brighter\n"));
+      fail("A failed save should be reported.");
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().contains("out.png"));
+    }
+    assertTrue(model.getImage("brighter") != null);
+  }
+}
@@ -0,0 +1,108 @@
+import controller.CommandExecutor;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+import model.image.ImageInterface;
+import model.operationimpls.BoxBlurOperation;
+import model.utilities.SummedAreaTable;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A class that tests the summed-area table and the box blur built on it.
+ */
+public class BoxBlurTest {
+
+  private final int[][][] pixels = TestImages.randomPixels(17, 11, 255, 7);
+  private final ImageInterface image = new Image(17, 11, 255, pixels);
+
+  /**
+   * Computes a box blur by summing every window directly.
+   *
+   * @param radius The radius of the box.
+   * @return The blurred pixels.
+   */
+  private int[][][] bruteForceBoxBlur(int radius) {
+    int height = pixels.length;
+    int width = pixels[0].length;
+    int[][][] result = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          long sum = 0;
+          long count = 0;
+          for (int sy = Math.max(0, y - radius); sy <= Math.min(height - 1, y + radius); sy++) {
+            for (int sx = Math.max(0, x - radius); sx <= Math.min(width - 1, x + radius); sx++) {
+              sum += pixels[sy][sx][c];
+              count++;
+            }
+          }
+          result[y][x][c] = (int) ((sum + count / 2) / count);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testTableSumsMatchBruteForce() {
+    SummedAreaTable table = SummedAreaTable.of(image, 1);
+    long sum = 0;
+    for (int y = 2; y < 9; y++) {
+      for (int x = 3; x < 15; x++) {
+        sum += pixels[y][x][1];
+      }
+    }
+    assertEquals(sum, table.sum(3, 2, 15, 9));
+    assertEquals(84, table.count(3, 2, 15, 9));
+    assertEquals(pixels[0][0][1], table.sum(-5, -5, 1, 1));
+    assertEquals(0, table.sum(20, 0, 30, 5));
+  }
+
+  @Test
+  public void testLocalVariance() {
+    int[][][] twoValues = {{{10, 0, 0}, {30, 0, 0}}};
+    ImageInterface small = new Image(2, 1, 255, twoValues);
+    double variance = SummedAreaTable.variance(SummedAreaTable.of(small, 0),
+            SummedAreaTable.ofSquares(small, 0), 0, 0, 2, 1);
+    assertEquals(100.0, variance, 1e-9);
+  }
+
+  @Test
+  public void testBoxBlurMatchesBruteForce() {
+    for (int radius : new int[]{0, 1, 3, 20}) {
+      assertArrayEquals(bruteForceBoxBlur(radius),
+              new BoxBlurOperation(radius).execute(image).getPixels());
+    }
+  }
+
+  @Test
+  public void testBoxBlurCommandWithMask() {
+    int[][][] maskPixels = new int[11][17][3];
+    for (int y = 0; y < 11; y++) {
+      for (int x = 9; x < 17; x++) {
+        maskPixels[y][x] = new int[]{255, 255, 255};
+      }
+    }
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("image", image);
+    model.addImage("mask", new Image(17, 11, 255, maskPixels));
+    new CommandExecutor(model).executeCommand("box-blur 2 image mask result");
+
+    int[][][] blurred = bruteForceBoxBlur(2);
+    ImageInterface result = model.getImage("result");
+    for (int y = 0; y < 11; y++) {
+      for (int x = 0; x < 17; x++) {
+        assertArrayEquals(x < 9 ? blurred[y][x] : pixels[y][x], result.getPixel(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeRadius() {
+    new BoxBlurOperation(-1);
+  }
+}
@@ -0,0 +1,128 @@
+import com.sun.management.ThreadMXBean;
+
+import controller.CommandExecutor;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.BufferPool;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares a long script with the shared {@link BufferPool} turned off and on. The script
+ * repeatedly brightens an image and runs the plane kernels on it, so that every step works on
+ * new pixels and allocates its planes afresh unless they are recycled.
+ * For each configuration it prints the wall time, the bytes allocated by all live threads, and
+ * the number and total time of garbage collections.
+ * Run with: java -cp (classes) BufferPoolBenchmark [width] [height] [repeats]
+ */
+public class BufferPoolBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally, the size of the image and the number of times the script body runs
+   * @throws IOException if the script fails
+   */
+  public static void main(String[] args) throws IOException {
+    int width = args.length > 0 ? Integer.parseInt(args[0]) : 1600;
+    int height = args.length > 1 ? Integer.parseInt(args[1]) : 1200;
+    int repeats = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+    ImageInterface image = gradient(width, height);
+    String script = "repeat " + repeats + "\n"
+            + "brighten 1 img img\n"
+            + "sepia img sepia\n"
+            + "luma-component img luma\n"
+            + "sharpen img sharp\n"
+            + "gaussian-blur 3 img soft\n"
+            + "rotate 90 img turned\n"
+            + "sepia turned turned-sepia\n"
+            + "end\n";
+    long budget = Runtime.getRuntime().maxMemory() / 8;
+
+    for (int round = 0; round < 3; round++) {
+      BufferPool.shared().setMaxBytes(0);
+      run("round " + round + ", no pool", image, script);
+      BufferPool.shared().setMaxBytes(budget);
+      run("round " + round + ", pooled", image, script);
+      System.out.println("  " + BufferPool.shared());
+    }
+  }
+
+  /**
+   * Runs the script on a fresh model and prints what it cost.
+   *
+   * @param label  the name of the configuration
+   * @param image  the image the script starts from
+   * @param script the script
+   * @throws IOException if the script fails
+   */
+  private static void run(String label, ImageInterface image, String script)
+          throws IOException {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("img", image);
+    CommandExecutor executor = new CommandExecutor(model);
+    System.gc();
+
+    long allocated = allocatedBytes();
+    long[] collections = collections();
+    long start = System.nanoTime();
+    executor.runScript(new StringReader(script));
+    long elapsed = System.nanoTime() - start;
+    allocated = allocatedBytes() - allocated;
+    long[] after = collections();
+
+    System.out.printf("%-22s %7.0f ms, %8.1f MB allocated, %4d GCs taking %5d ms%n", label,
+            elapsed / 1e6, allocated / 1048576.0, after[0] - collections[0],
+            after[1] - collections[1]);
+  }
+
+  /**
+   * Sums the bytes allocated so far by every live thread.
+   *
+   * @return the number of bytes
+   */
+  private static long allocatedBytes() {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long total = 0;
+    for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      total += Math.max(0, bytes);
+    }
+    return total;
+  }
+
+  /**
+   * Counts the garbage collections so far.
+   *
+   * @return the number of collections and their total time in milliseconds
+   */
+  private static long[] collections() {
+    long[] totals = new long[2];
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      totals[0] += Math.max(0, collector.getCollectionCount());
+      totals[1] += Math.max(0, collector.getCollectionTime());
+    }
+    return totals;
+  }
+
+  /**
+   * Creates an 8-bit image with a gradient.
+   *
+   * @param width  The width.
+   * @param height The height.
+   * @return The image.
+   */
+  private static ImageInterface gradient(int width, int height) {
+    int[][] planes = new int[3][width * height];
+    for (int i = 0; i < width * height; i++) {
+      planes[0][i] = i % 256;
+      planes[1][i] = (i / width) % 256;
+      planes[2][i] = (i * 7) % 256;
+    }
+    return ImageFactory.fromPlanes(width, height, 255, planes);
+  }
+}
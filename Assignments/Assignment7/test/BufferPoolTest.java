@@ -0,0 +1,144 @@
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.BufferPool;
+import model.image.ByteImage;
+import model.image.DirectImage;
+import model.image.ImageInterface;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests the pool of recycled sample buffers.
+ */
+public class BufferPoolTest {
+
+  @Test
+  public void testGivenBackArrayIsReused() {
+    BufferPool pool = new BufferPool(1 << 20, false);
+    int[] ints = pool.borrowInts(100);
+    double[] doubles = pool.borrowDoubles(100);
+    assertEquals(0, pool.getReuses());
+    pool.giveBack(ints);
+    pool.giveBack(doubles);
+    assertEquals(1200, pool.getBytes());
+
+    assertNotSame(ints, pool.borrowInts(99));
+    assertSame(ints, pool.borrowInts(100));
+    assertSame(doubles, pool.borrowDoubles(100));
+    assertEquals(2, pool.getReuses());
+    assertEquals(5, pool.getBorrows());
+    assertEquals(0, pool.getBytes());
+  }
+
+  @Test
+  public void testBudgetDropsLeastRecentlyUsedClass() {
+    BufferPool pool = new BufferPool(1000, false);
+    int[] first = new int[100];
+    int[] second = new int[50];
+    pool.giveBack(first);
+    pool.giveBack(second);
+    assertEquals(600, pool.getBytes());
+
+    pool.giveBack(new int[150]);
+    assertEquals(800, pool.getBytes());
+    assertNotSame(first, pool.borrowInts(100));
+    assertSame(second, pool.borrowInts(50));
+
+    pool.giveBack(new int[300]);
+    assertEquals(600, pool.getBytes());
+    pool.setMaxBytes(0);
+    assertEquals(0, pool.getBytes());
+    pool.giveBack(first);
+    assertEquals(0, pool.getBytes());
+  }
+
+  @Test
+  public void testDebugModeRejectsDoubleReturn() {
+    BufferPool pool = new BufferPool(1 << 20, true);
+    int[] array = pool.borrowInts(10);
+    pool.giveBack(array);
+    try {
+      pool.giveBack(array);
+      fail("Giving back an array twice should be reported.");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    new BufferPool(1 << 20, false).giveBack(array, array);
+  }
+
+  @Test
+  public void testNegativeBudgetIsRejected() {
+    try {
+      new BufferPool(-1, false);
+      fail("A negative budget should be rejected.");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testReleasedImageBufferIsReused() {
+    BufferPool pool = new BufferPool(1 << 20, true);
+    ByteImage image = TestImages.randomByteImage(50, 40, 1);
+    DirectImage first = (DirectImage) DirectImage.of(image, 0, pool);
+    assertEquals(50 * 40 * 3, first.getDirectBytes());
+    first.release();
+    long pooled = pool.getBytes();
+    assertTrue(pooled >= 50 * 40 * 3);
+
+    ByteImage other = TestImages.randomByteImage(48, 41, 2);
+    DirectImage second = (DirectImage) DirectImage.of(other, 0, pool);
+    assertEquals(1, pool.getReuses());
+    assertEquals(0, pool.getBytes());
+    assertEquals(48 * 41 * 3, second.getDirectBytes());
+    assertArrayEquals(other.getPixels(), second.getPixels());
+    second.release();
+    assertEquals(pooled, pool.getBytes());
+  }
+
+  @Test
+  public void testModelGivesBackReplacedImages() {
+    BufferPool pool = BufferPool.shared();
+    ImageModelInterface model = new ImageModelImpl(0);
+    model.addImage("img", TestImages.randomByteImage(64, 64, 3));
+    long reuses = pool.getReuses();
+    model.addImage("img", TestImages.randomByteImage(64, 64, 4));
+    model.addImage("img", TestImages.randomByteImage(64, 64, 5));
+    assertTrue(pool.getReuses() > reuses);
+    assertArrayEquals(TestImages.randomByteImage(64, 64, 5).getPixels(),
+            model.getImage("img").getPixels());
+    model.removeImage("img");
+  }
+
+  @Test
+  public void testDebugModeReportsLeakedImage() throws InterruptedException {
+    BufferPool pool = new BufferPool(1 << 20, true);
+    PrintStream err = System.err;
+    ByteArrayOutputStream report = new ByteArrayOutputStream();
+    System.setErr(new PrintStream(report, true));
+    try {
+      ImageInterface leaked = DirectImage.of(TestImages.randomByteImage(32, 32, 6), 0, pool);
+      assertTrue(leaked instanceof DirectImage);
+      leaked = null;
+      for (int i = 0; i < 100 && pool.getLeaks() == 0; i++) {
+        System.gc();
+        Thread.sleep(20);
+      }
+    } finally {
+      System.setErr(err);
+    }
+    assertEquals(1, pool.getLeaks());
+    assertTrue(report.toString().contains("Leaked off-heap image buffer"));
+    assertTrue(pool.getBytes() > 0);
+  }
+}
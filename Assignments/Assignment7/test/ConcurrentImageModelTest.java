@@ -0,0 +1,235 @@
+import model.ConcurrentImageModel;
+import model.ImageSnapshot;
+import model.image.BufferPool;
+import model.image.ByteImage;
+import model.image.Image;
+import model.image.ImageInterface;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the ConcurrentImageModel class, including under many writer threads.
+ */
+public class ConcurrentImageModelTest {
+
+  private static final int THREADS = 16;
+
+  private final ConcurrentImageModel model = new ConcurrentImageModel();
+
+  /**
+   * Creates a one-pixel gray image.
+   *
+   * @param value The value of all three channels.
+   * @return The image.
+   */
+  private static ImageInterface pixel(int value) {
+    return new Image(1, 1, 255, new int[][][]{{{value, value, value}}});
+  }
+
+  /**
+   * Runs a task on many threads at once and waits for all of them.
+   *
+   * @param task The task, given the index of its thread.
+   * @throws Exception if any of the tasks fails
+   */
+  private static void onManyThreads(IntConsumer task) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      futures.add(pool.submit(() -> {
+        start.await();
+        task.accept(thread);
+        return null;
+      }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+  }
+
+  @Test
+  public void testAddGetRemove() {
+    ImageInterface image = pixel(100);
+    model.addImage("a", image);
+    image.getPixels()[0][0][0] = 0;
+    assertArrayEquals(new int[]{100, 100, 100}, model.getImage("a").getPixel(0, 0));
+    model.removeImage("a");
+    assertNull(model.getImage("a"));
+    assertNull(model.getImage("missing"));
+    assertEquals(0, model.getVersion("missing"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullImage() {
+    model.addImage("a", null);
+  }
+
+  @Test
+  public void testVersionsIncreaseAcrossRemoval() {
+    model.addImage("a", pixel(1));
+    long first = model.getVersion("a");
+    model.addImage("a", pixel(2));
+    long second = model.getVersion("a");
+    model.removeImage("a");
+    model.addImage("a", pixel(3));
+    assertTrue(first > 0);
+    assertTrue(second > first);
+    assertTrue(model.getVersion("a") > second);
+  }
+
+  @Test
+  public void testCompareAndSet() {
+    assertTrue(model.compareAndSet("a", 0, pixel(1)));
+    assertFalse(model.compareAndSet("a", 0, pixel(2)));
+    ImageSnapshot snapshot = model.getSnapshot("a");
+    assertTrue(model.compareAndSet("a", snapshot.getVersion(), pixel(3)));
+    assertFalse(model.compareAndSet("a", snapshot.getVersion(), pixel(4)));
+    assertArrayEquals(new int[]{3, 3, 3}, model.getImage("a").getPixel(0, 0));
+  }
+
+  @Test
+  public void testManyWritersDistinctNames() throws Exception {
+    int perThread = 500;
+    onManyThreads(thread -> {
+      for (int i = 0; i < perThread; i++) {
+        model.addImage(thread + "-" + i, pixel(i % 256));
+      }
+    });
+    for (int thread = 0; thread < THREADS; thread++) {
+      for (int i = 0; i < perThread; i++) {
+        ImageInterface image = model.getImage(thread + "-" + i);
+        assertNotNull(image);
+        assertEquals(i % 256, image.getChannelValue(0, 0, 0));
+      }
+    }
+  }
+
+  @Test
+  public void testCompareAndSetLosesNoUpdates() throws Exception {
+    int perThread = 200;
+    model.addImage("counter", new Image(1, 1, 65535, new int[][][]{{{0, 0, 0}}}));
+    onManyThreads(thread -> {
+      for (int i = 0; i < perThread; i++) {
+        while (true) {
+          ImageSnapshot snapshot = model.getSnapshot("counter");
+          int next = snapshot.getImage().getChannelValue(0, 0, 0) + 1;
+          ImageInterface image = new Image(1, 1, 65535, new int[][][]{{{next, next, next}}});
+          if (model.compareAndSet("counter", snapshot.getVersion(), image)) {
+            break;
+          }
+        }
+      }
+    });
+    assertEquals(THREADS * perThread, model.getImage("counter").getChannelValue(0, 0, 0));
+  }
+
+  @Test
+  public void testReadersSeeIncreasingVersionsAndWholeImages() throws Exception {
+    model.addImage("shared", pixel(0));
+    AtomicBoolean writing = new AtomicBoolean(true);
+    onManyThreads(thread -> {
+      if (thread % 2 == 0) {
+        for (int i = 0; i < 2000; i++) {
+          int value = (thread * 7 + i) % 256;
+          model.addImage("shared", new Image(2, 1, 255,
+                  new int[][][]{{{value, value, value}, {value, value, value}}}));
+          if (i % 100 == 0) {
+            model.removeImage("other" + thread);
+          }
+        }
+        writing.set(false);
+      } else {
+        long last = 0;
+        while (writing.get()) {
+          ImageSnapshot snapshot = model.getSnapshot("shared");
+          assertTrue(snapshot.getVersion() >= last);
+          last = snapshot.getVersion();
+          ImageInterface image = snapshot.getImage();
+          if (image.getWidth() == 2) {
+            assertArrayEquals(image.getPixel(0, 0), image.getPixel(1, 0));
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Creates an 8-bit image large enough to be stored off the heap, with every sample equal.
+   *
+   * @param value The value of every sample.
+   * @return The image.
+   */
+  private static ImageInterface large(int value) {
+    byte[][] planes = new byte[3][640 * 640];
+    for (byte[] plane : planes) {
+      Arrays.fill(plane, (byte) value);
+    }
+    return new ByteImage(640, 640, 255, planes);
+  }
+
+  @Test
+  public void testReplacedOffHeapImagesAreReleased() {
+    model.addImage("big", large(1));
+    ImageSnapshot first = model.getSnapshot("big");
+    assertNotNull(first.getImage());
+
+    long reuses = BufferPool.shared().getReuses();
+    model.addImage("big", large(2));
+    assertNull(first.getImage());
+    assertEquals(2, model.getImage("big").getChannelValue(5, 5, 1));
+
+    ImageSnapshot second = model.getSnapshot("big");
+    assertFalse(model.compareAndSet("big", first.getVersion(), large(3)));
+    assertTrue(model.compareAndSet("big", second.getVersion(), large(4)));
+    assertNull(second.getImage());
+    assertTrue(BufferPool.shared().getReuses() > reuses);
+
+    ImageSnapshot third = model.getSnapshot("big");
+    model.removeImage("big");
+    assertNull(third.getImage());
+    assertNull(model.getImage("big"));
+  }
+
+  @Test
+  public void testReadersGetWholeOffHeapImagesWhileWritersReplaceThem() throws Exception {
+    model.addImage("big", large(0));
+    AtomicBoolean writing = new AtomicBoolean(true);
+    onManyThreads(thread -> {
+      if (thread == 0) {
+        for (int i = 1; i <= 60; i++) {
+          model.addImage("big", large(i));
+        }
+        writing.set(false);
+      } else if (thread < 6) {
+        while (writing.get()) {
+          ImageInterface image = model.getImage("big");
+          int value = image.getChannelValue(0, 0, 0);
+          assertEquals(value, image.getChannelValue(639, 639, 2));
+        }
+      }
+    });
+    assertEquals(60, model.getImage("big").getChannelValue(0, 0, 0));
+  }
+}
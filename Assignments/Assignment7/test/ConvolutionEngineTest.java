@@ -0,0 +1,127 @@
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.utilities.ConvolutionEngine;
+import model.utilities.KernelApplier;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the separable and FFT convolution strategies against direct convolution,
+ * and the convolve command with its kernel files.
+ */
+public class ConvolutionEngineTest {
+
+  private final ImageInterface image = TestImages.randomByteImage(150, 110, 3);
+
+  /**
+   * Creates a kernel with random weights, some of them negative, that sum to about one.
+   *
+   * @param height The kernel height.
+   * @param width  The kernel width.
+   * @param seed   The random seed.
+   * @return The kernel.
+   */
+  private static double[][] randomKernel(int height, int width, long seed) {
+    Random random = new Random(seed);
+    double[][] kernel = new double[height][width];
+    for (double[] row : kernel) {
+      for (int i = 0; i < width; i++) {
+        row[i] = (random.nextDouble() - 0.2) / (0.3 * height * width);
+      }
+    }
+    return kernel;
+  }
+
+  /**
+   * Asserts that two images differ by at most one level in every sample.
+   *
+   * @param expected The expected image.
+   * @param actual   The actual image.
+   */
+  private static void assertWithinOneLevel(ImageInterface expected, ImageInterface actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        for (int c = 0; c < 3; c++) {
+          int difference = expected.getChannelValue(x, y, c) - actual.getChannelValue(x, y, c);
+          assertTrue("Sample " + x + "," + y + "," + c, Math.abs(difference) <= 1);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFftMatchesDirect() {
+    double[][] kernel = randomKernel(17, 11, 5);
+    assertEquals(ConvolutionEngine.FFT, ConvolutionEngine.choose(kernel));
+    assertWithinOneLevel(KernelApplier.applyKernel(image, kernel),
+            ConvolutionEngine.convolve(image, kernel));
+  }
+
+  @Test
+  public void testFftWithEvenSizedKernel() {
+    double[][] kernel = randomKernel(4, 6, 9);
+    assertWithinOneLevel(KernelApplier.applyKernel(image, kernel),
+            ConvolutionEngine.convolve(image, kernel, ConvolutionEngine.FFT));
+  }
+
+  @Test
+  public void testSeparableMatchesDirect() {
+    double[] column = {1, 4, 6, 4, 1};
+    double[] row = {-1, 2, 5, 9, 5, 2, -1};
+    double[][] kernel = new double[column.length][row.length];
+    for (int u = 0; u < column.length; u++) {
+      for (int v = 0; v < row.length; v++) {
+        kernel[u][v] = column[u] * row[v] / 336;
+      }
+    }
+    assertEquals(ConvolutionEngine.SEPARABLE, ConvolutionEngine.choose(kernel));
+    assertWithinOneLevel(KernelApplier.applyKernel(image, kernel),
+            ConvolutionEngine.convolve(image, kernel));
+  }
+
+  @Test
+  public void testSmallKernelUsesDirect() {
+    assertEquals(ConvolutionEngine.DIRECT, ConvolutionEngine.choose(randomKernel(3, 3, 1)));
+  }
+
+  @Test
+  public void testConvolveCommandReadsKernelFile() throws IOException {
+    File file = File.createTempFile("kernel", ".txt");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("# Horizontal edge detector\n-1 -2 -1\n\n0 0 0\n1 2 1\n");
+    }
+    double[][] kernel = {{-1, -2, -1}, {0, 0, 0}, {1, 2, 1}};
+    assertArrayEquals(kernel, ImageIOUtil.readKernel(file.getPath()));
+
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("image", image);
+    new CommandExecutor(model).executeCommand("convolve " + file.getPath() + " image result");
+    assertArrayEquals(KernelApplier.applyKernel(image, kernel).getPixels(),
+            model.getImage("result").getPixels());
+  }
+
+  @Test(expected = IOException.class)
+  public void testRaggedKernelFile() throws IOException {
+    File file = File.createTempFile("kernel", ".txt");
+    file.deleteOnExit();
+    try (FileWriter writer = new FileWriter(file)) {
+      writer.write("1 2 1\n2 4\n");
+    }
+    ImageIOUtil.readKernel(file.getPath());
+  }
+}
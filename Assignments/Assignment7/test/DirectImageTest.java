@@ -0,0 +1,165 @@
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ByteImage;
+import model.image.DirectImage;
+import model.image.GrayImage;
+import model.image.Histograms;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.ShortImage;
+import model.image.TransformedImage;
+import model.operationimpls.DownscaleOperation;
+import model.utilities.ContentHash;
+import model.utilities.MipmapPyramid;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests images stored off the heap.
+ */
+public class DirectImageTest {
+
+  private static final int WIDTH = 13;
+  private static final int HEIGHT = 7;
+
+  /**
+   * Creates a random 8-bit image.
+   *
+   * @param seed The random seed.
+   * @return The image.
+   */
+  private static ByteImage byteImage(long seed) {
+    return TestImages.randomByteImage(WIDTH, HEIGHT, seed);
+  }
+
+  /**
+   * Creates a random 16-bit image.
+   *
+   * @param seed The random seed.
+   * @return The image.
+   */
+  private static ShortImage shortImage(long seed) {
+    return TestImages.randomShortImage(WIDTH, HEIGHT, 65535, seed);
+  }
+
+  /**
+   * Checks that an image moves off the heap and comes back with the same pixels and kind.
+   *
+   * @param image The heap image.
+   */
+  private static void assertRoundTrip(PlanarImage image) {
+    ImageInterface direct = DirectImage.of(image, 0);
+    assertTrue(direct instanceof DirectImage);
+    assertEquals(image.getBitDepth(), ((DirectImage) direct).getBitDepth());
+    assertArrayEquals(image.getPixels(), direct.getPixels());
+    for (int c = 0; c < 3; c++) {
+      assertArrayEquals(image.readPlane(c), ((DirectImage) direct).readPlane(c));
+    }
+    ImageInterface copy = direct.clone();
+    assertFalse(copy instanceof DirectImage);
+    assertEquals(image instanceof GrayImage, copy instanceof GrayImage);
+    assertArrayEquals(image.getPixels(), copy.getPixels());
+  }
+
+  @Test
+  public void testRoundTripKeepsPixelsAndKind() {
+    assertRoundTrip(byteImage(1));
+    assertRoundTrip(shortImage(2));
+    assertRoundTrip(byteImage(3).channel(1));
+    assertRoundTrip(shortImage(4).channel(2));
+    assertRoundTrip(TransformedImage.rotate(byteImage(5), 90));
+  }
+
+  @Test
+  public void testCopiesSharePixelFreeEntries() {
+    ByteImage image = byteImage(6);
+    String hash = ContentHash.of(image);
+    DirectImage direct = (DirectImage) DirectImage.of(image, 0);
+    PlanarImage first = direct.clone();
+    PlanarImage second = direct.clone();
+    assertNotSame(first.getCache(), second.getCache());
+    assertSame(hash, second.getCache().get("content-hash"));
+    Histograms.of(first);
+    assertTrue(Histograms.isKnown(direct));
+    assertTrue(Histograms.isKnown(second));
+
+    MipmapPyramid.of(first);
+    assertNull(direct.getCache().get("mipmap-pyramid"));
+    assertNull(second.getCache().get("mipmap-pyramid"));
+  }
+
+  @Test
+  public void testResidentImageDoesNotKeepHeapCopyAlive() throws InterruptedException {
+    ImageModelInterface model = new ImageModelImpl(0);
+    model.addImage("img", TestImages.randomByteImage(200, 150, 11));
+    ImageInterface copy = model.getImage("img");
+    new DownscaleOperation(50, 40).execute(copy);
+    MipmapPyramid.of(copy).levelFor(25, 20);
+    WeakReference<ImageInterface> reference = new WeakReference<>(copy);
+    copy = null;
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull("The heap copy should not be reachable from the model.", reference.get());
+    assertArrayEquals(TestImages.randomByteImage(200, 150, 11).getPixels(),
+            model.getImage("img").getPixels());
+    model.removeImage("img");
+  }
+
+  @Test
+  public void testSmallImagesStayOnHeap() {
+    ByteImage image = byteImage(7);
+    assertSame(image, DirectImage.of(image, WIDTH * HEIGHT * 3 + 1));
+    assertTrue(DirectImage.of(image, WIDTH * HEIGHT * 3) instanceof DirectImage);
+  }
+
+  @Test
+  public void testReleasedImageCannotBeRead() {
+    DirectImage direct = (DirectImage) DirectImage.of(byteImage(8), 0);
+    assertEquals(WIDTH * HEIGHT * 3, direct.getDirectBytes());
+    direct.release();
+    direct.release();
+    assertEquals(0, direct.getDirectBytes());
+    try {
+      direct.getChannelValue(0, 0, 0);
+      fail("A released image should not be readable.");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    try {
+      direct.clone();
+      fail("A released image should not be copied.");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testModelHandsOutHeapCopies() {
+    ImageModelInterface model = new ImageModelImpl(0);
+    ByteImage first = byteImage(9);
+    model.addImage("img", first);
+    ImageInterface copy = model.getImage("img");
+    assertFalse(copy instanceof DirectImage);
+    assertArrayEquals(first.getPixels(), copy.getPixels());
+
+    ByteImage second = byteImage(10);
+    model.addImage("img", second);
+    assertArrayEquals(first.getPixels(), copy.getPixels());
+    assertArrayEquals(second.getPixels(), model.getImage("img").getPixels());
+    model.removeImage("img");
+    assertEquals(null, model.getImage("img"));
+  }
+}
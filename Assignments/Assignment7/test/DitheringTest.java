@@ -0,0 +1,128 @@
+import model.image.Image;
+import model.image.ImageInterface;
+import model.operationimpls.AdvancedImageProcessorImpl;
+import model.operationinterface.AdvancedImageProcessor;
+import model.utilities.ThresholdMatrix;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the Floyd-Steinberg, ordered and blue-noise dithering methods.
+ */
+public class DitheringTest {
+
+  private final AdvancedImageProcessor processor = new AdvancedImageProcessorImpl();
+
+  /**
+   * Creates a square image where every pixel has the same gray value.
+   *
+   * @param size  The side length of the image.
+   * @param value The gray value.
+   * @return The image.
+   */
+  private ImageInterface uniformGray(int size, int value) {
+    int[][][] pixels = new int[size][size][3];
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        pixels[y][x] = new int[]{value, value, value};
+      }
+    }
+    return new Image(size, size, 255, pixels);
+  }
+
+  /**
+   * Counts the white pixels of a black-and-white image, checking that every pixel is black or
+   * white.
+   *
+   * @param image The image.
+   * @return The number of white pixels.
+   */
+  private int countWhite(ImageInterface image) {
+    int white = 0;
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < image.getWidth(); x++) {
+        int[] pixel = image.getPixel(x, y);
+        assertTrue(pixel[0] == 0 || pixel[0] == 255);
+        assertEquals(pixel[0], pixel[1]);
+        assertEquals(pixel[0], pixel[2]);
+        if (pixel[0] == 255) {
+          white++;
+        }
+      }
+    }
+    return white;
+  }
+
+  /**
+   * Checks that a threshold matrix holds every rank exactly once.
+   *
+   * @param matrix The threshold matrix.
+   */
+  private void assertPermutation(int[][] matrix) {
+    int size = matrix.length;
+    boolean[] seen = new boolean[size * size];
+    for (int[] row : matrix) {
+      assertEquals(size, row.length);
+      for (int rank : row) {
+        assertTrue(rank >= 0 && rank < seen.length && !seen[rank]);
+        seen[rank] = true;
+      }
+    }
+  }
+
+  @Test
+  public void testBayerMatrix() {
+    assertArrayEquals(new int[][]{{0, 2}, {3, 1}}, ThresholdMatrix.bayer(2));
+    assertPermutation(ThresholdMatrix.bayer(8));
+  }
+
+  @Test
+  public void testBlueNoiseMatrixIsPermutation() {
+    int[][] matrix = ThresholdMatrix.blueNoise();
+    assertEquals(64, matrix.length);
+    assertPermutation(matrix);
+  }
+
+  @Test
+  public void testDefaultMethodIsFloydSteinberg() {
+    ImageInterface image = uniformGray(16, 90);
+    assertArrayEquals(processor.applyDithering(image).getPixels(),
+            processor.applyDithering(image, "floyd-steinberg").getPixels());
+  }
+
+  @Test
+  public void testOrderedDitheringPreservesAverage() {
+    // A gray of 64 / 255 turns every rank below 64 / 255 of the matrix area white.
+    ImageInterface image = uniformGray(64, 64);
+    assertEquals(64 * 16, countWhite(processor.applyDithering(image, "ordered")));
+    assertEquals(1028, countWhite(processor.applyDithering(image, "bluenoise")));
+  }
+
+  @Test
+  public void testOrderedDitheringExtremes() {
+    assertEquals(0, countWhite(processor.applyDithering(uniformGray(8, 0), "ordered")));
+    assertEquals(64, countWhite(processor.applyDithering(uniformGray(8, 255), "ordered")));
+  }
+
+  @Test
+  public void testSplitViewWithMethod() {
+    ImageInterface image = uniformGray(8, 128);
+    ImageInterface result = processor.splitView(image, "dither", 50, "ordered");
+    ImageInterface full = processor.applyDithering(image, "ordered");
+    for (int y = 0; y < 8; y++) {
+      for (int x = 0; x < 8; x++) {
+        int[] expected = x < 4 ? full.getPixel(x, y) : image.getPixel(x, y);
+        assertArrayEquals(expected, result.getPixel(x, y));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownMethod() {
+    processor.applyDithering(uniformGray(2, 10), "random");
+  }
+}
@@ -0,0 +1,115 @@
+import controller.CommandExecutor;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+import model.image.ImageInterface;
+import model.operationimpls.GaussianBlurOperation;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the recursive Gaussian blur against exact convolution.
+ */
+public class GaussianBlurTest {
+
+  private final int width = 40;
+  private final int height = 30;
+  private final int[][][] pixels = TestImages.randomPixels(width, height, 255, 5010);
+
+  /**
+   * Convolves the pixels with the sampled Gaussian, truncated at 6 sigma and normalized,
+   * clamping coordinates at the image edges.
+   *
+   * @param sigma The standard deviation.
+   * @return The exact blurred values, unrounded.
+   */
+  private double[][][] exactBlur(double sigma) {
+    int radius = (int) Math.ceil(6 * sigma);
+    double[] kernel = new double[2 * radius + 1];
+    double total = 0;
+    for (int i = -radius; i <= radius; i++) {
+      kernel[i + radius] = Math.exp(-i * i / (2 * sigma * sigma));
+      total += kernel[i + radius];
+    }
+    for (int i = 0; i < kernel.length; i++) {
+      kernel[i] /= total;
+    }
+
+    double[][][] rows = new double[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          for (int i = -radius; i <= radius; i++) {
+            int sx = Math.max(0, Math.min(width - 1, x + i));
+            rows[y][x][c] += kernel[i + radius] * pixels[y][sx][c];
+          }
+        }
+      }
+    }
+    double[][][] result = new double[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          for (int i = -radius; i <= radius; i++) {
+            int sy = Math.max(0, Math.min(height - 1, y + i));
+            result[y][x][c] += kernel[i + radius] * rows[sy][x][c];
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testWithinOneLevelOfExactConvolution() {
+    ImageInterface image = new Image(width, height, 255, pixels);
+    for (double sigma : new double[]{0.5, 1.3, 4, 12}) {
+      double[][][] exact = exactBlur(sigma);
+      ImageInterface result = new GaussianBlurOperation(sigma).execute(image);
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          for (int c = 0; c < 3; c++) {
+            double difference = Math.abs(result.getChannelValue(x, y, c) - exact[y][x][c]);
+            assertTrue("sigma " + sigma + " at " + x + "," + y, difference <= 1.0);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testConstantImageStaysConstant() {
+    int[][][] constant = new int[5][7][3];
+    for (int[][] row : constant) {
+      for (int[] pixel : row) {
+        pixel[0] = 200;
+        pixel[1] = 17;
+        pixel[2] = 255;
+      }
+    }
+    ImageInterface result = new GaussianBlurOperation(3).execute(new Image(7, 5, 255, constant));
+    assertArrayEquals(constant, result.getPixels());
+  }
+
+  @Test
+  public void testSplitCommandKeepsRightHalf() {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("image", new Image(width, height, 255, pixels));
+    new CommandExecutor(model).executeCommand("gaussian-blur 2.5 image result split 50");
+    ImageInterface result = model.getImage("result");
+    for (int y = 0; y < height; y++) {
+      for (int x = width / 2; x < width; x++) {
+        assertEquals(pixels[y][x][0], result.getChannelValue(x, y, 0));
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testSigmaTooSmall() {
+    new GaussianBlurOperation(0.3);
+  }
+}
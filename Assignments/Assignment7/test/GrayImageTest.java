@@ -0,0 +1,135 @@
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ByteImage;
+import model.image.GrayImage;
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.ShortImage;
+import model.operationimpls.AdvancedImageProcessorImpl;
+import model.operationinterface.AdvancedImageProcessor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests single-channel gray images and the split, component and combine
+ * operations that produce and consume them.
+ */
+public class GrayImageTest {
+
+  private final AdvancedImageProcessor processor = new AdvancedImageProcessorImpl();
+
+  private final int[][][] pixels = {
+          {{10, 20, 30}, {40, 50, 60}},
+          {{200, 210, 220}, {250, 0, 255}}
+  };
+
+  private final ImageInterface image = ImageFactory.create(2, 2, 255, pixels);
+
+  @Test
+  public void testGrayImageRepeatsValueInEveryChannel() {
+    GrayImage gray = new GrayImage(2, 1, 255, new byte[]{7, (byte) 200});
+    assertArrayEquals(new int[]{7, 7, 7}, gray.getPixel(0, 0));
+    assertArrayEquals(new int[]{200, 200, 200}, gray.getPixel(1, 0));
+    assertEquals(8, gray.getBitDepth());
+    assertArrayEquals(new int[]{7, 200}, gray.readPlane(2));
+  }
+
+  @Test
+  public void testSixteenBitGrayImage() {
+    GrayImage gray = new GrayImage(1, 1, 65535, new short[]{(short) 60000});
+    assertEquals(16, gray.getBitDepth());
+    assertEquals(60000, gray.getChannelValue(0, 0, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEightBitGrayRejectsLargeMaxValue() {
+    new GrayImage(1, 1, 1000, new byte[]{0});
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGrayRejectsWrongPlaneSize() {
+    new GrayImage(2, 2, 255, new byte[3]);
+  }
+
+  @Test
+  public void testSplitProducesGrayChannels() {
+    ImageInterface[] channels = processor.split(image);
+    for (int c = 0; c < 3; c++) {
+      assertTrue(channels[c] instanceof GrayImage);
+      for (int y = 0; y < 2; y++) {
+        for (int x = 0; x < 2; x++) {
+          int expected = pixels[y][x][c];
+          assertArrayEquals(new int[]{expected, expected, expected},
+                  channels[c].getPixel(x, y));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSplitOfIntImageMatchesPlanarSplit() {
+    ImageInterface[] planar = processor.split(image);
+    ImageInterface[] unpacked = processor.split(new Image(2, 2, 255, pixels));
+    for (int c = 0; c < 3; c++) {
+      assertTrue(unpacked[c] instanceof GrayImage);
+      assertArrayEquals(planar[c].getPixels(), unpacked[c].getPixels());
+    }
+  }
+
+  @Test
+  public void testComponentsAreGray() {
+    for (String component : new String[]{"red", "green", "blue", "luma", "intensity",
+        "value"}) {
+      ImageInterface result = processor.extractComponent(image, component);
+      assertTrue(component, result instanceof GrayImage);
+      ImageInterface reference =
+              processor.extractComponent(new Image(2, 2, 255, pixels), component);
+      assertArrayEquals(component, reference.getPixels(), result.getPixels());
+    }
+  }
+
+  @Test
+  public void testSplitThenCombineRestoresImage() {
+    ImageInterface[] channels = processor.split(image);
+    ImageInterface combined = processor.combine(channels[0], channels[1], channels[2]);
+    assertTrue(combined instanceof ByteImage);
+    assertArrayEquals(pixels, combined.getPixels());
+  }
+
+  @Test
+  public void testSixteenBitSplitThenCombine() {
+    int[][][] deep = {{{65535, 1000, 0}, {1, 2, 3}}};
+    ImageInterface source = ImageFactory.create(2, 1, 65535, deep);
+    ImageInterface[] channels = processor.split(source);
+    assertEquals(16, ((PlanarImage) channels[0]).getBitDepth());
+    ImageInterface combined = processor.combine(channels[0], channels[1], channels[2]);
+    assertTrue(combined instanceof ShortImage);
+    assertArrayEquals(deep, combined.getPixels());
+  }
+
+  @Test
+  public void testBrightenKeepsGrayAndSepiaDoesNot() {
+    ImageInterface gray = processor.extractComponent(image, "luma");
+    ImageInterface brighter = processor.brighten(gray, 10);
+    assertTrue(brighter instanceof GrayImage);
+    assertEquals(gray.getChannelValue(1, 1, 0) + 10, brighter.getChannelValue(1, 1, 0));
+
+    ImageInterface toned = processor.sepia(gray);
+    assertTrue(toned.getChannelValue(0, 0, 0) != toned.getChannelValue(0, 0, 2));
+  }
+
+  @Test
+  public void testModelStoresGrayWithoutExpanding() {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("red", processor.split(image)[0]);
+    ImageInterface stored = model.getImage("red");
+    assertTrue(stored instanceof GrayImage);
+    assertEquals(200, stored.getChannelValue(0, 1, 2));
+  }
+}
@@ -0,0 +1,169 @@
+import controller.CommandExecutor;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ByteImage;
+import model.image.Histograms;
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.ShortImage;
+import model.operationimpls.HistogramOperation;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests deriving the histograms of point operation results without scanning them.
+ */
+public class HistogramPropagationTest {
+
+  /**
+   * Creates a random 8-bit image whose values avoid the extremes, so that brightening moves them.
+   *
+   * @param seed The random seed.
+   * @return The image.
+   */
+  private static ByteImage byteImage(long seed) {
+    return TestImages.randomByteImage(40, 30, 20, 219, seed);
+  }
+
+  /**
+   * Creates a random 16-bit image.
+   *
+   * @param seed The random seed.
+   * @return The image.
+   */
+  private static ShortImage shortImage(long seed) {
+    return TestImages.randomShortImage(40, 30, 4095, seed);
+  }
+
+  /**
+   * Checks that the histograms of a model image are known, and equal those found by scanning a
+   * copy of its pixels that has no cached data.
+   *
+   * @param model The model.
+   * @param name  The name of the image.
+   */
+  private static void assertDerived(ImageModelInterface model, String name) {
+    PlanarImage image = (PlanarImage) model.getImage(name);
+    assertTrue(name + " should have derived histograms", Histograms.isKnown(image));
+    int[][] planes = new int[3][];
+    for (int c = 0; c < 3; c++) {
+      planes[c] = image.readPlane(c);
+    }
+    PlanarImage fresh = (PlanarImage) ImageFactory.fromPlanes(image.getWidth(),
+            image.getHeight(), image.getMaxValue(), planes);
+    assertFalse(Histograms.isKnown(fresh));
+    int[][] expected = Histograms.of(fresh);
+    int[][] actual = Histograms.of(image);
+    for (int c = 0; c < 3; c++) {
+      assertArrayEquals(expected[c], actual[c]);
+    }
+  }
+
+  /**
+   * Runs a script on a model.
+   *
+   * @param model  The model.
+   * @param script The script.
+   * @throws IOException if the script fails
+   */
+  private static void run(ImageModelInterface model, String script) throws IOException {
+    new CommandExecutor(model).runScript(new StringReader(script));
+  }
+
+  @Test
+  public void testPointOperationsDeriveHistograms() throws IOException {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("img", byteImage(1));
+    run(model, "histogram img h\n"
+            + "brighten 30 img bright\n"
+            + "brighten -60 bright dark\n"
+            + "levels-adjust 20 100 200 dark levels\n"
+            + "color-correct levels corrected\n"
+            + "horizontal-flip corrected flipped\n"
+            + "brighten 5 flipped flipped-bright\n");
+    assertDerived(model, "bright");
+    assertDerived(model, "dark");
+    assertDerived(model, "levels");
+    assertDerived(model, "corrected");
+    assertDerived(model, "flipped-bright");
+  }
+
+  @Test
+  public void testDeepAndGrayImagesDeriveHistograms() throws IOException {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("deep", shortImage(2));
+    model.addImage("rgb", byteImage(3));
+    run(model, "histogram deep h\n"
+            + "brighten 300 deep bright\n"
+            + "luma-component rgb luma\n"
+            + "histogram luma h2\n"
+            + "brighten 12 luma gray-bright\n");
+    assertDerived(model, "bright");
+    assertDerived(model, "gray-bright");
+  }
+
+  @Test
+  public void testUnknownHistogramsAreNotDerived() throws IOException {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("img", byteImage(4));
+    run(model, "brighten 30 img bright\n");
+    assertFalse(Histograms.isKnown((PlanarImage) model.getImage("bright")));
+  }
+
+  @Test
+  public void testChartMatchesPerPixelImage() {
+    ByteImage planar = byteImage(5);
+    int[][][] pixels = new int[planar.getHeight()][planar.getWidth()][3];
+    for (int y = 0; y < planar.getHeight(); y++) {
+      for (int x = 0; x < planar.getWidth(); x++) {
+        for (int c = 0; c < 3; c++) {
+          pixels[y][x][c] = planar.getChannelValue(x, y, c);
+        }
+      }
+    }
+    ImageInterface expected = new HistogramOperation().execute(
+            new Image(planar.getWidth(), planar.getHeight(), 255, pixels));
+    ImageInterface brightened = planar.applyLookupTables(identityTables(255));
+    assertArrayEquals(expected.getPixels(), new HistogramOperation().execute(planar).getPixels());
+    assertArrayEquals(expected.getPixels(),
+            new HistogramOperation().execute(brightened).getPixels());
+  }
+
+  @Test
+  public void testOutOfRangeSampleIsRejected() {
+    byte[] plane = new byte[4];
+    plane[2] = (byte) 200;
+    ByteImage image = new ByteImage(2, 2, 100, new byte[][]{plane, plane, plane});
+    try {
+      Histograms.of(image);
+      fail("A sample above the maximum value should be rejected.");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertFalse(Histograms.isKnown(image));
+  }
+
+  /**
+   * Creates lookup tables that leave every value as it is.
+   *
+   * @param maxValue The maximum value.
+   * @return The tables.
+   */
+  private static int[][] identityTables(int maxValue) {
+    int[] table = new int[maxValue + 1];
+    for (int i = 0; i < table.length; i++) {
+      table[i] = i;
+    }
+    return new int[][]{table, table, table};
+  }
+}
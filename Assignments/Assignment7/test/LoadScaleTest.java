@@ -0,0 +1,107 @@
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A class that tests loading images at a reduced resolution.
+ */
+public class LoadScaleTest {
+
+  /**
+   * Writes an image to a temporary file that is deleted when the tests finish.
+   *
+   * @param image     The image.
+   * @param extension The file extension, which selects the format.
+   * @return The path to the file.
+   * @throws IOException If the file cannot be written.
+   */
+  private static String write(ImageInterface image, String extension) throws IOException {
+    File file = File.createTempFile("scale", "." + extension);
+    file.deleteOnExit();
+    ImageIOUtil.writeImage(image, file.getPath());
+    return file.getPath();
+  }
+
+  /**
+   * Checks that an image holds every {@code factor}-th pixel of every {@code factor}-th row of
+   * another.
+   *
+   * @param full       The full image.
+   * @param subsampled The subsampled image.
+   * @param factor     The subsampling factor.
+   */
+  private static void assertSubsampled(ImageInterface full, ImageInterface subsampled,
+                                       int factor) {
+    assertEquals((full.getWidth() + factor - 1) / factor, subsampled.getWidth());
+    assertEquals((full.getHeight() + factor - 1) / factor, subsampled.getHeight());
+    for (int y = 0; y < subsampled.getHeight(); y++) {
+      for (int x = 0; x < subsampled.getWidth(); x++) {
+        assertArrayEquals(full.getPixel(x * factor, y * factor), subsampled.getPixel(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testPpmSubsamplingSkipsRows() throws IOException {
+    ImageInterface image = TestImages.randomByteImage(23, 17, 1);
+    String path = write(image, "ppm");
+    for (int factor : new int[]{1, 2, 3, 5, 40}) {
+      assertSubsampled(image, ImageIOUtil.readImage(path, factor), factor);
+    }
+  }
+
+  @Test
+  public void testPngSubsampling() throws IOException {
+    ImageInterface image = TestImages.randomByteImage(37, 29, 2);
+    String path = write(image, "png");
+    assertSubsampled(image, ImageIOUtil.readImage(path, 4), 4);
+  }
+
+  @Test
+  public void testReadDimensions() throws IOException {
+    ImageInterface image = TestImages.randomByteImage(31, 9, 3);
+    for (String extension : new String[]{"ppm", "png", "jpg"}) {
+      assertArrayEquals(new int[]{31, 9},
+              ImageIOUtil.readDimensions(write(image, extension)));
+    }
+  }
+
+  @Test
+  public void testLoadScaleCommand() throws IOException {
+    ImageInterface image = TestImages.randomByteImage(40, 30, 4);
+    String path = write(image, "ppm");
+    ImageModelInterface model = new ImageModelImpl();
+    new CommandExecutor(model).executeCommand("load --scale 1/4 " + path + " small");
+    assertSubsampled(image, model.getImage("small"), 4);
+  }
+
+  @Test
+  public void testLoadMaxFitsWithinBox() throws IOException {
+    String path = write(TestImages.randomByteImage(201, 100, 5), "ppm");
+    ImageModelInterface model = new ImageModelImpl();
+    CommandExecutor executor = new CommandExecutor(model);
+    executor.executeCommand("load --max 100 100 " + path + " fit");
+    assertEquals(100, model.getImage("fit").getWidth());
+    assertEquals(50, model.getImage("fit").getHeight());
+
+    executor.executeCommand("load --max 500 500 " + path + " whole");
+    assertEquals(201, model.getImage("whole").getWidth());
+    assertEquals(100, model.getImage("whole").getHeight());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBadScaleIsRejected() {
+    new CommandExecutor(new ImageModelImpl()).createCommand(
+            new String[]{"load", "--scale", "2", "a.ppm", "a"});
+  }
+}
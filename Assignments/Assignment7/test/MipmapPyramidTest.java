@@ -0,0 +1,81 @@
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+import model.image.ImageInterface;
+import model.operationimpls.DownscaleOperation;
+import model.utilities.MipmapPyramid;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * A class that tests the area-averaging mipmap pyramid used for downscaling.
+ */
+public class MipmapPyramidTest {
+
+  /**
+   * Creates a black-and-white checkerboard with one-pixel squares.
+   *
+   * @param size The side length of the image.
+   * @return The checkerboard image.
+   */
+  private ImageInterface checkerboard(int size) {
+    int[][][] pixels = new int[size][size][3];
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        int value = (x + y) % 2 == 0 ? 255 : 0;
+        pixels[y][x] = new int[]{value, value, value};
+      }
+    }
+    return new Image(size, size, 255, pixels);
+  }
+
+  @Test
+  public void testLevelIsSmallestAboveTarget() {
+    MipmapPyramid pyramid = MipmapPyramid.of(checkerboard(64));
+    assertEquals(64, pyramid.levelFor(40, 40).getWidth());
+    assertEquals(32, pyramid.levelFor(32, 20).getWidth());
+    assertEquals(16, pyramid.levelFor(10, 16).getHeight());
+    assertEquals(1, pyramid.levelFor(1, 1).getWidth());
+  }
+
+  @Test
+  public void testLevelAveragesArea() {
+    ImageInterface level = MipmapPyramid.of(checkerboard(8)).levelFor(4, 4);
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 4; x++) {
+        assertArrayEquals(new int[]{128, 128, 128}, level.getPixel(x, y));
+      }
+    }
+  }
+
+  @Test
+  public void testOddDimensionsCoverEverySourcePixel() {
+    int[][][] pixels = {{{0, 0, 0}, {0, 0, 0}, {90, 90, 90}}};
+    ImageInterface level = MipmapPyramid.of(new Image(3, 1, 255, pixels)).levelFor(1, 1);
+    assertEquals(1, level.getWidth());
+    assertArrayEquals(new int[]{30, 30, 30}, level.getPixel(0, 0));
+  }
+
+  @Test
+  public void testLargeReductionDoesNotAlias() {
+    ImageInterface result = new DownscaleOperation(8, 8).execute(checkerboard(256));
+    for (int y = 0; y < 8; y++) {
+      for (int x = 0; x < 8; x++) {
+        assertEquals(128, result.getPixel(x, y)[0]);
+      }
+    }
+  }
+
+  @Test
+  public void testPyramidSharedByStoredImageClones() {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("board", checkerboard(32));
+    ImageInterface first = MipmapPyramid.of(model.getImage("board")).levelFor(8, 8);
+    ImageInterface second = MipmapPyramid.of(model.getImage("board")).levelFor(8, 8);
+    assertSame(first, second);
+  }
+}
@@ -0,0 +1,140 @@
+import model.ConcurrentImageModel;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares the throughput of {@link ConcurrentImageModel} with an {@link ImageModelImpl} behind
+ * one coarse lock, as the server used before, when many threads read and write images at once.
+ * Each thread works on a small set of shared names; a quarter of the operations store a new
+ * 256x256 image and the rest read one.
+ * Run with: java -cp (classes) ModelThroughputBenchmark [threads] [milliseconds]
+ */
+public class ModelThroughputBenchmark {
+
+  private static final int NAMES = 64;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally, the number of threads and the length of each round in milliseconds
+   * @throws InterruptedException if interrupted while waiting for the threads
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int threads = args.length > 0 ? Integer.parseInt(args[0])
+            : Runtime.getRuntime().availableProcessors();
+    long millis = args.length > 1 ? Long.parseLong(args[1]) : 2000;
+    ImageInterface image = gradient(256, 256);
+
+    for (int round = 0; round < 3; round++) {
+      double locked = measure(lockedModel(), image, threads, millis);
+      double concurrent = measure(new ConcurrentImageModel(), image, threads, millis);
+      System.out.printf("round %d, %d threads: coarse lock %.0f ops/s, concurrent %.0f ops/s "
+              + "(%.1fx)%n", round, threads, locked, concurrent, concurrent / locked);
+    }
+  }
+
+  /**
+   * Creates an 8-bit image with a gradient.
+   *
+   * @param width  The width.
+   * @param height The height.
+   * @return The image.
+   */
+  private static ImageInterface gradient(int width, int height) {
+    int[][] planes = new int[3][width * height];
+    for (int i = 0; i < width * height; i++) {
+      planes[0][i] = i % 256;
+      planes[1][i] = (i / width) % 256;
+      planes[2][i] = (i * 7) % 256;
+    }
+    return ImageFactory.fromPlanes(width, height, 255, planes);
+  }
+
+  /**
+   * Wraps an {@link ImageModelImpl} so that every call holds one lock.
+   *
+   * @return The locked model.
+   */
+  private static ImageModelInterface lockedModel() {
+    ImageModelInterface inner = new ImageModelImpl();
+    return new ImageModelInterface() {
+      @Override
+      public synchronized void addImage(String name, ImageInterface image) {
+        inner.addImage(name, image);
+      }
+
+      @Override
+      public synchronized ImageInterface getImage(String name) {
+        return inner.getImage(name);
+      }
+
+      @Override
+      public synchronized void removeImage(String name) {
+        inner.removeImage(name);
+      }
+    };
+  }
+
+  /**
+   * Measures the operations per second of a model under a read-mostly load from many threads.
+   * Stored images are unpacked int-based copies, so each write also pays for packing the image,
+   * as a write from a command would.
+   *
+   * @param model   The model.
+   * @param image   The image to store.
+   * @param threads The number of threads.
+   * @param millis  How long to run.
+   * @return The operations per second.
+   * @throws InterruptedException if interrupted while waiting for the threads
+   */
+  private static double measure(ImageModelInterface model, ImageInterface image, int threads,
+                                long millis) throws InterruptedException {
+    ImageInterface unpacked = new Image(image.getWidth(), image.getHeight(),
+            image.getMaxValue(), image.getPixels());
+    for (int i = 0; i < NAMES; i++) {
+      model.addImage("image" + i, image);
+    }
+    LongAdder operations = new LongAdder();
+    CountDownLatch start = new CountDownLatch(1);
+    long[] deadline = new long[1];
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread worker = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        long count = 0;
+        while (System.nanoTime() < deadline[0]) {
+          String name = "image" + random.nextInt(NAMES);
+          if (random.nextInt(4) == 0) {
+            model.addImage(name, unpacked);
+          } else {
+            model.getImage(name).getChannelValue(0, 0, 0);
+          }
+          count++;
+        }
+        operations.add(count);
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    deadline[0] = System.nanoTime() + millis * 1_000_000L;
+    start.countDown();
+    for (Thread worker : workers) {
+      worker.join();
+    }
+    return operations.sum() * 1000.0 / millis;
+  }
+}
@@ -0,0 +1,104 @@
+import controller.ImageIOUtil;
+import controller.streaming.ParallelPngWriter;
+import model.image.ByteImage;
+import model.image.Image;
+import model.image.ImageInterface;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A class that tests the parallel PNG writer against Java ImageIO's decoder.
+ */
+public class ParallelPngWriterTest {
+
+  /**
+   * Creates an 8-bit image with smooth gradients and some noise, so that every filter type and
+   * long matches across block boundaries occur.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param seed   The random seed.
+   * @return The image.
+   */
+  private static ImageInterface gradientImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    byte[][] planes = new byte[3][width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int noise = random.nextInt(8);
+        planes[0][y * width + x] = (byte) (x + noise);
+        planes[1][y * width + x] = (byte) (y * 3);
+        planes[2][y * width + x] = (byte) ((x ^ y) + noise);
+      }
+    }
+    return new ByteImage(width, height, 255, planes);
+  }
+
+  /**
+   * Creates a temporary file that is deleted when the tests finish.
+   *
+   * @return The path to the file.
+   * @throws IOException If the file cannot be created.
+   */
+  private static String tempFile() throws IOException {
+    File file = File.createTempFile("parallel", ".png");
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  @Test
+  public void testManyBlocksDecodeToSamePixels() throws IOException {
+    ImageInterface image = gradientImage(700, 300, 5);
+    String path = tempFile();
+    ParallelPngWriter.write(image, path);
+    assertArrayEquals(image.getPixels(), ImageIOUtil.readImage(path).getPixels());
+
+    BufferedImage decoded = ImageIO.read(new File(path));
+    assertEquals(700, decoded.getWidth());
+    assertEquals(300, decoded.getHeight());
+  }
+
+  @Test
+  public void testSingleRowAndSinglePixel() throws IOException {
+    for (ImageInterface image : new ImageInterface[]{gradientImage(50000, 1, 2),
+                                                     gradientImage(1, 1, 3)}) {
+      String path = tempFile();
+      ParallelPngWriter.write(image, path);
+      assertArrayEquals(image.getPixels(), ImageIOUtil.readImage(path).getPixels());
+    }
+  }
+
+  @Test
+  public void testDeepImagesAreRescaled() throws IOException {
+    int[][][] pixels = {{{0, 1000, 65535}, {32768, 257, 2}}};
+    String path = tempFile();
+    ImageIOUtil.writeImage(new Image(2, 1, 65535, pixels), path);
+    assertArrayEquals(new int[][][]{{{0, 4, 255}, {128, 1, 0}}},
+            ImageIOUtil.readImage(path).getPixels());
+  }
+
+  @Test
+  public void testSavedPngMatchesImageIoEncoding() throws IOException {
+    ImageInterface image = gradientImage(640, 480, 9);
+    String path = tempFile();
+    ImageIOUtil.writeImage(image, path);
+    BufferedImage decoded = ImageIO.read(new File(path));
+    for (int y = 0; y < 480; y += 7) {
+      for (int x = 0; x < 640; x += 5) {
+        int rgb = decoded.getRGB(x, y) & 0xFFFFFF;
+        int[] pixel = image.getPixel(x, y);
+        assertEquals((pixel[0] << 16) | (pixel[1] << 8) | pixel[2], rgb);
+      }
+    }
+  }
+}
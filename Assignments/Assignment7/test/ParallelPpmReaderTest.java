@@ -0,0 +1,186 @@
+import controller.ImageIOUtil;
+import controller.streaming.PpmRowReader;
+import model.image.ImageInterface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests decoding plain PPM files in parallel chunks.
+ */
+public class ParallelPpmReaderTest {
+
+  private File directory;
+
+  /**
+   * Creates an empty working directory.
+   *
+   * @throws IOException if the directory cannot be created
+   */
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("ppm-chunks").toFile();
+  }
+
+  /**
+   * Writes a text file into the working directory.
+   *
+   * @param name The file name.
+   * @param text The contents.
+   * @return The path of the file.
+   * @throws IOException if the file cannot be written
+   */
+  private String write(String name, CharSequence text) throws IOException {
+    File file = new File(directory, name);
+    Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.US_ASCII));
+    return file.getPath();
+  }
+
+  /**
+   * Creates a comment line of random text, including digits and spaces.
+   *
+   * @param random The random source.
+   * @param length The length of the text after the #.
+   * @return The comment, without its line break.
+   */
+  private static String comment(Random random, int length) {
+    StringBuilder text = new StringBuilder("#");
+    for (int i = 0; i < length; i++) {
+      text.append(" 0123456789#abc".charAt(random.nextInt(15)));
+    }
+    return text.toString();
+  }
+
+  /**
+   * Writes random samples as P3 text with irregular whitespace, line breaks of every kind, and
+   * comment lines both short and longer than a chunk.
+   *
+   * @param random   The random source.
+   * @param width    The width.
+   * @param height   The height.
+   * @param maxValue The maximum value.
+   * @param samples  Receives the samples in file order.
+   * @return The text of the file.
+   */
+  private static StringBuilder randomPpm(Random random, int width, int height, int maxValue,
+                                         int[] samples) {
+    String[] breaks = {"\n", "\r\n", "\r"};
+    StringBuilder text = new StringBuilder("P3\n# made by a test\n");
+    text.append(width).append(" \t").append(height).append("\n#\n").append(maxValue);
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = random.nextInt(maxValue + 1);
+      int gap = random.nextInt(60);
+      if (gap == 0) {
+        text.append(breaks[random.nextInt(3)]).append(comment(random, random.nextInt(30)));
+        text.append(breaks[random.nextInt(3)]);
+      } else if (gap == 1 && random.nextInt(800) == 0) {
+        text.append('\n').append(comment(random, 300_000 + random.nextInt(100_000))).append('\n');
+      } else if (gap < 8) {
+        text.append(breaks[random.nextInt(3)]);
+      } else {
+        text.append(gap < 12 ? "  " : gap < 14 ? "\t" : " ");
+      }
+      text.append(samples[i]);
+    }
+    return text.append('\n');
+  }
+
+  /**
+   * Checks that an image holds the given samples in row-major order.
+   *
+   * @param samples The samples, three per pixel.
+   * @param image   The image.
+   */
+  private static void assertSamples(int[] samples, ImageInterface image) {
+    int width = image.getWidth();
+    for (int i = 0; i < samples.length; i++) {
+      int pixel = i / 3;
+      assertEquals("sample " + i, samples[i],
+              image.getChannelValue(pixel % width, pixel / width, i % 3));
+    }
+  }
+
+  /**
+   * Reads a PPM file with the line-based row reader.
+   *
+   * @param path The path.
+   * @return The image.
+   * @throws IOException if the file cannot be read
+   */
+  private static ImageInterface readByRows(String path) throws IOException {
+    try (PpmRowReader reader = new PpmRowReader(path)) {
+      return reader.readBand(reader.getHeight());
+    }
+  }
+
+  @Test
+  public void testManyChunksWithComments() throws IOException {
+    Random random = new Random(1);
+    int[] samples = new int[420 * 310 * 3];
+    String path = write("big.ppm", randomPpm(random, 420, 310, 255, samples));
+    assertTrue(new File(path).length() > 8 * 256 * 1024);
+
+    ImageInterface image = ImageIOUtil.readPPM(path);
+    assertEquals(420, image.getWidth());
+    assertEquals(310, image.getHeight());
+    assertSamples(samples, image);
+    assertArrayEquals(readByRows(path).getPixels(), image.getPixels());
+  }
+
+  @Test
+  public void testDeepSamples() throws IOException {
+    Random random = new Random(2);
+    int[] samples = new int[200 * 150 * 3];
+    String path = write("deep.ppm", randomPpm(random, 200, 150, 65535, samples));
+    assertSamples(samples, ImageIOUtil.readPPM(path));
+  }
+
+  @Test
+  public void testSingleLineFile() throws IOException {
+    Random random = new Random(3);
+    StringBuilder text = new StringBuilder("#first\nP3 300 400 255");
+    int[] samples = new int[300 * 400 * 3];
+    for (int i = 0; i < samples.length; i++) {
+      samples[i] = random.nextInt(256);
+      text.append(' ').append(samples[i]);
+    }
+    String path = write("line.ppm", text.append(" 7 8 9"));
+    assertSamples(samples, ImageIOUtil.readPPM(path));
+  }
+
+  @Test
+  public void testInvalidFilesAreRejected() throws IOException {
+    assertRejected(write("short.ppm", "P3\n2 2\n255\n1 2 3 4 5 6\n"), "holds 6 of 12");
+    assertRejected(write("range.ppm", "P3\n1 1\n100\n1 200 3\n"), "outside the range");
+    assertRejected(write("word.ppm", "P3\n1 1\n255\n1 two 3\n"), "two");
+    assertRejected(write("hash.ppm", "P3\n1 1\n255\n1 2 #3 not a comment\n"), "#");
+    assertRejected(write("magic.ppm", "P6\n1 1\n255\n1 2 3\n"), "P3");
+    assertRejected(new File(directory, "missing.ppm").getPath(), "not found");
+  }
+
+  /**
+   * Checks that reading a file fails with a message that contains some text.
+   *
+   * @param path    The path of the file.
+   * @param message The expected text.
+   */
+  private static void assertRejected(String path, String message) {
+    try {
+      ImageIOUtil.readPPM(path);
+      fail("Reading " + path + " should fail.");
+    } catch (IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(message));
+    }
+  }
+}
@@ -0,0 +1,116 @@
+import controller.ImageIOUtil;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ByteImage;
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.ShortImage;
+import model.operationimpls.AdvancedImageProcessorImpl;
+import model.operationinterface.AdvancedImageProcessor;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the 8-bit and 16-bit planar image representations.
+ */
+public class PlanarImageTest {
+
+  private final AdvancedImageProcessor processor = new AdvancedImageProcessorImpl();
+
+  private final int[][][] pixels = {
+          {{10, 20, 30}, {40, 50, 60}},
+          {{200, 210, 220}, {250, 0, 255}}
+  };
+
+  @Test
+  public void testFactoryPicksByteImageForEightBit() {
+    ImageInterface image = ImageFactory.create(2, 2, 255, pixels);
+    assertTrue(image instanceof ByteImage);
+    assertArrayEquals(pixels, image.getPixels());
+  }
+
+  @Test
+  public void testFactoryPicksShortImageForSixteenBit() {
+    int[][][] deep = {{{65535, 1000, 0}}};
+    ImageInterface image = ImageFactory.create(1, 1, 65535, deep);
+    assertTrue(image instanceof ShortImage);
+    assertEquals(65535, image.getChannelValue(0, 0, 0));
+    assertEquals(1000, image.getChannelValue(0, 0, 1));
+  }
+
+  @Test
+  public void testFactoryKeepsOutOfRangeValues() {
+    int[][][] invalid = {{{300, 0, 0}}};
+    ImageInterface image = ImageFactory.create(1, 1, 255, invalid);
+    assertTrue(image instanceof Image);
+    assertEquals(300, image.getPixel(0, 0)[0]);
+  }
+
+  @Test
+  public void testModelStoresCompactCopy() {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("img", new Image(2, 2, 255, pixels));
+    ImageInterface stored = model.getImage("img");
+    assertTrue(stored instanceof ByteImage);
+    stored.getPixels()[0][0][0] = 0;
+    assertEquals(10, model.getImage("img").getPixel(0, 0)[0]);
+  }
+
+  @Test
+  public void testLookupOperationsMatchIntImage() {
+    ImageInterface intImage = new Image(2, 2, 255, pixels);
+    ImageInterface byteImage = ImageFactory.create(2, 2, 255, pixels);
+
+    assertArrayEquals(processor.brighten(intImage, 30).getPixels(),
+            processor.brighten(byteImage, 30).getPixels());
+    assertArrayEquals(processor.brighten(intImage, -45).getPixels(),
+            processor.brighten(byteImage, -45).getPixels());
+    assertArrayEquals(processor.adjustLevels(intImage, 20, 100, 230).getPixels(),
+            processor.adjustLevels(byteImage, 20, 100, 230).getPixels());
+    assertArrayEquals(processor.colorCorrect(intImage).getPixels(),
+            processor.colorCorrect(byteImage).getPixels());
+  }
+
+  @Test
+  public void testBrightenSixteenBitClampsToMaxValue() {
+    int[][][] deep = {{{60000, 100, 4000}}};
+    ImageInterface image = ImageFactory.create(1, 1, 65535, deep);
+    ImageInterface result = processor.brighten(image, 6000);
+    assertTrue(result instanceof ShortImage);
+    assertArrayEquals(new int[]{65535, 6100, 10000}, result.getPixel(0, 0));
+  }
+
+  @Test
+  public void testReadSixteenBitPPM() throws IOException {
+    File tempFile = File.createTempFile("test_image_16", ".ppm");
+    tempFile.deleteOnExit();
+    try (PrintWriter out = new PrintWriter(tempFile)) {
+      out.print("P3\n2 1\n65535\n65535 0 32768   1 2 3\n");
+    }
+
+    ImageInterface image = ImageIOUtil.readImage(tempFile.getAbsolutePath());
+
+    assertTrue(image instanceof ShortImage);
+    assertEquals(65535, image.getMaxValue());
+    assertArrayEquals(new int[][][]{{{65535, 0, 32768}, {1, 2, 3}}}, image.getPixels());
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadPPMRejectsValueAboveMax() throws IOException {
+    File tempFile = File.createTempFile("test_image_invalid", ".ppm");
+    tempFile.deleteOnExit();
+    try (PrintWriter out = new PrintWriter(tempFile)) {
+      out.print("P3\n1 1\n255\n256 0 0\n");
+    }
+    ImageIOUtil.readImage(tempFile.getAbsolutePath());
+  }
+}
@@ -0,0 +1,78 @@
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.operationimpls.ComponentOperation;
+import model.operationimpls.SepiaOperation;
+import model.operationimpls.BlurOperation;
+import model.operationimpls.SharpenOperation;
+import model.utilities.KernelApplier;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests that the plane-at-a-time kernels round exactly like the per-pixel code.
+ * Each operation is run on an int-based {@link Image}, which takes the per-pixel path, and on
+ * the same pixels packed into a {@link PlanarImage}, which takes the planar path.
+ */
+public class PlanarKernelsTest {
+
+  /**
+   * Checks that the scalar and planar paths of each operation agree for the given image size.
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value of the image.
+   */
+  private void assertPathsAgree(int width, int height, int maxValue) {
+    int[][][] pixels = TestImages.randomPixels(width, height, maxValue, width * 31L + height);
+    ImageInterface scalar = new Image(width, height, maxValue, pixels);
+    ImageInterface planar = ImageFactory.create(width, height, maxValue, pixels);
+    assertTrue(planar instanceof PlanarImage);
+
+    assertArrayEquals(new SepiaOperation().execute(scalar).getPixels(),
+            new SepiaOperation().execute(planar).getPixels());
+    assertArrayEquals(new BlurOperation().execute(scalar).getPixels(),
+            new BlurOperation().execute(planar).getPixels());
+    assertArrayEquals(new SharpenOperation().execute(scalar).getPixels(),
+            new SharpenOperation().execute(planar).getPixels());
+    for (String component : new String[]{"red", "green", "blue", "luma", "intensity", "value"}) {
+      assertArrayEquals(new ComponentOperation(component).execute(scalar).getPixels(),
+              new ComponentOperation(component).execute(planar).getPixels());
+    }
+  }
+
+  @Test
+  public void testEightBitPathsAgree() {
+    assertPathsAgree(37, 23, 255);
+  }
+
+  @Test
+  public void testSixteenBitPathsAgree() {
+    assertPathsAgree(19, 11, 65535);
+  }
+
+  @Test
+  public void testImagesSmallerThanKernel() {
+    assertPathsAgree(1, 1, 255);
+    assertPathsAgree(2, 7, 255);
+  }
+
+  @Test
+  public void testAsymmetricKernelAgrees() {
+    double[][] kernel = {
+            {0.1, -0.25, 0.3},
+            {0.05, 0.6, -0.1},
+            {0.2, 0.0, -0.35},
+            {0.15, 0.4, 0.01},
+            {-0.2, 0.125, 0.33}
+    };
+    int[][][] pixels = TestImages.randomPixels(13, 9, 255, 42);
+    assertArrayEquals(KernelApplier.applyKernel(new Image(13, 9, 255, pixels), kernel).getPixels(),
+            KernelApplier.applyKernel(ImageFactory.create(13, 9, 255, pixels), kernel)
+                    .getPixels());
+  }
+}
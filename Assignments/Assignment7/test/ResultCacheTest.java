@@ -0,0 +1,142 @@
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.operationimpls.AdvancedImageProcessorImpl;
+import model.utilities.ContentHash;
+import model.utilities.ResultCache;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the content hash and the result cache of the image processor.
+ */
+public class ResultCacheTest {
+
+  private final int[][][] pixels = TestImages.randomPixels(20, 10, 255, 3);
+
+  /**
+   * Tests that images with equal pixels have equal hashes, whatever their storage, and that a
+   * single changed sample changes the hash.
+   */
+  @Test
+  public void testContentHash() {
+    ImageInterface first = ImageFactory.create(20, 10, 255, pixels);
+    ImageInterface second = ImageFactory.compact(new Image(20, 10, 255, pixels));
+    assertEquals(ContentHash.of(first), ContentHash.of(second));
+    assertEquals(ContentHash.of(first), ContentHash.of(first.clone()));
+
+    int[][][] changed = TestImages.randomPixels(20, 10, 255, 3);
+    changed[9][19][2] ^= 1;
+    assertNotEquals(ContentHash.of(first),
+            ContentHash.of(ImageFactory.create(20, 10, 255, changed)));
+    assertNull(ContentHash.of(new Image(20, 10, 255, pixels)));
+  }
+
+  /**
+   * Tests that repeating an operation on an equal image returns the earlier result, and that
+   * different parameters do not.
+   */
+  @Test
+  public void testRepeatedOperationHits() {
+    AdvancedImageProcessorImpl processor =
+            new AdvancedImageProcessorImpl(new ResultCache(1 << 20));
+    ImageInterface image = ImageFactory.create(20, 10, 255, pixels);
+
+    ImageInterface blurred = processor.gaussianBlur(image, 1.5);
+    assertSame(blurred, processor.gaussianBlur(ImageFactory.create(20, 10, 255, pixels), 1.5));
+    assertNotSame(blurred, processor.gaussianBlur(image, 2.0));
+
+    ResultCache cache = processor.getResultCache();
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(2, cache.size());
+  }
+
+  /**
+   * Tests that a kernel is keyed by its values, so an equal kernel in a different array hits.
+   */
+  @Test
+  public void testEqualKernelsHit() {
+    AdvancedImageProcessorImpl processor =
+            new AdvancedImageProcessorImpl(new ResultCache(1 << 20));
+    ImageInterface image = ImageFactory.create(20, 10, 255, pixels);
+
+    ImageInterface filtered = processor.convolve(image, new double[][]{{0, 0.5}, {0.25, 0.25}});
+    assertSame(filtered, processor.convolve(image, new double[][]{{0, 0.5}, {0.25, 0.25}}));
+    assertNotSame(filtered, processor.convolve(image, new double[][]{{0, 0.5}, {0.5, 0}}));
+
+    ResultCache cache = processor.getResultCache();
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  /**
+   * Tests that cached results equal freshly computed ones, including chains of operations whose
+   * intermediate results are hashed by derivation.
+   */
+  @Test
+  public void testCachedResultsMatchUncached() {
+    AdvancedImageProcessorImpl cached = new AdvancedImageProcessorImpl(new ResultCache(1 << 20));
+    AdvancedImageProcessorImpl uncached = new AdvancedImageProcessorImpl(new ResultCache(0));
+    ImageInterface image = ImageFactory.create(20, 10, 255, pixels);
+    double[][] kernel = {{0, 1, 0}, {1, -4, 1}, {0, 1, 0}};
+
+    for (int round = 0; round < 2; round++) {
+      ImageInterface expected = uncached.sepia(uncached.convolve(uncached.brighten(image, 20),
+              kernel));
+      ImageInterface actual = cached.sepia(cached.convolve(cached.brighten(image, 20), kernel));
+      assertArrayEquals(expected.getPixels(), actual.getPixels());
+    }
+    assertEquals(3, cached.getResultCache().getHits());
+    assertEquals(0, uncached.getResultCache().getHits());
+  }
+
+  /**
+   * Tests that the least recently used result is evicted once the budget is exceeded.
+   */
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    long imageBytes = 20 * 10 * 3;
+    AdvancedImageProcessorImpl processor =
+            new AdvancedImageProcessorImpl(new ResultCache(2 * imageBytes));
+    ImageInterface image = ImageFactory.create(20, 10, 255, pixels);
+
+    processor.brighten(image, 1);
+    processor.brighten(image, 2);
+    processor.brighten(image, 1);
+    processor.brighten(image, 3);
+    ResultCache cache = processor.getResultCache();
+    assertEquals(1, cache.getEvictions());
+    assertEquals(2 * imageBytes, cache.getBytes());
+
+    processor.brighten(image, 1);
+    assertEquals(2, cache.getHits());
+    processor.brighten(image, 2);
+    assertEquals(2, cache.getHits());
+    assertTrue(cache.toString().contains("2 hits"));
+  }
+
+  /**
+   * Tests that images that can change after they are passed in are never served from the cache.
+   */
+  @Test
+  public void testMutableImagesAreNotCached() {
+    AdvancedImageProcessorImpl processor =
+            new AdvancedImageProcessorImpl(new ResultCache(1 << 20));
+    int[][][] mutable = TestImages.randomPixels(20, 10, 255, 3);
+    ImageInterface image = new Image(20, 10, 255, mutable);
+    ImageInterface before = processor.blur(image);
+    mutable[0][0][0] = mutable[0][0][0] < 128 ? 255 : 0;
+    ImageInterface after = processor.blur(image);
+    assertNotEquals(before.getChannelValue(0, 0, 0), after.getChannelValue(0, 0, 0));
+    assertEquals(0, processor.getResultCache().size());
+  }
+}
@@ -0,0 +1,155 @@
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import controller.script.ScriptCache;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+import model.image.ImageInterface;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the persistent cache that lets re-run scripts skip unchanged lines.
+ */
+public class ScriptCacheTest {
+
+  private File directory;
+  private File input;
+  private File cacheDirectory;
+
+  /**
+   * Creates a random image.
+   *
+   * @param seed The random seed.
+   * @return The image.
+   */
+  private static ImageInterface randomImage(long seed) {
+    return new Image(16, 12, 255, TestImages.randomPixels(16, 12, 255, seed));
+  }
+
+  /**
+   * Writes an input image and creates an empty cache directory.
+   *
+   * @throws IOException if the files cannot be created
+   */
+  @Before
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("script-cache").toFile();
+    input = new File(directory, "input.ppm");
+    cacheDirectory = new File(directory, "cache");
+    ImageIOUtil.writePPM(randomImage(1), input.getPath());
+  }
+
+  /**
+   * Runs a script in a fresh model with a cache over the test's cache directory.
+   *
+   * @param script   The script.
+   * @param maxBytes The size limit of the cache.
+   * @param model    The model to run the script on.
+   * @return The cache, for its statistics.
+   */
+  private ScriptCache run(String script, long maxBytes, ImageModelInterface model) {
+    ScriptCache cache = new ScriptCache(cacheDirectory, maxBytes);
+    CommandExecutor executor = new CommandExecutor(model);
+    executor.setScriptCache(cache);
+    executor.runScript(new StringReader(script));
+    return cache;
+  }
+
+  /**
+   * Builds a script that loads the input, applies some lines and saves the result.
+   *
+   * @param last The line that produces the saved image "out" from "b".
+   * @return The script.
+   */
+  private String script(String last) {
+    return "load " + input.getPath() + " img\n"
+            + "brighten 10 img a\n"
+            + "gaussian-blur 1.5 a b\n"
+            + last + "\n"
+            + "save " + new File(directory, "out.ppm").getPath() + " out\n";
+  }
+
+  @Test
+  public void testRerunReusesEveryLine() throws IOException {
+    ImageModelInterface first = new ImageModelImpl();
+    ScriptCache cold = run(script("sepia b out"), 1 << 30, first);
+    assertEquals(0, cold.getHits());
+    assertEquals(4, cold.getMisses());
+    ImageInterface expected = ImageIOUtil.readPPM(new File(directory, "out.ppm").getPath());
+
+    new File(directory, "out.ppm").delete();
+    ImageModelInterface second = new ImageModelImpl();
+    ScriptCache warm = run(script("sepia b out"), 1 << 30, second);
+    assertEquals(4, warm.getHits());
+    assertEquals(0, warm.getMisses());
+    assertArrayEquals(expected.getPixels(),
+            ImageIOUtil.readPPM(new File(directory, "out.ppm").getPath()).getPixels());
+    for (String name : new String[]{"img", "a", "b", "out"}) {
+      assertArrayEquals(first.getImage(name).getPixels(), second.getImage(name).getPixels());
+    }
+  }
+
+  @Test
+  public void testChangedLineRunsOnlyItself() {
+    run(script("sepia b out"), 1 << 30, new ImageModelImpl());
+    ImageModelInterface model = new ImageModelImpl();
+    ScriptCache cache = run(script("sharpen b out"), 1 << 30, model);
+    assertEquals(3, cache.getHits());
+    assertEquals(1, cache.getMisses());
+
+    ImageModelInterface uncached = new ImageModelImpl();
+    new CommandExecutor(uncached).runScript(new StringReader(script("sharpen b out")));
+    assertArrayEquals(uncached.getImage("out").getPixels(), model.getImage("out").getPixels());
+  }
+
+  @Test
+  public void testChangedInputFileRunsEveryLine() throws IOException {
+    run(script("sepia b out"), 1 << 30, new ImageModelImpl());
+    ImageIOUtil.writePPM(randomImage(2), input.getPath());
+    ScriptCache cache = run(script("sepia b out"), 1 << 30, new ImageModelImpl());
+    assertEquals(0, cache.getHits());
+    assertEquals(4, cache.getMisses());
+  }
+
+  @Test
+  public void testTrimKeepsSizeLimit() {
+    run(script("sepia b out"), 4096, new ImageModelImpl());
+    long total = 0;
+    for (File file : cacheDirectory.listFiles()) {
+      total += file.length();
+    }
+    assertTrue(total <= 4096);
+  }
+
+  @Test
+  public void testEditedNestedScriptIsNotReused() throws IOException {
+    File inner = new File(directory, "inner.txt");
+    File out = new File(directory, "out.ppm");
+    String outer = "load " + input.getPath() + " img\n"
+            + "run " + inner.getPath() + "\n"
+            + "brighten 1 img out\n"
+            + "save " + out.getPath() + " out\n";
+    Files.write(inner.toPath(), "brighten 10 img img\n".getBytes());
+    run(outer, 1 << 30, new ImageModelImpl());
+
+    Files.write(inner.toPath(), "brighten 100 img img\n".getBytes());
+    ImageModelInterface model = new ImageModelImpl();
+    run(outer, 1 << 30, model);
+    ImageModelInterface uncached = new ImageModelImpl();
+    new CommandExecutor(uncached).runScript(new StringReader(outer));
+    assertArrayEquals(uncached.getImage("out").getPixels(), model.getImage("out").getPixels());
+    assertArrayEquals(uncached.getImage("out").getPixels(),
+            ImageIOUtil.readPPM(out.getPath()).getPixels());
+  }
+}
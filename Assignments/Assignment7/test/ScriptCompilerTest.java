@@ -0,0 +1,112 @@
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import controller.script.CompiledScript;
+import controller.script.ScriptCompiler;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+import model.image.ImageInterface;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests compiled scripts with variables, repeat blocks and loops over directories.
+ */
+public class ScriptCompilerTest {
+
+  private final ImageModelInterface model = new ImageModelImpl();
+  private final CommandExecutor executor = new CommandExecutor(model);
+
+  /**
+   * Creates a one-pixel image.
+   *
+   * @param value The value of all three channels.
+   * @return The image.
+   */
+  private static ImageInterface pixel(int value) {
+    return new Image(1, 1, 255, new int[][][]{{{value, value, value}}});
+  }
+
+  @Test
+  public void testRepeatRunsBodyWithoutReparsing() {
+    model.addImage("a", pixel(10));
+    CompiledScript script = ScriptCompiler.compile(new StringReader(
+            "set step 3\nrepeat 4\n  brighten $step a a\nend\n"), executor);
+    assertEquals(2, script.getStepCount());
+    script.run();
+    assertArrayEquals(new int[]{22, 22, 22}, model.getImage("a").getPixel(0, 0));
+    script.run();
+    assertArrayEquals(new int[]{34, 34, 34}, model.getImage("a").getPixel(0, 0));
+  }
+
+  @Test
+  public void testNestedBlocks() {
+    model.addImage("a", pixel(0));
+    executor.runScript(new StringReader(
+            "repeat 2\n repeat 3\n  brighten 1 a a\n end\n brighten 10 a a\nend\n"));
+    assertArrayEquals(new int[]{26, 26, 26}, model.getImage("a").getPixel(0, 0));
+  }
+
+  @Test
+  public void testForEachFileInDirectory() throws IOException {
+    File input = Files.createTempDirectory("script-in").toFile();
+    File output = Files.createTempDirectory("script-out").toFile();
+    ImageIOUtil.writePPM(pixel(40), new File(input, "b.ppm").getPath());
+    ImageIOUtil.writePPM(pixel(20), new File(input, "a.ppm").getPath());
+    Files.write(new File(input, "notes.txt").toPath(), "not an image".getBytes());
+
+    executor.runScript(new StringReader("set out " + output.getPath() + "\n"
+            + "for each file in " + input.getPath() + "\n"
+            + "  load $file img\n"
+            + "  brighten 5 img img\n"
+            + "  save ${out}/${file.name}-bright.ppm img\n"
+            + "end\n"));
+
+    assertArrayEquals(new int[]{25, 25, 25},
+            ImageIOUtil.readPPM(new File(output, "a-bright.ppm").getPath()).getPixel(0, 0));
+    assertArrayEquals(new int[]{45, 45, 45},
+            ImageIOUtil.readPPM(new File(output, "b-bright.ppm").getPath()).getPixel(0, 0));
+    assertEquals(2, output.list().length);
+  }
+
+  @Test
+  public void testBadLineFailsOnlyWhenReached() {
+    model.addImage("a", pixel(0));
+    try {
+      executor.runScript(new StringReader("brighten 7 a b\nbrighten a\nsepia a c\n"));
+      fail("Expected the malformed line to fail.");
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().startsWith("Error executing command in script: Usage"));
+    }
+    assertNotNull(model.getImage("b"));
+    assertNull(model.getImage("c"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingEnd() {
+    ScriptCompiler.compile(new StringReader("repeat 2\nbrighten 1 a a\n"), executor);
+  }
+
+  @Test
+  public void testUndefinedVariable() {
+    model.addImage("a", pixel(0));
+    try {
+      executor.runScript(new StringReader("brighten $missing a a\n"));
+      fail("Expected the undefined variable to fail.");
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().endsWith("Undefined variable: missing"));
+    }
+  }
+}
@@ -0,0 +1,58 @@
+import controller.CommandExecutor;
+import controller.script.CompiledScript;
+import controller.script.ScriptCompiler;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+
+import java.io.StringReader;
+
+/**
+ * Measures the per-command dispatch overhead of scripts: executing each line through
+ * {@link CommandExecutor#executeCommand}, which tokenizes the line, looks up the command and
+ * builds a new command object every time, against running a compiled script that parsed the
+ * line once.
+ * The command brightens a one-pixel image, so nearly all of the measured time is dispatch.
+ * Run with: java -cp (classes) ScriptDispatchBenchmark [commands]
+ */
+public class ScriptDispatchBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally, the number of commands to time in each round
+   */
+  public static void main(String[] args) {
+    int commands = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("a", new Image(1, 1, 255, new int[][][]{{{0, 0, 0}}}));
+    CommandExecutor executor = new CommandExecutor(model);
+    String line = "brighten 0 a b";
+    CompiledScript constant = ScriptCompiler.compile(
+            new StringReader("repeat " + commands + "\n" + line + "\nend\n"), executor);
+    CompiledScript variable = ScriptCompiler.compile(
+            new StringReader("set n 0\nrepeat " + commands + "\nbrighten $n a b\nend\n"),
+            executor);
+
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      for (int i = 0; i < commands; i++) {
+        executor.executeCommand(line);
+      }
+      long interpreted = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      constant.run();
+      long compiled = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      variable.run();
+      long substituted = System.nanoTime() - start;
+
+      System.out.printf("round %d: interpreted %.0f ns, compiled %.0f ns, "
+                      + "compiled with variables %.0f ns per command%n", round,
+              (double) interpreted / commands, (double) compiled / commands,
+              (double) substituted / commands);
+    }
+  }
+}
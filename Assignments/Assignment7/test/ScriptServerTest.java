@@ -0,0 +1,208 @@
+import controller.CommandExecutor;
+import controller.server.ScriptServer;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.Image;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A class that tests the daemon mode and its socket protocol.
+ */
+public class ScriptServerTest {
+
+  private ImageModelInterface model;
+  private ScriptServer server;
+  private Thread serverThread;
+  private Path tokenFile;
+
+  /**
+   * Starts a server on a free port, with its token file in a new directory.
+   *
+   * @throws IOException if the port cannot be opened or the token cannot be written
+   */
+  @Before
+  public void setUp() throws IOException {
+    model = new ImageModelImpl();
+    model.addImage("a", new Image(1, 1, 255, new int[][][]{{{10, 20, 30}}}));
+    tokenFile = Files.createTempDirectory("image-server").resolve("server.token");
+    server = new ScriptServer(model, 0, tokenFile);
+    serverThread = new Thread(() -> {
+      try {
+        server.serve();
+      } catch (IOException e) {
+        // Stopped.
+      }
+    });
+    serverThread.start();
+  }
+
+  /**
+   * Stops the server.
+   *
+   * @throws InterruptedException if interrupted while waiting for the server to stop
+   */
+  @After
+  public void tearDown() throws InterruptedException {
+    server.shutdown();
+    serverThread.join(5000);
+  }
+
+  /**
+   * Sends the token and then requests on one connection, and collects every line of the answers
+   * after the one to the token.
+   *
+   * @param requests the request lines
+   * @return the answer lines
+   * @throws IOException if the connection fails
+   */
+  private List<String> exchange(String... requests) throws IOException {
+    String token = new String(Files.readAllBytes(tokenFile), StandardCharsets.US_ASCII);
+    List<String> answers = send("auth " + token, requests);
+    assertEquals("OK", answers.remove(0));
+    return answers;
+  }
+
+  /**
+   * Sends a first line and then requests on one connection, and collects every line of the
+   * answers.
+   *
+   * @param first    the first line
+   * @param requests the request lines
+   * @return the answer lines
+   * @throws IOException if the connection fails
+   */
+  private List<String> send(String first, String... requests) throws IOException {
+    List<String> answers = new ArrayList<>();
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+         BufferedReader in = new BufferedReader(new InputStreamReader(
+                 socket.getInputStream(), StandardCharsets.UTF_8));
+         PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                 socket.getOutputStream(), StandardCharsets.UTF_8))) {
+      out.print(first + "\n");
+      for (String request : requests) {
+        out.print(request + "\n");
+      }
+      out.print("exit\n");
+      out.flush();
+      String line;
+      while ((line = in.readLine()) != null) {
+        answers.add(line);
+      }
+    }
+    return answers;
+  }
+
+  @Test
+  public void testSingleCommands() throws IOException {
+    List<String> answers = exchange("brighten 5 a b", "# comment", "", "unknown-command x");
+    assertEquals("OK", answers.get(0));
+    assertTrue(answers.get(1).startsWith("ERROR "));
+    assertTrue(answers.get(1).contains("unknown-command"));
+    assertEquals("OK", answers.get(2));
+    assertArrayEquals(new int[]{15, 25, 35}, model.getImage("b").getPixel(0, 0));
+  }
+
+  @Test
+  public void testScriptRequestSharesModelAcrossConnections() throws IOException {
+    List<String> first = exchange("script", "set step 2", "repeat 3",
+            "  brighten $step a a", "end", ".");
+    assertEquals("OK", first.get(0));
+    List<String> second = exchange("brighten 1 a c");
+    assertEquals("OK", second.get(0));
+    assertArrayEquals(new int[]{17, 27, 37}, model.getImage("c").getPixel(0, 0));
+  }
+
+  @Test
+  public void testExitInsideScriptDoesNotStopServer() throws IOException {
+    List<String> answers = exchange("script", "brighten 1 a a", "exit", "brighten 100 a a", ".",
+            "brighten 1 a a");
+    assertEquals("OK", answers.get(0));
+    assertEquals("OK", answers.get(1));
+    assertArrayEquals(new int[]{12, 22, 32}, model.getImage("a").getPixel(0, 0));
+  }
+
+  @Test
+  public void testConcurrentClients() throws Exception {
+    int clients = 8;
+    int requests = 25;
+    ExecutorService pool = Executors.newFixedThreadPool(clients);
+    List<Future<List<String>>> results = new ArrayList<>();
+    for (int i = 0; i < clients; i++) {
+      String[] lines = new String[requests];
+      for (int j = 0; j < requests; j++) {
+        lines[j] = "brighten 1 a a";
+      }
+      results.add(pool.submit(() -> exchange(lines)));
+    }
+    for (Future<List<String>> result : results) {
+      List<String> answers = result.get();
+      assertEquals(requests + 1, answers.size());
+      for (String answer : answers) {
+        assertEquals("OK", answer);
+      }
+    }
+    pool.shutdown();
+    assertArrayEquals(new int[]{210, 220, 230}, model.getImage("a").getPixel(0, 0));
+  }
+
+  @Test
+  public void testExitActionThatReturnsEndsTheCommand() {
+    CommandExecutor executor = new CommandExecutor(model);
+    int[] exits = new int[1];
+    executor.setExitAction(() -> exits[0]++);
+    executor.executeCommand("exit");
+    executor.executeCommand("brighten 1 a b");
+    assertEquals(1, exits[0]);
+    assertArrayEquals(new int[]{11, 21, 31}, model.getImage("b").getPixel(0, 0));
+  }
+
+  @Test
+  public void testConnectionsWithoutTokenAreRefused() throws IOException {
+    List<String> answers = send("auth 0123", "shutdown");
+    assertEquals(1, answers.size());
+    assertTrue(answers.get(0).startsWith("ERROR "));
+    answers = send("brighten 5 a b");
+    assertEquals(1, answers.size());
+    assertTrue(answers.get(0).startsWith("ERROR "));
+    assertEquals(null, model.getImage("b"));
+
+    assertEquals("OK", exchange("brighten 5 a b").get(0));
+  }
+
+  @Test
+  public void testTokenFileIsPrivateAndRemovedOnShutdown() throws IOException {
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      assertEquals("rw-------",
+              PosixFilePermissions.toString(Files.getPosixFilePermissions(tokenFile)));
+    }
+    assertEquals(64, Files.readAllBytes(tokenFile).length);
+    exchange("shutdown");
+    assertFalse(Files.exists(tokenFile));
+  }
+}
@@ -0,0 +1,102 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long a script run of the application takes from launching the JVM to its exit,
+ * for a tiny PPM script and a tiny PNG script, where startup dominates the time.
+ * Each configuration is launched a number of times in fresh JVMs and the median is reported.
+ * Given a class-data sharing archive built by resources/build-cds.sh, the runs are repeated
+ * with the archive so the two can be compared. Passing the classpath of an older build
+ * measures that build instead.
+ * Run with: java -cp (classes) StartupBenchmark [runs] [classpath] [archive]
+ */
+public class StartupBenchmark {
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args optionally, the number of runs, the classpath of the application to launch and
+   *             the path of a class-data sharing archive for it
+   * @throws Exception if the application cannot be launched
+   */
+  public static void main(String[] args) throws Exception {
+    int runs = args.length > 0 ? Integer.parseInt(args[0]) : 15;
+    String classpath = args.length > 1 ? args[1] : System.getProperty("java.class.path");
+    String archive = args.length > 2 ? args[2] : null;
+
+    Path work = Files.createTempDirectory("startup");
+    Path image = work.resolve("tiny.ppm");
+    try (PrintWriter writer = new PrintWriter(image.toFile())) {
+      writer.println("P3\n2 2\n255\n0 0 0 255 0 0\n0 255 0 0 0 255");
+    }
+    Path ppmScript = script(work, "ppm.txt", "load " + image + " a\nbrighten 10 a b\n"
+            + "sepia b c\nsave " + work.resolve("out.ppm") + " c\n");
+    Path pngScript = script(work, "png.txt", "load " + image + " a\nbrighten 10 a b\n"
+            + "save " + work.resolve("out.png") + " b\n");
+
+    report("ppm script", classpath, null, ppmScript, runs);
+    report("png script", classpath, null, pngScript, runs);
+    if (archive != null) {
+      report("ppm script, shared archive", classpath, archive, ppmScript, runs);
+      report("png script, shared archive", classpath, archive, pngScript, runs);
+    }
+  }
+
+  /**
+   * Writes a script file.
+   *
+   * @param directory the directory to write it to
+   * @param name      the file name
+   * @param text      the script
+   * @return the path of the script
+   * @throws IOException if the file cannot be written
+   */
+  private static Path script(Path directory, String name, String text) throws IOException {
+    Path path = directory.resolve(name);
+    Files.write(path, text.getBytes());
+    return path;
+  }
+
+  /**
+   * Launches the application on a script a number of times and prints the median wall time.
+   *
+   * @param label     the name of the configuration
+   * @param classpath the classpath of the application
+   * @param archive   the class-data sharing archive to use, or null for none
+   * @param script    the script to run
+   * @param runs      the number of launches
+   * @throws Exception if the application cannot be launched or fails
+   */
+  private static void report(String label, String classpath, String archive, Path script,
+                             int runs) throws Exception {
+    List<String> command = new ArrayList<>();
+    command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator
+            + "java");
+    if (archive != null) {
+      command.add("-XX:SharedArchiveFile=" + archive);
+      command.add("-Xshare:auto");
+    }
+    command.addAll(Arrays.asList("-cp", classpath, "main.ImageProcessingApplication", "-file",
+            script.toString()));
+
+    long[] times = new long[runs];
+    for (int i = 0; i < runs; i++) {
+      long start = System.nanoTime();
+      Process process = new ProcessBuilder(command).redirectErrorStream(true)
+              .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+      if (process.waitFor() != 0) {
+        throw new IllegalStateException(label + " exited with " + process.exitValue());
+      }
+      times[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(times);
+    System.out.printf("%-28s median %6.1f ms, best %6.1f ms%n", label,
+            times[runs / 2] / 1e6, times[0] / 1e6);
+  }
+}
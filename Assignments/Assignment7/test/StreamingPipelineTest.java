@@ -0,0 +1,128 @@
+import controller.CommandExecutor;
+import controller.ImageIOUtil;
+import controller.streaming.PngRowReader;
+import controller.streaming.PngRowWriter;
+import controller.streaming.StreamingScriptRunner;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ImageInterface;
+import model.streaming.ImageRowSource;
+import model.streaming.StreamingPipeline;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * A class that tests the row-streaming readers, writers and script runner against the
+ * whole-image code paths.
+ */
+public class StreamingPipelineTest {
+
+  private final ImageInterface image = TestImages.randomByteImage(37, 29, 11);
+
+  /**
+   * Creates a temporary file that is deleted when the tests finish.
+   *
+   * @param suffix The file extension, including the dot.
+   * @return The path to the file.
+   * @throws IOException If the file cannot be created.
+   */
+  private static String tempFile(String suffix) throws IOException {
+    File file = File.createTempFile("stream", suffix);
+    file.deleteOnExit();
+    return file.getPath();
+  }
+
+  @Test
+  public void testPngWriterOutputDecodesToSamePixels() throws IOException {
+    String path = tempFile(".png");
+    StreamingPipeline.run(new ImageRowSource(image),
+            new PngRowWriter(path, image.getWidth(), image.getHeight(), 255), 5);
+    assertArrayEquals(image.getPixels(), ImageIOUtil.readImage(path).getPixels());
+  }
+
+  @Test
+  public void testPngReaderMatchesImageIo() throws IOException {
+    String path = tempFile(".png");
+    BufferedImage rgba = new BufferedImage(37, 29, BufferedImage.TYPE_INT_ARGB);
+    Random random = new Random(4);
+    for (int y = 0; y < 29; y++) {
+      for (int x = 0; x < 37; x++) {
+        rgba.setRGB(x, y, random.nextInt());
+      }
+    }
+    ImageIO.write(rgba, "png", new File(path));
+
+    PngRowReader reader = PngRowReader.open(path);
+    assertNotNull(reader);
+    ImageInterface first = reader.readBand(10);
+    ImageInterface rest = reader.readBand(100);
+    reader.close();
+    ImageInterface expected = ImageIOUtil.readImage(path);
+    for (int y = 0; y < 29; y++) {
+      for (int x = 0; x < 37; x++) {
+        assertArrayEquals(expected.getPixel(x, y),
+                y < 10 ? first.getPixel(x, y) : rest.getPixel(x, y - 10));
+      }
+    }
+  }
+
+  @Test
+  public void testStreamedScriptMatchesNormalScript() throws IOException {
+    String input = tempFile(".ppm");
+    ImageIOUtil.writePPM(image, input);
+    String streamed = tempFile(".ppm");
+    String whole = tempFile(".png");
+    String script = "load %s scan\n"
+            + "sharpen scan sharp\n"
+            + "# comment lines are skipped\n"
+            + "sepia sharp toned\n"
+            + "box-blur 3 toned soft\n"
+            + "blur soft out\n"
+            + "save %s out\n";
+
+    new StreamingScriptRunner(4).runScript(new StringReader(String.format(script, input,
+            streamed)));
+    ImageModelInterface model = new ImageModelImpl();
+    new CommandExecutor(model).runScript(new StringReader(String.format(script, input, whole)));
+
+    assertArrayEquals(model.getImage("out").getPixels(),
+            ImageIOUtil.readPPM(streamed).getPixels());
+  }
+
+  @Test
+  public void testStreamedPngToPng() throws IOException {
+    String input = tempFile(".png");
+    ImageIOUtil.writeImage(image, input);
+    String output = tempFile(".png");
+    new StreamingScriptRunner(8).runScript(new StringReader("load " + input + " a\n"
+            + "horizontal-flip a b\nsave " + output + " b\n"));
+
+    ImageInterface result = ImageIOUtil.readImage(output);
+    assertEquals(image.getWidth(), result.getWidth());
+    assertArrayEquals(image.getPixel(0, 3), result.getPixel(image.getWidth() - 1, 3));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWholeImageOperationIsRejected() {
+    new StreamingScriptRunner().runScript(new StringReader(
+            "load in.ppm a\ncolor-correct a b\nsave out.ppm b\n"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testBranchingScriptIsRejected() {
+    new StreamingScriptRunner().runScript(new StringReader(
+            "load in.ppm a\nsepia a b\nblur a c\nsave out.ppm c\n"));
+  }
+}
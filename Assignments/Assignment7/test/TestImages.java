@@ -0,0 +1,90 @@
+import model.image.ByteImage;
+import model.image.ShortImage;
+
+import java.util.Random;
+
+/**
+ * Creates the random pixels and images that the tests use as inputs.
+ */
+public class TestImages {
+
+  /**
+   * Creates random pixels in the range [0, maxValue].
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value.
+   * @param seed     The random seed.
+   * @return The pixels, indexed by row, column and channel.
+   */
+  public static int[][][] randomPixels(int width, int height, int maxValue, long seed) {
+    Random random = new Random(seed);
+    int[][][] pixels = new int[height][width][3];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        for (int c = 0; c < 3; c++) {
+          pixels[y][x][c] = random.nextInt(maxValue + 1);
+        }
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Creates an 8-bit image of random bytes.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param seed   The random seed.
+   * @return The image.
+   */
+  public static ByteImage randomByteImage(int width, int height, long seed) {
+    Random random = new Random(seed);
+    byte[][] planes = new byte[3][width * height];
+    for (byte[] plane : planes) {
+      random.nextBytes(plane);
+    }
+    return new ByteImage(width, height, 255, planes);
+  }
+
+  /**
+   * Creates an 8-bit image of random values in a range.
+   *
+   * @param width  The width of the image.
+   * @param height The height of the image.
+   * @param min    The smallest value.
+   * @param max    The largest value.
+   * @param seed   The random seed.
+   * @return The image.
+   */
+  public static ByteImage randomByteImage(int width, int height, int min, int max, long seed) {
+    Random random = new Random(seed);
+    byte[][] planes = new byte[3][width * height];
+    for (byte[] plane : planes) {
+      for (int i = 0; i < plane.length; i++) {
+        plane[i] = (byte) (min + random.nextInt(max - min + 1));
+      }
+    }
+    return new ByteImage(width, height, 255, planes);
+  }
+
+  /**
+   * Creates a 16-bit image of random values in the range [0, maxValue].
+   *
+   * @param width    The width of the image.
+   * @param height   The height of the image.
+   * @param maxValue The maximum value.
+   * @param seed     The random seed.
+   * @return The image.
+   */
+  public static ShortImage randomShortImage(int width, int height, int maxValue, long seed) {
+    Random random = new Random(seed);
+    short[][] planes = new short[3][width * height];
+    for (short[] plane : planes) {
+      for (int i = 0; i < plane.length; i++) {
+        plane[i] = (short) random.nextInt(maxValue + 1);
+      }
+    }
+    return new ShortImage(width, height, maxValue, planes);
+  }
+}
@@ -0,0 +1,151 @@
+import controller.CommandExecutor;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.operationimpls.CompressOperation;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests compressing an image one tile at a time.
+ */
+public class TiledCompressTest {
+
+  /**
+   * Creates an image of smooth gradients with some noise, so that it has coefficients of many
+   * sizes.
+   *
+   * @param seed   The random seed.
+   * @param width  The width.
+   * @param height The height.
+   * @return The image.
+   */
+  private static ImageInterface noisyGradient(long seed, int width, int height) {
+    Random random = new Random(seed);
+    int[][] planes = new int[3][width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int i = y * width + x;
+        planes[0][i] = Math.min(255, x * 255 / width + random.nextInt(20));
+        planes[1][i] = Math.min(255, y * 255 / height + random.nextInt(20));
+        planes[2][i] = random.nextInt(256);
+      }
+    }
+    return ImageFactory.fromPlanes(width, height, 255, planes);
+  }
+
+  @Test
+  public void testSingleTileMatchesWholeImage() {
+    ImageInterface image = noisyGradient(1, 100, 70);
+    ImageInterface whole = new CompressOperation(60).execute(image);
+    ImageInterface tiled = new CompressOperation(60, 128, true).execute(image);
+    assertArrayEquals(whole.getPixels(), tiled.getPixels());
+  }
+
+  @Test
+  public void testNoCompressionKeepsTheImage() {
+    ImageInterface image = noisyGradient(2, 130, 75);
+    for (boolean perTile : new boolean[]{true, false}) {
+      ImageInterface tiled = new CompressOperation(0, 32, perTile).execute(image);
+      assertEquals(130, tiled.getWidth());
+      assertEquals(75, tiled.getHeight());
+      assertArrayEquals(image.getPixels(), tiled.getPixels());
+    }
+  }
+
+  @Test
+  public void testPerTileThresholdsAreLocal() {
+    ImageInterface image = noisyGradient(3, 64, 32);
+    int[][] planes = new int[3][64 * 32];
+    for (int c = 0; c < 3; c++) {
+      for (int i = 0; i < planes[c].length; i++) {
+        planes[c][i] = image.getChannelValue(i % 64, i / 64, c);
+      }
+    }
+    for (int i = 0; i < planes[0].length; i++) {
+      if (i % 64 >= 32) {
+        planes[2][i] = 128;
+      }
+    }
+    ImageInterface changed = ImageFactory.fromPlanes(64, 32, 255, planes);
+
+    ImageInterface before = new CompressOperation(50, 32, true).execute(image);
+    ImageInterface after = new CompressOperation(50, 32, true).execute(changed);
+    assertEquals(leftHalf(before), leftHalf(after));
+
+    before = new CompressOperation(50, 32, false).execute(image);
+    after = new CompressOperation(50, 32, false).execute(changed);
+    assertNotEquals(leftHalf(before), leftHalf(after));
+  }
+
+  /**
+   * Describes the blue channel of the left 32 columns of an image.
+   *
+   * @param image The image.
+   * @return The values, row by row.
+   */
+  private static String leftHalf(ImageInterface image) {
+    StringBuilder values = new StringBuilder();
+    for (int y = 0; y < image.getHeight(); y++) {
+      for (int x = 0; x < 32; x++) {
+        values.append(image.getChannelValue(x, y, 2)).append(' ');
+      }
+    }
+    return values.toString();
+  }
+
+  @Test
+  public void testGlobalThresholdTracksPercentage() {
+    ImageInterface image = noisyGradient(4, 200, 150);
+    double previous = -1;
+    for (int percentage : new int[]{10, 50, 90}) {
+      ImageInterface tiled = new CompressOperation(percentage, 64, false).execute(image);
+      double error = 0;
+      for (int y = 0; y < 150; y++) {
+        for (int x = 0; x < 200; x++) {
+          for (int c = 0; c < 3; c++) {
+            error += Math.abs(tiled.getChannelValue(x, y, c) - image.getChannelValue(x, y, c));
+          }
+        }
+      }
+      assertTrue(percentage + "% should lose more than less compression", error > previous);
+      previous = error;
+    }
+  }
+
+  @Test
+  public void testCompressCommandWithTiles() throws IOException {
+    ImageModelInterface model = new ImageModelImpl();
+    model.addImage("img", noisyGradient(5, 90, 60));
+    new CommandExecutor(model).runScript(new StringReader(
+            "compress --tile 32 40 img global\n"
+                    + "compress --tile 32 --per-tile 40 img local\n"));
+    assertArrayEquals(new CompressOperation(40, 32, false).execute(model.getImage("img"))
+            .getPixels(), model.getImage("global").getPixels());
+    assertArrayEquals(new CompressOperation(40, 32, true).execute(model.getImage("img"))
+            .getPixels(), model.getImage("local").getPixels());
+  }
+
+  @Test
+  public void testInvalidTileSizesAreRejected() {
+    for (int tileSize : new int[]{-4, 1, 3, 100}) {
+      try {
+        new CompressOperation(50, tileSize, false);
+        fail("Tile size " + tileSize + " should be rejected.");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+}
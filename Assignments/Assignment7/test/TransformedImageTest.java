@@ -0,0 +1,179 @@
+import controller.CommandExecutor;
+import model.ImageModelImpl;
+import model.ImageModelInterface;
+import model.image.GrayImage;
+import model.image.Image;
+import model.image.ImageFactory;
+import model.image.ImageInterface;
+import model.image.PlanarImage;
+import model.image.TransformedImage;
+import model.operationimpls.AdvancedImageProcessorImpl;
+import model.operationinterface.AdvancedImageProcessor;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * A class that tests flipped, rotated and cropped image views and the rotate and crop commands.
+ */
+public class TransformedImageTest {
+
+  private final AdvancedImageProcessor processor = new AdvancedImageProcessorImpl();
+
+  /**
+   * Applies the same chain of edits to a planar image, as views, and to an int-based image,
+   * by copying, and checks that the results agree.
+   *
+   * @param maxValue The maximum value of the images.
+   */
+  private void checkChains(int maxValue) {
+    int[][][] pixels = TestImages.randomPixels(7, 5, maxValue, maxValue);
+    ImageInterface planar = ImageFactory.create(7, 5, maxValue, pixels);
+    ImageInterface copied = new Image(7, 5, maxValue, pixels);
+    String[] edits = {"rotate90", "flip-h", "crop", "rotate270", "flip-v", "rotate180",
+        "crop"};
+    for (String edit : edits) {
+      planar = edit(planar, edit);
+      copied = edit(copied, edit);
+      assertTrue(planar instanceof TransformedImage);
+      assertTrue(copied instanceof Image);
+      assertEquals(copied.getWidth(), planar.getWidth());
+      assertEquals(copied.getHeight(), planar.getHeight());
+      assertArrayEquals(edit, copied.getPixels(), planar.getPixels());
+      for (int c = 0; c < 3; c++) {
+        int[] plane = ((PlanarImage) planar).readPlane(c);
+        for (int y = 0; y < planar.getHeight(); y++) {
+          for (int x = 0; x < planar.getWidth(); x++) {
+            assertEquals(copied.getChannelValue(x, y, c), plane[y * planar.getWidth() + x]);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Applies one edit.
+   *
+   * @param image The image.
+   * @param edit  The name of the edit.
+   * @return The edited image.
+   */
+  private ImageInterface edit(ImageInterface image, String edit) {
+    switch (edit) {
+      case "rotate90":
+        return processor.rotate(image, 90);
+      case "rotate180":
+        return processor.rotate(image, 180);
+      case "rotate270":
+        return processor.rotate(image, -90);
+      case "flip-h":
+        return processor.flipHorizontal(image);
+      case "flip-v":
+        return processor.flipVertical(image);
+      default:
+        return processor.crop(image, 1, 1, image.getWidth() - 2, image.getHeight() - 1);
+    }
+  }
+
+  @Test
+  public void testChainsMatchCopiesEightBit() {
+    checkChains(255);
+  }
+
+  @Test
+  public void testChainsMatchCopiesSixteenBit() {
+    checkChains(4095);
+  }
+
+  @Test
+  public void testRotateSwapsDimensions() {
+    int[][][] pixels = {{{1, 1, 1}, {2, 2, 2}, {3, 3, 3}}};
+    ImageInterface image = ImageFactory.create(3, 1, 255, pixels);
+    ImageInterface rotated = processor.rotate(image, 90);
+    assertEquals(1, rotated.getWidth());
+    assertEquals(3, rotated.getHeight());
+    assertEquals(1, rotated.getChannelValue(0, 0, 0));
+    assertEquals(3, rotated.getChannelValue(0, 2, 0));
+    ImageInterface back = processor.rotate(rotated, 270);
+    assertArrayEquals(pixels, back.getPixels());
+    assertArrayEquals(pixels, processor.rotate(image, 360).getPixels());
+  }
+
+  @Test
+  public void testMaterializedOnceAndShared() {
+    ImageInterface image = ImageFactory.create(4, 3, 255, TestImages.randomPixels(4, 3, 255, 1));
+    TransformedImage view = (TransformedImage) processor.flipHorizontal(image);
+    assertSame(view.materialize(), view.materialize());
+    assertSame(view.materialize(), view.clone().materialize());
+  }
+
+  @Test
+  public void testSplitOfViewIsViewOfChannels() {
+    int[][][] pixels = TestImages.randomPixels(5, 4, 255, 2);
+    ImageInterface image = processor.rotate(ImageFactory.create(5, 4, 255, pixels), 90);
+    ImageInterface[] channels = processor.split(image);
+    for (int c = 0; c < 3; c++) {
+      assertTrue(channels[c] instanceof TransformedImage);
+      for (int y = 0; y < 5; y++) {
+        for (int x = 0; x < 4; x++) {
+          assertEquals(image.getChannelValue(x, y, c), channels[c].getChannelValue(x, y, 1));
+        }
+      }
+    }
+    PlanarImage gray = ((TransformedImage) channels[0]).materialize();
+    assertTrue(gray instanceof GrayImage);
+  }
+
+  @Test
+  public void testPointOperationOnView() {
+    int[][][] pixels = TestImages.randomPixels(3, 3, 200, 3);
+    ImageInterface view = processor.flipVertical(ImageFactory.create(3, 3, 255, pixels));
+    ImageInterface brighter = processor.brighten(view, 5);
+    assertEquals(pixels[2][0][1] + 5, brighter.getChannelValue(0, 0, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCropOutsideImage() {
+    processor.crop(ImageFactory.create(2, 2, 255, TestImages.randomPixels(2, 2, 255, 4)),
+            1, 1, 2, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testRotateByOddAngle() {
+    processor.rotate(ImageFactory.create(2, 2, 255, TestImages.randomPixels(2, 2, 255, 4)), 45);
+  }
+
+  @Test
+  public void testRotateAndCropCommands() {
+    ImageModelInterface model = new ImageModelImpl();
+    int[][][] pixels = TestImages.randomPixels(6, 4, 255, 5);
+    model.addImage("a", ImageFactory.create(6, 4, 255, pixels));
+    CommandExecutor executor = new CommandExecutor(model);
+    executor.executeCommand("rotate 90 a r");
+    executor.executeCommand("crop 1 2 2 3 r c");
+    ImageInterface cropped = model.getImage("c");
+    assertEquals(2, cropped.getWidth());
+    assertEquals(3, cropped.getHeight());
+    // Pixel (x, y) of r is pixel (y, 3 - x) of a, so (1 + x, 2 + y) of r is (2 + y, 2 - x).
+    assertArrayEquals(pixels[2][2], cropped.getPixel(0, 0));
+    assertArrayEquals(pixels[1][4], cropped.getPixel(1, 2));
+
+    try {
+      executor.executeCommand("crop 0 0 10 10 a d");
+      fail("Crop outside the image should fail.");
+    } catch (RuntimeException e) {
+      assertTrue(e.getMessage().contains("outside"));
+    }
+    try {
+      executor.executeCommand("rotate 30 a d");
+      fail("Rotation by 30 degrees should fail.");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("multiple of 90"));
+    }
+  }
+}